@@ -0,0 +1,25 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run settings shared by every benchmark, so results from different releases are comparable: average time per
+ * operation in microseconds, one fork, five one-second warm-up and measurement iterations.
+ * <p> Run with mvn -P benchmarks verify; results are written to target/jmh-result.json. Pass JMH options, e.g. a
+ * benchmark name pattern or -p rows=1000, with -Dbenchmark.args="...".
+ * @author Ben Porter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class BenchmarkDefaults {
+}
@@ -0,0 +1,97 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import schedual.helper.ConflictChecker;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.RowMappers;
+import schedual.model.Appointment;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Conflict Checking against the database - is a proposed appointment free, asked of the LoadHarness database?
+ * <p> legacyReloadAndParse reloads every appointment from the day before the proposed start to the day after its end and
+ * parses each row's formatted times back, as the original checkOverlaps did; conflictQuery runs the ConflictChecker's
+ * indexed UNION range query. Each invocation checks the next of PROBES proposed ranges on one pooled connection.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class ConflictQueryBenchmark extends BenchmarkDefaults {
+    private static final String LEGACY_SQL = "SELECT * FROM appointments WHERE Start between ? and ? ORDER BY Start";
+    private static final int CONTACTS = 10;
+    private static final int PROBES = 1024;
+
+    @Param({"10000", "100000"})
+    public int appointments;
+
+    private int customers;
+    private Connection connection;
+    private LocalDateTime[] starts;
+    private int[][] participants;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException, IOException {
+        customers = Math.max(1, appointments / 100);
+        LoadHarness.openEmbedded(customers, CONTACTS, appointments);
+        connection = JDBC.borrowConnection();
+        Random random = new Random(SyntheticData.SEED);
+        starts = new LocalDateTime[PROBES];
+        participants = new int[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            starts[i] = LocalDateTime.of(SyntheticData.BASE_DATE.plusDays(random.nextInt(730)), LocalTime.of(8, 0))
+                    .plusMinutes(15L * random.nextInt(52));
+            participants[i] = new int[]{1 + random.nextInt(customers), 1 + random.nextInt(CONTACTS), 1 + random.nextInt(2)};
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+        JDBC.closeConnection();
+    }
+
+    @Benchmark
+    public int legacyReloadAndParse() throws SQLException {
+        int probe = next++ & (PROBES - 1);
+        LocalDateTime inputStart = starts[probe];
+        LocalDateTime inputEnd = inputStart.plusMinutes(30);
+        DateTimeFormatter format = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
+        List<Appointment> nearby = QueryExecutor.query(connection, LEGACY_SQL, RowMappers::appointment,
+                Date.valueOf(inputStart.toLocalDate().minusDays(1)), Date.valueOf(inputEnd.toLocalDate().plusDays(1)));
+        for (Appointment appointment : nearby) {
+            LocalDateTime start = LocalDateTime.parse(appointment.getStartDateTime().format(format), format);
+            LocalDateTime end = LocalDateTime.parse(appointment.getEndDateTime().format(format), format);
+            if ((start.isAfter(inputStart) && start.isBefore(inputEnd))
+                    || (start.isBefore(inputStart) && end.isAfter(inputStart))
+                    || start.isEqual(inputStart)) {
+                return appointment.getAppointment_ID();
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public List<Integer> conflictQuery() throws SQLException {
+        int probe = next++ & (PROBES - 1);
+        int[] ids = participants[probe];
+        return ConflictChecker.findConflicts(connection, starts[probe], starts[probe].plusMinutes(30),
+                ids[0], ids[1], ids[2], -1);
+    }
+}
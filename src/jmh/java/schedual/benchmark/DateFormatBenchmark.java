@@ -0,0 +1,54 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import schedual.helper.DateTimeCells;
+import schedual.model.Appointment;
+
+import java.sql.Timestamp;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.List;
+
+/**
+ * Date Formatting - rendering the Start and End columns of a table of appointments.
+ * <p> legacyFormatter builds a localized formatter and formats every time, as the original Controllers did;
+ * dateTimeCells formats through DateTimeCells.format and its cache of repeated 15 minute grid times.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class DateFormatBenchmark extends BenchmarkDefaults {
+
+    @Param({"1000", "10000", "100000"})
+    public int appointments;
+
+    private List<Appointment> rows;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        rows = SyntheticData.appointments(appointments, Math.max(1, appointments / 20), 10);
+    }
+
+    @Benchmark
+    public void legacyFormatter(Blackhole blackhole) {
+        for (Appointment appointment : rows) {
+            blackhole.consume(new Timestamp(appointment.getStart()).toLocalDateTime()
+                    .format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)));
+            blackhole.consume(new Timestamp(appointment.getEnd()).toLocalDateTime()
+                    .format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)));
+        }
+    }
+
+    @Benchmark
+    public void dateTimeCells(Blackhole blackhole) {
+        for (Appointment appointment : rows) {
+            blackhole.consume(DateTimeCells.format(appointment.getStart()));
+            blackhole.consume(DateTimeCells.format(appointment.getEnd()));
+        }
+    }
+}
@@ -0,0 +1,523 @@
+package schedual.benchmark;
+
+import schedual.helper.AppointmentIndex;
+import schedual.helper.AppointmentPager;
+import schedual.helper.ChangeFeed;
+import schedual.helper.ConflictChecker;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.ReportQueries;
+import schedual.helper.RowMappers;
+import schedual.helper.SearchIndex;
+import schedual.helper.Validation;
+import schedual.model.Appointment;
+import schedual.model.Customer;
+import schedual.service.AppointmentService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless Load Harness - seeds an embedded client_schedule database and drives the screens' data paths concurrently.
+ * <p> By default the database is an in-memory H2 in MySQL mode, so nothing needs a MySQL server. The schema comes from
+ * schedual/sql/client_schedule_schema.sql and appointments_indexes.sql. It is seeded with SyntheticData at the requested
+ * scale, and the AppointmentIndex and SearchIndex are loaded as they are at log-in.
+ * <p> Worker threads then run a weighted mix of what the screens do: paging and counting the Appointments view, conflict
+ * checks, change feed polls, searches, the three reports, and an insert, update and delete cycle through the
+ * AppointmentService. Every operation borrows its connection from the same pool the application uses. The latency percentiles of each operation are printed,
+ * and written as JSON with --out.
+ * <p> Usage: [--url JDBC_URL] [--user NAME] [--password TEXT] [--customers N] [--contacts N] [--appointments N]
+ * [--threads N] [--operations N] [--out FILE]. Against another database the schema must already exist; it is seeded
+ * only when its appointments table is empty.
+ * @author Ben Porter
+ */
+public class LoadHarness {
+    private static final String H2_URL = "jdbc:h2:mem:client_schedule;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+            "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=END,YEAR,MONTH,VALUE,KEY,USER;DB_CLOSE_DELAY=-1;" +
+            "OPTIMIZE_REUSE_RESULTS=FALSE"; // MySQL keeps no query cache, so a repeated report must run again
+    private static final String[] SCHEMA_SCRIPTS = {"/schedual/sql/client_schedule_schema.sql", "/schedual/sql/appointments_indexes.sql"};
+    private static final int SEED_CHUNK = 1000;
+    private static final int PAGE_SIZE = 50;
+    private static final int SEARCH_LIMIT = 200;
+    private static final String USER = "harness";
+
+    private static final String INSERT_APPOINTMENT = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, " +
+            "Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String APPOINTMENT_FEED_SQL = "SELECT *, Last_Update AS Change_Time FROM appointments";
+
+    /** One kind of operation in the mix, with its relative weight. */
+    private enum Operation {
+        PAGE("appointments.page", 20),
+        CONFLICT_CHECK("appointments.conflictCheck", 20),
+        CHANGE_FEED("appointments.changeFeed", 10),
+        SEARCH("appointments.search", 10),
+        CONTACT_SCHEDULE("reports.contactSchedule", 10),
+        MONTH_TYPE_TOTALS("reports.monthTypeTotals", 5),
+        ENGAGEMENT("reports.engagement", 5),
+        WRITE_CYCLE("appointments.write", 10);
+
+        private final String label;
+        private final int weight;
+
+        Operation(String label, int weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+    }
+
+    /** Latencies of each labelled operation, in nanoseconds. */
+    private static final class Latencies {
+        private final Map<String, long[]> samples = new TreeMap<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final Map<String, Integer> errors = new TreeMap<>();
+
+        private synchronized void record(String label, long nanos) {
+            long[] values = samples.computeIfAbsent(label, key -> new long[1024]);
+            int count = counts.getOrDefault(label, 0);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                samples.put(label, values);
+            }
+            values[count] = nanos;
+            counts.put(label, count + 1);
+        }
+
+        private synchronized void fail(String label) {
+            errors.merge(label, 1, Integer::sum);
+        }
+    }
+
+    private final Map<String, String> options;
+    private final Latencies latencies = new Latencies();
+    private final AppointmentService appointmentService = new AppointmentService(Runnable::run); // on the worker thread
+    private final AtomicInteger remaining = new AtomicInteger();
+    private int customers;
+    private int contacts;
+    private int appointments;
+
+    private LoadHarness(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Runs the harness.
+     * @param args the options described in the class comment.
+     * @throws Exception when the database could not be opened or seeded.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected Argument " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        new LoadHarness(options).run();
+    }
+
+    /**
+     * Opens the pool on the embedded H2 database and seeds it, as main does by default, for the benchmarks that query
+     * it. The database lives until the JVM exits, so each benchmark fork seeds it once.
+     * @param customers the number of customers to seed.
+     * @param contacts the number of contacts to seed.
+     * @param appointments the number of appointments to seed.
+     * @throws SQLException when the database could not be opened or seeded.
+     * @throws IOException when a schema script could not be read.
+     */
+    static void openEmbedded(int customers, int contacts, int appointments) throws SQLException, IOException {
+        LoadHarness harness = new LoadHarness(Map.of());
+        harness.customers = customers;
+        harness.contacts = contacts;
+        harness.appointments = appointments;
+        JDBC.configure(H2_URL, JDBC.Dialect.of(H2_URL));
+        JDBC.open("sa", "");
+        try (Connection connection = JDBC.borrowConnection()) {
+            harness.seed(connection);
+        }
+    }
+
+    private void run() throws Exception {
+        customers = option("customers", 1000);
+        contacts = option("contacts", 10);
+        appointments = option("appointments", 100_000);
+        int threads = option("threads", 16);
+        int operations = option("operations", 20_000);
+        String url = options.getOrDefault("url", H2_URL);
+
+        JDBC.configure(url, JDBC.Dialect.of(url));
+        JDBC.open(options.getOrDefault("user", "sa"), options.getOrDefault("password", ""));
+        try (Connection connection = JDBC.borrowConnection()) {
+            seed(connection);
+            timed("load.appointmentIndex", () -> AppointmentIndex.load(connection));
+            timed("load.searchIndex", () -> SearchIndex.load(connection));
+        }
+
+        System.out.println("Load Harness: " + operations + " operations on " + threads + " threads against " + JDBC.getDialect());
+        remaining.set(operations);
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            long seed = SyntheticData.SEED + i;
+            workers.add(executor.submit(() -> work(new Random(seed))));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf(Locale.ROOT, "Completed in %.1f s, %.0f operations/s%n", seconds, operations / seconds);
+        System.out.println(report());
+        System.out.println("Connection Pool: " + JDBC.getPoolMetrics());
+        if (options.containsKey("out")) {
+            Files.writeString(Path.of(options.get("out")), json(), StandardCharsets.UTF_8);
+        }
+        JDBC.closeConnection();
+    }
+
+    /**
+     * Creates the schema on an embedded database and seeds it, unless appointments already holds rows.
+     */
+    private void seed(Connection connection) throws SQLException, IOException {
+        if (JDBC.getDialect() == JDBC.Dialect.H2) {
+            for (String script : SCHEMA_SCRIPTS) {
+                for (String statement : statements(script)) {
+                    QueryExecutor.update(connection, statement);
+                }
+            }
+        }
+        Integer existing = QueryExecutor.queryFirst(connection, "SELECT COUNT(*) AS Total FROM appointments", rs -> rs.getInt("Total"));
+        if (existing != null && existing > 0) {
+            System.out.println("Load Harness: using the " + existing + " existing appointments");
+            return;
+        }
+        long started = System.nanoTime();
+        Timestamp now = Timestamp.from(Instant.now());
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            List<Object[]> rows = new ArrayList<>();
+            for (String country : new String[]{"U.S", "UK", "Canada"}) {
+                rows.add(new Object[]{country, now, USER, now, USER});
+            }
+            QueryExecutor.batch(connection, "INSERT INTO countries (Country, Create_Date, Created_By, Last_Update, Last_Updated_By) " +
+                    "VALUES (?, ?, ?, ?, ?)", rows);
+            rows.clear();
+            for (int division = 1; division <= 64; division++) {
+                rows.add(new Object[]{"Division " + division, now, USER, now, USER, 1 + division % 3});
+            }
+            QueryExecutor.batch(connection, "INSERT INTO first_level_divisions (Division, Create_Date, Created_By, Last_Update, " +
+                    "Last_Updated_By, Country_ID) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            rows.clear();
+            for (String user : new String[]{"test", "admin"}) {
+                rows.add(new Object[]{user, user, now, USER, now, USER});
+            }
+            QueryExecutor.batch(connection, "INSERT INTO users (User_Name, Password, Create_Date, Created_By, Last_Update, " +
+                    "Last_Updated_By) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            rows.clear();
+            for (String contact : SyntheticData.contacts(contacts)) {
+                rows.add(new Object[]{contact, contact.toLowerCase(Locale.ROOT).replace(' ', '.') + "@company.com"});
+            }
+            QueryExecutor.batch(connection, "INSERT INTO contacts (Contact_Name, Email) VALUES (?, ?)", rows);
+            rows.clear();
+            for (Customer customer : SyntheticData.customers(customers)) {
+                rows.add(new Object[]{customer.getCustomer_Name(), customer.getAddress(), customer.getPostal_Code(),
+                        customer.getPhone(), now, USER, now, USER, customer.getDivision_ID()});
+                flush(connection, "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
+                        "Last_Update, Last_Updated_By, Division_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows, false);
+            }
+            flush(connection, "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, " +
+                    "Last_Update, Last_Updated_By, Division_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows, true);
+            for (Appointment appointment : SyntheticData.appointments(appointments, customers, contacts)) {
+                rows.add(parameters(appointment, now));
+                flush(connection, INSERT_APPOINTMENT, rows, false);
+            }
+            flush(connection, INSERT_APPOINTMENT, rows, true);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        System.out.printf(Locale.ROOT, "Load Harness: seeded %d customers, %d contacts and %d appointments in %.1f s%n",
+                customers, contacts, appointments, (System.nanoTime() - started) / 1e9);
+    }
+
+    /**
+     * Inserts and commits the buffered rows once SEED_CHUNK have been collected, or at the end.
+     */
+    private static void flush(Connection connection, String sql, List<Object[]> rows, boolean last) throws SQLException {
+        if (rows.size() >= SEED_CHUNK || (last && !rows.isEmpty())) {
+            QueryExecutor.batch(connection, sql, rows);
+            connection.commit();
+            rows.clear();
+        }
+    }
+
+    /**
+     * Runs operations from the weighted mix until the shared budget is spent.
+     */
+    private void work(Random random) {
+        int totalWeight = 0;
+        for (Operation operation : Operation.values()) {
+            totalWeight += operation.weight;
+        }
+        ChangeFeed<Appointment> feed = new ChangeFeed<>("appointments", "Appointment_ID", APPOINTMENT_FEED_SQL,
+                "Last_Update", RowMappers::appointment);
+        while (remaining.getAndDecrement() > 0) {
+            int pick = random.nextInt(totalWeight);
+            Operation operation = Operation.PAGE;
+            for (Operation candidate : Operation.values()) {
+                pick -= candidate.weight;
+                if (pick < 0) {
+                    operation = candidate;
+                    break;
+                }
+            }
+            try {
+                if (operation == Operation.WRITE_CYCLE) {
+                    writeCycle(random); // the AppointmentService borrows its own connections
+                } else {
+                    try (Connection connection = JDBC.borrowConnection()) {
+                        perform(operation, connection, random, feed);
+                    }
+                }
+            } catch (Exception e) {
+                latencies.fail(operation.label);
+            }
+        }
+    }
+
+    private void perform(Operation operation, Connection connection, Random random, ChangeFeed<Appointment> feed)
+            throws SQLException {
+        LocalDateTime start = randomStart(random);
+        LocalDateTime end = start.plusMinutes(30);
+        int customerID = 1 + random.nextInt(customers);
+        int contactID = 1 + random.nextInt(contacts);
+        switch (operation) {
+            case PAGE:
+                timed(operation.label, () -> {
+                    AppointmentPager pager = new AppointmentPager(start.toLocalDate().withDayOfMonth(1),
+                            start.toLocalDate().withDayOfMonth(1).plusMonths(1), "start", true, PAGE_SIZE);
+                    pager.firstPage(connection);
+                    return pager.count(connection);
+                });
+                break;
+            case CONFLICT_CHECK:
+                timed(operation.label, () -> ConflictChecker.findConflicts(connection, start, end, customerID, contactID,
+                        1 + random.nextInt(2), -1));
+                break;
+            case CHANGE_FEED:
+                timed(operation.label, () -> feed.poll(connection));
+                break;
+            case SEARCH:
+                timed(operation.label, () -> SearchIndex.searchAppointments(
+                        SyntheticData.WORDS[random.nextInt(SyntheticData.WORDS.length)], SEARCH_LIMIT));
+                break;
+            case CONTACT_SCHEDULE:
+                timed(operation.label, () -> ReportQueries.contactSchedule(connection, contactID));
+                break;
+            case MONTH_TYPE_TOTALS:
+                timed(operation.label, () -> ReportQueries.monthTypeTotals(connection, null));
+                break;
+            case ENGAGEMENT:
+                timed(operation.label, () -> ReportQueries.engagement(connection, System.currentTimeMillis()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Adds, moves and removes an appointment through the AppointmentService, as the Appointments screen does: each write
+     * is validated and conflict-checked, stamped by the database, and kept in the AppointmentIndex and SearchIndex. The
+     * appointment falls within the business hours of its start date; a write the service rejects for a conflict is
+     * counted as appointments.rejected.
+     */
+    private void writeCycle(Random random) throws SQLException {
+        LocalDate day = SyntheticData.BASE_DATE.plusDays(random.nextInt(730));
+        LocalDateTime[] hours = Validation.businessHours(day);
+        LocalDateTime close = hours[1].isBefore(day.plusDays(1).atStartOfDay()) ? hours[1] : day.plusDays(1).atStartOfDay();
+        long slots = Duration.between(hours[0], close).toMinutes() / 15 - 2; // room for the 30 minutes and the 15 minute move
+        LocalDateTime start = hours[0].plusMinutes(15L * random.nextInt((int) slots));
+        LocalDateTime end = start.plusMinutes(30);
+        int customerID = 1 + random.nextInt(customers);
+        int contactID = 1 + random.nextInt(contacts);
+        int userID = 1 + random.nextInt(2);
+        Integer id = timed("appointments.insert", () -> await(appointmentService.add(
+                appointment(0, "Load Test", start, end, customerID, userID, contactID))));
+        if (id == null) {
+            return;
+        }
+        timed("appointments.update", () -> await(appointmentService.update(
+                appointment(id, "Load Test Moved", start.plusMinutes(15), end.plusMinutes(15), customerID, userID, contactID))));
+        timed("appointments.delete", () -> await(appointmentService.delete(id)));
+    }
+
+    private static Appointment appointment(int id, String title, LocalDateTime start, LocalDateTime end, int customerID,
+                                           int userID, int contactID) {
+        return new Appointment(id, title, "Harness write", "Phoenix, Arizona", "Review",
+                Timestamp.valueOf(start).getTime(), Timestamp.valueOf(end).getTime(), customerID, userID, contactID);
+    }
+
+    /**
+     * Waits for a service write. Returns null when the service rejected it, e.g. for a conflict, and rethrows database
+     * failures.
+     */
+    private <T> T await(CompletableFuture<T> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            latencies.fail("appointments.rejected");
+            return null;
+        }
+    }
+
+    /** A timed unit of work. */
+    @FunctionalInterface
+    private interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    private <T> T timed(String label, Work<T> work) throws SQLException {
+        long started = System.nanoTime();
+        T result = work.run();
+        latencies.record(label, System.nanoTime() - started);
+        return result;
+    }
+
+    private static LocalDateTime randomStart(Random random) {
+        return LocalDateTime.of(SyntheticData.BASE_DATE.plusDays(random.nextInt(730)), LocalTime.of(8, 0))
+                .plusMinutes(15L * random.nextInt(52));
+    }
+
+    private static Object[] parameters(Appointment appointment, Timestamp now) {
+        return new Object[]{appointment.getTitle(), appointment.getDescription(), appointment.getLocation(),
+                appointment.getType(), new Timestamp(appointment.getStart()), new Timestamp(appointment.getEnd()),
+                now, USER, now, USER, appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID()};
+    }
+
+    /**
+     * Returns the statements of a schema script, without comments.
+     */
+    private static List<String> statements(String script) throws IOException {
+        String text;
+        try (InputStream in = LoadHarness.class.getResourceAsStream(script)) {
+            if (in == null) {
+                throw new IOException("Schema Script Not Found: " + script);
+            }
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : text.split("\\R")) {
+            if (line.trim().startsWith("--")) {
+                continue;
+            }
+            statement.append(line).append('\n');
+            if (line.trim().endsWith(";")) {
+                String sql = statement.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                statement.setLength(0);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Returns the latency percentiles of each operation, in milliseconds, as a table.
+     */
+    private String report() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-28s %8s %6s %9s %9s %9s %9s %9s%n",
+                "Operation", "Count", "Errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "Max ms"));
+        for (Map.Entry<String, long[]> entry : sortedSamples().entrySet()) {
+            long[] values = entry.getValue();
+            table.append(String.format(Locale.ROOT, "%-28s %8d %6d %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                    values.length, latencies.errors.getOrDefault(entry.getKey(), 0), percentile(values, 50),
+                    percentile(values, 90), percentile(values, 99), percentile(values, 99.9),
+                    values.length == 0 ? 0 : values[values.length - 1] / 1e6));
+        }
+        return table.toString();
+    }
+
+    /**
+     * Returns the latency percentiles of each operation, in milliseconds, as JSON.
+     */
+    private String json() {
+        StringBuilder json = new StringBuilder("{\"dialect\":\"").append(JDBC.getDialect())
+                .append("\",\"customers\":").append(customers)
+                .append(",\"contacts\":").append(contacts)
+                .append(",\"appointments\":").append(appointments)
+                .append(",\"operations\":[");
+        boolean first = true;
+        for (Map.Entry<String, long[]> entry : sortedSamples().entrySet()) {
+            long[] values = entry.getValue();
+            json.append(first ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"name\":\"%s\",\"count\":%d,\"errors\":%d,\"p50\":%.3f,\"p90\":%.3f,\"p99\":%.3f,\"p999\":%.3f,\"max\":%.3f}",
+                    entry.getKey(), values.length, latencies.errors.getOrDefault(entry.getKey(), 0),
+                    percentile(values, 50), percentile(values, 90), percentile(values, 99), percentile(values, 99.9),
+                    values.length == 0 ? 0 : values[values.length - 1] / 1e6));
+            first = false;
+        }
+        return json.append("]}\n").toString();
+    }
+
+    /**
+     * Returns each operation's samples, trimmed and sorted ascending.
+     */
+    private Map<String, long[]> sortedSamples() {
+        Map<String, long[]> sorted = new TreeMap<>();
+        synchronized (latencies) {
+            for (Map.Entry<String, long[]> entry : latencies.samples.entrySet()) {
+                long[] values = Arrays.copyOf(entry.getValue(), latencies.counts.get(entry.getKey()));
+                Arrays.sort(values);
+                sorted.put(entry.getKey(), values);
+            }
+            for (String label : latencies.errors.keySet()) {
+                sorted.putIfAbsent(label, new long[0]);
+            }
+        }
+        return sorted;
+    }
+
+    /**
+     * Returns the nearest-rank percentile of sorted nanosecond samples, in milliseconds.
+     */
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    private int option(String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+}
@@ -0,0 +1,71 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import schedual.helper.IntervalTree;
+import schedual.model.Appointment;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Overlap Checking - does a proposed appointment conflict with the contact's existing ones?
+ * <p> legacyScan walks every appointment, as the original inputValidation did with the loaded TableView rows;
+ * intervalTree asks the contact's IntervalTree, as the AppointmentIndex does. Each invocation checks the next of
+ * PROBES proposed ranges, so the branch predictor cannot learn one answer.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class OverlapBenchmark extends BenchmarkDefaults {
+    private static final int CONTACTS = 10;
+    private static final int PROBES = 1024;
+
+    @Param({"10000", "100000", "1000000"})
+    public int appointments;
+
+    private List<Appointment> rows;
+    private Map<Integer, IntervalTree> byContact;
+    private long[][] probes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        rows = SyntheticData.appointments(appointments, Math.max(1, appointments / 20), CONTACTS);
+        byContact = new HashMap<>();
+        for (Appointment appointment : rows) {
+            byContact.computeIfAbsent(appointment.getContactID(), key -> new IntervalTree())
+                    .insert(appointment.getAppointment_ID(), appointment.getStart(), appointment.getEnd());
+        }
+        Random random = new Random(SyntheticData.SEED);
+        probes = new long[PROBES][];
+        for (int i = 0; i < PROBES; i++) {
+            Appointment near = rows.get(random.nextInt(rows.size()));
+            long start = near.getStart() + 15 * 60_000L * (random.nextInt(9) - 4);
+            probes[i] = new long[]{1 + random.nextInt(CONTACTS), start, start + 30 * 60_000L};
+        }
+    }
+
+    @Benchmark
+    public boolean legacyScan() {
+        long[] probe = probes[next++ & (PROBES - 1)];
+        for (Appointment appointment : rows) {
+            if (appointment.getContactID() == probe[0] && appointment.overlaps(probe[1], probe[2])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean intervalTree() {
+        long[] probe = probes[next++ & (PROBES - 1)];
+        IntervalTree tree = byContact.get((int) probe[0]);
+        return tree != null && tree.anyOverlap(probe[1], probe[2]);
+    }
+}
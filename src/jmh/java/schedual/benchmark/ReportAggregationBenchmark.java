@@ -0,0 +1,143 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import schedual.model.Appointment;
+import schedual.model.MonthTypeCount;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Report Aggregation - the Appointment Totals and Customer Engagement reports computed client side.
+ * <p> legacyMonthTypeCounts groups with a List.contains lookup per row, as the original loadMonthTypeCounts did;
+ * hashedMonthTypeCounts groups in one pass through a HashMap. legacyEngagement scans every appointment once per
+ * customer, as the original retrieveCustomerAppointments calls did; engagementOnePass keeps each customer's last and
+ * next appointment in one pass. ReportQueryBenchmark measures the database-side versions now used by ReportQueries.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class ReportAggregationBenchmark extends BenchmarkDefaults {
+
+    @Param({"1000", "10000", "100000"})
+    public int appointments;
+
+    private List<Appointment> rows;
+    private int customers;
+    private long now;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        customers = Math.max(1, appointments / 20);
+        rows = SyntheticData.appointments(appointments, customers, 10);
+        now = Timestamp.valueOf(SyntheticData.BASE_DATE.plusYears(1).atStartOfDay()).getTime();
+    }
+
+    @Benchmark
+    public List<MonthTypeCount> legacyMonthTypeCounts() {
+        List<Object> seen = new ArrayList<>();
+        List<MonthTypeCount> counts = new ArrayList<>();
+        for (Appointment appointment : rows) {
+            LocalDateTime start = appointment.getStartDateTime();
+            List<Object> key = List.of(start.getYear(), start.getMonth(), appointment.getType());
+            int index = seen.indexOf(key);
+            if (index < 0) {
+                seen.add(key);
+                counts.add(new MonthTypeCount(start.getYear(), start.getMonth(), appointment.getType(), 1));
+            } else {
+                counts.get(index).setCount(counts.get(index).getCount() + 1);
+            }
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public List<MonthTypeCount> hashedMonthTypeCounts() {
+        Map<Key, MonthTypeCount> counts = new HashMap<>();
+        ZoneId zone = ZoneId.systemDefault();
+        for (Appointment appointment : rows) {
+            LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochMilli(appointment.getStart()), zone);
+            MonthTypeCount count = counts.computeIfAbsent(new Key(start.getYear(), start.getMonthValue(), appointment.getType()),
+                    key -> new MonthTypeCount(start.getYear(), start.getMonth(), appointment.getType(), 0));
+            count.setCount(count.getCount() + 1);
+        }
+        List<MonthTypeCount> sorted = new ArrayList<>(counts.values());
+        sorted.sort(Comparator.comparingInt(MonthTypeCount::getYear)
+                .thenComparing(MonthTypeCount::getMonth)
+                .thenComparing(MonthTypeCount::getType));
+        return sorted;
+    }
+
+    @Benchmark
+    public long[][] legacyEngagement() {
+        long[][] engagement = new long[customers + 1][];
+        for (int customer = 1; customer <= customers; customer++) {
+            long last = Long.MIN_VALUE;
+            long next = Long.MAX_VALUE;
+            for (Appointment appointment : rows) {
+                if (appointment.getCustomerID() == customer) {
+                    if (appointment.getStart() < now) {
+                        last = Math.max(last, appointment.getStart());
+                    } else {
+                        next = Math.min(next, appointment.getStart());
+                    }
+                }
+            }
+            engagement[customer] = new long[]{last, next};
+        }
+        return engagement;
+    }
+
+    @Benchmark
+    public long[][] engagementOnePass() {
+        long[][] engagement = new long[customers + 1][];
+        for (int customer = 1; customer <= customers; customer++) {
+            engagement[customer] = new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+        }
+        for (Appointment appointment : rows) {
+            long[] customer = engagement[appointment.getCustomerID()];
+            if (appointment.getStart() < now) {
+                customer[0] = Math.max(customer[0], appointment.getStart());
+            } else {
+                customer[1] = Math.min(customer[1], appointment.getStart());
+            }
+        }
+        return engagement;
+    }
+
+    /** A Year, Month and Type group of the Appointment Totals report. */
+    private static final class Key {
+        private final int year;
+        private final int month;
+        private final String type;
+
+        private Key(int year, int month, String type) {
+            this.year = year;
+            this.month = month;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).year == year && ((Key) other).month == month
+                    && Objects.equals(((Key) other).type, type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(year, month, type);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.ReportQueries;
+import schedual.model.Engagement;
+import schedual.model.MonthTypeCount;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Report Queries against the database - the Appointment Totals and Customer Engagement reports, asked of the
+ * LoadHarness database.
+ * <p> legacyMonthTypeTotals reads every appointment and groups the rows with a List lookup, as the original
+ * loadMonthTypeCounts did; monthTypeTotals runs the ReportQueries GROUP BY. legacyEngagement reads the customers and
+ * then every appointment of each customer, one query per customer, as the original retrieveCustomerAppointments calls
+ * did; engagement runs the single ReportQueries LEFT JOIN. ReportAggregationBenchmark measures the client-side grouping
+ * alone.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class ReportQueryBenchmark extends BenchmarkDefaults {
+    private static final String LEGACY_MONTH_TYPE_SQL = "SELECT * FROM appointments ORDER BY month(Start), Type";
+    private static final String LEGACY_CUSTOMERS_SQL = "SELECT * FROM customers";
+    private static final String LEGACY_CUSTOMER_APPOINTMENTS_SQL = "SELECT * FROM appointments WHERE Customer_ID = ?";
+    private static final int CONTACTS = 10;
+
+    @Param({"10000", "100000"})
+    public int appointments;
+
+    private Connection connection;
+    private Timestamp now;
+
+    @Setup(Level.Trial)
+    public void open() throws SQLException, IOException {
+        LoadHarness.openEmbedded(Math.max(1, appointments / 100), CONTACTS, appointments);
+        connection = JDBC.borrowConnection();
+        now = Timestamp.valueOf(SyntheticData.BASE_DATE.plusYears(1).atStartOfDay());
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+        JDBC.closeConnection();
+    }
+
+    @Benchmark
+    public List<MonthTypeCount> legacyMonthTypeTotals() throws SQLException {
+        List<Object> seen = new ArrayList<>();
+        List<MonthTypeCount> counts = new ArrayList<>();
+        QueryExecutor.forEach(connection, LEGACY_MONTH_TYPE_SQL, rs -> {
+            LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
+            String type = rs.getString("Type");
+            List<Object> key = List.of(start.getYear(), start.getMonth(), type);
+            int index = seen.indexOf(key);
+            if (index < 0) {
+                seen.add(key);
+                counts.add(new MonthTypeCount(start.getYear(), start.getMonth(), type, 1));
+            } else {
+                counts.get(index).setCount(counts.get(index).getCount() + 1);
+            }
+        });
+        return counts;
+    }
+
+    @Benchmark
+    public List<MonthTypeCount> monthTypeTotals() throws SQLException {
+        return QueryExecutor.query(connection, ReportQueries.MONTH_TYPE_TOTALS, rs -> new MonthTypeCount(
+                rs.getInt("Year"), Month.of(rs.getInt("Month")), rs.getString("Type"), rs.getInt("Count")));
+    }
+
+    @Benchmark
+    public List<Engagement> legacyEngagement() throws SQLException {
+        List<Engagement> engagements = QueryExecutor.query(connection, LEGACY_CUSTOMERS_SQL, rs -> new Engagement(
+                rs.getInt("Customer_ID"), rs.getString("Customer_Name"), null, null));
+        List<Engagement> report = new ArrayList<>(engagements.size());
+        for (Engagement customer : engagements) {
+            long[] lastAndNext = {Long.MIN_VALUE, Long.MAX_VALUE};
+            QueryExecutor.forEach(connection, LEGACY_CUSTOMER_APPOINTMENTS_SQL, rs -> {
+                Timestamp start = rs.getTimestamp("Start");
+                if (start.before(now)) {
+                    lastAndNext[0] = Math.max(lastAndNext[0], start.getTime());
+                }
+                if (start.after(now)) {
+                    lastAndNext[1] = Math.min(lastAndNext[1], start.getTime());
+                }
+            }, customer.getCustomer_ID());
+            report.add(new Engagement(customer.getCustomer_ID(), customer.getCustomer_Name(),
+                    lastAndNext[0] == Long.MIN_VALUE ? null : lastAndNext[0],
+                    lastAndNext[1] == Long.MAX_VALUE ? null : lastAndNext[1]));
+        }
+        return report;
+    }
+
+    @Benchmark
+    public List<Engagement> engagement() throws SQLException {
+        return QueryExecutor.query(connection, ReportQueries.ENGAGEMENT, rs -> {
+            Timestamp last = rs.getTimestamp("Last_Appointment");
+            Timestamp next = rs.getTimestamp("Next_Appointment");
+            return new Engagement(rs.getInt("Customer_ID"), rs.getString("Customer_Name"),
+                    last == null ? null : last.getTime(), next == null ? null : next.getTime());
+        }, now, now);
+    }
+}
@@ -0,0 +1,64 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import schedual.helper.RowMappers;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+
+/**
+ * Row Mapping - turning a SELECT * FROM appointments ResultSet into rows.
+ * <p> legacyFormattedRows formats Start and End into strings while mapping, as the Controllers originally did;
+ * rowMappers is RowMappers.appointment, which keeps them as epoch milliseconds.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class RowMappingBenchmark extends BenchmarkDefaults {
+    private static final DateTimeFormatter SHORT_DATE_TIME = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
+
+    @Param({"1000", "10000", "100000"})
+    public int rows;
+
+    private ResultSet resultSet;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        resultSet = SyntheticData.appointmentResultSet(SyntheticData.appointments(rows, 500, 10));
+    }
+
+    @Setup(Level.Invocation)
+    public void rewind() throws SQLException {
+        resultSet.beforeFirst();
+    }
+
+    @Benchmark
+    public void legacyFormattedRows(Blackhole blackhole) throws SQLException {
+        while (resultSet.next()) {
+            blackhole.consume(resultSet.getInt("Appointment_ID"));
+            blackhole.consume(resultSet.getString("Title"));
+            blackhole.consume(resultSet.getString("Description"));
+            blackhole.consume(resultSet.getString("Location"));
+            blackhole.consume(resultSet.getString("Type"));
+            blackhole.consume(resultSet.getTimestamp("Start").toLocalDateTime().format(SHORT_DATE_TIME));
+            blackhole.consume(resultSet.getTimestamp("End").toLocalDateTime().format(SHORT_DATE_TIME));
+            blackhole.consume(resultSet.getInt("Customer_ID"));
+            blackhole.consume(resultSet.getInt("User_ID"));
+            blackhole.consume(resultSet.getInt("Contact_ID"));
+        }
+    }
+
+    @Benchmark
+    public void rowMappers(Blackhole blackhole) throws SQLException {
+        while (resultSet.next()) {
+            blackhole.consume(RowMappers.appointment(resultSet));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import schedual.helper.TextIndex;
+import schedual.model.Appointment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Search Filtering - finding the appointments whose text fields contain a query.
+ * <p> legacyFilter lower-cases and scans every field of every row, as a FilteredList predicate over the table does;
+ * textIndex answers from the trigram TextIndex behind SearchIndex. Queries cycle through a short, a word and a
+ * two-word search.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class SearchBenchmark extends BenchmarkDefaults {
+    private static final String[] QUERIES = {"au", "roadmap", "quarterly rev", "migration audit"};
+    private static final int LIMIT = 200;
+
+    @Param({"1000", "10000", "100000"})
+    public int appointments;
+
+    private List<Appointment> rows;
+    private TextIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        rows = SyntheticData.appointments(appointments, Math.max(1, appointments / 20), 10);
+        index = new TextIndex();
+        for (Appointment appointment : rows) {
+            index.put(appointment.getAppointment_ID(), appointment.getTitle(), appointment.getType(),
+                    appointment.getLocation(), appointment.getDescription(), String.valueOf(appointment.getAppointment_ID()));
+        }
+    }
+
+    @Benchmark
+    public List<Integer> legacyFilter() {
+        String[] terms = QUERIES[next++ % QUERIES.length].toLowerCase(Locale.ROOT).split(" ");
+        List<Integer> matches = new ArrayList<>();
+        for (Appointment appointment : rows) {
+            String text = (appointment.getTitle() + " " + appointment.getType() + " " + appointment.getLocation() + " " +
+                    appointment.getDescription() + " " + appointment.getAppointment_ID()).toLowerCase(Locale.ROOT);
+            boolean all = true;
+            for (String term : terms) {
+                if (!text.contains(term)) {
+                    all = false;
+                    break;
+                }
+            }
+            if (all) {
+                matches.add(appointment.getAppointment_ID());
+                if (matches.size() == LIMIT) {
+                    break;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public List<Integer> textIndex() {
+        return index.search(QUERIES[next++ % QUERIES.length], LIMIT);
+    }
+}
@@ -0,0 +1,158 @@
+package schedual.benchmark;
+
+import schedual.model.Appointment;
+import schedual.model.Customer;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic Data Generator for the benchmarks - contacts, customers and appointments shaped like the client_schedule
+ * database, generated from a fixed seed so every run and every release measures the same data.
+ * <p> Appointments fall on the 15 minute grid between 8AM and 10PM, last 15 to 120 minutes, and are spread over two
+ * years from BASE_DATE, so reports have a realistic number of Year, Month and Type groups.
+ * @author Ben Porter
+ */
+public class SyntheticData {
+    static final long SEED = 20230606L;
+    static final LocalDate BASE_DATE = LocalDate.of(2023, 1, 2);
+    static final String[] TYPES = {"Planning Session", "De-Briefing", "Consultation", "Follow-Up", "Review", "Kickoff"};
+    static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada", "London, England"};
+    static final String[] WORDS = {"budget", "roadmap", "quarterly", "onboarding", "renewal", "migration", "audit",
+            "training", "launch", "contract", "support", "design", "retro", "hiring", "pricing", "security"};
+    static final String[] FIRST_NAMES = {"Daddy", "Lady", "Dudley", "Ava", "Noah", "Mia", "Liam", "Zoe", "Omar", "Ines"};
+    static final String[] LAST_NAMES = {"Warbucks", "McAnderson", "Do-Right", "Nguyen", "Garcia", "Smith", "Okafor", "Rossi"};
+    static final String[] APPOINTMENT_COLUMNS = {"Appointment_ID", "Title", "Description", "Location", "Type", "Start",
+            "End", "Customer_ID", "User_ID", "Contact_ID"};
+
+    private SyntheticData() {}
+
+    /**
+     * Returns the contact names, Contact_ID i + 1 at index i.
+     * @param count number of contacts.
+     * @return contact names
+     */
+    static List<String> contacts(int count) {
+        Random random = new Random(SEED);
+        List<String> contacts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            contacts.add(name(random));
+        }
+        return contacts;
+    }
+
+    /**
+     * Returns customers with IDs 1 to count.
+     * @param count number of customers.
+     * @return customers
+     */
+    static List<Customer> customers(int count) {
+        Random random = new Random(SEED + 1);
+        List<Customer> customers = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            customers.add(new Customer(id, name(random), (100 + random.nextInt(9900)) + " " + pick(random, WORDS) + " St",
+                    String.format("%05d", random.nextInt(100_000)),
+                    String.format("%03d-%03d-%04d", random.nextInt(1000), random.nextInt(1000), random.nextInt(10_000)),
+                    1 + random.nextInt(64), "Division", 1 + random.nextInt(3), "Country"));
+        }
+        return customers;
+    }
+
+    /**
+     * Returns appointments with IDs 1 to count, in ID order, for customers 1 to customers and contacts 1 to contacts.
+     * @param count number of appointments.
+     * @param customers number of customers to spread them over.
+     * @param contacts number of contacts to spread them over.
+     * @return appointments
+     */
+    static List<Appointment> appointments(int count, int customers, int contacts) {
+        Random random = new Random(SEED + 2);
+        List<Appointment> appointments = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            LocalDateTime start = LocalDateTime.of(BASE_DATE.plusDays(random.nextInt(730)),
+                    LocalTime.of(8, 0).plusMinutes(15L * random.nextInt(52)));
+            LocalDateTime end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+            appointments.add(new Appointment(id,
+                    pick(random, WORDS) + " " + pick(random, WORDS),
+                    pick(random, WORDS) + " " + pick(random, WORDS) + " " + pick(random, WORDS),
+                    pick(random, LOCATIONS),
+                    pick(random, TYPES),
+                    Timestamp.valueOf(start).getTime(),
+                    Timestamp.valueOf(end).getTime(),
+                    1 + random.nextInt(customers),
+                    1 + random.nextInt(2),
+                    1 + random.nextInt(contacts)));
+        }
+        return appointments;
+    }
+
+    /**
+     * Returns a read-only, forward-only ResultSet over the appointments, as a SELECT * FROM appointments would return
+     * them, so row mapping can be measured without a database. beforeFirst() rewinds it for the next invocation.
+     * @param appointments the rows.
+     * @return ResultSet with the appointments columns
+     */
+    static ResultSet appointmentResultSet(List<Appointment> appointments) {
+        List<Object[]> rows = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            rows.add(new Object[]{appointment.getAppointment_ID(), appointment.getTitle(), appointment.getDescription(),
+                    appointment.getLocation(), appointment.getType(), new Timestamp(appointment.getStart()),
+                    new Timestamp(appointment.getEnd()), appointment.getCustomerID(), appointment.getUserID(),
+                    appointment.getContactID()});
+        }
+        return resultSet(APPOINTMENT_COLUMNS, rows);
+    }
+
+    /**
+     * Returns a ResultSet over in-memory rows supporting next, beforeFirst, close and the column getters by label.
+     */
+    private static ResultSet resultSet(String[] columns, List<Object[]> rows) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            index.put(columns[i], i);
+        }
+        int[] cursor = {-1};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++cursor[0] < rows.size();
+                        case "beforeFirst":
+                            cursor[0] = -1;
+                            return null;
+                        case "close":
+                            return null;
+                        case "isClosed":
+                        case "wasNull":
+                            return false;
+                        case "getInt":
+                        case "getString":
+                        case "getTimestamp":
+                        case "getObject":
+                            Object value = rows.get(cursor[0])[args[0] instanceof String
+                                    ? index.get((String) args[0]) : (Integer) args[0] - 1];
+                            return method.getName().equals("getString") && value != null ? value.toString() : value;
+                        default:
+                            throw new SQLException("Not supported by the synthetic ResultSet: " + method.getName());
+                    }
+                });
+    }
+
+    private static String name(Random random) {
+        return pick(random, FIRST_NAMES) + " " + pick(random, LAST_NAMES);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
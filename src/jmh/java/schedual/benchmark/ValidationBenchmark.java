@@ -0,0 +1,46 @@
+package schedual.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import schedual.helper.Validation;
+import schedual.model.Appointment;
+
+import java.util.List;
+
+/**
+ * Input Validation - the inputValidation rules applied to a batch of appointments, as the BulkImporter applies them
+ * to every imported row. Rows outside business hours are counted rather than aborting the batch.
+ * @author Ben Porter
+ */
+@State(Scope.Thread)
+public class ValidationBenchmark extends BenchmarkDefaults {
+
+    @Param({"1000", "10000", "100000"})
+    public int appointments;
+
+    private List<Appointment> rows;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        rows = SyntheticData.appointments(appointments, Math.max(1, appointments / 20), 10);
+    }
+
+    @Benchmark
+    public int inputValidation() {
+        int rejected = 0;
+        for (Appointment appointment : rows) {
+            try {
+                Validation.requireNonEmpty(appointment.getTitle(), appointment.getDescription(),
+                        appointment.getLocation(), appointment.getType());
+                Validation.requireBusinessHours(appointment.getStartDateTime(), appointment.getEndDateTime());
+            } catch (RuntimeException e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+}
@@ -6,6 +6,7 @@ module schedual {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires jdk.httpserver;
     requires mysql.connector.j;
 
 
@@ -14,5 +15,6 @@ module schedual {
     exports schedual.model;
     opens schedual.model to javafx.fxml;
     exports schedual.controller;
+    exports schedual.service;
     opens schedual.controller to javafx.fxml;
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package schedual;
+
+import schedual.helper.Exporter;
+import schedual.helper.JDBC;
+
+import java.io.Console;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Command Line Export - writes a report or an appointment range to a file without starting the JavaFX application.
+ * <p> Usage: --export REPORT --out FILE --user NAME [--format csv|json] [--from yyyy-MM-dd] [--to yyyy-MM-dd]
+ * [--contact ID] [--year yyyy]
+ * <p> REPORT is one of appointments, contact-schedule, month-type-totals or engagement. The format defaults to the
+ * file's extension. The password is read from the SCHEDUAL_PASSWORD environment variable, or prompted for.
+ * @author Ben Porter
+ */
+public class ExportCommand {
+    private static final String USAGE = "Usage: --export appointments|contact-schedule|month-type-totals|engagement " +
+            "--out FILE --user NAME [--format csv|json] [--from yyyy-MM-dd] [--to yyyy-MM-dd] [--contact ID] [--year yyyy]";
+
+    private ExportCommand() {}
+
+    /**
+     * Runs the export described by the arguments.
+     * @param args the command line, starting with --export.
+     * @return the process exit code, 0 on success.
+     */
+    public static int run(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.out.println("Error: Unexpected Argument " + args[i] + "\n" + USAGE);
+                return 2;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        String report = options.get("export");
+        String out = options.get("out");
+        String user = options.get("user");
+        if (report == null || out == null || user == null) {
+            System.out.println(USAGE);
+            return 2;
+        }
+        Path path = Path.of(out);
+        try {
+            Exporter.Format format = options.containsKey("format")
+                    ? Exporter.Format.valueOf(options.get("format").toUpperCase(Locale.ROOT))
+                    : Exporter.Format.of(path);
+            JDBC.open(user, password());
+            Connection connection = JDBC.getConnection();
+            long rows;
+            switch (report) {
+                case "appointments":
+                    rows = Exporter.exportAppointments(connection, date(options.get("from")), date(options.get("to")), format, path);
+                    break;
+                case "contact-schedule":
+                    if (!options.containsKey("contact")) {
+                        System.out.println("Error: contact-schedule needs --contact ID");
+                        return 2;
+                    }
+                    rows = Exporter.exportContactSchedule(connection, Integer.parseInt(options.get("contact")), format, path);
+                    break;
+                case "month-type-totals":
+                    rows = Exporter.exportMonthTypeTotals(connection,
+                            options.containsKey("year") ? Integer.valueOf(options.get("year")) : null, format, path);
+                    break;
+                case "engagement":
+                    rows = Exporter.exportEngagement(connection, format, path);
+                    break;
+                default:
+                    System.out.println("Error: Unknown Report " + report + "\n" + USAGE);
+                    return 2;
+            }
+            System.out.println("Exported " + rows + " rows to " + path.toAbsolutePath());
+            return 0;
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            JDBC.closeConnection();
+        }
+    }
+
+    private static LocalDate date(String value) {
+        return value == null ? null : LocalDate.parse(value);
+    }
+
+    static String password() {
+        String password = System.getenv("SCHEDUAL_PASSWORD");
+        if (password != null) {
+            return password;
+        }
+        Console console = System.console();
+        return console == null ? "" : new String(console.readPassword("Password: "));
+    }
+}
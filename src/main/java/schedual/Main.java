@@ -8,7 +8,10 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.util.*;
 
+import schedual.helper.AuditLog;
+import schedual.helper.DataAccessService;
 import schedual.helper.JDBC;
+import schedual.helper.ReminderScheduler;
 
 /**
  * Main Class for the ScheDual Program.
@@ -23,7 +26,8 @@ import schedual.helper.JDBC;
 
 public class Main extends Application {
 
-    /** Launches the application.
+    /** Launches the application, runs a command line export when the first argument is --export (see ExportCommand), or
+     * serves the loopback HTTP/JSON API without the UI when it is --serve (see ServeCommand).
      * @param args default input parameter.
      * */
 
@@ -31,6 +35,16 @@ public class Main extends Application {
 //        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
 //        TimeZone.setDefault(TimeZone.getTimeZone("America/Los_Angeles"));
 //        Locale.setDefault(new Locale("fr"));
+        if (args.length > 0 && args[0].equals("--export")) {
+            System.exit(ExportCommand.run(args));
+        }
+        if (args.length > 0 && args[0].equals("--serve")) {
+            int status = ServeCommand.run(args);
+            if (status != 0) {
+                System.exit(status);
+            }
+            return;
+        }
         launch();
     }
 
@@ -51,6 +65,9 @@ public class Main extends Application {
     /** Only Used by "Exit" button on Main View */
     public static void quit() {
         Platform.exit();
+        DataAccessService.shutdown();
+        ReminderScheduler.shutdown();
         JDBC.closeConnection();
+        AuditLog.shutdown();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
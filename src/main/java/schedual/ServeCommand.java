@@ -0,0 +1,71 @@
+package schedual;
+
+import schedual.helper.AppointmentIndex;
+import schedual.helper.JDBC;
+import schedual.helper.SearchIndex;
+import schedual.server.ApiServer;
+import schedual.service.Service;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Headless Server Mode - serves the scheduling services over a loopback HTTP/JSON API without starting the JavaFX
+ * application (see ApiServer for the endpoints).
+ * <p> Usage: --serve PORT --user NAME
+ * <p> The server logs in to MySQL once, as NAME, and every request shares that log-in's connection pool. The password is
+ * read from the SCHEDUAL_PASSWORD environment variable, or prompted for, as for ExportCommand. The AppointmentIndex and
+ * SearchIndex are loaded before the first request is answered.
+ * @author Ben Porter
+ */
+public class ServeCommand {
+    private static final String USAGE = "Usage: --serve PORT --user NAME";
+
+    private ServeCommand() {}
+
+    /**
+     * Starts the server described by the arguments. The server's threads keep the process running once this returns;
+     * stopping the process stops the server and prints each endpoint's latencies.
+     * @param args the command line, starting with --serve.
+     * @return 0 once the server is answering, otherwise the process exit code.
+     */
+    public static int run(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                System.out.println("Error: Unexpected Argument " + args[i] + "\n" + USAGE);
+                return 2;
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        String port = options.get("serve");
+        String user = options.get("user");
+        if (port == null || user == null) {
+            System.out.println(USAGE);
+            return 2;
+        }
+        ApiServer server;
+        try {
+            JDBC.open(user, ExportCommand.password());
+            try (Connection connection = JDBC.borrowConnection()) {
+                System.out.println("Appointment Index Loaded: " + AppointmentIndex.load(connection));
+                System.out.println("Search Index Loaded: " + SearchIndex.load(connection));
+            }
+            server = new ApiServer(Integer.parseInt(port));
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+            JDBC.closeConnection();
+            return 1;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            Service.shutdown();
+            JDBC.closeConnection();
+            server.getLatencies().forEach((endpoint, latency) -> System.out.println(endpoint + " " + latency));
+        }, "schedual-server-stop"));
+        server.start();
+        System.out.println("Serving on http://127.0.0.1:" + server.getPort() + "/api/");
+        return 0;
+    }
+}
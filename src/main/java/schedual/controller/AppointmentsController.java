@@ -1,18 +1,39 @@
 package schedual.controller;
 
+import javafx.animation.PauseTransition;
+import javafx.beans.property.IntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
-import javafx.collections.transformation.SortedList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.text.Text;
-import schedual.helper.JDBC;
+import javafx.util.Duration;
+import schedual.helper.AppointmentPager;
+import schedual.helper.BulkImporter;
+import schedual.helper.ChangeFeed;
+import schedual.helper.DataAccessService;
+import schedual.helper.DateTimeCells;
+import schedual.helper.Exporter;
+import schedual.helper.ReferenceData;
+import schedual.helper.ReferenceData.Lookup;
+import schedual.helper.ReminderScheduler;
+import schedual.helper.RowMappers;
+import schedual.helper.SearchIndex;
 import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Occurrence;
+import schedual.model.Recurrence;
+import schedual.service.AppointmentService;
 
 import java.io.IOException;
 import java.net.URL;
@@ -23,10 +44,16 @@ import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.TimeZone;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Secondary Controller - CRUD Operations for Appointments Table.
@@ -34,23 +61,26 @@ import java.util.TimeZone;
  * (1) Presents Appointments Menu Option
  * <p>
  * (2) Allows user to perform CRUD (Create, Read, Update, Delete) operations on Appointments Table in MySQL.
- * (Create) Performed by the Add Button.
+ * (Create) Performed by the Add Button. Choosing a Repeat frequency creates a recurring series instead of one appointment.
  * (Read) Performed by the Go Button and is determined by input parameters on the Top Row Spinners, Radio Buttons, and ComboBox.
  * The Search Bar filters these items based on user input to the TextField.
  * (Update) Performed by the Save Button for the selected item in the TableView. Edit button autofills selection's values to the field items below the TableView.
  * (Delete) Performed by the Delete Button for the selected item in the TableView.
+ * Saving or deleting an occurrence of a recurring series changes only that occurrence, unless the whole series is chosen.
 */
 
 public class AppointmentsController extends MainViewController {
     private final String[] COLUMNS = {"Appointment_ID", "title", "description", "location", "type", "start", "end", "customerID", "userID", "contactID"};
+    private final String[] REPEATS = {"Does Not Repeat", "Daily", "Weekly", "Monthly"}; // after the first, Recurrence.Frequency order
     private final String[] MONTHS = {"January", "February", "March", "April", "May", "June","July","August","September","October","November","December"};
-    private ObservableList<Appointment> appointmentsList = FXCollections.observableArrayList();
-    private ObservableList<Integer> contactValue = FXCollections.observableArrayList();
-    private ObservableList<String> contactList = FXCollections.observableArrayList();
-    private ObservableList<Integer> userValue = FXCollections.observableArrayList();
-    private ObservableList<String> userList = FXCollections.observableArrayList();
-    private ObservableList<Integer> customerValue = FXCollections.observableArrayList();
-    private ObservableList<String> customerList = FXCollections.observableArrayList();
+    private final ObservableList<Appointment> appointmentsList = FXCollections.observableArrayList();
+    private final FilteredList<Appointment> filteredAppointments = new FilteredList<>(appointmentsList, a -> true);
+    private final PauseTransition searchDelay;
+    private final IntegerProperty recordCount = new SimpleIntegerProperty();
+    private Runnable scrollToTop = () -> { };
+    private Lookup contacts = Lookup.EMPTY;
+    private Lookup users = Lookup.EMPTY;
+    private Lookup customers = Lookup.EMPTY;
     private ObservableList<String> monthList = FXCollections.observableArrayList();
     private ObservableList<String> yearList = FXCollections.observableArrayList();
     private ObservableList<String> weekList = FXCollections.observableArrayList();
@@ -70,6 +100,9 @@ public class AppointmentsController extends MainViewController {
     @FXML private ComboBox<String> contactIdBox;
     @FXML private ComboBox<String> userIdBox;
     @FXML private ComboBox<String> customerIdBox;
+    @FXML private ComboBox<String> repeatBox;
+    @FXML private TextField countField;
+    @FXML private DatePicker untilDate;
     @FXML private RadioButton monthRadio;
     @FXML private RadioButton weekRadio;
     @FXML private RadioButton yearRadio;
@@ -82,20 +115,66 @@ public class AppointmentsController extends MainViewController {
     @FXML private Button clearButton;
     @FXML private Button backButton;
     @FXML private Button deleteButton;
+    @FXML private Button importButton;
+    @FXML private Button exportButton;
     @FXML private Button editButton;
     @FXML private Button goButton;
     @FXML private Button saveButton;
     @FXML private Text displayCount;
+    @FXML private Text availabilityText;
 
     private LocalDate monthStart;
     private LocalDate monthEnd;
 
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_LOADED_PAGES = 5;
+    private AppointmentPager pager;
+    private LocalDate rangeStart;
+    private LocalDate rangeEnd;
+    private String sortProperty = "start";
+    private boolean sortAscending = true;
+    private boolean pageLoading;
+    private boolean windowStale; // rows changed in a text order while a page was loading
+    private boolean hasPreviousPage;
+    private boolean hasNextPage;
+
+    private static final int SEARCH_LIMIT = 200;
+    private boolean searchActive;
+    private int searchRequest;
+
+    private final AppointmentService appointmentService;
+    private final ChangeFeed<Appointment> changeFeed = new ChangeFeed<>("appointments", "Appointment_ID",
+            "SELECT *, Last_Update AS Change_Time FROM appointments", "Last_Update", RowMappers::appointment);
+
+    /**
+     * Creates the controller loaded by appointments.fxml, searching 250ms after typing pauses.
+     */
+    public AppointmentsController() {
+        this(new AppointmentService(), Duration.millis(250));
+    }
+
+    /**
+     * Creates a controller on the given AppointmentService.
+     * @param appointmentService reads and writes the appointments.
+     * @param searchDelay how long typing must pause before the search runs; Duration.ZERO runs it on every change
+     *                    without a PauseTransition, so no JavaFX toolkit is needed.
+     */
+    AppointmentsController(AppointmentService appointmentService, Duration searchDelay) {
+        this.appointmentService = appointmentService;
+        this.searchDelay = searchDelay.greaterThan(Duration.ZERO) ? new PauseTransition(searchDelay) : null;
+    }
+
     /**
      * Initializes the Default Resources to the FXML Stage. FXML Handlers are provided with Event Actions through Lambda Expressions.
      * <p>
      * FXML Functional Interface Handlers as Lambda Expressions: FXML Handlers are functional interfaces known as Event Listeners. Rather than passing entire objects
      * that implement the interface, the use of Lambdas here passes a block of code that only runs when the button is clicked.
      * <p> (backButton.onAction) Loads the url for mainMenu.fxml when the Back Button is clicked by user.
+     * <p> (appointmentsTable.sortPolicy) Column sorting is pushed to MySQL: a new sort order reloads the first page in that order.
+     * <p> (scroll bar value) Reaching the bottom or top of the TableView loads the next or previous page.
+     * <p> (appointmentSearch.textProperty) Restarts a 250ms delay on each keystroke; when typing pauses, the search runs
+     *                  once against the SearchIndex (see applySearch). The TableView, its FilteredList and this listener are
+     *                  created once and only the rows in appointmentsList are swapped by loadTable.
      * <p> (yearSpinner.setOnMouseClicked) If Week-View is selected, updates the ComboBox to reflect the number of weeks
      *                    for the year value inside Spinner.
      * <p> (yearRadio.onAction) If the user selects the Year View, ComboBox is updated to display only one empty string.
@@ -109,14 +188,19 @@ public class AppointmentsController extends MainViewController {
      * <p> (appointmentSearch.setOnKeyPressed) While searchAppointment Textfield is selected, an event listener responds to Key Event 'ENTER', and selects
      *                  the first value in the appointmentTable TableView if one exists.
      * <p> (addButton.onAction) Prompts the user with an alert and confirms if the user wishes to add a new value to the appointments table
-     *                  in MySQL based on the parameters in the fields below the TableView.
+     *                  in MySQL based on the parameters in the fields below the TableView. When a Repeat frequency is
+     *                  chosen, the values become the first occurrence of a recurring series ending on the Until date or
+     *                  after the given number of occurrences.
      * <p> (editButton.onAction) Updates the value fields below the TableView with the corresponding fields of the Appointment Object
      *                   currently selected in the TableView.
      * <p> (saveButton.onAction) Prompts the user with an alert and confirms if the user wishes to overwrite the selected value
      *                   in the TableView to the matching record in the MySQL database table.
      * <p> (clearButton.onAction) Updates the value fields below the TableView with null values.
      * <p> (deleteButton.onAction) Prompts the user with an alert and confirms if the user wishes to permanently remove the selected Appointment
-     *                   in the TableView to the matching record in the MySQL database table.
+     *                   in the TableView to the matching record in the MySQL database table. For an occurrence of a recurring
+     *                   series, the user chooses between cancelling that occurrence and deleting the whole series.
+     * <p> (importButton.onAction) Imports appointments from a CSV file chosen by the user, then reloads the selected view.
+     * <p> (exportButton.onAction) Streams every appointment of the selected view's date range to a CSV or JSON file.
      * @param url The filepath of this .fxml file.
      * @param resourceBundle Abstract Class which retrieves locale-specific objects.
      */
@@ -136,6 +220,8 @@ public class AppointmentsController extends MainViewController {
         }
         startTime.setItems(localizedTimesList);
         endTime.setItems(localizedTimesList);
+        repeatBox.setItems(FXCollections.observableArrayList(REPEATS));
+        repeatBox.getSelectionModel().select(0);
         yearList.add("");
         yearSpinner.setValueFactory(new SpinnerValueFactory.IntegerSpinnerValueFactory(2000, 2050, 2023));
         monthList.addAll(MONTHS);
@@ -145,15 +231,61 @@ public class AppointmentsController extends MainViewController {
         viewBox.setItems(monthList);
         viewBox.getSelectionModel().select(LocalDate.now().getMonthValue()-1);
         displayDateText.setText(viewBox.getValue() + ", " + yearSpinner.getValue());
+        bindLoadingIndicator();
+
+        // FILTER PIPELINE - built once; loadTable only replaces the rows
+        int  index = 0;
+        for (String col : COLUMNS) {
+            appointmentsTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(col));
+        }
+        DateTimeCells.formatAsDateTime(appointmentsTable.getColumns().get(5)); // Start
+        DateTimeCells.formatAsDateTime(appointmentsTable.getColumns().get(6)); // End
+        formatIdColumn();
+        appointmentsTable.setItems(filteredAppointments);
+        bindSearch(appointmentSearch.textProperty());
+        displayCount.textProperty().bind(recordCount.asString());
+        scrollToTop = () -> appointmentsTable.scrollTo(0);
+
+        // PAGING - sorting runs in MySQL, and pages are read as the TableView scrolls
+        appointmentsTable.setSortPolicy(table -> {
+            String property = "start";
+            boolean ascending = true;
+            if (!table.getSortOrder().isEmpty()) {
+                TableColumn<Appointment, ?> column = table.getSortOrder().get(0);
+                property = COLUMNS[table.getColumns().indexOf(column)];
+                ascending = column.getSortType() == TableColumn.SortType.ASCENDING;
+            }
+            if (!property.equals(sortProperty) || ascending != sortAscending) {
+                sortProperty = property;
+                sortAscending = ascending;
+                if (pager != null && !searchActive) {
+                    reloadPages();
+                }
+            }
+            return true;
+        });
+        appointmentsTable.skinProperty().addListener((skin, previous, next) -> {
+            for (Node node : appointmentsTable.lookupAll(".scroll-bar")) {
+                if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+                    ScrollBar bar = (ScrollBar) node;
+                    bar.valueProperty().addListener((value, before, after) -> {
+                        if (after.doubleValue() >= bar.getMax()) {
+                            loadNextPage();
+                        } else if (after.doubleValue() <= bar.getMin()) {
+                            loadPreviousPage();
+                        }
+                    });
+                }
+            }
+        });
 
         try {
-            loadIdBox("contact", contactList, contactValue);
-            loadIdBox("user", userList, userValue);
-            loadIdBox("customer", customerList, customerValue);
-            contactIdBox.setItems(contactList);
-            userIdBox.setItems(userList);
-            customerIdBox.setItems(customerList);
+            loadIdBox(ReferenceData.Table.CONTACTS, contactIdBox, lookup -> contacts = lookup);
+            loadIdBox(ReferenceData.Table.USERS, userIdBox, lookup -> users = lookup);
+            loadIdBox(ReferenceData.Table.CUSTOMERS, customerIdBox, lookup -> customers = lookup);
             loadTable(monthStart,monthEnd);
+            pollChanges();
+            pollWhileShowing(appointmentsTable, this::pollChanges);
         } catch (Exception e) {
             Alert errorMessage = new Alert(Alert.AlertType.ERROR);
             errorMessage.setTitle("Error Message");
@@ -161,6 +293,10 @@ public class AppointmentsController extends MainViewController {
             errorMessage.show();
         }
 
+        // AVAILABILITY - the chosen contact's free times on the chosen start date
+        contactIdBox.valueProperty().addListener((value, before, after) -> showAvailability());
+        startDate.valueProperty().addListener((value, before, after) -> showAvailability());
+
         // BACK BUTTON HANDLER
         backButton.setOnAction(back -> this.loadFXML(back, "mainMenu.fxml"));
 
@@ -242,7 +378,7 @@ public class AppointmentsController extends MainViewController {
                     displayDateText.setText("All Records");
                     loadTable(LocalDate.of(1999, 1, 1), LocalDate.of(2051, 1, 1));
                 }
-            } catch (ParseException | SQLException e) {
+            } catch (ParseException e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                 errorMessage.setTitle("Error Message");
                 errorMessage.setContentText(e.getMessage());
@@ -258,27 +394,18 @@ public class AppointmentsController extends MainViewController {
                     if (query.isEmpty()) {
                         throw new NumberFormatException("Search Field Empty: Please Type an ID or Name");
                     }
-                    try {
-                        if (appointmentsTable.getItems().isEmpty()) {
-                            throw new NullPointerException("Appointment Not Found");
-                        } else {
-                            appointmentsTable.getSelectionModel().select(0);
-                        }
-                    } catch (NumberFormatException exception) {
-                        if (appointmentsTable.getItems().isEmpty()) {
-                            throw new NullPointerException("Appointment Not Found");
-                        } else {
-                            appointmentsTable.getSelectionModel().select(0);
-                        }
+                    if (searchDelay != null) {
+                        searchDelay.stop(); // run a pending search now, then select its first result
                     }
+                    applySearch(query, true);
                 }
-                } catch (Exception e) {
-                    Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-                    errorMessage.setTitle("Error Message");
-                    errorMessage.setContentText(e.getMessage());
-                    errorMessage.show();
-                }
-            });
+            } catch (Exception e) {
+                Alert errorMessage = new Alert(Alert.AlertType.ERROR);
+                errorMessage.setTitle("Error Message");
+                errorMessage.setContentText(e.getMessage());
+                errorMessage.show();
+            }
+        });
 
         // ADD BUTTON HANDLER
         addButton.setOnAction(add -> {
@@ -287,32 +414,14 @@ public class AppointmentsController extends MainViewController {
             confirmation.setContentText("Would you like to add this entry as a new Appointment?");
             if (confirmation.showAndWait().get() == ButtonType.OK) {
                 try {
-                    inputValidation(-1); // 0 tells the function we are not overwriting an existing Appt
-                    Appointment appointment = addAppointment();
-                    String sql = "INSERT INTO Appointments (title, description, location, type, start, end, " +
-                            "create_date, created_by, last_update,last_updated_by, customer_ID, user_ID, contact_ID)\n" +
-                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?);";
-                    PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                    ps.setString(1, appointment.getTitle());
-                    ps.setString(2, appointment.getDescription());
-                    ps.setString(2, appointment.getDescription());
-                    ps.setString(3, appointment.getLocation());
-                    ps.setString(4, appointment.getType());
-                    ps.setTimestamp(5, Timestamp.valueOf(
-                            LocalDateTime.parse(appointment.getStart(),
-                                    DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)))); // Start
-                    ps.setTimestamp(6, Timestamp.valueOf(
-                            LocalDateTime.parse(appointment.getEnd(),
-                                    DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)))); // End
-                    ps.setTimestamp(7, java.sql.Timestamp.from(Instant.now())); // Create_Date
-                    ps.setString(8, JDBC.getUserName());
-                    ps.setTimestamp(9, java.sql.Timestamp.from(Instant.now())); // Last_Update
-                    ps.setString(10, JDBC.getUserName());
-                    ps.setInt(11, appointment.getCustomerID());
-                    ps.setInt(12, appointment.getUserID());
-                    ps.setInt(13, appointment.getContactID());
-                    ps.executeUpdate();
-                    goButton.fire();
+                    inputValidation();
+                    Recurrence recurrence = recurrence();
+                    if (recurrence == null) {
+                        DataAccessService.publish(this, appointmentService.add(addAppointment()), id -> pollChanges(), this::showError);
+                    } else {
+                        AppointmentSeries series = new AppointmentSeries(0, addAppointment(), recurrence);
+                        DataAccessService.publish(this, appointmentService.addSeries(series), id -> reloadSeries(), this::showError);
+                    }
                 } catch (Exception e) {
                     Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                     errorMessage.setTitle("Error Message");
@@ -330,15 +439,16 @@ public class AppointmentsController extends MainViewController {
                 descriptionField.setText(selectAppointment.getDescription());
                 locationField.setText(selectAppointment.getLocation());
                 typeField.setText(selectAppointment.getType());
-                LocalDateTime localStart = LocalDateTime.parse(selectAppointment.getStart(), DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
+                LocalDateTime localStart = selectAppointment.getStartDateTime();
                 startDate.setValue(localStart.toLocalDate());
                 startTime.getSelectionModel().select(((localStart.getHour()*4)+(localStart.getMinute()/15)));
-                LocalDateTime localEnd = LocalDateTime.parse(selectAppointment.getEnd(), DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
+                LocalDateTime localEnd = selectAppointment.getEndDateTime();
                 endDate.setValue(localEnd.toLocalDate());
                 endTime.getSelectionModel().select(((localEnd.getHour()*4)+(localEnd.getMinute()/15)));
-                contactIdBox.getSelectionModel().select(contactValue.indexOf(selectAppointment.getContactID()));
-                customerIdBox.getSelectionModel().select(customerValue.indexOf(selectAppointment.getCustomerID()));
-                userIdBox.getSelectionModel().select(userValue.indexOf(selectAppointment.getUserID()));
+                contactIdBox.getSelectionModel().select(contacts.indexOf(selectAppointment.getContactID()));
+                customerIdBox.getSelectionModel().select(customers.indexOf(selectAppointment.getCustomerID()));
+                userIdBox.getSelectionModel().select(users.indexOf(selectAppointment.getUserID()));
+                clearRecurrence();
             } catch (NullPointerException e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                 errorMessage.setTitle("Error Message");
@@ -351,25 +461,27 @@ public class AppointmentsController extends MainViewController {
         deleteButton.setOnAction(delete -> {
             try {
                 Appointment selectAppointment = appointmentsTable.getSelectionModel().getSelectedItem();
+                if (selectAppointment instanceof Occurrence) {
+                    deleteOccurrence((Occurrence) selectAppointment);
+                    return;
+                }
                 int ID = selectAppointment.getAppointment_ID();
                 String type = selectAppointment.getType();
                 Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
                 confirmation.setTitle("Delete Appointment Record");
-                if (LocalDateTime.parse(selectAppointment.getStart(), DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)).isAfter(LocalDateTime.now())){
+                if (selectAppointment.getStart() > System.currentTimeMillis()){
                     confirmation.setContentText("Are you sure you want to cancel this upcoming appointment?\nAppointment ID: " + ID + "\nType: " + type);
                 } else {
                     confirmation.setContentText("Are you sure you want to delete this past appointment?\nAppointment ID: " + ID + "\nType: " + type);
                 }
                 if (confirmation.showAndWait().get() == ButtonType.OK) {
-                    String sql = "DELETE FROM Appointments WHERE Appointment_ID = ?";
-                    PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                    ps.setInt(1, selectAppointment.getAppointment_ID());
-                    ps.execute();
-                    Alert information = new Alert(Alert.AlertType.INFORMATION);
-                    information.setTitle("Record Purged");
-                    information.setContentText("Appointment ID: " + ID + "\nType: " + type + "\nWas purged from the database.");
-                    information.show();
-                    goButton.fire();
+                    DataAccessService.publish(this, appointmentService.delete(ID), rows -> {
+                        Alert information = new Alert(Alert.AlertType.INFORMATION);
+                        information.setTitle("Record Purged");
+                        information.setContentText("Appointment ID: " + ID + "\nType: " + type + "\nWas purged from the database.");
+                        information.show();
+                        pollChanges();
+                    }, this::showError);
                 }
             } catch (Exception e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
@@ -379,6 +491,21 @@ public class AppointmentsController extends MainViewController {
             }
         });
 
+        // IMPORT BUTTON HANDLER
+        importButton.setOnAction(event -> importCsv(event, BulkImporter::importAppointments, () -> {
+            changeFeed.reset();
+            goButton.fire();
+        }));
+
+        // EXPORT BUTTON HANDLER
+        exportButton.setOnAction(event -> {
+            LocalDate from = rangeStart;
+            // The screen's range ends at the start of rangeEnd; the export's end date is inclusive
+            LocalDate to = rangeEnd == null ? null : rangeEnd.minusDays(1);
+            exportFile(appointmentsTable, "appointments", (connection, format, path) ->
+                    Exporter.exportAppointments(connection, from, to, format, path));
+        });
+
         // CLEAR BUTTON HANDLER
         clearButton.setOnAction(clear -> {
             appointmentsTable.getSelectionModel().clearSelection();
@@ -393,53 +520,37 @@ public class AppointmentsController extends MainViewController {
             contactIdBox.getSelectionModel().clearSelection();
             customerIdBox.getSelectionModel().clearSelection();
             userIdBox.getSelectionModel().clearSelection();
+            clearRecurrence();
         });
 
         // SAVE BUTTON HANDLER
         saveButton.setOnAction(save -> {
                 try {
-                    int selectedAppointmentIndex = appointmentsTable.getSelectionModel().getSelectedItem().getAppointment_ID();
-                    String selectedAppointmentType = appointmentsTable.getSelectionModel().getSelectedItem().getType();
+                    Appointment selected = appointmentsTable.getSelectionModel().getSelectedItem();
+                    int selectedAppointmentIndex = selected.getAppointment_ID();
+                    String selectedAppointmentType = selected.getType();
                     Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
                     confirmation.setTitle("Update Appointment");
-                    confirmation.setContentText("Would you like to overwrite your changes to this Appointment?\nAppointment ID: "
-                            + selectedAppointmentIndex + "\nType: " + selectedAppointmentType);
+                    if (selected instanceof Occurrence) {
+                        confirmation.setContentText("Would you like to overwrite your changes to this occurrence only?\nSeries ID: "
+                                + ((Occurrence) selected).getSeries_ID() + "\nStarting: "
+                                + DateTimeCells.format(((Occurrence) selected).getOriginal_Start()));
+                    } else {
+                        confirmation.setContentText("Would you like to overwrite your changes to this Appointment?\nAppointment ID: "
+                                + selectedAppointmentIndex + "\nType: " + selectedAppointmentType);
+                    }
                     if (confirmation.showAndWait().get() == ButtonType.OK) {
-                        inputValidation(selectedAppointmentIndex);
-                        goButton.fire();
-                        ObservableList<Appointment> appointments = appointmentsTable.getItems();
-                        for (Appointment i : appointments) {
-                            if (selectedAppointmentIndex == i.getAppointment_ID()) {
-                                appointmentsTable.getSelectionModel().select(i);
-                            }
+                        inputValidation();
+                        Appointment appointment = addAppointment();
+                        if (selected instanceof Occurrence) {
+                            Occurrence occurrence = (Occurrence) selected;
+                            DataAccessService.publish(this, appointmentService.updateOccurrence(occurrence.getSeries_ID(),
+                                    occurrence.getOriginal_Start(), appointment), rows -> reloadSeries(), this::showError);
+                        } else {
+                            appointment.setAppointment_ID(selectedAppointmentIndex);
+                            DataAccessService.publish(this, appointmentService.update(appointment), rows -> pollChanges(), this::showError);
                         }
-                        Appointment selectAppointment = appointmentsTable.getSelectionModel().getSelectedItem();
-                        String sql = "UPDATE Appointments " +
-                                "SET title = ?, description = ?, location = ?, type = ?, start = ?, end = ?, last_update = CURRENT_TIMESTAMP," +
-                                " last_updated_by = ?, customer_id = ?, user_id = ?, contact_id = ? " +
-                                "WHERE Appointment_ID = ?";
-                        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                        ps.setString(1, titleField.getText());
-                        ps.setString(2, descriptionField.getText());
-                        ps.setString(3, locationField.getText());
-                        ps.setString(4, typeField.getText());
-                        LocalDateTime localStartDate = LocalDateTime.of(startDate.getValue(), localTimesList.get(startTime.getSelectionModel().getSelectedIndex()));
-                        ps.setTimestamp(5, Timestamp.valueOf(localStartDate));
-                        LocalDateTime localEndDate = LocalDateTime.of(endDate.getValue(), localTimesList.get(endTime.getSelectionModel().getSelectedIndex()));
-                        ps.setTimestamp(6, Timestamp.valueOf(localEndDate));
-                        ps.setString(7, JDBC.getUserName());
-                        ps.setInt(8, customerValue.get(customerIdBox.getSelectionModel().getSelectedIndex()));
-                        ps.setInt(9, userValue.get(userIdBox.getSelectionModel().getSelectedIndex()));
-                        ps.setInt(10, contactValue.get(contactIdBox.getSelectionModel().getSelectedIndex()));
-                        ps.setInt(11, selectAppointment.getAppointment_ID());
-                        ps.executeUpdate();
-                        goButton.fire();
                     }
-                } catch (SQLException e) {
-                    Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-                    errorMessage.setTitle("Error Message");
-                    errorMessage.setContentText(e.getMessage());
-                    errorMessage.show();
                 } catch (NullPointerException e) {
                     Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                     errorMessage.setTitle("Error Message");
@@ -456,175 +567,511 @@ public class AppointmentsController extends MainViewController {
     }
 
     /**
-     * Takes the String of the table items to construct Parameter to Construct SQL Query.
-     * @param item for name of the SQL table and the Field names to be retrieved.
-     * @param itemList name of the empty String Observable List to be filled.
-     * @param itemValue name of the empty Integer Observable List to be filled.
-     * @throws SQLException when a connection to the MySQL database could not be established.
+     * Refresh hook for the cached screen: refills the ID ComboBoxes from the ReferenceData cache and patches in the
+     * rows changed while the screen was hidden.
      */
-    public void loadIdBox(String item, ObservableList itemList, ObservableList itemValue) throws SQLException {
-        String sql = "SELECT * FROM " + item + "s";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()) {
-            itemList.add(rs.getInt(item + "_ID") + " - " + rs.getString(item + "_Name"));
-            itemValue.add(rs.getInt(item + "_ID"));
-        }
+    @Override
+    protected void refresh() {
+        loadIdBox(ReferenceData.Table.CONTACTS, contactIdBox, lookup -> contacts = lookup);
+        loadIdBox(ReferenceData.Table.USERS, userIdBox, lookup -> users = lookup);
+        loadIdBox(ReferenceData.Table.CUSTOMERS, customerIdBox, lookup -> customers = lookup);
+        pollChanges();
+    }
+
+    /**
+     * Fills an ID ComboBox from the ReferenceData cache, which only queries MySQL when the table is not cached.
+     * @param table the lookup table.
+     * @param box the ComboBox to fill with "ID - Name" labels.
+     * @param target receives the Lookup used to map the ComboBox selection to an ID.
+     */
+    public void loadIdBox(ReferenceData.Table table, ComboBox<String> box, Consumer<Lookup> target) {
+        DataAccessService.submit(this, connection -> ReferenceData.get(connection, table), lookup -> {
+            target.accept(lookup);
+            box.setItems(FXCollections.observableArrayList(lookup.labels()));
+        }, this::showError);
     }
 
     /**
      * Loads the Appointment TableView with items from appointments table between dates Start and End
-     * <p>
-     * Expression (Nested): This Lambda Expression makes use of functional interfaces to provide a filter for the user to quickly
-     * identify appointments. Use of the Lambda Function here allows for the stream of user input to alter the items viewed in the TableView without
-     * passing around excess data stored in Objects.
-     * <p> Outter: (appointmentSearch.textProperty().addListener) Adds a functional interface listener to the TextField.
-     * <p> Inner: (app.setpredicate) Establishes the predicate of the event listener to be the Appointment which matches the values in TextField.
+     * <p> While a search is showing, the search is re-run instead, since its results span every date.
+     * <p> Rows are read a page at a time by an AppointmentPager, so only the first page is fetched before the TableView shows
+     * anything and at most MAX_LOADED_PAGES pages are held at once. The Records count comes from a COUNT query.
      * @param Start - LocalDate Object
      * @param End - LocalDate Object
-     * @throws SQLException when a connection to the MySQL database could not be established.
      * */
 
-    public void loadTable(LocalDate Start, LocalDate End) throws SQLException {
-        appointmentsList = FXCollections.observableArrayList();
-        String sql = "SELECT * FROM appointments WHERE Start between ? and ? ORDER BY Start";
+    public void loadTable(LocalDate Start, LocalDate End) {
         //If Start or End date are outside of the Year Range 2000-2050, return ALL
-        if (Start.isBefore(LocalDate.of(2000,1,1))
+        boolean all = Start.isBefore(LocalDate.of(2000,1,1))
                 || Start.isAfter(LocalDate.of(2050,12,31))
                 || End.isBefore(LocalDate.of(2000,1,1))
-                || End.isAfter(LocalDate.of(2050,12,31))) {
-            sql = "SELECT * FROM appointments";
-        }
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        if (sql.equals("SELECT * FROM appointments WHERE Start between ? and ? ORDER BY Start")) {
-            ps.setDate(1, java.sql.Date.valueOf(Start));
-            ps.setDate(2, java.sql.Date.valueOf(End));
-        }
-        ResultSet rs = ps.executeQuery();
-        int recordCount = 0;
-        while (rs.next()) {
-            Appointment appointment = new Appointment(
-                    rs.getInt("Appointment_ID"),
-                    rs.getString("Title"),
-                    rs.getString("Description"),
-                    rs.getString("Location"),
-                    rs.getString("Type"),
-                    rs.getTimestamp("Start").toLocalDateTime().format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                    rs.getTimestamp("End").toLocalDateTime().format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                    rs.getInt("Customer_ID"),
-                    rs.getInt("User_ID"),
-                    rs.getInt("Contact_ID"));
-            appointmentsList.add(appointment);
-            recordCount++;
+                || End.isAfter(LocalDate.of(2050,12,31));
+        rangeStart = all ? null : Start;
+        rangeEnd = all ? null : End;
+        if (searchActive) {
+            applySearch(appointmentSearch.getText(), false);
+        } else {
+            reloadPages();
         }
+    }
 
-        int  index = 0;
-        for (String col : COLUMNS) {
-            appointmentsTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(col));
+    /**
+     * Replaces the pager for the current range and sort order, then counts the rows and loads the first page.
+     * Results that arrive for an older pager are dropped.
+     */
+    private void reloadPages() {
+        AppointmentPager current = new AppointmentPager(rangeStart, rangeEnd, sortProperty, sortAscending, PAGE_SIZE);
+        pager = current;
+        pageLoading = true;
+        windowStale = false;
+        recount(current);
+        DataAccessService.publish(this, appointmentService.firstPage(current), page -> {
+            if (pager == current) {
+                pageLoading = false;
+                hasPreviousPage = false;
+                hasNextPage = page.size() == PAGE_SIZE;
+                showAppointments(page);
+            }
+        }, e -> pageFailed(current, e));
+    }
+
+    /**
+     * Counts the rows of the pager's range into the Records count. Results for an older pager are dropped.
+     * @param current the pager to count.
+     */
+    private void recount(AppointmentPager current) {
+        DataAccessService.publish(this, appointmentService.count(current), total -> {
+            if (pager == current) {
+                recordCount.set(total);
+            }
+        }, this::showError);
+    }
+
+    /**
+     * Reads the appointments changed since the last poll and patches them into the loaded rows, instead of reloading the
+     * range. Called after this screen's own writes and every POLL_INTERVAL for other users' edits.
+     */
+    private void pollChanges() {
+        DataAccessService.submit(this, changeFeed::poll, this::applyChanges, this::showError);
+    }
+
+    /**
+     * Applies a change feed delta: removes deleted rows, replaces or places changed rows, and keeps the SearchIndex
+     * current for writes made by other users. The AppointmentIndex follows its own ChangeFeed. In a text order only the
+     * database can place changed rows, so the loaded rows are read again instead.
+     * @param delta the rows changed and deleted since the last poll.
+     */
+    private void applyChanges(ChangeFeed.Delta<Appointment> delta) {
+        if (delta.isEmpty()) {
+            return;
         }
-        displayCount.setText(String.valueOf(recordCount));
-        this.appointmentsTable.setItems(appointmentsList);
+        ReminderScheduler.refresh();
+        for (int id : delta.getDeleted()) {
+            appointmentsList.removeIf(appointment -> appointment.getAppointment_ID() == id);
+            SearchIndex.removeAppointment(id);
+        }
+        boolean reread = pager != null && !searchActive && pager.isTextOrder();
+        for (Appointment changed : delta.getChanged()) {
+            SearchIndex.putAppointment(changed.getAppointment_ID(), changed.getTitle(), changed.getDescription(),
+                    changed.getLocation(), changed.getType(), changed.getCustomerID());
+            if (!reread) {
+                patchRow(changed);
+            }
+        }
+        if (reread && !delta.getChanged().isEmpty()) {
+            reloadWindow();
+        }
+        if (pager != null && !searchActive) {
+            recount(pager);
+        }
+        showAvailability();
+    }
 
-        FilteredList<Appointment> app = new FilteredList<>(appointmentsTable.getItems(), a -> true);
-        appointmentSearch.textProperty().addListener((input, previous, next) -> app.setPredicate(appointment -> {
-            if (next == null || next.isEmpty()) {
-                return true;
+    /**
+     * Shows the free times of the chosen contact within the business hours of the chosen start date, or nothing until
+     * both are chosen.
+     */
+    private void showAvailability() {
+        int index = contactIdBox.getSelectionModel().getSelectedIndex();
+        LocalDate day = startDate.getValue();
+        if (contacts == null || index < 0 || day == null) {
+            availabilityText.setText("");
+            return;
+        }
+        DataAccessService.publish(this, appointmentService.freeSlots(contacts.idAt(index), day), slots -> {
+            DateTimeFormatter shortTime = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT);
+            List<String> free = new ArrayList<>();
+            for (LocalDateTime[] slot : slots) {
+                free.add(slot[0].format(shortTime) + " - " + slot[1].format(shortTime));
+            }
+            availabilityText.setText(free.isEmpty() ? "Contact Fully Booked" : "Contact Free: " + String.join(", ", free));
+        }, this::showError);
+    }
+
+    /**
+     * Places a changed appointment among the loaded rows. Search results only have rows replaced in place. Paged rows
+     * are re-placed in sort order, unless the row now belongs to a page outside the loaded window or outside the range.
+     * Not used in text orders, where the comparator only approximates the database's collation.
+     * @param changed the appointment as it is now stored.
+     */
+    private void patchRow(Appointment changed) {
+        int index = -1;
+        for (int i = 0; i < appointmentsList.size(); i++) {
+            if (appointmentsList.get(i).getAppointment_ID() == changed.getAppointment_ID()) {
+                index = i;
+                break;
             }
-            String lower = next.toLowerCase();
-            if (appointment.getTitle().toLowerCase().contains(lower)) {
-                return true;
-            } else {
-                return Integer.toString(appointment.getAppointment_ID()).contains(lower);
+        }
+        if (searchActive || pager == null) {
+            if (index >= 0) {
+                appointmentsList.set(index, changed);
             }
-        }));
-        SortedList<Appointment> appointmentsSorted = new SortedList<>(app);
-        appointmentsSorted.comparatorProperty().bind(appointmentsTable.comparatorProperty());
-        appointmentsTable.setItems(appointmentsSorted);
+            return;
+        }
+        if (index >= 0) {
+            appointmentsList.remove(index);
+        }
+        if (!pager.inRange(changed)) {
+            return;
+        }
+        Comparator<Appointment> order = pager.comparator();
+        if (!appointmentsList.isEmpty()) {
+            if (hasPreviousPage && order.compare(changed, appointmentsList.get(0)) < 0) {
+                return;
+            }
+            if (hasNextPage && order.compare(changed, appointmentsList.get(appointmentsList.size() - 1)) > 0) {
+                return;
+            }
+        }
+        int position = Collections.binarySearch(appointmentsList, changed, order);
+        appointmentsList.add(position < 0 ? -position - 1 : position, changed);
     }
 
-    /** Performs Standard Input Validations for values in Field
-     * @param sourceID int ID of the Appointment being overwritten, new records provide -1.
-     * @throws NullPointerException if no selection is indicated.
-     * */
+    /**
+     * Reads the loaded rows again from the first one, as many as are loaded or at least a page, so rows changed in a
+     * text order land where the database orders them. Waits for a page load in flight, then runs.
+     */
+    private void reloadWindow() {
+        if (pageLoading) {
+            windowStale = true;
+            return;
+        }
+        windowStale = false;
+        AppointmentPager current = pager;
+        Appointment first = hasPreviousPage && !appointmentsList.isEmpty() ? appointmentsList.get(0) : null;
+        int size = Math.max(PAGE_SIZE, appointmentsList.size());
+        pageLoading = true;
+        DataAccessService.publish(this, appointmentService.window(current, first, size), rows -> {
+            if (pager != current) {
+                return;
+            }
+            pageLoading = false;
+            hasNextPage = rows.size() == size;
+            Appointment anchor = firstVisibleAppointment();
+            appointmentsList.setAll(rows);
+            for (int i = 0; anchor != null && i < rows.size(); i++) {
+                if (rows.get(i).getAppointment_ID() == anchor.getAppointment_ID()) {
+                    appointmentsTable.scrollTo(i);
+                    break;
+                }
+            }
+            reloadStaleWindow();
+        }, e -> pageFailed(current, e));
+    }
 
-    public void inputValidation(int sourceID) throws NullPointerException {
-        ZonedDateTime businessHoursStart = ZonedDateTime.of( LocalDateTime.of(startDate.getValue(),localTimesList.get(32)),
-                ZoneId.of( "America/New_York" )).withZoneSameInstant(ZoneId.systemDefault()); // 8AM EST - Converted to Local TZ
-        ZonedDateTime businessHoursEnd = ZonedDateTime.of( LocalDateTime.of(startDate.getValue(),localTimesList.get(88)),
-                ZoneId.of( "America/New_York" )).withZoneSameInstant(ZoneId.systemDefault()); // 10PM EST - Converted to Local TZ
-        ZonedDateTime inputStartTime = ZonedDateTime.of(startDate.getValue(),
-                localTimesList.get(startTime.getSelectionModel().getSelectedIndex()), ZoneId.systemDefault());
-        ZonedDateTime inputEndTime = ZonedDateTime.of(endDate.getValue(),
-                localTimesList.get(endTime.getSelectionModel().getSelectedIndex()), ZoneId.systemDefault());
-        if (
-                titleField.getText().isEmpty()
-                || descriptionField.getText().isEmpty()
-                || locationField.getText().isEmpty()
-                || typeField.getText().isEmpty()
-                || startDate.getValue() == null
-                || endDate.getValue() == null
-                || startTime.getValue() == null
-                || endTime.getValue() == null
-                || customerIdBox.getValue().isEmpty()
-                || userIdBox.getValue().isEmpty()
-                ||  contactIdBox.getValue().isEmpty())
-        {
+    /**
+     * Re-reads the loaded rows if they changed while a page was loading.
+     */
+    private void reloadStaleWindow() {
+        if (windowStale) {
+            reloadWindow();
+        }
+    }
 
-            throw new RuntimeException("Fields May Not Be Empty");
+    /**
+     * Appends the page after the last loaded row. Drops the first page once more than MAX_LOADED_PAGES are held,
+     * keeping the first visible row in place.
+     */
+    private void loadNextPage() {
+        if (pageLoading || !hasNextPage || appointmentsList.isEmpty()) {
+            return;
+        }
+        AppointmentPager current = pager;
+        Appointment last = appointmentsList.get(appointmentsList.size() - 1);
+        pageLoading = true;
+        DataAccessService.publish(this, appointmentService.pageAfter(current, last), page -> {
+            if (pager != current) {
+                return;
+            }
+            pageLoading = false;
+            hasNextPage = page.size() == PAGE_SIZE;
+            Appointment anchor = firstVisibleAppointment();
+            appointmentsList.addAll(page);
+            if (appointmentsList.size() > MAX_LOADED_PAGES * PAGE_SIZE) {
+                appointmentsList.remove(0, PAGE_SIZE);
+                hasPreviousPage = true;
+                if (anchor != null) {
+                    appointmentsTable.scrollTo(anchor);
+                }
+            }
+            reloadStaleWindow();
+        }, e -> pageFailed(current, e));
+    }
 
-        } else if (inputStartTime.isAfter(inputEndTime)){
-            throw new RuntimeException("Start Time Must Be Before End Time");
-        } else if (inputStartTime.isBefore(businessHoursStart)) {
-            throw new RuntimeException("Start Time May Not Be Before: \n" + businessHoursStart.format(DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM)));
-        } else if (inputStartTime.isAfter(businessHoursEnd)) {
-            throw new RuntimeException("Start Time May Not Be After: \n" + businessHoursEnd.format(DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM)));
-        } else if (inputEndTime.isBefore(businessHoursStart)) {
-            throw new RuntimeException("End Time May Not Be Before: \n" + businessHoursStart.format(DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM)));
-        } else if (inputEndTime.isAfter(businessHoursEnd)) {
-            throw new RuntimeException("End Time May Not Be After: \n" + businessHoursStart.format(DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM)));
-        } else if (inputStartTime.isEqual(inputEndTime)) {
-            throw new RuntimeException("Meetings must be at least 15 minutes long");
+    /**
+     * Prepends the page before the first loaded row. Drops the last page once more than MAX_LOADED_PAGES are held,
+     * keeping the first visible row in place.
+     */
+    private void loadPreviousPage() {
+        if (pageLoading || !hasPreviousPage || appointmentsList.isEmpty()) {
+            return;
         }
-        try {
-            loadTable(inputStartTime.toLocalDate().minusDays(1),
-                    inputEndTime.toLocalDate().plusDays(1));
+        AppointmentPager current = pager;
+        Appointment first = appointmentsList.get(0);
+        pageLoading = true;
+        DataAccessService.publish(this, appointmentService.pageBefore(current, first), page -> {
+            if (pager != current) {
+                return;
+            }
+            pageLoading = false;
+            hasPreviousPage = page.size() == PAGE_SIZE;
+            Appointment anchor = firstVisibleAppointment();
+            appointmentsList.addAll(0, page);
+            if (appointmentsList.size() > MAX_LOADED_PAGES * PAGE_SIZE) {
+                appointmentsList.remove(appointmentsList.size() - PAGE_SIZE, appointmentsList.size());
+                hasNextPage = true;
+            }
+            if (anchor != null) {
+                appointmentsTable.scrollTo(anchor);
+            }
+            reloadStaleWindow();
+        }, e -> pageFailed(current, e));
+    }
 
-            for (Appointment appt : appointmentsTable.getItems()) {
+    /**
+     * Clears the loading flag for a failed page request and reports the error.
+     * @param failed the pager the request was made for.
+     * @param e the failure.
+     */
+    private void pageFailed(AppointmentPager failed, Throwable e) {
+        if (pager == failed) {
+            pageLoading = false;
+            reloadStaleWindow();
+        }
+        showError(e);
+    }
 
-                LocalDateTime start = LocalDateTime.parse(
-                        appt.getStart(),
-                        DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
-                LocalDateTime end = LocalDateTime.parse(
-                        appt.getEnd(),
-                        DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
+    /**
+     * Returns the Appointment in the first visible row of the TableView, or null if no row is visible.
+     * @return the first visible Appointment
+     */
+    private Appointment firstVisibleAppointment() {
+        VirtualFlow<?> flow = (VirtualFlow<?>) appointmentsTable.lookup(".virtual-flow");
+        if (flow == null || flow.getFirstVisibleCell() == null) {
+            return null;
+        }
+        int index = flow.getFirstVisibleCell().getIndex();
+        return index >= 0 && index < appointmentsTable.getItems().size() ? appointmentsTable.getItems().get(index) : null;
+    }
 
-                if (appt.getAppointment_ID() != sourceID) { // Validate All entries unless we were provided the Appt_ID of a value to overwrite
+    /**
+     * Runs the search when typing pauses: each change to the Search Bar text restarts searchDelay, or runs the search at
+     * once when the controller was created without a delay. Called once, from initialize, with the Search Bar's text;
+     * loadTable never adds another listener.
+     * @param searchText the Search Bar text.
+     */
+    void bindSearch(StringProperty searchText) {
+        if (searchDelay == null) {
+            searchText.addListener((input, previous, next) -> applySearch(next, false));
+            return;
+        }
+        searchDelay.setOnFinished(done -> applySearch(searchText.get(), false));
+        searchText.addListener((input, previous, next) -> searchDelay.playFromStart());
+    }
 
-                    if (start.isAfter(inputStartTime.toLocalDateTime())
-                            && start.isBefore(inputEndTime.toLocalDateTime())) { //Look Ahead
+    /**
+     * Replaces the rows of the Appointment TableView with the first page returned by loadTable. The FilteredList built in
+     * initialize re-applies the current search predicate to the new rows.
+     * Rows are already in the TableView's sort order, so no SortedList is needed.
+     * @param appointments the appointments to display.
+     */
+    private void showAppointments(List<Appointment> appointments) {
+        appointmentsList.setAll(appointments);
+        scrollToTop.run();
+    }
 
-                        throw new RuntimeException(
-                                "Overlap: Appointment Runs into an Existing Appointment's Start Time: \nID: " + appt.getAppointment_ID() + " \nTitle: " + appt.getTitle());
+    /**
+     * Runs the Search Bar text against the SearchIndex and shows the ranked matches from every date, replacing the paged
+     * rows. Clearing the text returns to the paged rows of the selected view. Until the SearchIndex has loaded, the text
+     * filters the loaded rows with searchPredicate instead.
+     * @param text the Search Bar text.
+     * @param selectFirst true to select the first result once it is shown.
+     */
+    private void applySearch(String text, boolean selectFirst) {
+        if (!SearchIndex.isLoaded()) {
+            filteredAppointments.setPredicate(searchPredicate(text));
+            if (selectFirst) {
+                selectFirstResult();
+            }
+            return;
+        }
+        filteredAppointments.setPredicate(null);
+        int request = ++searchRequest;
+        if (text == null || text.isBlank()) {
+            if (searchActive) {
+                searchActive = false;
+                reloadPages();
+            }
+            return;
+        }
+        searchActive = true;
+        pager = null; // drops page results still in flight
+        pageLoading = false;
+        windowStale = false;
+        hasPreviousPage = false;
+        hasNextPage = false;
+        DataAccessService.publish(this, appointmentService.search(text, SEARCH_LIMIT), results -> {
+            if (request == searchRequest) {
+                recordCount.set(results.size());
+                showAppointments(results);
+                if (selectFirst) {
+                    selectFirstResult();
+                }
+            }
+        }, this::showError);
+    }
 
-                    } else if (start.isBefore(inputStartTime.toLocalDateTime())
-                            && end.isAfter(inputStartTime.toLocalDateTime())) { //Look Behind
+    /**
+     * Selects the first row of the TableView, or alerts the user that nothing matched.
+     */
+    private void selectFirstResult() {
+        if (appointmentsTable.getItems().isEmpty()) {
+            Alert errorMessage = new Alert(Alert.AlertType.ERROR);
+            errorMessage.setTitle("Error Message");
+            errorMessage.setContentText("Appointment Not Found");
+            errorMessage.show();
+        } else {
+            appointmentsTable.getSelectionModel().select(0);
+        }
+    }
 
-                        throw new RuntimeException(
-                                "Overlap: Another Appointment is in Progress at Intended Start Time: \nID: " + appt.getAppointment_ID() + " \nTitle: " + appt.getTitle());
+    /**
+     * Returns the fallback search filter for the text in the Search Bar: loaded Appointments whose Title or ID contains the text.
+     * <p> Expression (Nested): the returned Lambda is the FilteredList predicate; the lower-cased query is computed once
+     * here rather than once per row.
+     * @param text the Search Bar text.
+     * @return the predicate, matching every Appointment when the text is empty.
+     */
+    private Predicate<Appointment> searchPredicate(String text) {
+        if (text == null || text.isEmpty()) {
+            return appointment -> true;
+        }
+        String lower = text.toLowerCase();
+        return appointment -> appointment.getTitle().toLowerCase().contains(lower)
+                || Integer.toString(appointment.getAppointment_ID()).contains(lower);
+    }
 
-                    } else if (start.isEqual(inputStartTime.toLocalDateTime())) { // Look At
+    /**
+     * Asks whether to cancel one occurrence of a recurring series or delete the whole series, then does so. A cancelled
+     * occurrence is stored as an exception of the series.
+     * @param occurrence the selected occurrence.
+     */
+    private void deleteOccurrence(Occurrence occurrence) {
+        ButtonType thisOccurrence = new ButtonType("This Occurrence");
+        ButtonType wholeSeries = new ButtonType("Whole Series");
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION, null, thisOccurrence, wholeSeries, ButtonType.CANCEL);
+        confirmation.setTitle("Delete Recurring Appointment");
+        confirmation.setContentText("Cancel only this occurrence, or delete every occurrence of the series?\nSeries ID: "
+                + occurrence.getSeries_ID() + "\nStarting: " + DateTimeCells.format(occurrence.getOriginal_Start())
+                + "\nType: " + occurrence.getType());
+        ButtonType choice = confirmation.showAndWait().orElse(ButtonType.CANCEL);
+        if (choice == thisOccurrence) {
+            DataAccessService.publish(this, appointmentService.cancelOccurrence(occurrence.getSeries_ID(),
+                    occurrence.getOriginal_Start()), rows -> reloadSeries(), this::showError);
+        } else if (choice == wholeSeries) {
+            DataAccessService.publish(this, appointmentService.deleteSeries(occurrence.getSeries_ID()), rows -> {
+                Alert information = new Alert(Alert.AlertType.INFORMATION);
+                information.setTitle("Record Purged");
+                information.setContentText("Series ID: " + occurrence.getSeries_ID() + "\nType: " + occurrence.getType()
+                        + "\nWas purged from the database.");
+                information.show();
+                reloadSeries();
+            }, this::showError);
+        }
+    }
 
-                        throw new RuntimeException(
-                                "Overlap: Another Appointment Starts at this Time: \nID: " + appt.getAppointment_ID() + " \nTitle: " + appt.getTitle());
+    /**
+     * Re-reads the paged rows after a recurring series changed, since series are not seen by the change feed. Search
+     * results hold no occurrences, so they are left as they are.
+     */
+    private void reloadSeries() {
+        if (!searchActive && pager != null) {
+            reloadPages();
+        }
+    }
 
-                    }
+    /**
+     * Sets the ID column to show an occurrence of a recurring series as its Series ID and occurrence number, e.g. S4-12,
+     * instead of its synthetic Appointment_ID.
+     */
+    @SuppressWarnings("unchecked")
+    private void formatIdColumn() {
+        ((TableColumn<Appointment, Integer>) appointmentsTable.getColumns().get(0)).setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Integer id, boolean empty) {
+                super.updateItem(id, empty);
+                Appointment row = empty || getTableRow() == null ? null : getTableRow().getItem();
+                if (row instanceof Occurrence) {
+                    setText(((Occurrence) row).getLabel());
+                } else {
+                    setText(empty || id == null ? null : String.valueOf(id));
                 }
             }
-        } catch (SQLException e) {
-            Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-            errorMessage.setTitle("SQL Exception: ");
-            errorMessage.setContentText(e.getMessage());
-            errorMessage.show();
+        });
+    }
+
+    /**
+     * Returns the recurrence chosen with the Repeat ComboBox, or null when the appointment does not repeat. The
+     * AppointmentService checks that exactly one of the Until date and the number of occurrences is given.
+     * @return the recurrence, repeating every day, week or month
+     * @throws RuntimeException if the number of occurrences is not a whole number.
+     */
+    public Recurrence recurrence() {
+        int repeat = repeatBox.getSelectionModel().getSelectedIndex();
+        if (repeat <= 0) {
+            return null;
+        }
+        int count = 0;
+        String occurrences = countField.getText();
+        if (occurrences != null && !occurrences.isBlank()) {
+            try {
+                count = Integer.parseInt(occurrences.trim());
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Occurrences Must Be A Whole Number");
+            }
+        }
+        return new Recurrence(Recurrence.Frequency.values()[repeat - 1], 1, untilDate.getValue(), count);
+    }
+
+    /**
+     * Resets the Repeat fields to a single appointment.
+     */
+    private void clearRecurrence() {
+        repeatBox.getSelectionModel().select(0);
+        countField.clear();
+        untilDate.setValue(null);
+    }
+
+    /** Checks that every date, time and ID has been selected, so the fields can be read into an Appointment.
+     * The AppointmentService validates the values themselves, with the rules in Validation that the BulkImporter also
+     * applies, and checks for overlaps when the record is written.
+     * @throws RuntimeException if a selection is missing.
+     * */
+
+    public void inputValidation() {
+        if (startDate.getValue() == null || endDate.getValue() == null || startTime.getValue() == null || endTime.getValue() == null
+                || customerIdBox.getValue() == null || userIdBox.getValue() == null || contactIdBox.getValue() == null) {
+            throw new RuntimeException("Fields May Not Be Empty");
         }
     }
 
@@ -639,14 +1086,12 @@ public class AppointmentsController extends MainViewController {
                 descriptionField.getText(),
                 locationField.getText(),
                 typeField.getText(),
-                LocalDateTime.of(startDate.getValue(),localTimesList.get(
-                        startTime.getSelectionModel().getSelectedIndex())).format(
-                                DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                LocalDateTime.of(endDate.getValue(),localTimesList.get(
-                        endTime.getSelectionModel().getSelectedIndex())).format(
-                                DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                customerValue.get(customerIdBox.getSelectionModel().getSelectedIndex()),
-                userValue.get(userIdBox.getSelectionModel().getSelectedIndex()),
-                contactValue.get(contactIdBox.getSelectionModel().getSelectedIndex()));
+                Timestamp.valueOf(LocalDateTime.of(startDate.getValue(),localTimesList.get(
+                        startTime.getSelectionModel().getSelectedIndex()))).getTime(),
+                Timestamp.valueOf(LocalDateTime.of(endDate.getValue(),localTimesList.get(
+                        endTime.getSelectionModel().getSelectedIndex()))).getTime(),
+                customers.idAt(customerIdBox.getSelectionModel().getSelectedIndex()),
+                users.idAt(userIdBox.getSelectionModel().getSelectedIndex()),
+                contacts.idAt(contactIdBox.getSelectionModel().getSelectedIndex()));
     }
 }
\ No newline at end of file
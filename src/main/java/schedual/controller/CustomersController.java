@@ -1,19 +1,26 @@
 package schedual.controller;
 
+import javafx.animation.PauseTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import schedual.helper.JDBC;
+import javafx.util.Duration;
+import schedual.helper.BulkImporter;
+import schedual.helper.ChangeFeed;
+import schedual.helper.DataAccessService;
+import schedual.helper.ReferenceData;
+import schedual.helper.ReferenceData.Lookup;
+import schedual.helper.SearchIndex;
 import schedual.model.Customer;
+import schedual.service.CustomerService;
 
 import java.net.URL;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.time.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
 
 
@@ -36,11 +43,14 @@ public class CustomersController extends MainViewController {
     private TextField postalCodeField;
     @FXML
     private TextField phoneField;
+    @FXML
+    private TextField customerSearch;
 
     @FXML private Button backButton;
     @FXML private Button addButton;
     @FXML private Button clearButton;
     @FXML private Button deleteButton;
+    @FXML private Button importButton;
     @FXML private Button editButton;
     @FXML private Button saveButton;
 
@@ -52,12 +62,15 @@ public class CustomersController extends MainViewController {
 
     @FXML
     private TableView<Customer> customersTable;
-    ObservableList<Integer> divisionValue = FXCollections.observableArrayList();
     private final String[] COLUMNS = {"Customer_ID", "Customer_Name", "Address", "Postal_Code", "Phone", "Division_Name", "Country_Name"};
-    private ObservableList<String> countryList = FXCollections.observableArrayList();
-    private ObservableList<String> countryListWithId = FXCollections.observableArrayList();
-    private ObservableList<String> divisionList = FXCollections.observableArrayList();
-    private ObservableList<String> divisionListWithIds = FXCollections.observableArrayList();
+    private Lookup countries = Lookup.EMPTY;
+    private Lookup allDivisions = Lookup.EMPTY;
+    private Lookup divisions = Lookup.EMPTY;
+    private final ObservableList<Customer> customersList = FXCollections.observableArrayList();
+    private final PauseTransition searchDelay = new PauseTransition(Duration.millis(250));
+    private static final int SEARCH_LIMIT = 200;
+    private final CustomerService customerService = new CustomerService();
+    private final ChangeFeed<Customer> changeFeed = customerService.changeFeed();
 
     /**
      * Initializes the Default Resources to the FXML Stage. FXML Handlers are provided with Event Actions through Lambda Expressions.
@@ -70,20 +83,21 @@ public class CustomersController extends MainViewController {
      * <p> (editButton.setOnAction) Updates the value fields below the TableView with the corresponding fields of the Customer Object currently selected in the TableView.
      * <p> (deleteButton.setOnAction) Prompts the user with an alert and confirms if the user wishes to permanently remove the selected Customer in the TableView to the matching record in the MySQL database table.
      * <p> (saveButton.setOnAction) Prompts the user with an alert and confirms if the user wishes to overwrite the selected Customer in the TableView to the matching record in the MySQL database table.
-     * <p> (countryBox.setOnAction) Sets the Division ID ComboBox with the first level division values for the Country_ID in the ComboBox above it.
+     * <p> (importButton.setOnAction) Imports customers from a CSV file chosen by the user, then reloads the TableView.
+     * <p> (countryBox.setOnAction) Sets the Division ID ComboBox with the cached first level division values for the Country_ID in the ComboBox above it.
+     * <p> (customerSearch.textProperty) Restarts a 250ms delay on each keystroke; when typing pauses, the TableView shows the
+     *                  customers matching the search text, best match first.
      * @param url The filepath of this .fxml file.
      * @param resourceBundle Abstract Class which retrieves locale-specific objects.
      * */
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        try {
-            loadCountries();
-        } catch (SQLException e) {
-            System.out.println("SQL EXCEPTION from loadDivisions: " + e.getMessage());
-            throw new RuntimeException(e);
-        }
+        bindLoadingIndicator();
+        loadCountries();
 
         //FXML HANDLERS
         backButton.setOnAction(event -> this.loadFXML(event, "mainMenu.fxml"));
+        searchDelay.setOnFinished(event -> showCustomers());
+        customerSearch.textProperty().addListener((input, previous, next) -> searchDelay.playFromStart());
         clearButton.setOnAction(event -> {
             nameField.clear();
             addressField.clear();
@@ -99,22 +113,7 @@ public class CustomersController extends MainViewController {
                 confirmation.setContentText("Do you want to add this new customer?");
                 if (confirmation.showAndWait().get() == ButtonType.OK) {
                     inputValidation();
-                    Customer customer = addCustomer();
-                    String sql = "INSERT INTO Customers (customer_name, address, postal_code, phone," +
-                            " create_date, created_by, last_update, last_updated_by, division_id)\n" +
-                            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?);";
-                    PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                    ps.setString(1, customer.getCustomer_Name());
-                    ps.setString(2, customer.getAddress());
-                    ps.setString(3, customer.getPostal_Code());
-                    ps.setString(4, customer.getPhone());
-                    ps.setString(5, LocalDateTime.now().toString());
-                    ps.setString(6, JDBC.getUserName());
-                    ps.setString(7, LocalDateTime.now().toString());
-                    ps.setString(8, JDBC.getUserName());
-                    ps.setInt(9, customer.getDivision_ID());
-                    ps.executeUpdate();
-                    loadTable();
+                    DataAccessService.publish(this, customerService.add(addCustomer()), id -> pollChanges(), this::showError);
                 }
             } catch (Exception e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
@@ -130,18 +129,9 @@ public class CustomersController extends MainViewController {
                 addressField.setText(selectCustomer.getAddress());
                 postalCodeField.setText(selectCustomer.getPostal_Code());
                 phoneField.setText(selectCustomer.getPhone());
-                if (selectCustomer.getDivision_ID() > 54) {
-                    if (selectCustomer.getDivision_ID() > 100) {
-                        countryBox.getSelectionModel().select(1);
-                        divisionBox.getSelectionModel().select(selectCustomer.getDivision_ID()-101);
-                    } else {
-                        countryBox.getSelectionModel().select(2);
-                        divisionBox.getSelectionModel().select(selectCustomer.getDivision_ID()-60);
-                    }
-                } else {
-                    countryBox.getSelectionModel().select(0);
-                    divisionBox.getSelectionModel().select(selectCustomer.getDivision_ID()-1);
-                }
+                int countryId = allDivisions.parentOf(selectCustomer.getDivision_ID());
+                countryBox.getSelectionModel().select(countries.indexOf(countryId)); // fills divisionBox for the country
+                divisionBox.getSelectionModel().select(divisions.indexOf(selectCustomer.getDivision_ID()));
             } catch (NullPointerException e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                 errorMessage.setTitle("Error Message");
@@ -158,17 +148,9 @@ public class CustomersController extends MainViewController {
                         + " - " + customersTable.getSelectionModel().getSelectedItem().getCustomer_Name());
                 if (confirmation.showAndWait().get() == ButtonType.OK) {
                     Customer selectCustomer = customersTable.getSelectionModel().getSelectedItem();
-                    String sql = "DELETE FROM Customers WHERE Customer_Id = ?";
-                    PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                    ps.setInt(1, selectCustomer.getCustomer_ID());
-                    ps.execute();
-                    loadTable();
+                    DataAccessService.publish(this, customerService.delete(selectCustomer.getCustomer_ID()),
+                            rows -> pollChanges(), this::showError);
                 }
-            } catch (SQLException e) {
-                Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-                errorMessage.setTitle("Error Message");
-                errorMessage.setContentText(e.getMessage());
-                errorMessage.show();
             } catch (NullPointerException e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                 errorMessage.setTitle("Error Message");
@@ -179,98 +161,144 @@ public class CustomersController extends MainViewController {
         saveButton.setOnAction(event -> {
             try {
                 Customer selectCustomer = customersTable.getSelectionModel().getSelectedItem();
-                String sql = "UPDATE Customers SET customer_name = ?, address = ?, postal_code = ?, phone = ?, last_update = CURRENT_TIMESTAMP," +
-                        " last_updated_by = ?, division_id = ? WHERE Customer_Id = ?";
-                PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                ps.setString(1, nameField.getText());
-                ps.setString(2, addressField.getText());
-                ps.setString(3, postalCodeField.getText());
-                ps.setString(4, phoneField.getText());
-                ps.setString(5, JDBC.getUserName());
-                ps.setInt(6, divisionValue.get((divisionBox.getSelectionModel().getSelectedIndex())));
-                ps.setInt(7, selectCustomer.getCustomer_ID());
-                ps.executeUpdate();
-                loadTable();
-            } catch (SQLException | NullPointerException e) {
+                inputValidation();
+                Customer customer = addCustomer();
+                customer.setCustomer_ID(selectCustomer.getCustomer_ID());
+                DataAccessService.publish(this, customerService.update(customer), rows -> pollChanges(), this::showError);
+            } catch (RuntimeException e) {
                 Alert errorMessage = new Alert(Alert.AlertType.ERROR);
                 errorMessage.setTitle("Error Message");
                 errorMessage.setContentText(e.getMessage());
                 errorMessage.show();
             }
         });
+        importButton.setOnAction(event -> importCsv(event, BulkImporter::importCustomers, () -> {
+            changeFeed.reset();
+            loadTable();
+        }));
         countryBox.setOnAction(event -> {
-            try {
-                divisionValue = FXCollections.observableArrayList();
-                divisionListWithIds = FXCollections.observableArrayList();
-                divisionList = FXCollections.observableArrayList();
-                String sql = "SELECT * FROM first_level_divisions WHERE Country_ID = ?";
-                PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-                ps.setInt(1,countryBox.getSelectionModel().getSelectedIndex()+1);
-                ResultSet rs = ps.executeQuery();
-                while(rs.next()) {
-                    divisionList.add(rs.getString("Division"));
-                    divisionListWithIds.add(rs.getInt("Division_ID") + " - " + rs.getString("Division"));
-                    divisionValue.add(rs.getInt("Division_ID"));
-                }
-                divisionBox.setItems(divisionListWithIds);
-            } catch (SQLException e) {
-                Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-                errorMessage.setTitle("Error Message");
-                errorMessage.setContentText(e.getMessage());
-                errorMessage.show();
-            }
+            int index = countryBox.getSelectionModel().getSelectedIndex();
+            divisions = index < 0 ? Lookup.EMPTY : allDivisions.children(countries.idAt(index));
+            divisionBox.setItems(FXCollections.observableArrayList(divisions.labels()));
         });
-        try {
-            loadTable();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+        loadTable();
+        pollChanges();
+        pollWhileShowing(customersTable, this::pollChanges);
     }
 
     /**
-     * Loads the Country ID Combobox from countries table in MySQL.
-     * @throws SQLException If a connection to the MySQL database cannot be established.
-     * */
-    public void loadCountries() throws SQLException {
-        String sql = "SELECT * FROM countries";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()) {
-            countryList.add(rs.getString("Country"));
-            countryListWithId.add(rs.getInt("Country_ID") + " - " + rs.getString("Country"));
-        }
-        countryBox.setItems(countryListWithId);
+     * Refresh hook for the cached screen: patches in the customers changed while the screen was hidden and refills the
+     * Country ID ComboBox from the cache.
+     */
+    @Override
+    protected void refresh() {
+        loadCountries();
+        pollChanges();
+    }
 
+    /**
+     * Loads the Country ID Combobox and the first level divisions of every country from the ReferenceData cache,
+     * which only queries MySQL when they are not cached. Divisions are filtered per country when a country is selected.
+     * */
+    public void loadCountries() {
+        DataAccessService.submit(this, connection -> new Lookup[]{
+                ReferenceData.get(connection, ReferenceData.Table.COUNTRIES),
+                ReferenceData.get(connection, ReferenceData.Table.DIVISIONS)}, lookups -> {
+            countries = lookups[0];
+            allDivisions = lookups[1];
+            countryBox.setItems(FXCollections.observableArrayList(countries.labels()));
+        }, this::showError);
     }
 
     /**
-     * Loads customersTable TableView with all records from customers table in MySQL database.
-     * @throws SQLException If a connection to the MySQL database cannot be established.
+     * Loads customersTable TableView with all records from customers table in MySQL database, in the background.
      * */
-    public void loadTable() throws SQLException {
-        ObservableList<Customer> customersList = FXCollections.observableArrayList();
-        String sql = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, customers.Division_ID, Division, Country_ID " +
-                "FROM customers JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID;";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
-            Customer customer = new Customer(
-                    rs.getInt("Customer_ID"),
-                    rs.getString("Customer_Name"),
-                    rs.getString("Address"),
-                    rs.getString("Postal_Code"),
-                    rs.getString("Phone"),
-                    rs.getInt("Division_ID"),
-                    rs.getString("Division"),
-                    rs.getInt("Country_ID"),
-                    countryList.get(rs.getInt("Country_ID") - 1));
-            customersList.add(customer);
+    public void loadTable() {
+        DataAccessService.publish(this, customerService.findAll(), customers -> {
+            int  index = 0;
+            for (String var : COLUMNS) {
+                customersTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(var));
+            }
+            customersList.setAll(customers);
+            showCustomers();
+        }, this::showError);
+    }
+
+    /**
+     * Reads the customers changed since the last poll and patches them into customersList, instead of reloading every
+     * customer. Called after this screen's own writes and every POLL_INTERVAL for other users' edits.
+     */
+    private void pollChanges() {
+        DataAccessService.submit(this, changeFeed::poll, this::applyChanges, this::showError);
+    }
+
+    /**
+     * Applies a change feed delta to customersList: removes deleted customers, replaces changed ones by ID and appends new
+     * ones, keeping the SearchIndex and the ReferenceData cache current for writes made by other users. The
+     * AppointmentIndex follows its own ChangeFeed.
+     * @param delta the customers changed and deleted since the last poll.
+     */
+    private void applyChanges(ChangeFeed.Delta<Customer> delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        for (int id : delta.getDeleted()) {
+            customersList.removeIf(customer -> customer.getCustomer_ID() == id);
+            SearchIndex.removeCustomer(id);
+        }
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < customersList.size(); i++) {
+            positions.put(customersList.get(i).getCustomer_ID(), i);
+        }
+        for (Customer changed : delta.getChanged()) {
+            Integer position = positions.get(changed.getCustomer_ID());
+            if (position == null) {
+                positions.put(changed.getCustomer_ID(), customersList.size());
+                customersList.add(changed);
+            } else {
+                customersList.set(position, changed);
+            }
+            SearchIndex.putCustomer(changed.getCustomer_ID(), changed.getCustomer_Name(), changed.getAddress(),
+                    changed.getPostal_Code(), changed.getPhone());
         }
-        int  index = 0;
-        for (String var : COLUMNS) {
-            customersTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(var));
+        ReferenceData.invalidate(ReferenceData.Table.CUSTOMERS);
+        if (customerSearch.getText() != null && !customerSearch.getText().isBlank()) {
+            showCustomers();
         }
-        this.customersTable.setItems(customersList);
+    }
+
+    /**
+     * Shows every loaded customer, or only those matching the text in the Customer Search box, best match first.
+     * Until the SearchIndex has loaded, matches are customers whose name contains the text.
+     */
+    private void showCustomers() {
+        String text = customerSearch.getText();
+        if (text == null || text.isBlank()) {
+            customersTable.setItems(customersList);
+            return;
+        }
+        ObservableList<Customer> matches = FXCollections.observableArrayList();
+        if (SearchIndex.isLoaded()) {
+            Map<Integer, Customer> byId = new HashMap<>();
+            for (Customer customer : customersList) {
+                byId.put(customer.getCustomer_ID(), customer);
+            }
+            List<Integer> ids = SearchIndex.searchCustomers(text, SEARCH_LIMIT);
+            for (int id : ids) {
+                Customer customer = byId.get(id);
+                if (customer != null) {
+                    matches.add(customer);
+                }
+            }
+        } else {
+            String lower = text.toLowerCase();
+            for (Customer customer : customersList) {
+                if (customer.getCustomer_Name().toLowerCase().contains(lower)) {
+                    matches.add(customer);
+                }
+            }
+        }
+        customersTable.setItems(matches);
     }
 
     /**
@@ -284,23 +312,18 @@ public class CustomersController extends MainViewController {
                 addressField.getText(),
                 postalCodeField.getText(),
                 phoneField.getText(),
-                divisionValue.get((divisionBox.getSelectionModel().getSelectedIndex())),
-                divisionList.get(divisionBox.getSelectionModel().getSelectedIndex()),
-                countryBox.getSelectionModel().getSelectedIndex()+1,
-                countryBox.getSelectionModel().getSelectedItem());
+                divisions.idAt(divisionBox.getSelectionModel().getSelectedIndex()),
+                divisions.nameAt(divisionBox.getSelectionModel().getSelectedIndex()),
+                countries.idAt(countryBox.getSelectionModel().getSelectedIndex()),
+                countries.nameAt(countryBox.getSelectionModel().getSelectedIndex()));
     }
 
-    /** Performs Standard Input Validations for values in Field
-     * @throws NullPointerException if no selection is indicated.
+    /** Checks that a country and division have been selected, so the fields can be read into a Customer. The
+     * CustomerService validates the values themselves, with the rules in Validation that the BulkImporter also applies.
+     * @throws RuntimeException if a selection is missing.
      * */
-    public void inputValidation() throws NullPointerException {
-        if (nameField.getText().isEmpty()
-                || addressField.getText().isEmpty()
-                || postalCodeField.getText().isEmpty()
-                || phoneField.getText().isEmpty()
-                || countryBox.getValue().isEmpty()
-                || divisionBox.getValue().isEmpty()) {
-
+    public void inputValidation() {
+        if (countryBox.getValue() == null || divisionBox.getValue() == null) {
             throw new RuntimeException("Fields May Not Be Empty");
         }
     }
@@ -1,16 +1,12 @@
 package schedual.controller;
 
-import java.io.*;
 import java.net.URL;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Timestamp;
-import java.time.Instant;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
@@ -18,7 +14,15 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.text.Text;
 import schedual.Main;
+import schedual.helper.AppointmentIndex;
+import schedual.helper.AuditLog;
+import schedual.helper.DataAccessService;
 import schedual.helper.JDBC;
+import schedual.helper.ReferenceData;
+import schedual.helper.ReminderScheduler;
+import schedual.helper.SearchIndex;
+import schedual.model.Appointment;
+import schedual.model.Occurrence;
 
 /**
   * Secondary Controller - Challenges the user with a username and password prompt.
@@ -42,6 +46,9 @@ public class LogInController extends MainViewController {
     @FXML
     private Label passwordLabel;
 
+    /** How long before an appointment starts the user is reminded of it. */
+    private static final Duration REMINDER_LEAD_TIME = Duration.ofMinutes(15);
+
 
     /**
      * Initializes the Default Resources to the FXML Stage. FXML Handlers are provided with Event Actions through Lambda Expressions.
@@ -64,81 +71,69 @@ public class LogInController extends MainViewController {
 //            passwordInput.setText("Passw0rd!");
             if (JDBC.openConnection(userNameInput.getText(), passwordInput.getText())) {
                 System.out.println(Main.class.getResource("mainMenu.fxml"));
-                try {
-                    updateLogInFile(true);
-                } catch (IOException e) {
-                    Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-                    errorMessage.setTitle("Error Message");
-                    errorMessage.setContentText(e.getMessage());
-                    errorMessage.show();
-                }
+                updateLogInFile(true);
+                ReferenceData.invalidateAll();
                 loadFXML(event, "mainMenu.fxml");
-                try {
-                    checkUpcomingAppointments();
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                SceneCache.prewarm("appointments.fxml", "customers.fxml", "reports.fxml");
+                DataAccessService.submit(null, AppointmentIndex::load, this::showError);
+                DataAccessService.submit(null, SearchIndex::load, this::showError);
+                checkUpcomingAppointments();
             } else {
-                try {
-                    updateLogInFile(false);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
+                updateLogInFile(false);
             }
         });
 
     }
 
     /**
-     * Identifies Appointments from MySQL which begin within the next 15 minutes and Alerts User of result..
-     * @throws SQLException If a connection to MySQL could not be established.
+     * Starts the ReminderScheduler, which alerts the User of every Appointment beginning within REMINDER_LEAD_TIME for the
+     * rest of the session. Once loaded, the User is told whether any appointments begin soon.
      * */
 
-    public void checkUpcomingAppointments() throws SQLException {
-        LocalDateTime upcomingStartTime = LocalDateTime.now().plusDays(1);
-        String upcomingAppointmentTitle = "";
-        int upcomingAppointmentID = 0;
-        String sql = "SELECT * FROM appointments WHERE Start between ? and ?";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
-        ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().plusMinutes(15)));
-        ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
-            upcomingStartTime = rs.getTimestamp("Start").toLocalDateTime();
-            upcomingAppointmentTitle = rs.getString("Title");
-            upcomingAppointmentID = rs.getInt("Appointment_ID");
+    public void checkUpcomingAppointments() {
+        boolean[] first = {true};
+        ReminderScheduler.start(REMINDER_LEAD_TIME, due -> {
+            showUpcomingAppointments(due, first[0]);
+            first[0] = false;
+        });
+    }
+
+    /**
+     * Alerts the User of each appointment the ReminderScheduler found due, or, after the log-in check, that none begin soon.
+     * Alerts do not block, so the User may keep working while they are open.
+     * @param due the Appointments beginning within the lead time.
+     * @param logIn whether this is the check made at log-in.
+     * */
+    private void showUpcomingAppointments(List<Appointment> due, boolean logIn) {
+        if (due.isEmpty()) {
+            if (logIn) {
+                Alert message = new Alert(Alert.AlertType.INFORMATION);
+                message.setTitle("Upcoming Appointments");
+                message.setContentText("You Have No Appointments Beginning Soon");
+                message.show();
+            }
+            return;
         }
-        if (upcomingStartTime.isBefore(LocalDateTime.now().plusMinutes(15))) {
+        for (Appointment appointment : due) {
+            LocalDateTime upcomingStartTime = appointment.getStartDateTime();
+            String id = appointment instanceof Occurrence ? ((Occurrence) appointment).getLabel()
+                    : String.valueOf(appointment.getAppointment_ID());
             Alert message = new Alert(Alert.AlertType.INFORMATION);
             message.setTitle("Appointment Begins Soon");
-            message.setContentText("Appointment: " + upcomingAppointmentID + "\nTitle: " + upcomingAppointmentTitle +
+            message.setContentText("Appointment: " + id + "\nTitle: " + appointment.getTitle() +
                     "\nDate: " + upcomingStartTime.format(DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT))
                     + "\nStart Time: " + upcomingStartTime.format(DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT)));
-            if (message.showAndWait().get() == ButtonType.OK) {}
-        } else {
-            Alert message = new Alert(Alert.AlertType.INFORMATION);
-            message.setTitle("Upcoming Appointments");
-            message.setContentText("You Have No Appointments Beginning Soon");
-            if (message.showAndWait().get() == ButtonType.OK) {}
+            message.show();
         }
     }
 
     /**
-     * Prints a standardized output to login_activities.txt indicating when a User attempted to sign-in,
-     * whether the attempt was successful, and what username and password combination was tried. (
+     * Records a log-in attempt in the AuditLog: when a User attempted to sign-in, with which username, from which time zone,
+     * and whether the attempt was successful. The record is written to login_activity.log in the background.
      * @param success Boolean indicator if the user log-in attempt was successful.
-     * @throws IOException If an issue arises updating the designated file.
      * */
 
-    public void updateLogInFile(Boolean success) throws IOException {
-        String filename = "login_activity.txt", item;
-        FileWriter fileWriter = new FileWriter(filename, true);
-        PrintWriter outputFile= new PrintWriter(fileWriter);
-        System.out.print("Saving Log-In Attempt...");
-        item = "Log-In Attempt (Pass/Fail): " + success + "\n@ " + Timestamp.from(Instant.now());
-        outputFile.println(item + "\n");
-        outputFile.close();
-        System.out.println("File Written");
-
+    public void updateLogInFile(Boolean success) {
+        AuditLog.logInAttempt(userNameInput.getText(), success);
     }
-}
\ No newline at end of file
+}
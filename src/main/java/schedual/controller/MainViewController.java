@@ -1,16 +1,33 @@
 package schedual.controller;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.fxml.FXML;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.ProgressIndicator;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import schedual.Main;
+import schedual.helper.BulkImporter;
+import schedual.helper.DataAccessService;
+import schedual.helper.Exporter;
+import schedual.helper.ImportReport;
+import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ResourceBundle;
 
 
@@ -18,6 +35,10 @@ import java.util.ResourceBundle;
  * Primary Controller - Directs child Controllers.
  */
 public class MainViewController implements Initializable {
+    /** Number of CSV rows validated and inserted per transaction by an import. */
+    protected static final int IMPORT_CHUNK_SIZE = BulkImporter.DEFAULT_CHUNK_SIZE;
+    /** Interval between change feed polls while a screen is showing. */
+    protected static final Duration POLL_INTERVAL = Duration.seconds(15);
 
     @FXML
     private Button exitButton;
@@ -27,6 +48,8 @@ public class MainViewController implements Initializable {
     private Button customerButton;
     @FXML
     private Button reportsButton;
+    @FXML
+    protected ProgressIndicator loadingIndicator;
 
     /**
      * Initializes the Default Resources to the FXML Stage. FXML Handlers are provided with Event Actions through Lambda Expressions.
@@ -53,24 +76,173 @@ public class MainViewController implements Initializable {
         });
     }
 
+    /**
+     * Alerts the user of an exception raised by a handler or a background query.
+     * @param e the exception to report.
+     */
+    protected void showError(Throwable e) {
+        Alert errorMessage = new Alert(Alert.AlertType.ERROR);
+        errorMessage.setTitle("Error Message");
+        errorMessage.setContentText(e.getMessage());
+        errorMessage.show();
+    }
+
+    /**
+     * Shows the screen's loading indicator while any background query is in flight.
+     */
+    protected void bindLoadingIndicator() {
+        if (loadingIndicator != null) {
+            loadingIndicator.visibleProperty().bind(DataAccessService.inFlightProperty().greaterThan(0));
+        }
+    }
+
+    /**
+     * Reloads the screen's data when a cached screen is shown again. Called instead of initialize, which only runs
+     * the first time the screen is loaded. The main menu has no data to reload.
+     */
+    protected void refresh() {
+    }
+
+    /**
+     * Runs poll on the FX thread every POLL_INTERVAL, so a screen picks up other users' edits without a reload.
+     * Ticks are skipped while the node's screen is cached but not the one on the stage.
+     * @param node any node of the screen.
+     * @param poll the screen's change feed poll.
+     */
+    protected void pollWhileShowing(Node node, Runnable poll) {
+        Timeline poller = new Timeline(new KeyFrame(POLL_INTERVAL, tick -> {
+            Scene scene = node.getScene();
+            if (scene != null && scene.getWindow() != null && scene.getWindow().isShowing()) {
+                poll.run();
+            }
+        }));
+        poller.setCycleCount(Animation.INDEFINITE);
+        poller.play();
+    }
+
+    /**
+     * A BulkImporter import method, e.g. BulkImporter::importCustomers.
+     */
+    @FunctionalInterface
+    protected interface CsvImport {
+        ImportReport run(Connection connection, Reader csv, int chunkSize) throws IOException, SQLException;
+    }
+
+    /**
+     * Asks the user for a CSV file and imports it in the background, then reports the row counts and throughput.
+     * Rejected rows are written to an error report next to the file, named after it with an .errors.csv suffix.
+     * @param event The ActionEvent which triggered this method.
+     * @param csvImport the import to run.
+     * @param onImported runs on the FX thread after the import, to reload the screen.
+     */
+    protected void importCsv(ActionEvent event, CsvImport csvImport, Runnable onImported) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import CSV");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Files", "*.csv"));
+        File file = chooser.showOpenDialog(((Node) event.getSource()).getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        Path errorReport = file.toPath().resolveSibling(file.getName() + ".errors.csv");
+        DataAccessService.submit(this, connection -> {
+            try (Reader csv = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                ImportReport report = csvImport.run(connection, csv, IMPORT_CHUNK_SIZE);
+                if (!report.getErrors().isEmpty()) {
+                    report.writeErrors(errorReport);
+                }
+                return report;
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }, report -> {
+            StringBuilder summary = new StringBuilder()
+                    .append("Rows Read: ").append(report.getRowsRead())
+                    .append("\nInserted: ").append(report.getRowsInserted())
+                    .append("\nRejected: ").append(report.getErrors().size())
+                    .append(String.format("\nTime: %.0f ms (%.0f rows/s)", report.getElapsedMillis(), report.getRowsPerSecond()));
+            if (!report.getErrors().isEmpty()) {
+                summary.append("\n\nError Report: ").append(errorReport);
+                report.getErrors().stream().limit(5).forEach(error ->
+                        summary.append("\nLine ").append(error.getLine()).append(": ").append(error.getMessage()));
+            }
+            Alert information = new Alert(Alert.AlertType.INFORMATION);
+            information.setTitle("Import Complete");
+            information.setContentText(summary.toString());
+            information.show();
+            onImported.run();
+        }, this::showError);
+    }
+
+    /**
+     * An Exporter export with its report options bound, e.g. the selected contact.
+     */
+    @FunctionalInterface
+    protected interface FileExport {
+        long run(Connection connection, Exporter.Format format, Path path) throws IOException, SQLException;
+    }
+
+    /**
+     * Asks the user where to save an export, as CSV or JSON, and streams it to the file in the background.
+     * @param anchor any node of the screen, owning the save dialog.
+     * @param fileName the suggested file name, without an extension.
+     * @param export the export to run.
+     */
+    protected void exportFile(Node anchor, String fileName, FileExport export) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export");
+        chooser.setInitialFileName(fileName + ".csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV Files", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON Files", "*.json"));
+        File file = chooser.showSaveDialog(anchor.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        Path path = file.toPath();
+        Exporter.Format format = chooser.getSelectedExtensionFilter() != null
+                && chooser.getSelectedExtensionFilter().getExtensions().contains("*.json")
+                ? Exporter.Format.JSON : Exporter.Format.of(path);
+        DataAccessService.submit(this, connection -> {
+            try {
+                return export.run(connection, format, path);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }, rows -> {
+            Alert information = new Alert(Alert.AlertType.INFORMATION);
+            information.setTitle("Export Complete");
+            information.setContentText(rows + " rows were exported to:\n" + path);
+            information.show();
+        }, this::showError);
+    }
+
     /**
      * Loads FXML resources, Alerts user of IOException if file could not be loaded.
+     * <p> Screens come from the SceneCache: the FXML is parsed and initialize runs once per session, and a screen shown
+     * again only has its refresh hook called. A cached screen keeps its pending background queries when the user leaves
+     * it, so their results still land on it; only a screen that is not cached has them cancelled.
      * @param event  The ActionEvent which triggered this method.
      * @param resource The filepath of this .fxml file.
      */
     public void loadFXML(ActionEvent event, String resource) {
-        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource(resource));
-        fxmlLoader.setLocation(Main.class.getResource(resource));
+        if (!SceneCache.holds(this)) {
+            DataAccessService.cancelAll(this);
+        }
+        SceneCache.Screen screen;
         try {
-            fxmlLoader.load();
+            screen = SceneCache.get(resource);
         } catch (IOException e) {
             Alert errorMessage = new Alert(Alert.AlertType.ERROR);
             errorMessage.setTitle("Error Message");
             errorMessage.setContentText(e.getMessage());
             errorMessage.show();
+            return;
+        }
+        if (screen.markShown() && screen.getController() instanceof MainViewController) {
+            ((MainViewController) screen.getController()).refresh();
         }
         Stage stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-        stage.setScene(new Scene(fxmlLoader.getRoot()));
+        stage.setScene(screen.getScene());
         stage.show();
     }
 }
@@ -6,19 +6,23 @@ import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.text.Text;
-import javafx.util.Pair;
-import schedual.helper.JDBC;
+import schedual.helper.DataAccessService;
+import schedual.helper.DateTimeCells;
+import schedual.helper.Exporter;
+import schedual.helper.ReferenceData;
+import schedual.helper.ReferenceData.Lookup;
+import schedual.helper.ScreenLoadMetrics;
 import schedual.model.Appointment;
 import schedual.model.Engagement;
+import schedual.model.LoginHour;
+import schedual.model.LoginSummary;
 import schedual.model.MonthTypeCount;
+import schedual.model.Occurrence;
+import schedual.service.ReportService;
 
 import java.net.URL;
-import java.sql.*;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.Month;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
 
 /**
@@ -27,29 +31,52 @@ import java.util.*;
  * (1) Presents Reports Menu Option.
  * <p>
  * (2) Allows user to view a Dashboard of the following reports: Appointment Totals, Customer Engagement, and Contact Schedule.
+ * <p>
+ * (3) Allows user to view Login Activity: attempts and failures by user and hour, and each user's first and last log-in.
  */
 
 public class ReportsController extends MainViewController{
     @FXML private ComboBox<String> contactIdBox;
+    @FXML private ComboBox<String> yearBox;
     @FXML private TableView<MonthTypeCount> monthTable;
     @FXML private TableView<Appointment> appointmentsTable;
     @FXML private TableView<Engagement> engagementTable;
     @FXML private Button goButton;
     @FXML private Button backButton;
+    @FXML private MenuItem exportTotalsItem;
+    @FXML private MenuItem exportScheduleItem;
+    @FXML private MenuItem exportEngagementItem;
+    @FXML private MenuItem exportAppointmentsItem;
     @FXML private Text followUpCount;
+    @FXML private Tab loginTab;
+    @FXML private DatePicker loginFromPicker;
+    @FXML private DatePicker loginToPicker;
+    @FXML private Button loginGoButton;
+    @FXML private TableView<LoginHour> loginHourTable;
+    @FXML private TableView<LoginSummary> loginSummaryTable;
+    @FXML private Text loginStatus;
 
     private final String[] COLUMNS = {"Appointment_ID", "title", "description",
             "location", "type", "start", "end", "customerID", "userID", "contactID"};
     private final String [] ENGAGEMENT_COLUMNS = {"Customer_ID", "Customer_Name", "Last_Appointment", "Next_Appointment"};
 
     ObservableList<MonthTypeCount> monthTypeCountList = FXCollections.observableArrayList();
-    ObservableList<Pair<Month, String>> monthTypeList = FXCollections.observableArrayList();
     ObservableList<Appointment> appointmentsList = FXCollections.observableArrayList();
     ObservableList<Engagement> customerEngagementList = FXCollections.observableArrayList();
 
-    private final ObservableList<Integer> contactValue = FXCollections.observableArrayList();
-    private final ObservableList<String> contactList = FXCollections.observableArrayList();
-    private int customersWithNoFollowUp;
+    private Lookup contacts = Lookup.EMPTY;
+    private static final String ALL_YEARS = "All";
+    private String countedYear;
+
+    private static final ScreenLoadMetrics loadMetrics = new ScreenLoadMetrics("Reports");
+    private static final int REPORT_TABLES = 3;
+    private long loadStarted;
+    private long firstTableMillis;
+    private int tablesPending;
+
+    private static final int LOGIN_DEFAULT_DAYS = 30;
+    private boolean loginActivityLoaded;
+    private final ReportService reportService = new ReportService();
 
     /**
      * Initializes the Default Resources to the FXML Stage. FXML Handlers are provided with Event Actions through Lambda Expressions.
@@ -59,6 +86,16 @@ public class ReportsController extends MainViewController{
      * (backButton.onAction) Loads the url for mainMenu.fxml when the Back Button is clicked by user.
      * <p>
      * (goButton.onAction) Determines which view Contact ID is selected, loads all appointments for the selected contact.
+     * <p>
+     * (yearBox.onAction) Reloads the Appointment Totals for the selected year.
+     * <p>
+     * (Export menu) Streams a report to a CSV or JSON file, for the selected year or contact where the report has one.
+     * <p>
+     * (loginTab / loginGoButton) Loads Login Activity for the selected dates, the first time the tab is opened and on Go.
+     * <p>
+     * The three reports are independent, so each is queried at once on its own pooled connection and each table renders
+     * as soon as its rows arrive, showing a progress placeholder until then. Time-to-first-table and time-to-all-tables
+     * are recorded in loadMetrics.
      * @param url The filepath of this .fxml file.
      * @param resourceBundle Abstract Class which retrieves locale-specific objects.
      * */
@@ -66,174 +103,285 @@ public class ReportsController extends MainViewController{
     public void initialize(URL url, ResourceBundle resourceBundle) {
         // (1) GO BUTTON HANDLER
         goButton.setOnAction(go -> {
-            try {
-                loadAppointments(contactIdBox.getSelectionModel().getSelectedIndex()+1);
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+            int contactID = selectedContactID();
+            if (contactID >= 0) {
+                loadAppointments(contactID);
             }
         });
         // (2) BACK BUTTON HANDLER
         backButton.setOnAction(back -> {
             this.loadFXML(back, "mainMenu.fxml");
         });
+        // (3) YEAR BOX HANDLER
+        yearBox.setOnAction(year -> {
+            if (!Objects.equals(yearBox.getValue(), countedYear)) {
+                loadMonthTypeCounts();
+            }
+        });
+
+        // (4) EXPORT MENU HANDLERS
+        exportTotalsItem.setOnAction(export -> {
+            Integer year = yearBox.getValue() == null || ALL_YEARS.equals(yearBox.getValue()) ? null : Integer.valueOf(yearBox.getValue());
+            exportFile(monthTable, "appointment-totals", (connection, format, path) ->
+                    Exporter.exportMonthTypeTotals(connection, year, format, path));
+        });
+        exportScheduleItem.setOnAction(export -> {
+            int contactID = selectedContactID();
+            if (contactID < 0) {
+                return;
+            }
+            exportFile(appointmentsTable, "contact-schedule-" + contactID, (connection, format, path) ->
+                    Exporter.exportContactSchedule(connection, contactID, format, path));
+        });
+        exportEngagementItem.setOnAction(export -> exportFile(engagementTable, "customer-engagement", Exporter::exportEngagement));
+        exportAppointmentsItem.setOnAction(export -> exportFile(appointmentsTable, "appointments", (connection, format, path) ->
+                Exporter.exportAppointments(connection, null, null, format, path)));
+
+        // (5) LOGIN ACTIVITY HANDLERS
+        loginToPicker.setValue(LocalDate.now());
+        loginFromPicker.setValue(LocalDate.now().minusDays(LOGIN_DEFAULT_DAYS));
+        loginGoButton.setOnAction(go -> loadLoginActivity());
+        loginTab.setOnSelectionChanged(selected -> {
+            if (loginTab.isSelected() && !loginActivityLoaded) {
+                loadLoginActivity();
+            }
+        });
+
+        // LOADER GROUP - each loader queries in parallel in the background and fills its table when the rows arrive
+        bindLoadingIndicator();
+        monthTable.setPlaceholder(new ProgressIndicator());
+        appointmentsTable.setPlaceholder(new ProgressIndicator());
+        engagementTable.setPlaceholder(new ProgressIndicator());
+        startLoad();
+        loadContacts();
+        loadYears();
+        loadMonthTypeCounts();
+        loadAppointments(1);
+        loadEngagementTable();
+    }
 
-        // LOADER GROUP
-        try {
+    /**
+     * Refresh hook for the cached screen: re-runs every report, keeping the selected contact and year. The contacts are
+     * reloaded if they never arrived, and the first contact's schedule is shown until one is selected.
+     */
+    @Override
+    protected void refresh() {
+        startLoad();
+        loadMonthTypeCounts();
+        loadEngagementTable();
+        if (contacts == Lookup.EMPTY) {
             loadContacts();
-            contactIdBox.getSelectionModel().select(0);
-            loadMonthTypeCounts();
-            loadAppointments(1);
-            loadEngagementTable();
-        } catch (SQLException e) {
+        }
+        int contactID = contacts.idAt(contactIdBox.getSelectionModel().getSelectedIndex());
+        loadAppointments(contactID < 0 ? 1 : contactID);
+    }
+
+    /**
+     * Returns the contact selected in the ComboBox above the Contact Schedule Tableview, Alerting the user if none is.
+     * @return the Contact_ID, or -1 if no contact is selected.
+     */
+    private int selectedContactID() {
+        int contactID = contacts.idAt(contactIdBox.getSelectionModel().getSelectedIndex());
+        if (contactID < 0) {
             Alert errorMessage = new Alert(Alert.AlertType.ERROR);
-            errorMessage.setTitle("SQL Exception: Loader Group");
-            errorMessage.setContentText(e.getMessage());
+            errorMessage.setTitle("Error Message");
+            errorMessage.setContentText("Please Select A Contact");
             errorMessage.show();
         }
+        return contactID;
     }
 
     /**
-     * Queries MySQL database for all contact IDs in contacts table. Loads the values into the ComboBox above the Contact Schedule Tableview.
-     * @throws SQLException when a connection to MySQL database could not be established.
+     * Returns the timings of the Reports screen loads this session.
+     * @return load metrics
      */
-    public void loadContacts() throws SQLException {
-        PreparedStatement ps = JDBC.getConnection().prepareStatement("SELECT * FROM contacts");
-        ResultSet rs = ps.executeQuery();
-        while(rs.next()) {
-            contactList.add(rs.getInt("Contact_ID") + " - " + rs.getString("Contact_Name"));
-            contactValue.add(rs.getInt("Contact_ID"));
-        }
-        contactIdBox.setItems(contactList);
+    public static ScreenLoadMetrics getLoadMetrics() {
+        return loadMetrics;
     }
 
     /**
-     * Queries MySQL database for all appointments belonging to the selected contact ID in the ComboBox above the Contact Schedule Tableview.
-     * @param ContactID the int value of the Contact to be loaded.
-     * @throws SQLException when a connection to MySQL database could not be established.
+     * Starts timing a load of all three report tables.
      */
-    public void loadAppointments(int ContactID) throws SQLException {
-        appointmentsList = FXCollections.observableArrayList();
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(
-                "SELECT * FROM appointments WHERE Contact_ID = ? ORDER BY Start");
-        ps.setInt(1, ContactID);
-        ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
-            Appointment appointment = new Appointment(
-                    rs.getInt("Appointment_ID"),
-                    rs.getString("Title"),
-                    rs.getString("Description"),
-                    rs.getString("Location"),
-                    rs.getString("Type"),
-                    rs.getTimestamp("Start").toLocalDateTime().format(
-                            DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                    rs.getTimestamp("End").toLocalDateTime().format(
-                            DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT)),
-                    rs.getInt("Customer_ID"),
-                    rs.getInt("User_ID"),
-                    rs.getInt("Contact_ID"));
-            appointmentsList.add(appointment);
-        }
-        int  index = 0;
-        for (String col : COLUMNS) {
-            appointmentsTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(col));
-        }
-        this.appointmentsTable.setItems(appointmentsList);
+    private void startLoad() {
+        loadStarted = System.nanoTime();
+        tablesPending = REPORT_TABLES;
     }
+
     /**
-     * Loads the TableView for Customer Engagement.
-     * @throws SQLException when a connection to MySQL database could not be established.
+     * Marks a report table as rendered, or failed, and swaps its progress placeholder for an empty-table message.
+     * Records the load in loadMetrics once every table of the current load has rendered; reloads of a single
+     * table by the Go button or the Year ComboBox are not timed.
+     * @param table the report table whose rows arrived.
      */
-    public void loadEngagementTable() throws SQLException {
-        customerEngagementList = FXCollections.observableArrayList();
-        String sql = "SELECT * FROM customers";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(sql);
-        ResultSet rs = ps.executeQuery();
-        while (rs.next()) {
-            String[] appts = retrieveCustomerAppointments(rs.getInt("Customer_ID"));
-            Engagement engagement =new Engagement(
-                    rs.getInt("Customer_ID"),
-                    rs.getString("Customer_Name"),
-                    appts[0],
-                    appts[1]);
-            customerEngagementList.add(engagement);
+    private void tableLoaded(TableView<?> table) {
+        table.setPlaceholder(new Label("No Records"));
+        if (tablesPending == 0) {
+            return;
+        }
+        long elapsed = (System.nanoTime() - loadStarted) / 1_000_000;
+        if (tablesPending == REPORT_TABLES) {
+            firstTableMillis = elapsed;
         }
-        int  index = 0;
-        for (String var : ENGAGEMENT_COLUMNS) {
-            engagementTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(var));
+        if (--tablesPending == 0) {
+            loadMetrics.record(firstTableMillis, elapsed);
         }
-        this.engagementTable.setItems(customerEngagementList);
-        followUpCount.setText(String.valueOf(customersWithNoFollowUp));
     }
 
+    /**
+     * Loads the contacts into the ComboBox above the Contact Schedule Tableview from the ReferenceData cache, which only
+     * queries MySQL when the contacts are not cached.
+     */
+    public void loadContacts() {
+        DataAccessService.submit(this, connection -> ReferenceData.get(connection, ReferenceData.Table.CONTACTS), lookup -> {
+            contacts = lookup;
+            contactIdBox.setItems(FXCollections.observableArrayList(lookup.labels()));
+            contactIdBox.getSelectionModel().select(0);
+        }, this::showError);
+    }
 
     /**
-     * Queries MySQL database for all distinct types for use by the Appointment Totals Report.
-     * @throws SQLException when a connection to MySQL database could not be established.
+     * Queries MySQL database for all appointments belonging to the selected contact ID in the ComboBox above the Contact Schedule Tableview.
+     * @param ContactID the int value of the Contact to be loaded.
      */
-    public void loadMonthTypeCounts() throws SQLException {
-        PreparedStatement ps = JDBC.getConnection().prepareStatement("SELECT * FROM appointments ORDER BY month(Start), Type");
-        ResultSet rs = ps.executeQuery();
-        int index = 0;
-        int consecutive = 1;
-        while(rs.next()) {
-            Month month = rs.getTimestamp("Start").toLocalDateTime().getMonth();
-            String type = rs.getString("Type");
-            Pair<Month, String> monthTypePair = new Pair<>(month, type);
-            MonthTypeCount record = new MonthTypeCount(month, type, 1);
-            if (!monthTypeList.contains(monthTypePair)) { //NEW ITEM
-                monthTypeList.add(monthTypePair);
-                monthTypeCountList.add(record);
-                monthTypeCountList.get(index).setCount(consecutive);
-                consecutive = 1;
-                index++;
-            } else { //REPEAT MONTHTYPE
-                consecutive++;
+    public void loadAppointments(int ContactID) {
+        DataAccessService.publish(this, reportService.contactSchedule(ContactID), appointments -> {
+            appointmentsList = FXCollections.observableArrayList(appointments);
+            int  index = 0;
+            for (String col : COLUMNS) {
+                appointmentsTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(col));
             }
-        }
-        monthTable.setItems(monthTypeCountList);
-        monthTable.getColumns().get(0).setCellValueFactory(new PropertyValueFactory<>("Month"));
-        monthTable.getColumns().get(1).setCellValueFactory(new PropertyValueFactory<>("Type"));
-        monthTable.getColumns().get(2).setCellValueFactory(new PropertyValueFactory<>("Count"));
-
+            DateTimeCells.formatAsDateTime(appointmentsTable.getColumns().get(5)); // Start
+            DateTimeCells.formatAsDateTime(appointmentsTable.getColumns().get(6)); // End
+            formatIdColumn();
+            this.appointmentsTable.setItems(appointmentsList);
+            tableLoaded(appointmentsTable);
+        }, e -> {
+            tableLoaded(appointmentsTable);
+            showError(e);
+        });
     }
 
     /**
-     * Retrieves the Customer's next appointment and last appointment, provides null if a value is not found.
-     * @param CustomerID the integer value of the Customer's ID.
-     * @throws SQLException when a connection to MySQL database could not be established.
-     * @throws NullPointerException when a selection is not indicated.
-     * @return String[] Containing the Formatted DateTime of the Last and Next Appointment for the Customer.
+     * Sets the ID column of the Contact Schedule to show an occurrence of a recurring series as its Series ID and
+     * occurrence number, e.g. S4-12, instead of its synthetic Appointment_ID.
      */
-
-    public String[] retrieveCustomerAppointments(int CustomerID) throws SQLException, NullPointerException {
-        PreparedStatement ps = JDBC.getConnection().prepareStatement("SELECT * FROM appointments WHERE Customer_ID = ?");
-        ps.setInt(1, CustomerID);
-        ResultSet rs = ps.executeQuery();
-        LocalDateTime lastAppointment = LocalDateTime.MIN;
-        LocalDateTime nextAppointment = LocalDateTime.MAX;
-        while (rs.next()) {
-            if (rs.getTimestamp("Start").before(Timestamp.from(Instant.now()))) {
-                if (rs.getTimestamp("Start").toLocalDateTime().isAfter((lastAppointment))) {
-                    lastAppointment = rs.getTimestamp("Start").toLocalDateTime();
+    @SuppressWarnings("unchecked")
+    private void formatIdColumn() {
+        ((TableColumn<Appointment, Integer>) appointmentsTable.getColumns().get(0)).setCellFactory(column -> new TableCell<>() {
+            @Override
+            protected void updateItem(Integer id, boolean empty) {
+                super.updateItem(id, empty);
+                Appointment row = empty || getTableRow() == null ? null : getTableRow().getItem();
+                if (row instanceof Occurrence) {
+                    setText(((Occurrence) row).getLabel());
+                } else {
+                    setText(empty || id == null ? null : String.valueOf(id));
                 }
             }
-            if (rs.getTimestamp("Start").after(Timestamp.from(Instant.now()))) {
-                if (rs.getTimestamp("Start").toLocalDateTime().isBefore(nextAppointment)) {
-                    nextAppointment = rs.getTimestamp("Start").toLocalDateTime();
-                }
+        });
+    }
+
+    /**
+     * Loads the TableView for Customer Engagement.
+     * <p> Last and next appointment for every customer come from one grouped query over customers LEFT JOIN appointments,
+     * merged with the occurrences of recurring series, and the count of customers without a follow-up is taken afterwards.
+     */
+    public void loadEngagementTable() {
+        DataAccessService.publish(this, reportService.engagement(), report -> {
+            customerEngagementList = FXCollections.observableArrayList(report.getEngagements());
+            int  index = 0;
+            for (String var : ENGAGEMENT_COLUMNS) {
+                engagementTable.getColumns().get(index++).setCellValueFactory(new PropertyValueFactory<>(var));
             }
-        }
-        String[] times = new String[2];
+            DateTimeCells.formatAsDateTime(engagementTable.getColumns().get(2)); // Last_Appointment
+            DateTimeCells.formatAsDateTime(engagementTable.getColumns().get(3)); // Next_Appointment
+            this.engagementTable.setItems(customerEngagementList);
+            followUpCount.setText(String.valueOf(report.getCustomersWithNoFollowUp()));
+            tableLoaded(engagementTable);
+        }, e -> {
+            tableLoaded(engagementTable);
+            showError(e);
+        });
+    }
 
-        if (!nextAppointment.equals(LocalDateTime.MAX)) {
-            times[1] = nextAppointment.format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
 
-        } else {
-            customersWithNoFollowUp++;
-        }
-        if (!lastAppointment.equals(LocalDateTime.MIN)) {
-            times[0] = lastAppointment.format(DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT));
+    /**
+     * Loads the Login Activity tables for the dates selected in the From and To DatePickers, both inclusive.
+     * <p> The log-in log is first ingested into the LoginStore, which appends only the attempts logged since the last
+     * ingest, then both tables are answered from the store's time index. Nothing is read from MySQL.
+     */
+    public void loadLoginActivity() {
+        LocalDate fromDate = loginFromPicker.getValue();
+        LocalDate toDate = loginToPicker.getValue();
+        if (fromDate == null || toDate == null || toDate.isBefore(fromDate)) {
+            loginStatus.setText("Select a From date on or before the To date.");
+            return;
         }
-        return times;
+        loginActivityLoaded = true;
+        long from = fromDate.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long to = toDate.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        loginHourTable.setPlaceholder(new ProgressIndicator());
+        loginSummaryTable.setPlaceholder(new ProgressIndicator());
+        DataAccessService.publish(this, reportService.loginActivity(from, to), activity -> {
+            loginHourTable.getColumns().get(0).setCellValueFactory(new PropertyValueFactory<>("Hour"));
+            loginHourTable.getColumns().get(1).setCellValueFactory(new PropertyValueFactory<>("User"));
+            loginHourTable.getColumns().get(2).setCellValueFactory(new PropertyValueFactory<>("Attempts"));
+            loginHourTable.getColumns().get(3).setCellValueFactory(new PropertyValueFactory<>("Failures"));
+            DateTimeCells.formatAsDateTime(loginHourTable.getColumns().get(0)); // Hour
+            loginSummaryTable.getColumns().get(0).setCellValueFactory(new PropertyValueFactory<>("User"));
+            loginSummaryTable.getColumns().get(1).setCellValueFactory(new PropertyValueFactory<>("First_Login"));
+            loginSummaryTable.getColumns().get(2).setCellValueFactory(new PropertyValueFactory<>("Last_Login"));
+            loginSummaryTable.getColumns().get(3).setCellValueFactory(new PropertyValueFactory<>("Attempts"));
+            loginSummaryTable.getColumns().get(4).setCellValueFactory(new PropertyValueFactory<>("Failures"));
+            DateTimeCells.formatAsDateTime(loginSummaryTable.getColumns().get(1)); // First_Login
+            DateTimeCells.formatAsDateTime(loginSummaryTable.getColumns().get(2)); // Last_Login
+            loginHourTable.setItems(FXCollections.observableArrayList(activity.getHours()));
+            loginSummaryTable.setItems(FXCollections.observableArrayList(activity.getSummaries()));
+            loginHourTable.setPlaceholder(new Label("No Records"));
+            loginSummaryTable.setPlaceholder(new Label("No Records"));
+            loginStatus.setText(activity.getIngested() + " new attempt(s) ingested, " + activity.getStored() + " stored.");
+        }, e -> {
+            loginHourTable.setPlaceholder(new Label("No Records"));
+            loginSummaryTable.setPlaceholder(new Label("No Records"));
+            loginActivityLoaded = false;
+            showError(e);
+        });
+    }
+
+    /**
+     * Queries MySQL database for the distinct years that have appointments. Loads them into the Year ComboBox of the
+     * Appointment Totals Report, behind an "All" entry that is selected by default. The Appointment Totals are loaded
+     * for every year in parallel, so selecting the default does not load them again.
+     */
+    public void loadYears() {
+        DataAccessService.publish(this, reportService.years(), years -> {
+            ObservableList<String> yearList = FXCollections.observableArrayList(ALL_YEARS);
+            for (int year : years) {
+                yearList.add(String.valueOf(year));
+            }
+            yearBox.setItems(yearList);
+            yearBox.getSelectionModel().select(0);
+        }, this::showError);
+    }
+
+    /**
+     * Loads the Appointment Totals Report for the year selected in the Year ComboBox, or for every year.
+     */
+    public void loadMonthTypeCounts() {
+        String selected = yearBox.getValue();
+        Integer year = selected == null || selected.equals(ALL_YEARS) ? null : Integer.valueOf(selected);
+        countedYear = year == null ? ALL_YEARS : selected;
+        DataAccessService.publish(this, reportService.monthTypeCounts(year), counts -> {
+            monthTypeCountList = FXCollections.observableArrayList(counts);
+            monthTable.setItems(monthTypeCountList);
+            monthTable.getColumns().get(0).setCellValueFactory(new PropertyValueFactory<>("Year"));
+            monthTable.getColumns().get(1).setCellValueFactory(new PropertyValueFactory<>("Month"));
+            monthTable.getColumns().get(2).setCellValueFactory(new PropertyValueFactory<>("Type"));
+            monthTable.getColumns().get(3).setCellValueFactory(new PropertyValueFactory<>("Count"));
+            tableLoaded(monthTable);
+        }, e -> {
+            tableLoaded(monthTable);
+            showError(e);
+        });
     }
 }
@@ -0,0 +1,130 @@
+package schedual.controller;
+
+import javafx.application.Platform;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Parent;
+import javafx.scene.Scene;
+import schedual.Main;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of loaded screens keyed by FXML resource, used by MainViewController.loadFXML.
+ * <p> Each screen's FXML is parsed and its controller initialized once per session. Returning to a cached screen reuses
+ * its Scene and calls the controller's refresh hook instead of building a new scene graph. The log-in screen is never
+ * cached.
+ * <p> prewarm loads screens ahead of time, one per FX pulse, so the menu stays responsive while they build.
+ * <p> Used on the FX thread only.
+ * @author Ben Porter
+ */
+final class SceneCache {
+    private static final Set<String> CACHEABLE = Set.of("mainMenu.fxml", "appointments.fxml", "customers.fxml", "reports.fxml");
+
+    /** A loaded screen: its Scene, its controller and whether it has been shown yet. */
+    static final class Screen {
+        private final Scene scene;
+        private final Object controller;
+        private boolean shown;
+
+        private Screen(Scene scene, Object controller) {
+            this.scene = scene;
+            this.controller = controller;
+        }
+
+        /**
+         * Returns the Scene to set on the Stage.
+         * @return the screen's Scene
+         */
+        Scene getScene() {
+            return scene;
+        }
+
+        /**
+         * Returns the controller created by the FXMLLoader.
+         * @return the controller, null if the FXML declares none
+         */
+        Object getController() {
+            return controller;
+        }
+
+        /**
+         * Marks the screen as shown and reports whether it had been shown before.
+         * @return true if the screen is being shown again and its data should be refreshed.
+         */
+        boolean markShown() {
+            boolean again = shown;
+            shown = true;
+            return again;
+        }
+    }
+
+    private static final Map<String, Screen> screens = new HashMap<>();
+
+    private SceneCache() {}
+
+    /**
+     * Returns the cached screen for a resource, loading it first if it is not cached.
+     * Resources outside the cacheable set are loaded fresh every time.
+     * @param resource the FXML file name, e.g. "appointments.fxml".
+     * @return the screen
+     * @throws IOException when the FXML could not be loaded.
+     */
+    static Screen get(String resource) throws IOException {
+        Screen screen = screens.get(resource);
+        if (screen == null) {
+            screen = load(resource);
+            if (CACHEABLE.contains(resource)) {
+                screens.put(resource, screen);
+            }
+        }
+        return screen;
+    }
+
+    /**
+     * Returns true if a controller belongs to a cached screen, which lives for the whole session.
+     * @param controller the controller to look for.
+     * @return whether the controller's screen is cached
+     */
+    static boolean holds(Object controller) {
+        for (Screen screen : screens.values()) {
+            if (screen.getController() == controller) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Loads screens into the cache ahead of time, one per FX pulse. Screens already cached are skipped.
+     * @param resources the FXML file names to load.
+     */
+    static void prewarm(String... resources) {
+        Deque<String> pending = new ArrayDeque<>(Arrays.asList(resources));
+        Platform.runLater(() -> prewarmNext(pending));
+    }
+
+    private static void prewarmNext(Deque<String> pending) {
+        String resource = pending.poll();
+        if (resource == null) {
+            return;
+        }
+        try {
+            get(resource);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+        Platform.runLater(() -> prewarmNext(pending));
+    }
+
+    private static Screen load(String resource) throws IOException {
+        FXMLLoader fxmlLoader = new FXMLLoader(Main.class.getResource(resource));
+        Parent root = fxmlLoader.load();
+        return new Screen(new Scene(root), fxmlLoader.getController());
+    }
+}
@@ -0,0 +1,269 @@
+package schedual.helper;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-Memory Appointment Index - per-contact and per-customer IntervalTrees of appointment time ranges.
+ * <p> Loaded from the appointments table at log-in. The AppointmentService and CustomerService apply their own writes
+ * at once, and refresh applies everyone else's from a ChangeFeed of the appointments table, so the index never holds
+ * more than one refresh of staleness. Answers overlap, point-in-time occupancy ("who is busy at 14:00") and free-slot
+ * queries without scanning the appointments table; the AppointmentService refreshes it before each availability query.
+ * <p> Writes that land while load reads the table are replayed onto the new trees, so none is lost to the swap.
+ * Recurring series are not indexed.
+ * <p> Times are stored as epoch milliseconds from Timestamp.valueOf, the same conversion the AppointmentService uses to write them.
+ * @author Ben Porter
+ */
+public class AppointmentIndex {
+
+    /** The ranges and owners of one indexed appointment, kept so it can be found again on update or delete. */
+    private static final class Entry {
+        private final int appointmentID;
+        private final long start;
+        private final long end;
+        private final int customerID;
+        private final int contactID;
+
+        private Entry(int appointmentID, long start, long end, int customerID, int contactID) {
+            this.appointmentID = appointmentID;
+            this.start = start;
+            this.end = end;
+            this.customerID = customerID;
+            this.contactID = contactID;
+        }
+
+        private static Entry map(ResultSet rs) throws SQLException {
+            return new Entry(rs.getInt("Appointment_ID"), rs.getTimestamp("Start").getTime(),
+                    rs.getTimestamp("End").getTime(), rs.getInt("Customer_ID"), rs.getInt("Contact_ID"));
+        }
+    }
+
+    private static final String SELECT_SQL = "SELECT Appointment_ID, Start, End, Customer_ID, Contact_ID FROM appointments";
+    private static final ChangeFeed<Entry> feed = new ChangeFeed<>("appointments", "Appointment_ID",
+            "SELECT Appointment_ID, Start, End, Customer_ID, Contact_ID, Last_Update AS Change_Time FROM appointments",
+            "Last_Update", Entry::map);
+    private static final Object loadLock = new Object();
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static Map<Integer, IntervalTree> byContact = new HashMap<>();
+    private static Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+    private static Map<Integer, Entry> entries = new HashMap<>();
+    private static List<Runnable> pending;
+    private static volatile boolean loaded;
+
+    private AppointmentIndex() {}
+
+    /**
+     * Rebuilds the index from the appointments table. Runs on a background connection.
+     * @param connection the connection to query on.
+     * @return the number of appointments indexed.
+     * @throws SQLException when the appointments could not be read.
+     */
+    public static int load(Connection connection) throws SQLException {
+        synchronized (loadLock) {
+            write(() -> pending = new ArrayList<>());
+            try {
+                feed.reset();
+                feed.poll(connection); // sets the watermark before the read, so refresh misses nothing written during it
+                Map<Integer, IntervalTree> contacts = new HashMap<>();
+                Map<Integer, IntervalTree> customers = new HashMap<>();
+                Map<Integer, Entry> loadedEntries = new HashMap<>();
+                QueryExecutor.forEach(connection, SELECT_SQL, rs -> {
+                    Entry entry = Entry.map(rs);
+                    loadedEntries.put(entry.appointmentID, entry);
+                    contacts.computeIfAbsent(entry.contactID, key -> new IntervalTree())
+                            .insert(entry.appointmentID, entry.start, entry.end);
+                    customers.computeIfAbsent(entry.customerID, key -> new IntervalTree())
+                            .insert(entry.appointmentID, entry.start, entry.end);
+                });
+                write(() -> {
+                    byContact = contacts;
+                    byCustomer = customers;
+                    entries = loadedEntries;
+                    pending.forEach(Runnable::run);
+                    loaded = true;
+                });
+                return loadedEntries.size();
+            } finally {
+                write(() -> pending = null);
+            }
+        }
+    }
+
+    /**
+     * Applies the appointments inserted, updated and deleted since the previous refresh or load, by any session, or
+     * loads the index if it has not been loaded yet. Runs on a background connection.
+     * @param connection the connection to query on.
+     * @return the number of appointments changed.
+     * @throws SQLException when the changes could not be read.
+     */
+    public static int refresh(Connection connection) throws SQLException {
+        synchronized (loadLock) {
+            if (!loaded) {
+                return load(connection);
+            }
+            ChangeFeed.Delta<Entry> delta = feed.poll(connection);
+            if (!delta.isEmpty()) {
+                write(() -> {
+                    delta.getDeleted().forEach(AppointmentIndex::removeEntry);
+                    delta.getChanged().forEach(AppointmentIndex::putEntry);
+                });
+            }
+            return delta.getChanged().size() + delta.getDeleted().size();
+        }
+    }
+
+    /**
+     * Returns true once load has completed.
+     * @return whether the index can be queried
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Adds or replaces an appointment after an INSERT or UPDATE.
+     * @param appointmentID int ID of the appointment.
+     * @param start LocalDateTime the appointment starts at.
+     * @param end LocalDateTime the appointment ends at.
+     * @param customerID int customer of the appointment.
+     * @param contactID int contact of the appointment.
+     */
+    public static void put(int appointmentID, LocalDateTime start, LocalDateTime end, int customerID, int contactID) {
+        Entry entry = new Entry(appointmentID, toMillis(start), toMillis(end), customerID, contactID);
+        record(() -> putEntry(entry));
+    }
+
+    /**
+     * Removes an appointment after a DELETE.
+     * @param appointmentID int ID of the appointment.
+     */
+    public static void remove(int appointmentID) {
+        record(() -> removeEntry(appointmentID));
+    }
+
+    /**
+     * Removes every appointment of a customer after the customer is deleted.
+     * @param customerID int ID of the deleted customer.
+     */
+    public static void removeCustomer(int customerID) {
+        record(() -> {
+            IntervalTree tree = byCustomer.get(customerID);
+            if (tree != null) {
+                for (int appointmentID : tree.overlapping(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                    removeEntry(appointmentID);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns the contacts with an appointment in progress at the given time.
+     * @param instant LocalDateTime to check.
+     * @return Contact IDs
+     */
+    public static List<Integer> busyContactsAt(LocalDateTime instant) {
+        return busyAt(byContact, instant);
+    }
+
+    /**
+     * Returns the customers with an appointment in progress at the given time.
+     * @param instant LocalDateTime to check.
+     * @return Customer IDs
+     */
+    public static List<Integer> busyCustomersAt(LocalDateTime instant) {
+        return busyAt(byCustomer, instant);
+    }
+
+    /**
+     * Returns the free ranges of the contact's schedule within [from, to).
+     * @param contactID int ID of the contact.
+     * @param from LocalDateTime the range starts at.
+     * @param to LocalDateTime the range ends at.
+     * @return gaps as {start, end} pairs of LocalDateTime, in time order
+     */
+    public static List<LocalDateTime[]> freeSlotsForContact(int contactID, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime[]> slots = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree tree = byContact.get(contactID);
+            List<long[]> gaps = tree == null
+                    ? List.of(new long[]{toMillis(from), toMillis(to)})
+                    : tree.gaps(toMillis(from), toMillis(to));
+            for (long[] gap : gaps) {
+                slots.add(new LocalDateTime[]{fromMillis(gap[0]), fromMillis(gap[1])});
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return slots;
+    }
+
+    private static List<Integer> busyAt(Map<Integer, IntervalTree> trees, LocalDateTime instant) {
+        long millis = toMillis(instant);
+        List<Integer> busy = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Integer, IntervalTree> tree : trees.entrySet()) {
+                if (tree.getValue().anyOverlap(millis, millis + 1)) {
+                    busy.add(tree.getKey());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return busy;
+    }
+
+    /** Runs a write under the write lock, and keeps it for replay if a load is reading the table. */
+    private static void record(Runnable change) {
+        write(() -> {
+            change.run();
+            if (pending != null) {
+                pending.add(change);
+            }
+        });
+    }
+
+    private static void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Adds or replaces an entry in both trees. Caller holds the write lock. */
+    private static void putEntry(Entry entry) {
+        removeEntry(entry.appointmentID);
+        entries.put(entry.appointmentID, entry);
+        byContact.computeIfAbsent(entry.contactID, key -> new IntervalTree()).insert(entry.appointmentID, entry.start, entry.end);
+        byCustomer.computeIfAbsent(entry.customerID, key -> new IntervalTree()).insert(entry.appointmentID, entry.start, entry.end);
+    }
+
+    /** Removes an entry from both trees. Caller holds the write lock. */
+    private static void removeEntry(int appointmentID) {
+        Entry old = entries.remove(appointmentID);
+        if (old != null) {
+            byContact.get(old.contactID).remove(appointmentID, old.start);
+            byCustomer.get(old.customerID).remove(appointmentID, old.start);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return Timestamp.valueOf(time).getTime();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return new Timestamp(millis).toLocalDateTime();
+    }
+}
@@ -0,0 +1,349 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Keyset Pager over the appointments table.
+ * <p> Pages are read in (sort column, Appointment_ID) order. Each page seeks past the key of the row it continues from,
+ * so reading page 1000 costs the same as reading page 1 and no OFFSET scan is needed. The default order is Start, backed by
+ * the (Start, Appointment_ID) index in schedual/sql/appointments_indexes.sql.
+ * <p> Occurrences of recurring series are merged into the pages in the same order. The series in the date range are read
+ * once per pager, on the first count or page read. In Start order each page expands only the occurrences past its key:
+ * every series seeks to the key with Recurrence.indexFrom and yields at most a page, so a page costs the same however many
+ * occurrences the range holds. Other orders expand the range once and take each page's occurrences by binary search.
+ * The count adds up each series' occurrences without expanding them.
+ * <p> A pager is immutable apart from those reads; a new one is created whenever the date range or the sort order changes.
+ * @author Ben Porter
+ */
+public class AppointmentPager {
+
+    /** Columns the pager can order by, keyed by the Appointment property name the TableView columns use. */
+    private enum SortKey {
+        APPOINTMENT_ID("Appointment_ID", "Appointment_ID", Appointment::getAppointment_ID),
+        TITLE("title", "COALESCE(Title, '')", Appointment::getTitle),
+        DESCRIPTION("description", "COALESCE(Description, '')", Appointment::getDescription),
+        LOCATION("location", "COALESCE(Location, '')", Appointment::getLocation),
+        TYPE("type", "COALESCE(Type, '')", Appointment::getType),
+        START("start", "Start", appointment -> new Timestamp(appointment.getStart())),
+        END("end", "End", appointment -> new Timestamp(appointment.getEnd())),
+        CUSTOMER_ID("customerID", "Customer_ID", Appointment::getCustomerID),
+        USER_ID("userID", "User_ID", Appointment::getUserID),
+        CONTACT_ID("contactID", "Contact_ID", Appointment::getContactID);
+
+        private final String property;
+        private final String column;
+        private final Function<Appointment, Object> value;
+
+        SortKey(String property, String column, Function<Appointment, Object> value) {
+            this.property = property;
+            this.column = column;
+            this.value = value;
+        }
+
+        private static SortKey of(String property) {
+            for (SortKey key : values()) {
+                if (key.property.equals(property)) {
+                    return key;
+                }
+            }
+            return START;
+        }
+    }
+
+    private final Timestamp from;
+    private final Timestamp to;
+    private final SortKey sortKey;
+    private final boolean ascending;
+    private final int pageSize;
+    private List<AppointmentSeries> series;
+    private List<Appointment> occurrences;
+
+    /**
+     * Creates a pager over the appointments starting between two dates.
+     * @param from LocalDate the range starts at, null for no lower bound.
+     * @param to LocalDate the range ends at, null for no upper bound.
+     * @param sortProperty the Appointment property to order by, e.g. "start" or "title"; unknown properties order by Start.
+     * @param ascending true for ascending order.
+     * @param pageSize the number of rows in a page.
+     */
+    public AppointmentPager(LocalDate from, LocalDate to, String sortProperty, boolean ascending, int pageSize) {
+        this.from = from == null ? null : Timestamp.valueOf(from.atStartOfDay());
+        this.to = to == null ? null : Timestamp.valueOf(to.atStartOfDay());
+        this.sortKey = SortKey.of(sortProperty);
+        this.ascending = ascending;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the number of rows in a page.
+     * @return page size
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Returns true if the appointment starts inside the pager's date range, the same test the range WHERE clause applies.
+     * @param appointment the appointment to test.
+     * @return whether the appointment belongs to one of the pages
+     */
+    public boolean inRange(Appointment appointment) {
+        return (from == null || appointment.getStart() >= from.getTime())
+                && (to == null || appointment.getStart() <= to.getTime());
+    }
+
+    /**
+     * Returns the order pages are read in, so a row changed after loading can be placed among the loaded rows.
+     * Text columns compare ignoring case, which only approximates the column's collation; see isTextOrder.
+     * @return comparator on the sort column, then Appointment_ID
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Comparator<Appointment> comparator() {
+        Comparator<Appointment> order = Comparator.comparing(appointment -> {
+            Object value = sortKey.value.apply(appointment);
+            if (sortKey.column.startsWith("COALESCE")) {
+                value = value == null ? "" : ((String) value).toLowerCase();
+            }
+            return (Comparable) value;
+        });
+        order = order.thenComparingInt(Appointment::getAppointment_ID);
+        return ascending ? order : order.reversed();
+    }
+
+    /**
+     * Returns true if the pages are ordered by a text column. The database orders text by the column's collation, which
+     * comparator() only approximates, so a changed row must be placed by re-reading the loaded rows with window()
+     * rather than by comparing it with them.
+     * @return whether the sort column holds text
+     */
+    public boolean isTextOrder() {
+        return sortKey.column.startsWith("COALESCE");
+    }
+
+    /**
+     * Counts the appointments and series occurrences in the range.
+     * @param connection the connection to query on.
+     * @return the total number of rows across all pages.
+     * @throws SQLException when the query could not be executed.
+     */
+    public int count(Connection connection) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String sql = "SELECT COUNT(*) AS Total FROM appointments" + rangeClause(params);
+        int total = QueryExecutor.queryFirst(connection, sql, rs -> rs.getInt("Total"), params.toArray());
+        for (AppointmentSeries recurring : series(connection)) {
+            total += recurring.count(rangeStart(), rangeEnd());
+        }
+        return total;
+    }
+
+    /**
+     * Reads the first page.
+     * @param connection the connection to query on.
+     * @return up to pageSize appointments in sort order.
+     * @throws SQLException when the query could not be executed.
+     */
+    public List<Appointment> firstPage(Connection connection) throws SQLException {
+        return page(connection, null, true, pageSize, false);
+    }
+
+    /**
+     * Reads the page that follows an appointment.
+     * @param connection the connection to query on.
+     * @param last the last appointment of the current page.
+     * @return up to pageSize appointments in sort order, empty after the last page.
+     * @throws SQLException when the query could not be executed.
+     */
+    public List<Appointment> pageAfter(Connection connection, Appointment last) throws SQLException {
+        return page(connection, last, true, pageSize, false);
+    }
+
+    /**
+     * Reads the page that precedes an appointment.
+     * @param connection the connection to query on.
+     * @param first the first appointment of the current page.
+     * @return up to pageSize appointments in sort order, empty before the first page.
+     * @throws SQLException when the query could not be executed.
+     */
+    public List<Appointment> pageBefore(Connection connection, Appointment first) throws SQLException {
+        List<Appointment> page = page(connection, first, false, pageSize, false);
+        Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * Reads the rows from a loaded row on, that row included, e.g. to re-read the rows a screen holds after some of
+     * them changed. The row's key is the one it was loaded with, so the window starts where it did even if the row has
+     * since been changed or deleted.
+     * @param connection the connection to query on.
+     * @param first the first loaded row, null to start at the first page.
+     * @param size the number of rows to read.
+     * @return up to size appointments in sort order.
+     * @throws SQLException when the query could not be executed.
+     */
+    public List<Appointment> window(Connection connection, Appointment first, int size) throws SQLException {
+        return page(connection, first, true, size, true);
+    }
+
+    /**
+     * Reads up to limit rows forward or backward from a key row, merging the stored rows with the occurrences past the
+     * key, and the key row itself when inclusive. Backward pages are read in reverse sort order.
+     */
+    private List<Appointment> page(Connection connection, Appointment key, boolean forward, int limit, boolean inclusive)
+            throws SQLException {
+        List<Appointment> rows = storedPage(connection, key, forward, limit, inclusive);
+        List<Appointment> window = occurrencesPast(connection, key, forward, limit, inclusive);
+        if (window.isEmpty()) {
+            return rows;
+        }
+        Comparator<Appointment> order = forward ? comparator() : comparator().reversed();
+        List<Appointment> page = new ArrayList<>(limit);
+        int row = 0;
+        int occurrence = 0;
+        while (page.size() < limit && (row < rows.size() || occurrence < window.size())) {
+            if (occurrence == window.size()
+                    || (row < rows.size() && order.compare(rows.get(row), window.get(occurrence)) < 0)) {
+                page.add(rows.get(row++));
+            } else {
+                page.add(window.get(occurrence++));
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Returns up to limit occurrences past a key row, and the key row itself when inclusive, in page order: forward or
+     * backward in sort order.
+     */
+    private List<Appointment> occurrencesPast(Connection connection, Appointment key, boolean forward, int limit,
+                                              boolean inclusive) throws SQLException {
+        List<Appointment> window = new ArrayList<>();
+        if (sortKey != SortKey.START) {
+            List<Appointment> expanded = occurrences(connection);
+            int position = key == null ? 0 : Collections.binarySearch(expanded, key, comparator());
+            int next = key == null ? 0 : position >= 0 ? position + (inclusive ? 0 : 1) : -position - 1; // first past the key
+            int previous = key == null ? -1 : position >= 0 ? position - 1 : -position - 2; // last occurrence before it
+            int step = forward ? 1 : -1;
+            for (int i = forward ? next : previous; window.size() < limit && i >= 0 && i < expanded.size(); i += step) {
+                window.add(expanded.get(i));
+            }
+            return window;
+        }
+        boolean up = ascending == forward;
+        long start = rangeStart();
+        long end = rangeEnd();
+        if (key != null && up) {
+            start = Math.max(start, key.getStart());
+        } else if (key != null) {
+            end = Math.min(end, key.getStart());
+        }
+        for (AppointmentSeries recurring : series(connection)) {
+            window.addAll(recurring.occurrences(start, end, up, limit + 1)); // one more, in case one ties with the key
+        }
+        Comparator<Appointment> order = forward ? comparator() : comparator().reversed();
+        if (key != null) {
+            window.removeIf(occurrence -> inclusive ? order.compare(occurrence, key) < 0 : order.compare(occurrence, key) <= 0);
+        }
+        window.sort(order);
+        return window.size() > limit ? new ArrayList<>(window.subList(0, limit)) : window;
+    }
+
+    /**
+     * Reads up to limit rows of the appointments table forward or backward from a key row, and the key row itself when
+     * inclusive. Backward pages are read in reverse sort order.
+     */
+    private List<Appointment> storedPage(Connection connection, Appointment key, boolean forward, int limit,
+                                         boolean inclusive) throws SQLException {
+        boolean up = ascending == forward;
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM appointments").append(rangeClause(params));
+        if (key != null) {
+            sql.append(params.isEmpty() ? " WHERE " : " AND ");
+            String op = up ? " > " : " < ";
+            String idOp = inclusive ? (up ? " >= " : " <= ") : op;
+            if (sortKey == SortKey.APPOINTMENT_ID) {
+                sql.append("Appointment_ID").append(idOp).append('?');
+            } else {
+                sql.append('(').append(sortKey.column).append(op).append("? OR (")
+                        .append(sortKey.column).append(" = ? AND Appointment_ID").append(idOp).append("?))");
+                params.add(sortKey.value.apply(key));
+                params.add(sortKey.value.apply(key));
+            }
+            params.add(key.getAppointment_ID());
+        }
+        String direction = up ? " ASC" : " DESC";
+        sql.append(" ORDER BY ");
+        if (sortKey != SortKey.APPOINTMENT_ID) {
+            sql.append(sortKey.column).append(direction).append(", ");
+        }
+        sql.append("Appointment_ID").append(direction).append(" LIMIT ?");
+        params.add(limit);
+        return QueryExecutor.query(connection, sql.toString(), RowMappers::appointment, params.toArray());
+    }
+
+    /**
+     * Reads the series with an occurrence in the range on first use.
+     */
+    private synchronized List<AppointmentSeries> series(Connection connection) throws SQLException {
+        if (series == null) {
+            series = SeriesQueries.findInRange(connection, from, to);
+        }
+        return series;
+    }
+
+    /**
+     * Expands the occurrences of every series in the range on first use, in sort order. Used by orders other than Start,
+     * whose pages cannot seek a series to their key.
+     */
+    private synchronized List<Appointment> occurrences(Connection connection) throws SQLException {
+        if (occurrences == null) {
+            List<Appointment> expanded = new ArrayList<>();
+            for (AppointmentSeries recurring : series(connection)) {
+                expanded.addAll(recurring.occurrences(rangeStart(), rangeEnd()));
+            }
+            expanded.sort(comparator());
+            occurrences = expanded;
+        }
+        return occurrences;
+    }
+
+    /** Returns the epoch milliseconds the range starts at, Long.MIN_VALUE for no lower bound. */
+    private long rangeStart() {
+        return from == null ? Long.MIN_VALUE : from.getTime();
+    }
+
+    /** Returns the epoch milliseconds the range ends at, Long.MAX_VALUE for no upper bound. */
+    private long rangeEnd() {
+        return to == null ? Long.MAX_VALUE : to.getTime();
+    }
+
+    /**
+     * Returns the WHERE clause for the date range and adds its parameters, or an empty String when there is no range.
+     */
+    private String rangeClause(List<Object> params) {
+        if (from == null && to == null) {
+            return "";
+        }
+        if (to == null) {
+            params.add(from);
+            return " WHERE Start >= ?";
+        }
+        if (from == null) {
+            params.add(to);
+            return " WHERE Start <= ?";
+        }
+        params.add(from);
+        params.add(to);
+        return " WHERE Start BETWEEN ? AND ?";
+    }
+}
@@ -0,0 +1,222 @@
+package schedual.helper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Asynchronous Log-In Audit Log.
+ * <p> Callers only format a record and offer it to a bounded queue, so a log-in never waits on the disk. One daemon
+ * thread drains the queue into login_activity.log in the working directory, flushing whenever the queue is empty.
+ * If the queue is full the record is dropped and counted rather than blocking the FX thread.
+ * <p> Each record is one JSON object per line: timestamp (UTC), user, result (SUCCESS or FAILURE) and zone, the
+ * time zone the attempt was made from.
+ * <p> The file is rotated when it would pass MAX_BYTES and when the date changes. Rotated files are gzip compressed to
+ * login_activity-DATE-N.log.gz and the newest MAX_ARCHIVES are kept. shutdown() writes out every queued record.
+ * @author Ben Porter
+ */
+public class AuditLog {
+    static final Path LOG_FILE = Path.of("login_activity.log");
+    static final String ARCHIVE_PREFIX = "login_activity-";
+    private static final long MAX_BYTES = 1_048_576; // 1 MiB
+    private static final int MAX_ARCHIVES = 30;
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final long SHUTDOWN_TIMEOUT = 2_000; // 2 seconds
+    private static final String STOP = "";
+
+    private static final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile boolean closing;
+    private static final Thread writerThread = startWriter();
+
+    private static Writer out;
+    private static LocalDate fileDate;
+    private static long fileSize;
+
+    private AuditLog() {}
+
+    /**
+     * Queues a record of a log-in attempt. Returns at once.
+     * @param userName the user name that was tried.
+     * @param success true if the attempt succeeded.
+     */
+    public static void logInAttempt(String userName, boolean success) {
+        String record = "{\"timestamp\":\"" + Instant.now() + "\",\"user\":" + quote(userName) +
+                ",\"result\":\"" + (success ? "SUCCESS" : "FAILURE") + "\",\"zone\":" + quote(ZoneId.systemDefault().getId()) + "}";
+        if (closing || !queue.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the number of records dropped because the queue was full or the log was shut down.
+     * @return dropped count
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Writes out every queued record and closes the file. Waits up to SHUTDOWN_TIMEOUT.
+     */
+    public static void shutdown() {
+        if (closing) {
+            return;
+        }
+        closing = true;
+        try {
+            if (queue.offer(STOP, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                writerThread.join(SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.get() > 0) {
+            System.out.println("Audit Log: " + dropped.get() + " records dropped");
+        }
+    }
+
+    private static Thread startWriter() {
+        Thread thread = new Thread(AuditLog::drain, "schedual-audit");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Writer loop: appends each record, rotating first when needed, and flushes once the queue is empty.
+     */
+    private static void drain() {
+        while (true) {
+            String record;
+            try {
+                record = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (record == STOP) {
+                    close();
+                    return;
+                }
+                write(record);
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.out.println("Error: Audit Log: " + e.getMessage());
+                closeQuietly();
+            }
+        }
+    }
+
+    private static void write(String record) throws IOException {
+        LocalDate today = LocalDate.now();
+        long length = record.getBytes(StandardCharsets.UTF_8).length + 1;
+        if (out == null) {
+            open(today);
+        }
+        if (!today.equals(fileDate) || (fileSize > 0 && fileSize + length > MAX_BYTES)) {
+            close();
+            rotate(fileDate);
+            open(today);
+        }
+        out.write(record);
+        out.write('\n');
+        fileSize += length;
+    }
+
+    /**
+     * Opens the log for appending. A log left over from an earlier day is rotated first.
+     */
+    private static void open(LocalDate today) throws IOException {
+        if (Files.exists(LOG_FILE)) {
+            LocalDate modified = LocalDate.ofInstant(Files.getLastModifiedTime(LOG_FILE).toInstant(), ZoneId.systemDefault());
+            if (modified.isBefore(today)) {
+                rotate(modified);
+            }
+        }
+        out = Files.newBufferedWriter(LOG_FILE, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileDate = today;
+        fileSize = Files.size(LOG_FILE);
+    }
+
+    /**
+     * Compresses the closed log to the next free archive name for its date, deletes it, and prunes old archives.
+     */
+    private static void rotate(LocalDate date) throws IOException {
+        if (!Files.exists(LOG_FILE) || Files.size(LOG_FILE) == 0) {
+            return;
+        }
+        Path directory = LOG_FILE.toAbsolutePath().getParent();
+        Path archive;
+        int n = 1;
+        do {
+            archive = directory.resolve(ARCHIVE_PREFIX + date + "-" + n++ + ".log.gz");
+        } while (Files.exists(archive));
+        try (InputStream in = Files.newInputStream(LOG_FILE);
+             OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(archive))) {
+            in.transferTo(gzip);
+        }
+        Files.delete(LOG_FILE);
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, ARCHIVE_PREFIX + "*.log.gz")) {
+            files.forEach(archives::add);
+        }
+        if (archives.size() > MAX_ARCHIVES) {
+            archives.sort(Comparator.comparing(path -> path.toFile().lastModified()));
+            for (Path old : archives.subList(0, archives.size() - MAX_ARCHIVES)) {
+                Files.deleteIfExists(old);
+            }
+        }
+    }
+
+    private static void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private static void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            out = null;
+        }
+    }
+
+    private static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
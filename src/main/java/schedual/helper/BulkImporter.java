@@ -0,0 +1,350 @@
+package schedual.helper;
+
+import schedual.helper.ReferenceData.Lookup;
+import schedual.model.Appointment;
+import schedual.model.Occurrence;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Bulk CSV Import of customers and appointments.
+ * <p> The CSV file is read a record at a time by a CsvReader, and records are processed in chunks of chunkSize rows.
+ * Each chunk is validated in parallel with the same rules as the Controllers' inputValidation, then the valid rows are
+ * inserted with one JDBC batch and committed in one transaction. If a batch fails, the chunk is rolled back and its rows
+ * are retried one at a time, so each database error is reported against the row that caused it.
+ * <p> Columns are matched to the header row by name, ignoring case and order:
+ * <p> customers: Customer_Name, Address, Postal_Code, Phone, Division_ID
+ * <p> appointments: Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID. Start and End are
+ * local date-times, e.g. 2023-05-01T09:00.
+ * <p> Appointments are checked for overlaps by customer, contact and user: against the stored appointments and series
+ * occurrences with one ConflictChecker query and one SeriesQueries query per chunk, then against earlier rows of the
+ * same file. After an import the SearchIndex is reloaded and the cached customer lookup is invalidated; the
+ * AppointmentIndex picks up the new appointments from its ChangeFeed.
+ * @author Ben Porter
+ */
+public class BulkImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    private static final String[] CUSTOMER_COLUMNS = {"Customer_Name", "Address", "Postal_Code", "Phone", "Division_ID"};
+    private static final String[] APPOINTMENT_COLUMNS =
+            {"Title", "Description", "Location", "Type", "Start", "End", "Customer_ID", "User_ID", "Contact_ID"};
+    private static final String CUSTOMER_SQL = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, " +
+            "Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?)";
+    private static final String APPOINTMENT_SQL = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, " +
+            "Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+            "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?)";
+
+    /** Converts a row's fields, in column order, to the INSERT parameters, or throws a RuntimeException naming the problem. */
+    @FunctionalInterface
+    private interface RowValidator {
+        Object[] validate(String[] fields);
+    }
+
+    /** Check run once per chunk on the validated rows' parameters; returns the reason each row is rejected, or null. */
+    @FunctionalInterface
+    private interface ChunkCheck {
+        String[] check(List<Object[]> params) throws SQLException;
+    }
+
+    /** Check run on the validated rows one at a time, in file order, for rules that depend on earlier rows. */
+    @FunctionalInterface
+    private interface SequentialCheck {
+        void check(int line, Object[] params);
+    }
+
+    /** One record of the file: its fields, then its INSERT parameters or the reason it was rejected. */
+    private static final class Row {
+        private final int line;
+        private final String[] fields;
+        private Object[] params;
+        private String error;
+
+        private Row(int line, String[] fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+    }
+
+    private BulkImporter() {}
+
+    /**
+     * Imports customers from a CSV file. Runs on a background connection.
+     * @param connection the connection to insert on; its auto-commit setting is restored afterwards.
+     * @param csv the CSV text, with a header row.
+     * @param chunkSize the number of rows validated and inserted per transaction.
+     * @return the import report.
+     * @throws IOException when the file could not be read or is missing a column.
+     * @throws SQLException when the lookups could not be read or a transaction could not be committed.
+     */
+    public static ImportReport importCustomers(Connection connection, Reader csv, int chunkSize) throws IOException, SQLException {
+        Lookup divisions = ReferenceData.get(connection, ReferenceData.Table.DIVISIONS);
+        String user = JDBC.getUserName();
+        ImportReport report = run(connection, csv, chunkSize, CUSTOMER_COLUMNS, CUSTOMER_SQL, fields -> {
+            Validation.requireNonEmpty(fields[0], fields[1], fields[2], fields[3]);
+            int divisionID = requireId(fields[4], "Division_ID", divisions);
+            return new Object[]{fields[0], fields[1], fields[2], fields[3], user, user, divisionID};
+        }, null, null);
+        ReferenceData.invalidate(ReferenceData.Table.CUSTOMERS);
+        SearchIndex.load(connection);
+        return report;
+    }
+
+    /**
+     * Imports appointments from a CSV file. Runs on a background connection.
+     * @param connection the connection to insert on; its auto-commit setting is restored afterwards.
+     * @param csv the CSV text, with a header row.
+     * @param chunkSize the number of rows validated and inserted per transaction.
+     * @return the import report.
+     * @throws IOException when the file could not be read or is missing a column.
+     * @throws SQLException when the lookups could not be read or a transaction could not be committed.
+     */
+    public static ImportReport importAppointments(Connection connection, Reader csv, int chunkSize) throws IOException, SQLException {
+        Lookup customers = ReferenceData.get(connection, ReferenceData.Table.CUSTOMERS);
+        Lookup users = ReferenceData.get(connection, ReferenceData.Table.USERS);
+        Lookup contacts = ReferenceData.get(connection, ReferenceData.Table.CONTACTS);
+        String user = JDBC.getUserName();
+        Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+        Map<Integer, IntervalTree> byContact = new HashMap<>();
+        Map<Integer, IntervalTree> byUser = new HashMap<>();
+        ImportReport report = run(connection, csv, chunkSize, APPOINTMENT_COLUMNS, APPOINTMENT_SQL, fields -> {
+            Validation.requireNonEmpty(fields);
+            LocalDateTime start = requireDateTime(fields[4], "Start");
+            LocalDateTime end = requireDateTime(fields[5], "End");
+            Validation.requireBusinessHours(start, end);
+            int customerID = requireId(fields[6], "Customer_ID", customers);
+            int userID = requireId(fields[7], "User_ID", users);
+            int contactID = requireId(fields[8], "Contact_ID", contacts);
+            return new Object[]{fields[0], fields[1], fields[2], fields[3], Timestamp.valueOf(start), Timestamp.valueOf(end),
+                    user, user, customerID, userID, contactID};
+        }, params -> storedConflicts(connection, params), (line, params) -> {
+            long start = ((Timestamp) params[4]).getTime();
+            long end = ((Timestamp) params[5]).getTime();
+            IntervalTree customerTree = byCustomer.computeIfAbsent((Integer) params[8], key -> new IntervalTree());
+            IntervalTree userTree = byUser.computeIfAbsent((Integer) params[9], key -> new IntervalTree());
+            IntervalTree contactTree = byContact.computeIfAbsent((Integer) params[10], key -> new IntervalTree());
+            if (customerTree.anyOverlap(start, end) || contactTree.anyOverlap(start, end) || userTree.anyOverlap(start, end)) {
+                throw new RuntimeException("Overlap: The Customer, Contact or User is already booked by an earlier row of this file.");
+            }
+            customerTree.insert(line, start, end);
+            userTree.insert(line, start, end);
+            contactTree.insert(line, start, end);
+        });
+        SearchIndex.load(connection);
+        return report;
+    }
+
+    /**
+     * Checks a chunk of appointment rows against the stored appointments and series occurrences.
+     */
+    private static String[] storedConflicts(Connection connection, List<Object[]> params) throws SQLException {
+        List<Appointment> proposed = new ArrayList<>(params.size());
+        for (Object[] row : params) {
+            proposed.add(new Appointment(-1, (String) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    ((Timestamp) row[4]).getTime(), ((Timestamp) row[5]).getTime(), (Integer) row[8], (Integer) row[9],
+                    (Integer) row[10]));
+        }
+        List<List<Integer>> appointments = ConflictChecker.findConflictsOfEach(connection, proposed);
+        List<List<Occurrence>> occurrences = SeriesQueries.findConflictsOfEach(connection, proposed);
+        String[] errors = new String[params.size()];
+        for (int i = 0; i < errors.length; i++) {
+            if (!appointments.get(i).isEmpty()) {
+                errors[i] = "Overlap: The Customer, Contact or User is already booked during this time." +
+                        "\nConflicting Appointment ID(s): " + appointments.get(i);
+            } else if (!occurrences.get(i).isEmpty()) {
+                TreeSet<Integer> seriesIDs = new TreeSet<>();
+                for (Occurrence occurrence : occurrences.get(i)) {
+                    seriesIDs.add(occurrence.getSeries_ID());
+                }
+                errors[i] = "Overlap: The Customer, Contact or User is already booked during this time." +
+                        "\nConflicting Recurring Series ID(s): " + seriesIDs;
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Reads the file in chunks, validating and inserting each chunk in its own transaction.
+     */
+    private static ImportReport run(Connection connection, Reader csv, int chunkSize, String[] columns, String sql,
+                                    RowValidator validator, ChunkCheck chunkCheck, SequentialCheck check)
+            throws IOException, SQLException {
+        if (connection == null) {
+            throw new SQLException("No Database Connection Available");
+        }
+        long started = System.nanoTime();
+        ImportReport report = new ImportReport();
+        CsvReader reader = new CsvReader(csv);
+        String[] header = reader.next();
+        if (header == null) {
+            throw new IOException("The CSV File Is Empty");
+        }
+        int[] positions = positions(header, columns);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            List<Row> chunk = new ArrayList<>(chunkSize);
+            String[] record;
+            while ((record = reader.next()) != null) {
+                if (record.length == 1 && record[0].isBlank()) {
+                    continue; // blank line
+                }
+                chunk.add(new Row(reader.getLine(), select(record, positions)));
+                if (chunk.size() == chunkSize) {
+                    insertChunk(connection, sql, chunk, validator, chunkCheck, check, report);
+                    chunk.clear();
+                }
+            }
+            insertChunk(connection, sql, chunk, validator, chunkCheck, check, report);
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        report.finish(System.nanoTime() - started);
+        return report;
+    }
+
+    /**
+     * Validates a chunk in parallel, runs the chunk check and the sequential check, then batch inserts the valid rows
+     * and commits. A failed batch is rolled back and its rows are inserted one at a time.
+     */
+    private static void insertChunk(Connection connection, String sql, List<Row> chunk, RowValidator validator,
+                                    ChunkCheck chunkCheck, SequentialCheck check, ImportReport report) throws SQLException {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        report.read(chunk.size());
+        chunk.parallelStream().forEach(row -> {
+            if (row.fields == null) {
+                row.error = "Missing Fields: Every Row Needs A Value For Each Column";
+                return;
+            }
+            try {
+                row.params = validator.validate(row.fields);
+            } catch (RuntimeException e) {
+                row.error = e.getMessage();
+            }
+        });
+        if (chunkCheck != null) {
+            List<Row> validated = new ArrayList<>(chunk.size());
+            List<Object[]> validatedParams = new ArrayList<>(chunk.size());
+            for (Row row : chunk) {
+                if (row.error == null) {
+                    validated.add(row);
+                    validatedParams.add(row.params);
+                }
+            }
+            if (!validated.isEmpty()) {
+                String[] errors = chunkCheck.check(validatedParams);
+                for (int i = 0; i < errors.length; i++) {
+                    validated.get(i).error = errors[i];
+                }
+            }
+        }
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error == null && check != null) {
+                try {
+                    check.check(row.line, row.params);
+                } catch (RuntimeException e) {
+                    row.error = e.getMessage();
+                }
+            }
+            if (row.error == null) {
+                valid.add(row);
+            } else {
+                report.reject(row.line, row.error);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+        List<Object[]> params = new ArrayList<>(valid.size());
+        for (Row row : valid) {
+            params.add(row.params);
+        }
+        try {
+            QueryExecutor.batch(connection, sql, params);
+            connection.commit();
+            report.inserted(valid.size());
+        } catch (SQLException batchFailure) {
+            connection.rollback();
+            for (Row row : valid) {
+                try {
+                    QueryExecutor.update(connection, sql, row.params);
+                    connection.commit();
+                    report.inserted(1);
+                } catch (SQLException e) {
+                    connection.rollback();
+                    report.reject(row.line, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps each required column to its position in the header row.
+     */
+    private static int[] positions(String[] header, String[] columns) throws IOException {
+        Map<String, Integer> byName = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            String name = i == 0 ? header[i].replace("\uFEFF", "") : header[i]; // byte order mark
+            byName.put(name.trim().toLowerCase(Locale.ROOT), i);
+        }
+        int[] positions = new int[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Integer position = byName.get(columns[i].toLowerCase(Locale.ROOT));
+            if (position == null) {
+                throw new IOException("Missing CSV Column: " + columns[i]);
+            }
+            positions[i] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the record's fields in column order, or null if the record is too short.
+     */
+    private static String[] select(String[] record, int[] positions) {
+        String[] fields = new String[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            if (positions[i] >= record.length) {
+                return null;
+            }
+            fields[i] = record[positions[i]].trim();
+        }
+        return fields;
+    }
+
+    private static int requireId(String value, String column, Lookup lookup) {
+        int id;
+        try {
+            id = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid " + column + ": " + value);
+        }
+        if (lookup.indexOf(id) < 0) {
+            throw new RuntimeException("Unknown " + column + ": " + id);
+        }
+        return id;
+    }
+
+    private static LocalDateTime requireDateTime(String value, String column) {
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid " + column + ": " + value + " (expected e.g. 2023-05-01T09:00)");
+        }
+    }
+}
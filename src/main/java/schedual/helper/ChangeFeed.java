@@ -0,0 +1,200 @@
+package schedual.helper;
+
+import schedual.helper.QueryExecutor.RowMapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Change Feed over one table, driven by its Last_Update column and the DeletionJournal.
+ * <p> A feed keeps a watermark, the newest Last_Update of the rows it has read. Each poll reads only the rows updated
+ * around or after the watermark, so a screen can patch its rows in place after a write, or on a timer to pick up other
+ * users' edits, instead of reloading everything. Every write sets Last_Update to the server's CURRENT_TIMESTAMP, so one
+ * clock orders all changes. A row's Last_Update is taken when its statement runs, not when its transaction commits, so
+ * a BulkImporter chunk can become visible with a Last_Update older than rows an earlier poll has already read. Each poll
+ * therefore reads back COMMIT_WINDOW before the watermark; the rows it has already read with the same Last_Update are
+ * remembered and dropped, which also covers rows written in the watermark's second after a poll, since Last_Update only
+ * has whole-second precision. Each poll is a range scan of the Last_Update index in
+ * schedual/sql/appointments_indexes.sql.
+ * <p> Deleted rows leave no Last_Update behind, so a poll reads the table's tombstones in deleted_rows the same way,
+ * with a watermark of its own on Deleted_At. The cost of a poll depends on what changed, not on how many rows the
+ * screen holds.
+ * <p> The select SQL must not have a WHERE clause and must return the ID column and the Last_Update column labelled
+ * Change_Time.
+ * @param <T> the row type.
+ * @author Ben Porter
+ */
+public class ChangeFeed<T> {
+    private static final long COMMIT_WINDOW = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * The rows changed and the IDs deleted since the previous poll.
+     * @param <T> the row type.
+     */
+    public static final class Delta<T> {
+        private final List<T> changed;
+        private final Set<Integer> deleted;
+
+        private Delta(List<T> changed, Set<Integer> deleted) {
+            this.changed = changed;
+            this.deleted = deleted;
+        }
+
+        /**
+         * Returns the rows inserted or updated since the previous poll.
+         * @return changed rows
+         */
+        public List<T> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Returns the IDs of the rows deleted since the previous poll, whether or not the screen holds them.
+         * @return deleted IDs
+         */
+        public Set<Integer> getDeleted() {
+            return deleted;
+        }
+
+        /**
+         * Returns true if nothing changed.
+         * @return whether the delta is empty
+         */
+        public boolean isEmpty() {
+            return changed.isEmpty() && deleted.isEmpty();
+        }
+    }
+
+    /** A watermark on one timestamp column, and the IDs read within COMMIT_WINDOW of it with the time they were read at. */
+    private static final class Cursor {
+        private long watermark;
+        private long newest;
+        private final Map<Integer, Long> recent = new HashMap<>();
+
+        private Cursor(Timestamp watermark) {
+            this.watermark = watermark == null ? 0L : watermark.getTime();
+            this.newest = this.watermark;
+        }
+
+        /** Returns the time each read starts from, COMMIT_WINDOW before the watermark. */
+        private Timestamp from() {
+            return new Timestamp(watermark - COMMIT_WINDOW);
+        }
+
+        /** Records an ID read at a time; returns false if an earlier poll already read it at that time. */
+        private boolean read(int id, long time) {
+            Long previous = recent.put(id, time);
+            if (previous != null && previous == time) {
+                return false;
+            }
+            newest = Math.max(newest, time);
+            return true;
+        }
+
+        /** Moves the watermark to the newest time read, forgetting the IDs that fell out of the window. */
+        private void advance() {
+            watermark = newest;
+            recent.values().removeIf(time -> time < watermark - COMMIT_WINDOW);
+        }
+    }
+
+    private final String table;
+    private final String idColumn;
+    private final String selectSql;
+    private final String lastUpdateColumn;
+    private final RowMapper<T> mapper;
+    private Cursor rows;
+    private Cursor deletions;
+
+    /**
+     * Creates a feed. No rows are read until the first poll.
+     * @param table the table rows are deleted from, e.g. "customers", as named in deleted_rows.
+     * @param idColumn the table's ID column.
+     * @param selectSql the query for full rows, without a WHERE clause, selecting idColumn and the Last_Update column AS
+     * Change_Time.
+     * @param lastUpdateColumn the Last_Update column as the WHERE clause must name it, e.g. "customers.Last_Update".
+     * @param mapper converts each row.
+     */
+    public ChangeFeed(String table, String idColumn, String selectSql, String lastUpdateColumn, RowMapper<T> mapper) {
+        this.table = table;
+        this.idColumn = idColumn;
+        this.selectSql = selectSql;
+        this.lastUpdateColumn = lastUpdateColumn;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Reads the changes since the previous poll. The first poll only sets the watermarks, since the screen has just
+     * loaded its rows, and returns an empty delta. Runs on a background connection.
+     * @param connection the connection to query on.
+     * @return the rows changed and the IDs deleted.
+     * @throws SQLException when the table could not be read.
+     */
+    public synchronized Delta<T> poll(Connection connection) throws SQLException {
+        List<T> changed = new ArrayList<>();
+        Set<Integer> deleted = new HashSet<>();
+        if (rows == null) {
+            Cursor started = new Cursor(QueryExecutor.queryFirst(connection,
+                    "SELECT MAX(" + lastUpdateColumn + ") AS Change_Time FROM " + table, rs -> rs.getTimestamp("Change_Time")));
+            QueryExecutor.forEach(connection, "SELECT " + idColumn + " AS ID, " + lastUpdateColumn + " AS Change_Time FROM " +
+                    table + " WHERE " + lastUpdateColumn + " >= ?", rs -> started.read(rs.getInt("ID"),
+                    rs.getTimestamp("Change_Time").getTime()), started.from());
+            started.advance();
+            deletions = startDeletions(connection);
+            rows = started;
+            return new Delta<>(changed, deleted);
+        }
+        QueryExecutor.forEach(connection, selectSql + " WHERE " + lastUpdateColumn + " >= ?", rs -> {
+            if (rows.read(rs.getInt(idColumn), rs.getTimestamp("Change_Time").getTime())) {
+                changed.add(mapper.map(rs));
+            }
+        }, rows.from());
+        rows.advance();
+        if (deletions != null) {
+            QueryExecutor.forEach(connection, DeletionJournal.SINCE_SQL, rs -> {
+                if (deletions.read(rs.getInt("Row_ID"), rs.getTimestamp("Deleted_At").getTime())) {
+                    deleted.add(rs.getInt("Row_ID"));
+                }
+            }, table, deletions.from());
+            deletions.advance();
+        }
+        return new Delta<>(changed, deleted);
+    }
+
+    /**
+     * Forgets the watermarks after the screen has reloaded all of its rows, e.g. after a bulk import, so the next poll
+     * starts from the newest Last_Update instead of reading every row written since the previous poll.
+     */
+    public synchronized void reset() {
+        rows = null;
+        deletions = null;
+    }
+
+    /**
+     * Sets the deletion watermark to the newest tombstone of the table, or returns null when the database has no
+     * deleted_rows table.
+     */
+    private Cursor startDeletions(Connection connection) throws SQLException {
+        try {
+            Cursor started = new Cursor(QueryExecutor.queryFirst(connection, DeletionJournal.MAX_SQL,
+                    rs -> rs.getTimestamp("Deleted_At"), table));
+            QueryExecutor.forEach(connection, DeletionJournal.SINCE_SQL, rs -> started.read(rs.getInt("Row_ID"),
+                    rs.getTimestamp("Deleted_At").getTime()), table, started.from());
+            started.advance();
+            return started;
+        } catch (SQLException e) {
+            if (DeletionJournal.isMissing(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+}
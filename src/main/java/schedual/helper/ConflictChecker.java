@@ -0,0 +1,208 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Appointment Conflict Check Engine.
+ * <p> Finds appointments that overlap a proposed time range with a single range query, start &lt; :end AND end &gt; :start,
+ * scoped to the same customer, contact or user. Nothing is loaded into a TableView and no formatted times are parsed.
+ * <p> Each branch of the UNION is served by a composite index on (Customer_ID, Start, End), (Contact_ID, Start, End)
+ * and (User_ID, Start, End); see schedual/sql/appointments_indexes.sql. Since no appointment lasts longer than
+ * MAX_LENGTH, an overlapping one starts less than MAX_LENGTH before :start, which bounds each index range on both
+ * sides; otherwise a contact or user with years of appointments would be range-scanned from their first one.
+ * <p> Many ranges for the same participants, such as every occurrence of a recurring series, are checked with one query
+ * over their whole span, swept against an IntervalTree of the ranges in memory. Ranges with different participants,
+ * such as a chunk of a bulk import, are checked the same way with one query for all of their participants.
+ * @author Ben Porter
+ */
+public class ConflictChecker {
+    /** The longest an appointment can last: Validation keeps it within one day's business hours. */
+    private static final Duration MAX_LENGTH = Duration.ofDays(1);
+    private static final String CONFLICT_SQL =
+            "SELECT Appointment_ID FROM appointments " +
+            "WHERE Customer_ID = ? AND Start < ? AND Start > ? AND End > ? AND Appointment_ID <> ? " +
+            "UNION SELECT Appointment_ID FROM appointments " +
+            "WHERE Contact_ID = ? AND Start < ? AND Start > ? AND End > ? AND Appointment_ID <> ? " +
+            "UNION SELECT Appointment_ID FROM appointments " +
+            "WHERE User_ID = ? AND Start < ? AND Start > ? AND End > ? AND Appointment_ID <> ? " +
+            "ORDER BY Appointment_ID";
+    private static final String SPAN_SQL =
+            "SELECT Appointment_ID, Start, End FROM appointments " +
+            "WHERE Customer_ID = ? AND Start < ? AND Start > ? AND End > ? " +
+            "UNION SELECT Appointment_ID, Start, End FROM appointments " +
+            "WHERE Contact_ID = ? AND Start < ? AND Start > ? AND End > ? " +
+            "UNION SELECT Appointment_ID, Start, End FROM appointments " +
+            "WHERE User_ID = ? AND Start < ? AND Start > ? AND End > ?";
+
+    private ConflictChecker() {}
+
+    /**
+     * Returns the IDs of appointments overlapping the range for the same customer, contact or user.
+     * Appointments that only touch the range (one ends exactly when the other starts) do not conflict.
+     * @param connection the connection to query on.
+     * @param start LocalDateTime the proposed appointment starts at.
+     * @param end LocalDateTime the proposed appointment ends at.
+     * @param customerID int customer of the proposed appointment.
+     * @param contactID int contact of the proposed appointment.
+     * @param userID int user of the proposed appointment.
+     * @param sourceID int ID of the Appointment being overwritten, new records provide -1.
+     * @return conflicting Appointment IDs in ascending order, empty if there are none.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static List<Integer> findConflicts(Connection connection, LocalDateTime start, LocalDateTime end,
+                                              int customerID, int contactID, int userID, int sourceID) throws SQLException {
+        Timestamp startTime = Timestamp.valueOf(start);
+        Timestamp endTime = Timestamp.valueOf(end);
+        Timestamp earliest = Timestamp.valueOf(start.minus(MAX_LENGTH));
+        return QueryExecutor.query(connection, CONFLICT_SQL, rs -> rs.getInt("Appointment_ID"),
+                customerID, endTime, earliest, startTime, sourceID,
+                contactID, endTime, earliest, startTime, sourceID,
+                userID, endTime, earliest, startTime, sourceID);
+    }
+
+    /**
+     * Throws if the range conflicts with an existing appointment for the same customer, contact or user.
+     * @param connection the connection to query on.
+     * @param start LocalDateTime the proposed appointment starts at.
+     * @param end LocalDateTime the proposed appointment ends at.
+     * @param customerID int customer of the proposed appointment.
+     * @param contactID int contact of the proposed appointment.
+     * @param userID int user of the proposed appointment.
+     * @param sourceID int ID of the Appointment being overwritten, new records provide -1.
+     * @throws SQLException when the query could not be executed.
+     * @throws RuntimeException listing the conflicting Appointment IDs.
+     */
+    public static void requireNoConflicts(Connection connection, LocalDateTime start, LocalDateTime end,
+                                          int customerID, int contactID, int userID, int sourceID) throws SQLException {
+        List<Integer> conflicts = findConflicts(connection, start, end, customerID, contactID, userID, sourceID);
+        if (!conflicts.isEmpty()) {
+            throw new RuntimeException("Overlap: The Customer, Contact or User is already booked during this time." +
+                    "\nConflicting Appointment ID(s): " + conflicts);
+        }
+    }
+
+    /**
+     * Returns the IDs of appointments overlapping any of the proposed ranges for the same customer, contact or user,
+     * with a single query over the span from the earliest start to the latest end.
+     * @param connection the connection to query on.
+     * @param proposed the proposed appointments, e.g. the occurrences of a new series.
+     * @param customerID int customer of the proposed appointments.
+     * @param contactID int contact of the proposed appointments.
+     * @param userID int user of the proposed appointments.
+     * @return conflicting Appointment IDs in ascending order, empty if there are none.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static List<Integer> findConflicts(Connection connection, List<? extends Appointment> proposed,
+                                              int customerID, int contactID, int userID) throws SQLException {
+        if (proposed.isEmpty()) {
+            return List.of();
+        }
+        IntervalTree ranges = new IntervalTree();
+        long spanStart = Long.MAX_VALUE;
+        long spanEnd = Long.MIN_VALUE;
+        for (int i = 0; i < proposed.size(); i++) {
+            Appointment appointment = proposed.get(i);
+            ranges.insert(i, appointment.getStart(), appointment.getEnd());
+            spanStart = Math.min(spanStart, appointment.getStart());
+            spanEnd = Math.max(spanEnd, appointment.getEnd());
+        }
+        Timestamp startTime = new Timestamp(spanStart);
+        Timestamp endTime = new Timestamp(spanEnd);
+        Timestamp earliest = new Timestamp(spanStart - MAX_LENGTH.toMillis());
+        TreeSet<Integer> conflicts = new TreeSet<>();
+        QueryExecutor.forEach(connection, SPAN_SQL, rs -> {
+            if (ranges.anyOverlap(rs.getTimestamp("Start").getTime(), rs.getTimestamp("End").getTime())) {
+                conflicts.add(rs.getInt("Appointment_ID"));
+            }
+        }, customerID, endTime, earliest, startTime, contactID, endTime, earliest, startTime,
+                userID, endTime, earliest, startTime);
+        return List.copyOf(conflicts);
+    }
+
+    /**
+     * Returns, for each proposed appointment, the IDs of appointments overlapping it for its own customer, contact or
+     * user, with a single query over the span from the earliest start to the latest end for every participant of the
+     * proposed appointments, e.g. a chunk of a bulk import.
+     * @param connection the connection to query on.
+     * @param proposed the proposed appointments, each with its own participants.
+     * @return conflicting Appointment IDs in ascending order, one list per proposed appointment in the same order.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static List<List<Integer>> findConflictsOfEach(Connection connection, List<? extends Appointment> proposed)
+            throws SQLException {
+        List<List<Integer>> conflicts = new ArrayList<>(proposed.size());
+        if (proposed.isEmpty()) {
+            return conflicts;
+        }
+        Set<Integer> customers = new TreeSet<>();
+        Set<Integer> contacts = new TreeSet<>();
+        Set<Integer> users = new TreeSet<>();
+        long spanStart = Long.MAX_VALUE;
+        long spanEnd = Long.MIN_VALUE;
+        for (Appointment appointment : proposed) {
+            customers.add(appointment.getCustomerID());
+            contacts.add(appointment.getContactID());
+            users.add(appointment.getUserID());
+            spanStart = Math.min(spanStart, appointment.getStart());
+            spanEnd = Math.max(spanEnd, appointment.getEnd());
+        }
+        Timestamp startTime = new Timestamp(spanStart);
+        Timestamp endTime = new Timestamp(spanEnd);
+        Timestamp earliest = new Timestamp(spanStart - MAX_LENGTH.toMillis());
+        List<Object> params = new ArrayList<>();
+        String sql = participantBranch("Customer_ID", customers, params, startTime, endTime, earliest) +
+                " UNION " + participantBranch("Contact_ID", contacts, params, startTime, endTime, earliest) +
+                " UNION " + participantBranch("User_ID", users, params, startTime, endTime, earliest);
+        Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+        Map<Integer, IntervalTree> byContact = new HashMap<>();
+        Map<Integer, IntervalTree> byUser = new HashMap<>();
+        QueryExecutor.forEach(connection, sql, rs -> {
+            int id = rs.getInt("Appointment_ID");
+            long start = rs.getTimestamp("Start").getTime();
+            long end = rs.getTimestamp("End").getTime();
+            byCustomer.computeIfAbsent(rs.getInt("Customer_ID"), key -> new IntervalTree()).insert(id, start, end);
+            byContact.computeIfAbsent(rs.getInt("Contact_ID"), key -> new IntervalTree()).insert(id, start, end);
+            byUser.computeIfAbsent(rs.getInt("User_ID"), key -> new IntervalTree()).insert(id, start, end);
+        }, params.toArray());
+        for (Appointment appointment : proposed) {
+            TreeSet<Integer> overlapping = new TreeSet<>();
+            for (IntervalTree tree : new IntervalTree[]{byCustomer.get(appointment.getCustomerID()),
+                    byContact.get(appointment.getContactID()), byUser.get(appointment.getUserID())}) {
+                if (tree != null) {
+                    tree.overlapping(appointment.getStart(), appointment.getEnd(), overlapping::add);
+                }
+            }
+            conflicts.add(List.copyOf(overlapping));
+        }
+        return conflicts;
+    }
+
+    /**
+     * Returns one branch of the participants query: the appointments of any of the IDs in the span, with its parameters
+     * added to params.
+     */
+    private static String participantBranch(String column, Collection<Integer> ids, List<Object> params,
+                                            Timestamp startTime, Timestamp endTime, Timestamp earliest) {
+        params.addAll(ids);
+        params.add(endTime);
+        params.add(earliest);
+        params.add(startTime);
+        return "SELECT Appointment_ID, Start, End, Customer_ID, Contact_ID, User_ID FROM appointments " +
+                "WHERE " + column + " IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ") " +
+                "AND Start < ? AND Start > ? AND End > ?";
+    }
+}
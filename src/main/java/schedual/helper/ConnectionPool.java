@@ -0,0 +1,315 @@
+package schedual.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of MySQL connections shared by every Controller.
+ * <p> (1) Validation-on-borrow: an idle connection is checked with isValid() before it is handed out, and replaced if it has dropped.
+ * <p> (2) Idle eviction: connections left idle longer than the idle timeout are closed by the housekeeper.
+ * <p> (3) Max-lifetime recycling: connections older than the max lifetime are closed on return or by the housekeeper.
+ * <p> (4) Leak detection: each borrow records where it came from, connections held past the leak threshold are reported.
+ * <p> Connections handed out are proxies; calling close() returns the physical connection to the pool.
+ * prepareStatement(sql) is served from a per-connection StatementCache so repeated SQL is only parsed once per connection;
+ * the statements it hands out report the proxy, not the physical connection, from getConnection().
+ * @author Ben Porter
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 30_000;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakThresholdMillis;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final PoolMetrics metrics = new PoolMetrics();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates the pool. No physical connection is opened until the first borrow.
+     * @param jdbcUrl the url of the MySQL database.
+     * @param userName the user credential provided to MySQL.
+     * @param password the password provided to MySQL.
+     * @param maxSize the maximum number of physical connections open at once.
+     * @param borrowTimeoutMillis how long a borrow waits for a free connection before timing out.
+     * @param idleTimeoutMillis how long a connection may sit idle before it is closed.
+     * @param maxLifetimeMillis how long a physical connection may live before it is recycled.
+     * @param leakThresholdMillis how long a connection may be held before it is reported as a leak.
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long maxLifetimeMillis, long leakThresholdMillis) {
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedual-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleAtFixedRate(this::houseKeep, HOUSEKEEPING_PERIOD_MILLIS, HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout for one to become free.
+     * The caller must close() the returned connection to give it back.
+     * @return a validated connection.
+     * @throws SQLException if the pool is closed, the wait timed out, or a new connection could not be opened.
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(true);
+    }
+
+    /**
+     * Borrows a connection, optionally exempting it from leak detection.
+     * Long-lived session connections are borrowed with trackLeaks false so they are not reported.
+     * @param trackLeaks whether the housekeeper should report this borrow when it is held past the leak threshold.
+     * @return a validated connection.
+     * @throws SQLException if the pool is closed, the wait timed out, or a new connection could not be opened.
+     */
+    public Connection borrow(boolean trackLeaks) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection Pool Closed");
+        }
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                metrics.recordTimeout();
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null) {
+                pooled = new PooledConnection(DriverManager.getConnection(jdbcUrl, userName, password));
+                metrics.recordCreated();
+            }
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowSite = trackLeaks ? new Throwable("Connection borrowed by " + Thread.currentThread().getName()) : null;
+            borrowed.add(pooled);
+            metrics.recordBorrow(System.nanoTime() - waitStart);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the running metrics for this pool.
+     * @return pool metrics
+     */
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the maximum number of physical connections this pool will open.
+     * @return max pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeper. Borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Pops the most recently used idle connection that is still alive and within its lifetime.
+     * @return a usable idle connection, or null if a new one must be opened.
+     */
+    private PooledConnection takeIdle() {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (pooled.isExpired(System.currentTimeMillis()) || !pooled.isValid()) {
+                discard(pooled);
+            } else {
+                return pooled;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Hands a physical connection back to the pool, or closes it if the pool is closed or the connection has expired.
+     * @param pooled the connection being returned.
+     */
+    private void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return;
+        }
+        metrics.recordRelease();
+        pooled.borrowSite = null;
+        pooled.lastUsed = System.currentTimeMillis();
+        try {
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            pooled.broken = true;
+        }
+        if (closed || pooled.broken || pooled.isExpired(pooled.lastUsed)) {
+            discard(pooled);
+        } else {
+            idle.offerFirst(pooled);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes a physical connection and records the eviction.
+     * @param pooled the connection to close.
+     */
+    private void discard(PooledConnection pooled) {
+        metrics.recordEvicted();
+        pooled.statementCache.close();
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    /**
+     * Periodic housekeeping: evicts idle and expired connections, reports connections held past the leak threshold.
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection pooled : idle) {
+            if ((now - pooled.lastUsed > idleTimeoutMillis || pooled.isExpired(now)) && idle.remove(pooled)) {
+                discard(pooled);
+            }
+        }
+        for (PooledConnection pooled : borrowed) {
+            Throwable site = pooled.borrowSite;
+            if (site != null && !pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                metrics.recordLeak();
+                System.out.println("Connection Leak: held for " + (now - pooled.borrowedAt) + "ms");
+                site.printStackTrace(System.out);
+            }
+        }
+    }
+
+    /**
+     * A physical connection plus the bookkeeping the pool needs for validation, eviction, recycling and leak detection.
+     */
+    private class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(physical, STATEMENT_CACHE_SIZE);
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt > maxLifetimeMillis;
+        }
+
+        private boolean isValid() {
+            try {
+                return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Wraps the physical connection in a proxy whose close() returns it to the pool exactly once.
+         * @return the Connection handed to the borrower.
+         */
+        private Connection newHandle() {
+            leakReported = false;
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean released;
+
+                @Override
+                public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!released) {
+                                released = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "prepareStatement":
+                            if (released) {
+                                throw new SQLException("Connection has already been returned to the pool");
+                            }
+                            if (args.length == 1) {
+                                return statementCache.prepare((String) args[0], (Connection) proxy);
+                            }
+                            break;
+                        case "isClosed":
+                            return released || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled" + physical;
+                    }
+                    if (released) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        if (e.getCause() instanceof SQLException && !isValid()) {
+                            broken = true;
+                        }
+                        throw e.getCause();
+                    }
+                }
+            };
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, handler);
+        }
+    }
+}
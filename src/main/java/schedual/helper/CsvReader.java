@@ -0,0 +1,108 @@
+package schedual.helper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV Reader (RFC 4180).
+ * <p> Reads one record at a time from the underlying Reader, so a file of any size is parsed in constant memory.
+ * Fields may be quoted; quoted fields can hold commas, doubled quotes ("") and line breaks. Records end at LF, CRLF or CR.
+ * @author Ben Porter
+ */
+public class CsvReader implements Closeable {
+    private final Reader in;
+    private int pushedBack = -2;
+    private int line = 1;
+    private int recordLine;
+
+    /**
+     * Creates a reader over CSV text.
+     * @param in the CSV source; buffered here if it is not already.
+     */
+    public CsvReader(Reader in) {
+        this.in = in instanceof BufferedReader ? in : new BufferedReader(in);
+    }
+
+    /**
+     * Reads the next record.
+     * @return the record's fields, or null at the end of the input.
+     * @throws IOException when the input could not be read or a quoted field is not closed.
+     */
+    public String[] next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated Quote in Record at Line " + recordLine);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following != '"') {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                    field.append('"');
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r' || c == -1) {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        pushedBack = following;
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields.toArray(new String[0]);
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * Returns the line the last record returned by next started on, counting from 1.
+     * @return line number
+     */
+    public int getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,228 @@
+package schedual.helper;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous Data Access Service - keeps blocking JDBC calls off the JavaFX Application Thread.
+ * <p> Each query runs on a background executor with its own connection borrowed from the JDBC pool. The result, or the
+ * failure, is published back to the FX thread with Platform.runLater, or with the Executor given to publishOn.
+ * <p> Queries are submitted on behalf of an owner (normally the Controller); cancelAll(owner) drops everything still
+ * pending for that owner when the user leaves a screen that is not cached, so a late result never lands on a screen
+ * that is gone. Cached screens live for the whole session and keep their queries.
+ * <p> Futures returned by the schedual.service layer are handed to publish, which delivers and cancels them the same way.
+ * The services run on this executor too, so background work never holds more connections than the pool has.
+ * <p> inFlightProperty() counts submitted queries that have not yet been published and is bound to each screen's
+ * loading indicator.
+ * @author Ben Porter
+ */
+public class DataAccessService {
+
+    /**
+     * A unit of database work run on a background thread.
+     * @param <T> the result handed back to the FX thread.
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        /**
+         * Runs the work on a pooled connection. The connection is returned to the pool afterwards; do not close it.
+         * @param connection the borrowed connection.
+         * @return the result to publish.
+         * @throws SQLException when the work could not be completed.
+         */
+        T run(Connection connection) throws SQLException;
+    }
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(JDBC.getPoolSize(), runnable -> {
+        Thread thread = new Thread(runnable, "schedual-data-" + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final ReadOnlyIntegerWrapper inFlight = new ReadOnlyIntegerWrapper(0); // FX thread only
+    private static final ConcurrentHashMap<Object, Set<Future<?>>> tasksByOwner = new ConcurrentHashMap<>();
+    private static volatile Executor fxThread = Platform::runLater;
+
+    private DataAccessService() {}
+
+    /**
+     * Submits a query to run in the background. Must be called on the FX thread.
+     * @param owner the object the query belongs to, used by cancelAll; null if the query should never be cancelled.
+     * @param query the database work.
+     * @param onSuccess receives the result on the FX thread.
+     * @param onFailure receives the exception on the FX thread.
+     * @param <T> the result type.
+     * @return the Future for the query, which may be cancelled individually.
+     */
+    public static <T> Future<T> submit(Object owner, Query<T> query, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return schedule(owner, () -> {
+            try (Connection connection = JDBC.borrowConnection()) {
+                return query.run(connection);
+            }
+        }, onSuccess, onFailure);
+    }
+
+    /**
+     * Submits a query whose result is not needed, such as loading a cache, to run in the background. Must be called on
+     * the FX thread.
+     * @param owner the object the query belongs to, used by cancelAll; null if the query should never be cancelled.
+     * @param query the database work.
+     * @param onFailure receives the exception on the FX thread.
+     * @return the Future for the query, which may be cancelled individually.
+     */
+    public static Future<?> submit(Object owner, Query<?> query, Consumer<Throwable> onFailure) {
+        return submit(owner, query, result -> { }, onFailure);
+    }
+
+    /**
+     * Submits work that needs no database connection, such as reading local files, to run in the background. Results
+     * are published and cancelled exactly as for submit. Must be called on the FX thread.
+     * @param owner the object the work belongs to, used by cancelAll; null if the work should never be cancelled.
+     * @param work the background work.
+     * @param onSuccess receives the result on the FX thread.
+     * @param onFailure receives the exception on the FX thread.
+     * @param <T> the result type.
+     * @return the Future for the work, which may be cancelled individually.
+     */
+    public static <T> Future<T> submitLocal(Object owner, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        return schedule(owner, work, onSuccess, onFailure);
+    }
+
+    /**
+     * Publishes the outcome of work already running elsewhere, normally a service future, on the FX thread. The future
+     * is tracked for its owner and counted as in flight exactly as for submit. Must be called on the FX thread.
+     * @param owner the object the work belongs to, used by cancelAll; null if the work should never be cancelled.
+     * @param future the running work.
+     * @param onSuccess receives the result on the FX thread.
+     * @param onFailure receives the exception on the FX thread, unwrapped from any CompletionException.
+     * @param <T> the result type.
+     * @return the future, which may be cancelled individually.
+     */
+    public static <T> Future<T> publish(Object owner, CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        inFlight.set(inFlight.get() + 1);
+        if (owner != null) {
+            tasksByOwner.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(future);
+        }
+        future.whenComplete((result, failure) -> fxThread.execute(() -> {
+            inFlight.set(inFlight.get() - 1);
+            forget(owner, future);
+            if (future.isCancelled()) {
+                return;
+            }
+            if (failure == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Cancels every query still pending for the owner. Queries already running finish, but their results are dropped.
+     * @param owner the object the queries were submitted for.
+     */
+    public static void cancelAll(Object owner) {
+        Set<Future<?>> tasks = tasksByOwner.remove(owner);
+        if (tasks != null) {
+            for (Future<?> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of submitted queries whose results have not yet been published.
+     * @return read-only in-flight count, updated on the FX thread.
+     */
+    public static ReadOnlyIntegerProperty inFlightProperty() {
+        return inFlight.getReadOnlyProperty();
+    }
+
+    /**
+     * Replaces Platform.runLater as the way outcomes are published, for callers without a started JavaFX toolkit such
+     * as tests. The Executor takes the place of the FX thread: every callback and inFlight update runs on it.
+     * @param thread runs each published outcome, e.g. Runnable::run to publish on the completing thread.
+     */
+    public static void publishOn(Executor thread) {
+        fxThread = thread;
+    }
+
+    /**
+     * Returns the background executor, sized like the JDBC pool, which the Scheduling Services share.
+     * @return the executor queries run on.
+     */
+    public static Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Stops the background executor. Used when the application exits.
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs the work on the executor, tracks it for its owner and publishes the outcome on the FX thread.
+     */
+    private static <T> Future<T> schedule(Object owner, Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        FutureTask<T> task = new FutureTask<>(work) {
+            @Override
+            protected void done() {
+                fxThread.execute(() -> {
+                    inFlight.set(inFlight.get() - 1);
+                    forget(owner, this);
+                    if (isCancelled()) {
+                        return;
+                    }
+                    try {
+                        onSuccess.accept(get());
+                    } catch (ExecutionException e) {
+                        onFailure.accept(e.getCause());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        };
+        inFlight.set(inFlight.get() + 1);
+        if (owner != null) {
+            tasksByOwner.computeIfAbsent(owner, key -> ConcurrentHashMap.newKeySet()).add(task);
+        }
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * Removes a finished query from its owner's pending set.
+     * @param owner the owner the query was submitted for.
+     * @param task the finished query.
+     */
+    private static void forget(Object owner, Future<?> task) {
+        if (owner == null) {
+            return;
+        }
+        tasksByOwner.computeIfPresent(owner, (key, tasks) -> {
+            tasks.remove(task);
+            return tasks.isEmpty() ? null : tasks;
+        });
+    }
+}
@@ -0,0 +1,57 @@
+package schedual.helper;
+
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cell Factory for TableColumns holding epoch millisecond times.
+ * <p> The column's values stay as numbers, so sorting is numeric. Text is formatted only when a cell is rendered, using one
+ * shared localized formatter, and formatted strings are cached because appointments fall on a 15 minute grid and repeat.
+ * <p> Used on the FX thread only.
+ * @author Ben Porter
+ */
+public class DateTimeCells {
+    private static final DateTimeFormatter SHORT_DATE_TIME =
+            DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT).withZone(ZoneId.systemDefault());
+    private static final int CACHE_SIZE = 4096;
+    private static final Map<Long, String> formatted = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private DateTimeCells() {}
+
+    /**
+     * Formats epoch milliseconds as a short localized date and time, from the cache when possible.
+     * @param epochMillis the time to format.
+     * @return formatted date and time
+     */
+    public static String format(long epochMillis) {
+        return formatted.computeIfAbsent(epochMillis, millis -> SHORT_DATE_TIME.format(Instant.ofEpochMilli(millis)));
+    }
+
+    /**
+     * Sets the column's cell factory to render epoch milliseconds as a short localized date and time.
+     * @param column a column whose cell values are Long epoch milliseconds.
+     * @param <S> the TableView row type.
+     */
+    @SuppressWarnings("unchecked")
+    public static <S> void formatAsDateTime(TableColumn<S, ?> column) {
+        ((TableColumn<S, Long>) column).setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Long item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty || item == null ? null : format(item));
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package schedual.helper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletion Journal - the deleted_rows table, where every appointment and customer delete leaves a tombstone.
+ * <p> Deleted rows leave no Last_Update behind, so a ChangeFeed reads the tombstones of its table written since its
+ * watermark instead of checking every ID a screen holds. Tombstones are written in the deleting transaction, with the
+ * server's CURRENT_TIMESTAMP like Last_Update, and are pruned once they are older than RETENTION.
+ * <p> On a database without the deleted_rows table nothing is recorded or read, and other sessions drop deleted rows on
+ * their next reload only.
+ * @author Ben Porter
+ */
+public class DeletionJournal {
+    private static final long RETENTION = TimeUnit.DAYS.toMillis(7);
+    private static final String MISSING_TABLE = "42S02";
+    private static final String RECORD_SQL = "INSERT INTO deleted_rows (Table_Name, Row_ID, Deleted_At) " +
+            "VALUES (?, ?, CURRENT_TIMESTAMP)";
+    private static final String RECORD_APPOINTMENTS_SQL = "INSERT INTO deleted_rows (Table_Name, Row_ID, Deleted_At) " +
+            "SELECT 'appointments', Appointment_ID, CURRENT_TIMESTAMP FROM appointments WHERE Customer_ID = ?";
+    private static final String PRUNE_SQL = "DELETE FROM deleted_rows WHERE Deleted_At < ?";
+    static final String MAX_SQL = "SELECT MAX(Deleted_At) AS Deleted_At FROM deleted_rows WHERE Table_Name = ?";
+    static final String SINCE_SQL = "SELECT Row_ID, Deleted_At FROM deleted_rows WHERE Table_Name = ? AND Deleted_At >= ?";
+
+    private DeletionJournal() {}
+
+    /**
+     * Records a deleted row, and prunes the tombstones older than RETENTION.
+     * @param connection the connection the row was deleted on, in the same transaction.
+     * @param table the table the row was deleted from, e.g. "appointments".
+     * @param id the ID of the deleted row.
+     * @throws SQLException when the tombstone could not be written.
+     */
+    public static void record(Connection connection, String table, int id) throws SQLException {
+        try {
+            QueryExecutor.update(connection, RECORD_SQL, table, id);
+            QueryExecutor.update(connection, PRUNE_SQL, new Timestamp(System.currentTimeMillis() - RETENTION));
+        } catch (SQLException e) {
+            if (!MISSING_TABLE.equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Records every appointment of a customer, before the customer and its appointments are deleted.
+     * @param connection the connection the customer is deleted on, in the same transaction.
+     * @param customerID int ID of the customer.
+     * @throws SQLException when the tombstones could not be written.
+     */
+    public static void recordAppointmentsOf(Connection connection, int customerID) throws SQLException {
+        try {
+            QueryExecutor.update(connection, RECORD_APPOINTMENTS_SQL, customerID);
+        } catch (SQLException e) {
+            if (!MISSING_TABLE.equals(e.getSQLState())) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the exception means the database has no deleted_rows table.
+     * @param e the exception a journal query failed with.
+     * @return whether the table is missing
+     */
+    static boolean isMissing(SQLException e) {
+        return MISSING_TABLE.equals(e.getSQLState());
+    }
+}
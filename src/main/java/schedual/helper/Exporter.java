@@ -0,0 +1,431 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+import schedual.model.Engagement;
+import schedual.model.MonthTypeCount;
+import schedual.model.Occurrence;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streaming Export of reports and appointment ranges to CSV or JSON files, or to any Writer such as an HTTP response.
+ * <p> Each export runs one query on a forward-only, read-only statement with the Dialect's streaming fetch size; on MySQL
+ * that is Integer.MIN_VALUE, which makes Connector/J stream rows one at a time instead of buffering the whole result. Every row is written straight
+ * to a buffered NIO writer as it arrives, so no list of rows is built and a full-history export runs in constant memory.
+ * <p> The reports are the exception: ReportQueries adds the occurrences of recurring series to their rows in memory, so
+ * they are written from its lists, which hold one row per customer, per month and type, or per appointment of one contact.
+ * <p> Column names come from the query's column labels. Date-times are written as ISO local date-times, e.g.
+ * 2023-05-01T09:00, the same form the BulkImporter reads.
+ * @author Ben Porter
+ */
+public class Exporter {
+
+    /** File formats the Exporter writes. */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Returns the format named by a file's extension, CSV unless the file ends in .json.
+         * @param path the output file.
+         * @return the format
+         */
+        public static Format of(Path path) {
+            return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    /** An export bound to everything but its destination. */
+    @FunctionalInterface
+    private interface WriterExport {
+        long run(Writer out) throws SQLException, IOException;
+    }
+
+    /** Writes the rows of a result in one format. */
+    private interface RowWriter {
+        void begin(String[] columns) throws IOException;
+        void row(String[] columns, Object[] values) throws IOException;
+        void end() throws IOException;
+    }
+
+    private static final String[] SCHEDULE_COLUMNS = {"Appointment_ID", "Title", "Description", "Location", "Type",
+            "Start", "End", "Customer_ID", "User_ID", "Contact_ID"};
+    private static final String[] TOTALS_COLUMNS = {"Year", "Month", "Type", "Count"};
+    private static final String[] ENGAGEMENT_COLUMNS = {"Customer_ID", "Customer_Name", "Last_Appointment", "Next_Appointment"};
+
+    private Exporter() {}
+
+    /**
+     * Exports the appointments starting between two dates, ordered by Start. Runs on a background connection.
+     * @param connection the connection to query on.
+     * @param from LocalDate the range starts at, null for no lower bound.
+     * @param to LocalDate the range ends at, inclusive, null for no upper bound.
+     * @param format the file format.
+     * @param path the file to write.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the file could not be written.
+     */
+    public static long exportAppointments(Connection connection, LocalDate from, LocalDate to, Format format, Path path)
+            throws SQLException, IOException {
+        return toFile(path, out -> exportAppointments(connection, from, to, format, out));
+    }
+
+    /**
+     * Streams the appointments starting between two dates, ordered by Start, to a Writer.
+     * @param connection the connection to query on.
+     * @param from LocalDate the range starts at, null for no lower bound.
+     * @param to LocalDate the range ends at, inclusive, null for no upper bound.
+     * @param format the output format.
+     * @param out receives the rows; flushed but not closed.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the rows could not be written.
+     */
+    public static long exportAppointments(Connection connection, LocalDate from, LocalDate to, Format format, Writer out)
+            throws SQLException, IOException {
+        StringBuilder sql = new StringBuilder("SELECT * FROM appointments");
+        Object[] params;
+        // The to date is inclusive: the range runs up to the start of the next day
+        if (from != null && to != null) {
+            sql.append(" WHERE Start >= ? AND Start < ?");
+            params = new Object[]{Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay())};
+        } else if (from != null) {
+            sql.append(" WHERE Start >= ?");
+            params = new Object[]{Timestamp.valueOf(from.atStartOfDay())};
+        } else if (to != null) {
+            sql.append(" WHERE Start < ?");
+            params = new Object[]{Timestamp.valueOf(to.plusDays(1).atStartOfDay())};
+        } else {
+            params = new Object[0];
+        }
+        sql.append(" ORDER BY Start, Appointment_ID");
+        return export(connection, sql.toString(), format, out, params);
+    }
+
+    /**
+     * Exports the Contact Schedule report for one contact.
+     * @param connection the connection to query on.
+     * @param contactID int ID of the contact.
+     * @param format the file format.
+     * @param path the file to write.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the file could not be written.
+     */
+    public static long exportContactSchedule(Connection connection, int contactID, Format format, Path path)
+            throws SQLException, IOException {
+        return toFile(path, out -> exportContactSchedule(connection, contactID, format, out));
+    }
+
+    /**
+     * Streams the Contact Schedule report for one contact to a Writer.
+     * @param connection the connection to query on.
+     * @param contactID int ID of the contact.
+     * @param format the output format.
+     * @param out receives the rows; flushed but not closed.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the rows could not be written.
+     */
+    public static long exportContactSchedule(Connection connection, int contactID, Format format, Writer out)
+            throws SQLException, IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (Appointment appointment : ReportQueries.contactSchedule(connection, contactID)) {
+            rows.add(new Object[]{
+                    appointment instanceof Occurrence ? ((Occurrence) appointment).getLabel() : appointment.getAppointment_ID(),
+                    appointment.getTitle(), appointment.getDescription(), appointment.getLocation(), appointment.getType(),
+                    new Timestamp(appointment.getStart()), new Timestamp(appointment.getEnd()),
+                    appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID()});
+        }
+        return write(format, out, SCHEDULE_COLUMNS, rows);
+    }
+
+    /**
+     * Exports the Appointment Totals report: appointment counts by Year, Month and Type.
+     * @param connection the connection to query on.
+     * @param year the calendar year to count, null counts every year.
+     * @param format the file format.
+     * @param path the file to write.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the file could not be written.
+     */
+    public static long exportMonthTypeTotals(Connection connection, Integer year, Format format, Path path)
+            throws SQLException, IOException {
+        return toFile(path, out -> exportMonthTypeTotals(connection, year, format, out));
+    }
+
+    /**
+     * Streams the Appointment Totals report to a Writer.
+     * @param connection the connection to query on.
+     * @param year the calendar year to count, null counts every year.
+     * @param format the output format.
+     * @param out receives the rows; flushed but not closed.
+     * @return the number of rows written.
+     * @throws SQLException when the appointments could not be read.
+     * @throws IOException when the rows could not be written.
+     */
+    public static long exportMonthTypeTotals(Connection connection, Integer year, Format format, Writer out)
+            throws SQLException, IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (MonthTypeCount count : ReportQueries.monthTypeTotals(connection, year)) {
+            rows.add(new Object[]{count.getYear(), count.getMonth().getValue(), count.getType(), count.getCount()});
+        }
+        return write(format, out, TOTALS_COLUMNS, rows);
+    }
+
+    /**
+     * Exports the Customer Engagement report: every customer's last and next appointment.
+     * @param connection the connection to query on.
+     * @param format the file format.
+     * @param path the file to write.
+     * @return the number of rows written.
+     * @throws SQLException when the customers could not be read.
+     * @throws IOException when the file could not be written.
+     */
+    public static long exportEngagement(Connection connection, Format format, Path path) throws SQLException, IOException {
+        return toFile(path, out -> exportEngagement(connection, format, out));
+    }
+
+    /**
+     * Streams the Customer Engagement report to a Writer.
+     * @param connection the connection to query on.
+     * @param format the output format.
+     * @param out receives the rows; flushed but not closed.
+     * @return the number of rows written.
+     * @throws SQLException when the customers could not be read.
+     * @throws IOException when the rows could not be written.
+     */
+    public static long exportEngagement(Connection connection, Format format, Writer out) throws SQLException, IOException {
+        List<Object[]> rows = new ArrayList<>();
+        for (Engagement engagement : ReportQueries.engagement(connection, System.currentTimeMillis())) {
+            Long last = engagement.getLast_Appointment();
+            Long next = engagement.getNext_Appointment();
+            rows.add(new Object[]{engagement.getCustomer_ID(), engagement.getCustomer_Name(),
+                    last == null ? null : new Timestamp(last), next == null ? null : new Timestamp(next)});
+        }
+        return write(format, out, ENGAGEMENT_COLUMNS, rows);
+    }
+
+    /**
+     * Streams the rows of a query to a file.
+     * @param connection the connection to query on.
+     * @param sql the SQL text.
+     * @param format the file format.
+     * @param path the file to write; replaced if it exists.
+     * @param params the values bound to the ? placeholders, in order.
+     * @return the number of rows written.
+     * @throws SQLException when the query could not be executed.
+     * @throws IOException when the file could not be written.
+     */
+    public static long export(Connection connection, String sql, Format format, Path path, Object... params)
+            throws SQLException, IOException {
+        return toFile(path, out -> export(connection, sql, format, out, params));
+    }
+
+    /**
+     * Streams the rows of a query to a Writer, one row at a time as they arrive.
+     * @param connection the connection to query on.
+     * @param sql the SQL text.
+     * @param format the output format.
+     * @param out receives the rows; flushed but not closed.
+     * @param params the values bound to the ? placeholders, in order.
+     * @return the number of rows written.
+     * @throws SQLException when the query could not be executed.
+     * @throws IOException when the rows could not be written.
+     */
+    public static long export(Connection connection, String sql, Format format, Writer out, Object... params)
+            throws SQLException, IOException {
+        if (connection == null) {
+            throw new SQLException("No Database Connection Available");
+        }
+        long rows = 0;
+        // Prepared outside the StatementCache: a streaming statement must not be reused with other settings
+        try (PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(JDBC.getDialect().getStreamingFetchSize());
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                String[] columns = new String[meta.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = meta.getColumnLabel(i + 1);
+                }
+                RowWriter writer = format == Format.JSON ? new JsonWriter(out) : new CsvWriter(out);
+                Object[] values = new Object[columns.length];
+                writer.begin(columns);
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    writer.row(columns, values);
+                    rows++;
+                }
+                writer.end();
+            }
+        }
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Writes rows assembled by ReportQueries to a Writer.
+     */
+    private static long write(Format format, Writer out, String[] columns, List<Object[]> rows) throws IOException {
+        RowWriter writer = format == Format.JSON ? new JsonWriter(out) : new CsvWriter(out);
+        writer.begin(columns);
+        for (Object[] values : rows) {
+            writer.row(columns, values);
+        }
+        writer.end();
+        out.flush();
+        return rows.size();
+    }
+
+    /**
+     * Runs an export into a new file.
+     */
+    private static long toFile(Path path, WriterExport export) throws SQLException, IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            return export.run(out);
+        }
+    }
+
+    /**
+     * Returns the text of a value: date-times as ISO local date-times, everything else by toString.
+     */
+    private static String text(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime().toString();
+        }
+        return value.toString();
+    }
+
+    /** RFC 4180 CSV with a header row; fields are quoted only when they need to be. */
+    private static final class CsvWriter implements RowWriter {
+        private final Writer out;
+
+        private CsvWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            line(columns);
+        }
+
+        @Override
+        public void row(String[] columns, Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                if (values[i] != null) {
+                    field(text(values[i]));
+                }
+            }
+            out.write("\r\n");
+        }
+
+        @Override
+        public void end() {
+        }
+
+        private void line(String[] fields) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                field(fields[i]);
+            }
+            out.write("\r\n");
+        }
+
+        private void field(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+
+    /** A JSON array with one object per row, keyed by column label; numbers and nulls are written unquoted. */
+    private static final class JsonWriter implements RowWriter {
+        private final Writer out;
+        private boolean first = true;
+
+        private JsonWriter(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        public void begin(String[] columns) throws IOException {
+            out.write('[');
+        }
+
+        @Override
+        public void row(String[] columns, Object[] values) throws IOException {
+            out.write(first ? "\n{" : ",\n{");
+            first = false;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                string(columns[i]);
+                out.write(':');
+                if (values[i] == null) {
+                    out.write("null");
+                } else if (values[i] instanceof Number) {
+                    out.write(values[i].toString());
+                } else {
+                    string(text(values[i]));
+                }
+            }
+            out.write('}');
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.write("\n]\n");
+        }
+
+        private void string(String value) throws IOException {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"': out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default:
+                        if (c < 0x20) {
+                            out.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            out.write(c);
+                        }
+                }
+            }
+            out.write('"');
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package schedual.helper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one BulkImporter run: row counts, throughput, and the reason each rejected row was not inserted.
+ * @author Ben Porter
+ */
+public class ImportReport {
+
+    /** A rejected row and the validation or database error that rejected it. */
+    public static final class RowError {
+        private final int line;
+        private final String message;
+
+        private RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Returns the line of the CSV file the row starts on.
+         * @return line number
+         */
+        public int getLine() { return line; }
+
+        /**
+         * Returns why the row was rejected.
+         * @return error message
+         */
+        public String getMessage() { return message; }
+    }
+
+    private final List<RowError> errors = new ArrayList<>();
+    private int rowsRead;
+    private int rowsInserted;
+    private long elapsedNanos;
+
+    void read(int rows) { rowsRead += rows; }
+
+    void inserted(int rows) { rowsInserted += rows; }
+
+    void reject(int line, String message) { errors.add(new RowError(line, message)); }
+
+    void finish(long nanos) { elapsedNanos = nanos; }
+
+    /**
+     * Returns the number of data rows read from the file, excluding the header.
+     * @return rows read
+     */
+    public int getRowsRead() { return rowsRead; }
+
+    /**
+     * Returns the number of rows inserted.
+     * @return rows inserted
+     */
+    public int getRowsInserted() { return rowsInserted; }
+
+    /**
+     * Returns the rejected rows in file order.
+     * @return row errors
+     */
+    public List<RowError> getErrors() {
+        List<RowError> sorted = new ArrayList<>(errors);
+        sorted.sort((a, b) -> Integer.compare(a.line, b.line));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Returns the wall-clock time of the import in milliseconds.
+     * @return elapsed time
+     */
+    public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+    /**
+     * Returns the rows read per second.
+     * @return throughput, 0 if nothing was timed.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    /**
+     * Writes the rejected rows as a CSV file with the columns Line and Error.
+     * @param path the file to write.
+     * @throws IOException when the file could not be written.
+     */
+    public void writeErrors(Path path) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("Line,Error");
+            out.newLine();
+            for (RowError error : getErrors()) {
+                out.write(error.line + ",\"" + String.valueOf(error.message).replace("\"", "\"\"") + "\"");
+                out.newLine();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("read=%d inserted=%d rejected=%d elapsed=%.0fms rate=%.0f rows/s",
+                rowsRead, rowsInserted, errors.size(), getElapsedMillis(), getRowsPerSecond());
+    }
+}
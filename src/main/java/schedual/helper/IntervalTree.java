@@ -0,0 +1,280 @@
+package schedual.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Augmented Interval Tree of half-open time ranges [start, end) in epoch milliseconds.
+ * <p> An AVL tree ordered by (start, id). Each node also stores the largest end time in its subtree, so overlap searches
+ * skip every subtree that ends before the range begins. Insert, remove and overlap queries run in O(log n + k).
+ * <p> Not thread-safe; AppointmentIndex guards access with a read-write lock.
+ * @author Ben Porter
+ */
+public class IntervalTree {
+
+    private static final class Node {
+        private final int id;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(int id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    /**
+     * Adds a range to the tree.
+     * @param id the Appointment ID the range belongs to.
+     * @param start epoch milliseconds the range starts at, inclusive.
+     * @param end epoch milliseconds the range ends at, exclusive.
+     */
+    public void insert(int id, long start, long end) {
+        root = insert(root, new Node(id, start, end));
+        size++;
+    }
+
+    /**
+     * Removes a range from the tree.
+     * @param id the Appointment ID the range belongs to.
+     * @param start epoch milliseconds the range was inserted with.
+     * @return true if the range was found and removed.
+     */
+    public boolean remove(int id, long start) {
+        int before = size;
+        root = remove(root, id, start);
+        return size < before;
+    }
+
+    /**
+     * Returns the number of ranges in the tree.
+     * @return size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the tree holds no ranges.
+     * @return whether the tree is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Passes the ID of every range overlapping [from, to) to the sink, in start order.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @param sink receives each overlapping ID.
+     */
+    public void overlapping(long from, long to, IntConsumer sink) {
+        overlapping(root, from, to, sink);
+    }
+
+    /**
+     * Returns the IDs of every range overlapping [from, to), in start order.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @return overlapping IDs
+     */
+    public List<Integer> overlapping(long from, long to) {
+        List<Integer> ids = new ArrayList<>();
+        overlapping(root, from, to, ids::add);
+        return ids;
+    }
+
+    /**
+     * Returns true if any range overlaps [from, to). Stops at the first match.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @return whether the range is occupied
+     */
+    public boolean anyOverlap(long from, long to) {
+        Node node = root;
+        while (node != null) {
+            if (node.start < to && node.end > from) {
+                return true;
+            }
+            if (node.left != null && node.left.maxEnd > from) {
+                node = node.left;
+            } else if (node.start < to) {
+                node = node.right;
+            } else {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the IDs of every range in progress at the instant.
+     * @param instant epoch milliseconds.
+     * @return occupying IDs
+     */
+    public List<Integer> at(long instant) {
+        return overlapping(instant, instant + 1);
+    }
+
+    /**
+     * Returns the free ranges within [from, to) that no range in the tree covers.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @return gaps as {start, end} pairs in time order
+     */
+    public List<long[]> gaps(long from, long to) {
+        List<long[]> gaps = new ArrayList<>();
+        long[] cursor = {from};
+        forEachOverlapping(root, from, to, node -> {
+            if (node.start > cursor[0]) {
+                gaps.add(new long[]{cursor[0], node.start});
+            }
+            cursor[0] = Math.max(cursor[0], node.end);
+        });
+        if (cursor[0] < to) {
+            gaps.add(new long[]{cursor[0], to});
+        }
+        return gaps;
+    }
+
+    private static void overlapping(Node node, long from, long to, IntConsumer sink) {
+        forEachOverlapping(node, from, to, match -> sink.accept(match.id));
+    }
+
+    private interface NodeVisitor {
+        void visit(Node node);
+    }
+
+    /**
+     * In-order walk of the nodes overlapping [from, to), pruning subtrees that end before from or start after to.
+     */
+    private static void forEachOverlapping(Node node, long from, long to, NodeVisitor visitor) {
+        if (node == null || node.maxEnd <= from) {
+            return;
+        }
+        forEachOverlapping(node.left, from, to, visitor);
+        if (node.start >= to) {
+            return;
+        }
+        if (node.end > from) {
+            visitor.visit(node);
+        }
+        forEachOverlapping(node.right, from, to, visitor);
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, int id, long start) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (cmp > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.id, successor.start, successor.end);
+            replacement.left = node.left;
+            replacement.right = removeMin(node.right);
+            node = replacement;
+        }
+        return balance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd > maxEnd) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd > maxEnd) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+}
@@ -9,6 +9,11 @@ import java.util.ResourceBundle;
 
 /**
  * Java Database Connectivity API Class
+ * <p> Connections are drawn from a bounded ConnectionPool opened at log-in. Background work borrows its own connection with
+ * borrowConnection() and closes it when done; getConnection() returns the long-lived session connection used by the Controllers.
+ * <p> The database is the local MySQL client_schedule unless the schedual.jdbc.url system property names another. The
+ * Dialect is taken from the URL, or from the schedual.jdbc.dialect property (MYSQL or H2). Headless tools may call
+ * configure() before open().
  */
 
 public class JDBC {
@@ -16,26 +21,78 @@ public class JDBC {
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
-    private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
+    private static final String defaultUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER&rewriteBatchedStatements=true"; // LOCAL; batches are sent as multi-row INSERTs
+    private static final String urlProperty = "schedual.jdbc.url";
+    private static final String dialectProperty = "schedual.jdbc.dialect";
 
-    private static Connection connection;  // Connection Interface
+    /** The SQL dialects the application runs against, with the driver and settings that differ between them. */
+    public enum Dialect {
+        /** MySQL 8, the production database. Streams results when the fetch size is Integer.MIN_VALUE. */
+        MYSQL("com.mysql.cj.jdbc.Driver", Integer.MIN_VALUE),
+        /** H2 in MySQL compatibility mode, an embedded database for headless testing. Fetches in batches of rows. */
+        H2("org.h2.Driver", 1000);
+
+        private final String driver;
+        private final int streamingFetchSize;
+
+        Dialect(String driver, int streamingFetchSize) {
+            this.driver = driver;
+            this.streamingFetchSize = streamingFetchSize;
+        }
+
+        /**
+         * Returns the JDBC driver class name.
+         * @return driver class name
+         */
+        public String getDriver() {
+            return driver;
+        }
+
+        /**
+         * Returns the fetch size that streams a large result instead of buffering all of it.
+         * @return fetch size
+         */
+        public int getStreamingFetchSize() {
+            return streamingFetchSize;
+        }
+
+        /**
+         * Returns the dialect of a JDBC URL; anything but an H2 URL is MySQL.
+         * @param url the JDBC URL.
+         * @return the dialect
+         */
+        public static Dialect of(String url) {
+            return url.startsWith("jdbc:h2:") ? H2 : MYSQL;
+        }
+    }
+
+    private static String jdbcUrl = System.getProperty(urlProperty, defaultUrl);
+    private static Dialect dialect = System.getProperty(dialectProperty) == null
+            ? Dialect.of(jdbcUrl) : Dialect.valueOf(System.getProperty(dialectProperty).toUpperCase(Locale.ROOT));
+
+    private static final int poolSize = 8;
+    private static final long borrowTimeout = 10_000; // 10 seconds
+    private static final long idleTimeout = 600_000; // 10 minutes
+    private static final long maxLifetime = 1_800_000; // 30 minutes
+    private static final long leakThreshold = 60_000; // 1 minute
+    private static final int validationTimeout = 2; // 2 seconds
+
+    private static ConnectionPool pool;
+    private static Connection connection;  // Session Connection, borrowed from pool
     private static String user;
 
     /**
-     * Establishes a connection to the MySQL Database "databaseName"
+     * Establishes a connection pool to the MySQL Database "databaseName" and borrows the session connection from it.
      * @param userName the user credential provided to MySQL during a login attempt.
      * @param password the password provided to MySQL during a login attempt.
      * @return Boolean indicating the success or failure of the connection attempt.
      */
     public static Boolean openConnection(String userName, String password) {
         try {
-            Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
-            user = userName;
+            open(userName, password);
             return true;
         }
-        catch(ClassNotFoundException | SQLException e) {
+        catch(SQLException e) {
             Alert errorMessage = new Alert(Alert.AlertType.ERROR);
             errorMessage.setTitle(ResourceBundle.getBundle("schedual/bundle/lang", Locale.getDefault()).getString("LogInError"));
             errorMessage.setContentText(ResourceBundle.getBundle("schedual/bundle/lang", Locale.getDefault()).getString("LogInErrorMessage"));
@@ -45,13 +102,99 @@ public class JDBC {
     }
 
     /**
-     * Returns the current open connection.
+     * Establishes the connection pool without any dialogs, for the command line modes which run without JavaFX. A pool
+     * opened earlier is closed once the new one has connected.
+     * @param userName the user credential provided to MySQL.
+     * @param password the password provided to MySQL.
+     * @throws SQLException when the driver could not be loaded or MySQL refused the credentials.
+     */
+    public static synchronized void open(String userName, String password) throws SQLException {
+        try {
+            Class.forName(dialect.getDriver()); // Locate Driver
+        } catch (ClassNotFoundException e) {
+            throw new SQLException("JDBC Driver Not Found: " + dialect.getDriver(), e);
+        }
+        ConnectionPool newPool = new ConnectionPool(jdbcUrl, userName, password,
+                poolSize, borrowTimeout, idleTimeout, maxLifetime, leakThreshold);
+        Connection opened;
+        try {
+            opened = newPool.borrow(false); // Fails here on bad credentials
+        } catch (SQLException e) {
+            newPool.close();
+            throw e;
+        }
+        closeConnection(); // an earlier session's pool, its connections and housekeeper
+        pool = newPool;
+        connection = opened;
+        user = userName;
+    }
+
+    /**
+     * Points the next open() at another database, e.g. an embedded one for a test harness.
+     * @param url the JDBC URL.
+     * @param urlDialect the SQL dialect of the database.
+     */
+    public static synchronized void configure(String url, Dialect urlDialect) {
+        jdbcUrl = url;
+        dialect = urlDialect;
+    }
+
+    /**
+     * Returns the SQL dialect of the configured database.
+     * @return dialect
+     */
+    public static Dialect getDialect() {
+        return dialect;
+    }
+
+    /**
+     * Returns the current session connection. It is checked with isValid() first, since the server may have dropped it
+     * while it sat unused; if it has been closed or dropped, it is returned and a fresh one is borrowed from the pool.
      * @return current connection.
      */
-    public static Connection getConnection() {
+    public static synchronized Connection getConnection() {
+        try {
+            if (pool != null && (connection == null || connection.isClosed() || !connection.isValid(validationTimeout))) {
+                if (connection != null) {
+                    connection.close(); // back to the pool, which discards it on the next borrow
+                }
+                connection = pool.borrow(false);
+            }
+        }
+        catch(SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
         return connection;
     }
 
+    /**
+     * Borrows a connection from the pool for a unit of work. The caller must close it to return it to the pool.
+     * @return a pooled connection.
+     * @throws SQLException if no connection became free within the borrow timeout or the pool is not open.
+     */
+    public static Connection borrowConnection() throws SQLException {
+        if (pool == null) {
+            throw new SQLException("Not Logged In: No Connection Pool Open");
+        }
+        return pool.borrow();
+    }
+
+    /**
+     * Returns the metrics of the open connection pool.
+     * @return pool metrics, or null if no pool is open.
+     */
+    public static PoolMetrics getPoolMetrics() {
+        return pool == null ? null : pool.getMetrics();
+    }
+
+    /**
+     * Returns the maximum number of connections the pool opens, used to size background executors.
+     * @return pool size
+     */
+    public static int getPoolSize() {
+        return poolSize;
+    }
+
     /**
      * Returns the userName used to establish the currently open connection.
      * @return user
@@ -61,14 +204,21 @@ public class JDBC {
     }
 
     /**
-     * Closes the connection to MySQL database.
+     * Closes the session connection and the connection pool to MySQL database.
      */
-    public static void closeConnection() {
+    public static synchronized void closeConnection() {
         try {
-            connection.close();
+            if (connection != null) {
+                connection.close();
+            }
         }
         catch(SQLException e) {
             System.out.println("Error:" + e.getMessage());
         }
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+        connection = null;
     }
 }
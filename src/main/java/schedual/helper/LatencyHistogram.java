@@ -0,0 +1,107 @@
+package schedual.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running latency histogram with power-of-two microsecond buckets, used to export per-endpoint latencies.
+ * <p> Bucket i counts latencies below 2^i microseconds that did not fit bucket i - 1; the last bucket also holds everything
+ * longer. Recording is lock-free, so request threads record concurrently, and percentiles are read as the upper bound
+ * of the bucket they fall in.
+ * @author Ben Porter
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 28; // up to 2^27 microseconds, about 134 seconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Records one latency.
+     * @param nanos the elapsed time in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        counts.incrementAndGet(bucket);
+        count.increment();
+        totalMicros.add(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     * @return count
+     */
+    public long getCount() { return count.sum(); }
+
+    /**
+     * Returns the mean latency.
+     * @return mean in microseconds, 0 before the first record
+     */
+    public double getMeanMicros() {
+        long recorded = count.sum();
+        return recorded == 0 ? 0 : (double) totalMicros.sum() / recorded;
+    }
+
+    /**
+     * Returns the longest recorded latency.
+     * @return maximum in microseconds
+     */
+    public long getMaxMicros() { return maxMicros.get(); }
+
+    /**
+     * Returns the upper bound of the bucket holding the given percentile, capped at the maximum recorded latency.
+     * @param percentile between 0 and 100.
+     * @return the percentile in microseconds, 0 before the first record
+     */
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = getBucketCounts();
+        long total = 0;
+        for (long bucketCount : snapshot) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(getBucketUpperMicros(i), getMaxMicros());
+            }
+        }
+        return getMaxMicros();
+    }
+
+    /**
+     * Returns a snapshot of the bucket counts.
+     * @return count per bucket, in bucket order
+     */
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the exclusive upper bound of a bucket; the last bucket is unbounded.
+     * @param bucket the bucket index.
+     * @return the bound in microseconds, Long.MAX_VALUE for the last bucket
+     */
+    public static long getBucketUpperMicros(int bucket) {
+        return bucket == BUCKETS - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.1fus p50=%dus p95=%dus p99=%dus max=%dus", getCount(), getMeanMicros(),
+                getPercentileMicros(50), getPercentileMicros(95), getPercentileMicros(99), getMaxMicros());
+    }
+}
@@ -0,0 +1,456 @@
+package schedual.helper;
+
+import schedual.model.LoginHour;
+import schedual.model.LoginSummary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Login Analytics Store - an append-only, time-ordered store of log-in attempts in memory-mapped segment files.
+ * <p> ingest() reads the AuditLog files, rotated archives included, and appends every record newer than the newest one
+ * stored, so re-ingesting only adds what the log gained since. The legacy login_activity.txt is read too, with its
+ * attempts attributed to an unrecorded user.
+ * <p> Each record is 16 bytes: epoch milliseconds, user and zone numbers from the names dictionaries, and the result.
+ * A segment file holds SEGMENT_RECORDS records after a header with its record count and its first and last time.
+ * Records are appended in time order, so a range query binary searches the segment headers, then the records of the
+ * first segment, and reads only the records in the range.
+ * <p> Files live in the login_store directory of the working directory. Methods are synchronized; the store is read and
+ * written from background threads.
+ * @author Ben Porter
+ */
+public class LoginStore {
+    private static final Path STORE_DIRECTORY = Path.of("login_store");
+    private static final Path LEGACY_LOG = Path.of("login_activity.txt");
+    private static final String UNRECORDED_USER = "(unrecorded)";
+    private static final int SEGMENT_RECORDS = 65_536;
+    private static final int HEADER_BYTES = 32;
+    private static final int RECORD_BYTES = 16;
+    private static final int MAGIC = 0x4C4F4731; // "LOG1"
+    private static final long HOUR = 3_600_000;
+
+    private static LoginStore shared;
+
+    /** One mapped segment file and the header values it holds. */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private int count;
+        private long first;
+        private long last;
+
+        private Segment(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.count = buffer.getInt(4);
+            this.first = buffer.getLong(8);
+            this.last = buffer.getLong(16);
+        }
+
+        private long time(int index) {
+            return buffer.getLong(HEADER_BYTES + index * RECORD_BYTES);
+        }
+    }
+
+    /** Receives each record of a range query. */
+    @FunctionalInterface
+    private interface RecordVisitor {
+        void visit(long time, int user, int zone, boolean success);
+    }
+
+    /** Names numbered in first-seen order and kept in a text file, one per line. */
+    private static final class Names {
+        private final Path file;
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> numbers = new HashMap<>();
+
+        private Names(Path file) throws IOException {
+            this.file = file;
+            if (Files.exists(file)) {
+                for (String name : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    numbers.put(name, names.size());
+                    names.add(name);
+                }
+            }
+        }
+
+        private int number(String name) throws IOException {
+            Integer number = numbers.get(name);
+            if (number == null) {
+                number = names.size();
+                names.add(name);
+                numbers.put(name, number);
+                Files.writeString(file, name + "\n", StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            return number;
+        }
+
+        private String name(int number) {
+            return number < names.size() ? names.get(number) : "?";
+        }
+    }
+
+    private final Path directory;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Names users;
+    private final Names zones;
+
+    private LoginStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        users = new Names(directory.resolve("users.txt"));
+        zones = new Names(directory.resolve("zones.txt"));
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.naturalOrder());
+        for (Path file : files) {
+            segments.add(map(file));
+        }
+    }
+
+    /**
+     * Returns the store in the working directory, opening it on first use.
+     * @return the shared store
+     * @throws IOException when the store could not be opened.
+     */
+    public static synchronized LoginStore shared() throws IOException {
+        if (shared == null) {
+            shared = new LoginStore(STORE_DIRECTORY);
+        }
+        return shared;
+    }
+
+    /**
+     * Appends the log-in attempts logged since the newest stored record.
+     * @return the number of records appended.
+     * @throws IOException when a log file or the store could not be read or written.
+     */
+    public synchronized int ingest() throws IOException {
+        long watermark = newest();
+        int appended = 0;
+        if (watermark == Long.MIN_VALUE && Files.exists(LEGACY_LOG)) {
+            appended += ingestLegacy();
+        }
+        LocalDate watermarkDay = watermark == Long.MIN_VALUE ? LocalDate.MIN
+                : LocalDate.ofInstant(Instant.ofEpochMilli(watermark), ZoneId.systemDefault());
+        Path logDirectory = AuditLog.LOG_FILE.toAbsolutePath().getParent();
+        List<Path> archives = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(logDirectory, AuditLog.ARCHIVE_PREFIX + "*.log.gz")) {
+            for (Path archive : stream) {
+                LocalDate day = archiveDate(archive);
+                if (day != null && !day.isBefore(watermarkDay)) {
+                    archives.add(archive); // archives of earlier days were ingested already
+                }
+            }
+        }
+        archives.sort(Comparator.comparing(LoginStore::archiveDate).thenComparing(LoginStore::archiveNumber));
+        for (Path archive : archives) {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+                appended += ingestLines(in);
+            }
+        }
+        if (Files.exists(AuditLog.LOG_FILE)) {
+            try (BufferedReader in = Files.newBufferedReader(AuditLog.LOG_FILE, StandardCharsets.UTF_8)) {
+                appended += ingestLines(in);
+            }
+        }
+        if (!segments.isEmpty()) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+        return appended;
+    }
+
+    /**
+     * Counts attempts and failures for each user in each hour of [from, to), reading only the records in the range.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @return one LoginHour per user and hour with an attempt, ordered by hour, then user.
+     */
+    public synchronized List<LoginHour> failuresByUserHour(long from, long to) {
+        Map<Long, int[]> buckets = new HashMap<>();
+        forEach(from, to, (time, user, zone, success) -> {
+            int[] counts = buckets.computeIfAbsent(Math.floorDiv(time, HOUR) << 24 | user, key -> new int[2]);
+            counts[0]++;
+            if (!success) {
+                counts[1]++;
+            }
+        });
+        List<LoginHour> hours = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, int[]> bucket : buckets.entrySet()) {
+            int user = (int) (bucket.getKey() & 0xFFFFFF);
+            long hour = (bucket.getKey() >> 24) * HOUR;
+            hours.add(new LoginHour(users.name(user), hour, bucket.getValue()[0], bucket.getValue()[1]));
+        }
+        hours.sort(Comparator.comparingLong(LoginHour::getHour).thenComparing(LoginHour::getUser));
+        return hours;
+    }
+
+    /**
+     * Returns each user's first and last successful log-in within [from, to), with attempt and failure totals.
+     * @param from epoch milliseconds, inclusive.
+     * @param to epoch milliseconds, exclusive.
+     * @return one LoginSummary per user with an attempt, ordered by user.
+     */
+    public synchronized List<LoginSummary> summaryByUser(long from, long to) {
+        Map<Integer, long[]> byUser = new HashMap<>(); // first, last, attempts, failures
+        forEach(from, to, (time, user, zone, success) -> {
+            long[] summary = byUser.computeIfAbsent(user, key -> new long[]{Long.MIN_VALUE, Long.MIN_VALUE, 0, 0});
+            summary[2]++;
+            if (success) {
+                if (summary[0] == Long.MIN_VALUE) {
+                    summary[0] = time;
+                }
+                summary[1] = time;
+            } else {
+                summary[3]++;
+            }
+        });
+        List<LoginSummary> summaries = new ArrayList<>(byUser.size());
+        for (Map.Entry<Integer, long[]> entry : byUser.entrySet()) {
+            long[] summary = entry.getValue();
+            summaries.add(new LoginSummary(users.name(entry.getKey()),
+                    summary[0] == Long.MIN_VALUE ? null : summary[0],
+                    summary[1] == Long.MIN_VALUE ? null : summary[1],
+                    (int) summary[2], (int) summary[3]));
+        }
+        summaries.sort(Comparator.comparing(LoginSummary::getUser));
+        return summaries;
+    }
+
+    /**
+     * Returns the number of stored records.
+     * @return record count
+     */
+    public synchronized long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    /**
+     * Returns the number of segment files.
+     * @return segment count
+     */
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Visits the records of [from, to) in time order, skipping whole segments outside the range.
+     */
+    private void forEach(long from, long to, RecordVisitor visitor) {
+        int low = 0;
+        int high = segments.size();
+        while (low < high) { // first segment whose last record is at or after from
+            int mid = (low + high) >>> 1;
+            if (segments.get(mid).last < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int s = low; s < segments.size(); s++) {
+            Segment segment = segments.get(s);
+            if (segment.count == 0 || segment.first >= to) {
+                return;
+            }
+            int index = 0;
+            int end = segment.count;
+            while (index < end) { // first record at or after from
+                int mid = (index + end) >>> 1;
+                if (segment.time(mid) < from) {
+                    index = mid + 1;
+                } else {
+                    end = mid;
+                }
+            }
+            ByteBuffer records = segment.buffer.duplicate();
+            for (; index < segment.count; index++) {
+                int offset = HEADER_BYTES + index * RECORD_BYTES;
+                long time = records.getLong(offset);
+                if (time >= to) {
+                    return;
+                }
+                visitor.visit(time, records.getInt(offset + 8), records.getShort(offset + 12), records.get(offset + 14) == 1);
+            }
+        }
+    }
+
+    private long newest() {
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (segments.get(s).count > 0) {
+                return segments.get(s).last;
+            }
+        }
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Appends a record unless it is not newer than the newest stored record.
+     */
+    private boolean append(long time, String user, String zone, boolean success) throws IOException {
+        if (time <= newest()) {
+            return false;
+        }
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.count == SEGMENT_RECORDS) {
+            if (segment != null) {
+                segment.buffer.force();
+            }
+            segment = map(directory.resolve(String.format("segment-%06d.dat", segments.size())));
+            segments.add(segment);
+        }
+        int offset = HEADER_BYTES + segment.count * RECORD_BYTES;
+        segment.buffer.putLong(offset, time);
+        segment.buffer.putInt(offset + 8, users.number(user));
+        segment.buffer.putShort(offset + 12, (short) zones.number(zone));
+        segment.buffer.put(offset + 14, (byte) (success ? 1 : 0));
+        if (segment.count == 0) {
+            segment.first = time;
+            segment.buffer.putLong(8, time);
+        }
+        segment.last = time;
+        segment.buffer.putLong(16, time);
+        segment.buffer.putInt(4, ++segment.count); // count last, so a torn append is never read
+        return true;
+    }
+
+    /**
+     * Maps a segment file at full size, writing a fresh header into a new file.
+     */
+    private static Segment map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean created = channel.size() == 0;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) SEGMENT_RECORDS * RECORD_BYTES);
+            if (created) {
+                buffer.putInt(0, MAGIC);
+            } else if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a Login Store Segment: " + file);
+            }
+            return new Segment(buffer);
+        }
+    }
+
+    private int ingestLines(BufferedReader in) throws IOException {
+        int appended = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            String timestamp = field(line, "timestamp");
+            String result = field(line, "result");
+            if (timestamp == null || result == null) {
+                continue;
+            }
+            try {
+                String user = field(line, "user");
+                String zone = field(line, "zone");
+                if (append(Instant.parse(timestamp).toEpochMilli(), user == null ? UNRECORDED_USER : user,
+                        zone == null ? "" : zone, result.equals("SUCCESS"))) {
+                    appended++;
+                }
+            } catch (DateTimeParseException e) {
+                System.out.println("Error: Login Store: skipped record " + line);
+            }
+        }
+        return appended;
+    }
+
+    /**
+     * Reads login_activity.txt, whose records are a "Log-In Attempt (Pass/Fail): true" line and an "@ timestamp" line.
+     */
+    private int ingestLegacy() throws IOException {
+        int appended = 0;
+        String zone = ZoneId.systemDefault().getId();
+        try (BufferedReader in = Files.newBufferedReader(LEGACY_LOG, StandardCharsets.UTF_8)) {
+            Boolean success = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("Log-In Attempt (Pass/Fail): ")) {
+                    success = Boolean.parseBoolean(line.substring(line.indexOf(':') + 1).trim());
+                } else if (line.startsWith("@ ") && success != null) {
+                    try {
+                        if (append(Timestamp.valueOf(line.substring(2).trim()).getTime(), UNRECORDED_USER, zone, success)) {
+                            appended++;
+                        }
+                    } catch (IllegalArgumentException e) {
+                        System.out.println("Error: Login Store: skipped record " + line);
+                    }
+                    success = null;
+                }
+            }
+        }
+        return appended;
+    }
+
+    /**
+     * Returns the value of a field of an AuditLog JSON line, or null if it is missing or null.
+     */
+    private static String field(String line, String name) {
+        String key = "\"" + name + "\":";
+        int start = line.indexOf(key);
+        if (start < 0 || start + key.length() >= line.length() || line.charAt(start + key.length()) != '"') {
+            return null;
+        }
+        StringBuilder value = new StringBuilder();
+        for (int i = start + key.length() + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                if (escaped == 'u' && i + 4 < line.length()) {
+                    value.append((char) Integer.parseInt(line.substring(i + 1, i + 5), 16));
+                    i += 4;
+                } else {
+                    value.append(escaped);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return null;
+    }
+
+    /** Returns the date in an archive name, login_activity-DATE-N.log.gz, or null if the name does not match. */
+    private static LocalDate archiveDate(Path archive) {
+        String name = archive.getFileName().toString();
+        try {
+            return LocalDate.parse(name.substring(AuditLog.ARCHIVE_PREFIX.length(), AuditLog.ARCHIVE_PREFIX.length() + 10));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /** Returns the rotation number in an archive name. */
+    private static int archiveNumber(Path archive) {
+        String name = archive.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(AuditLog.ARCHIVE_PREFIX.length() + 11, name.length() - ".log.gz".length()));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+}
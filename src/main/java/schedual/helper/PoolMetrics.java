@@ -0,0 +1,114 @@
+package schedual.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running counters for the ConnectionPool, used to size the pool under real load.
+ * <p> Borrow wait time is tracked as a total and a maximum so the average wait can be derived from the borrow count.
+ * @author Ben Porter
+ */
+public class PoolMetrics {
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder evictedCount = new LongAdder();
+    private final LongAdder leakCount = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong activeCount = new AtomicLong();
+
+    /**
+     * Records a successful borrow and how long the caller waited for it.
+     * @param waitNanos nanoseconds spent waiting for a free connection.
+     */
+    void recordBorrow(long waitNanos) {
+        borrowCount.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        activeCount.incrementAndGet();
+    }
+
+    /** Records a connection being handed back to the pool. */
+    void recordRelease() {
+        activeCount.decrementAndGet();
+    }
+
+    /** Records a borrow that gave up after the borrow timeout elapsed. */
+    void recordTimeout() {
+        timeoutCount.increment();
+    }
+
+    /** Records a new physical connection being opened. */
+    void recordCreated() {
+        createdCount.increment();
+    }
+
+    /** Records a physical connection being closed by validation, idle eviction or max-lifetime recycling. */
+    void recordEvicted() {
+        evictedCount.increment();
+    }
+
+    /** Records a connection held past the leak detection threshold. */
+    void recordLeak() {
+        leakCount.increment();
+    }
+
+    /**
+     * Returns the number of successful borrows.
+     * @return borrow count
+     */
+    public long getBorrowCount() { return borrowCount.sum(); }
+
+    /**
+     * Returns the number of borrows that timed out waiting for a connection.
+     * @return timeout count
+     */
+    public long getTimeoutCount() { return timeoutCount.sum(); }
+
+    /**
+     * Returns the number of physical connections opened since the pool started.
+     * @return created count
+     */
+    public long getCreatedCount() { return createdCount.sum(); }
+
+    /**
+     * Returns the number of physical connections closed by the pool.
+     * @return evicted count
+     */
+    public long getEvictedCount() { return evictedCount.sum(); }
+
+    /**
+     * Returns the number of suspected leaks reported.
+     * @return leak count
+     */
+    public long getLeakCount() { return leakCount.sum(); }
+
+    /**
+     * Returns the number of connections currently borrowed.
+     * @return active count
+     */
+    public long getActiveCount() { return activeCount.get(); }
+
+    /**
+     * Returns the average borrow wait in milliseconds.
+     * @return average wait, 0 if nothing has been borrowed.
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.sum();
+        return borrows == 0 ? 0 : totalWaitNanos.sum() / 1_000_000.0 / borrows;
+    }
+
+    /**
+     * Returns the longest borrow wait in milliseconds.
+     * @return maximum wait
+     */
+    public double getMaxWaitMillis() { return maxWaitNanos.get() / 1_000_000.0; }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d borrows=%d timeouts=%d created=%d evicted=%d leaks=%d avgWait=%.2fms maxWait=%.2fms",
+                getActiveCount(), getBorrowCount(), getTimeoutCount(), getCreatedCount(),
+                getEvictedCount(), getLeakCount(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
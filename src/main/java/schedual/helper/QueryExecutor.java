@@ -0,0 +1,186 @@
+package schedual.helper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Central Query Executor used by every Controller.
+ * <p> Statements are prepared through the connection's StatementCache, so the same SQL text is parsed once per connection.
+ * Statements and ResultSets are closed deterministically with try-with-resources, and rows are converted by a RowMapper
+ * instead of a hand-rolled while (rs.next()) loop at every call site.
+ * <p> Parameters are bound in order with setObject; pass Timestamp, java.sql.Date, Integer or String values.
+ * @author Ben Porter
+ */
+public class QueryExecutor {
+
+    /**
+     * Converts the current row of a ResultSet into an object.
+     * @param <T> the type produced for each row.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        /**
+         * Maps the row the ResultSet cursor is on. Implementations must not advance the cursor.
+         * @param rs the ResultSet positioned on a row.
+         * @return the mapped object.
+         * @throws SQLException when a column could not be read.
+         */
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Receives each row of a ResultSet in turn without collecting them.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        /**
+         * Handles the row the ResultSet cursor is on. Implementations must not advance the cursor.
+         * @param rs the ResultSet positioned on a row.
+         * @throws SQLException when a column could not be read.
+         */
+        void handle(ResultSet rs) throws SQLException;
+    }
+
+    private QueryExecutor() {}
+
+    /**
+     * Runs a query on the given connection and maps every row.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param mapper converts each row.
+     * @param params the values bound to the ? placeholders, in order.
+     * @param <T> the type produced for each row.
+     * @return the mapped rows in ResultSet order.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static <T> List<T> query(Connection connection, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        forEach(connection, sql, rs -> rows.add(mapper.map(rs)), params);
+        return rows;
+    }
+
+    /**
+     * Runs a query on the given connection and maps only the first row.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param mapper converts the row.
+     * @param params the values bound to the ? placeholders, in order.
+     * @param <T> the type produced for the row.
+     * @return the mapped first row, or null if the query returned no rows.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static <T> T queryFirst(Connection connection, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? mapper.map(rs) : null;
+        }
+    }
+
+    /**
+     * Runs a query on the given connection and streams every row to the handler.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param handler receives each row.
+     * @param params the values bound to the ? placeholders, in order.
+     * @throws SQLException when the query could not be executed.
+     */
+    public static void forEach(Connection connection, String sql, RowHandler handler, Object... params) throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql, params);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                handler.handle(rs);
+            }
+        }
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE on the given connection.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param params the values bound to the ? placeholders, in order.
+     * @return the number of rows affected.
+     * @throws SQLException when the statement could not be executed.
+     */
+    public static int update(Connection connection, String sql, Object... params) throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql, params)) {
+            return ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Runs an INSERT on the given connection and returns the key generated for the new row.
+     * Statements asking for generated keys are prepared outside the StatementCache.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param params the values bound to the ? placeholders, in order.
+     * @return the generated key, or -1 if none was returned.
+     * @throws SQLException when the statement could not be executed.
+     */
+    public static int insert(Connection connection, String sql, Object... params) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("No Database Connection Available");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Runs an INSERT, UPDATE or DELETE once per parameter row as a single JDBC batch on the given connection.
+     * The caller owns the transaction; with rewriteBatchedStatements on the URL, MySQL receives multi-row statements.
+     * @param connection the connection to run on.
+     * @param sql the SQL text.
+     * @param rows the values bound to the ? placeholders, one array per execution.
+     * @return the update count of each execution.
+     * @throws SQLException when the batch could not be executed, a BatchUpdateException if a row failed.
+     */
+    public static int[] batch(Connection connection, String sql, List<Object[]> rows) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("No Database Connection Available");
+        }
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            for (Object[] params : rows) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        }
+    }
+
+    /**
+     * Prepares (or reuses) the statement for the SQL text and binds the parameters.
+     * @param connection the connection to prepare on.
+     * @param sql the SQL text.
+     * @param params the values bound to the ? placeholders, in order.
+     * @return the bound statement.
+     * @throws SQLException when the statement could not be prepared or a parameter could not be bound.
+     */
+    private static PreparedStatement prepare(Connection connection, String sql, Object... params) throws SQLException {
+        if (connection == null) {
+            throw new SQLException("No Database Connection Available");
+        }
+        PreparedStatement ps = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+        } catch (SQLException e) {
+            ps.close();
+            throw e;
+        }
+        return ps;
+    }
+}
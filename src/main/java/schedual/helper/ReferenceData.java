@@ -0,0 +1,195 @@
+package schedual.helper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session-Scoped Cache of the lookup tables behind the ID ComboBoxes: contacts, users, customers, countries and
+ * first-level divisions.
+ * <p> Each table is read once and shared by every Controller until its entry expires after TTL or is invalidated.
+ * Services invalidate an entry after a write to its table, and the whole cache is cleared at log-in. Navigating between
+ * screens therefore issues no lookup queries.
+ * <p> Lookups are immutable, so a cached Lookup can be handed to the FX thread and read without locking.
+ * @author Ben Porter
+ */
+public class ReferenceData {
+    private static final long TTL = TimeUnit.MINUTES.toNanos(10);
+
+    /** The cached lookup tables and the query that loads each one as (ID, Name, Parent_ID) rows. */
+    public enum Table {
+        CONTACTS("SELECT Contact_ID AS ID, Contact_Name AS Name, 0 AS Parent_ID FROM contacts ORDER BY Contact_ID"),
+        USERS("SELECT User_ID AS ID, User_Name AS Name, 0 AS Parent_ID FROM users ORDER BY User_ID"),
+        CUSTOMERS("SELECT Customer_ID AS ID, Customer_Name AS Name, 0 AS Parent_ID FROM customers ORDER BY Customer_ID"),
+        COUNTRIES("SELECT Country_ID AS ID, Country AS Name, 0 AS Parent_ID FROM countries ORDER BY Country_ID"),
+        DIVISIONS("SELECT Division_ID AS ID, Division AS Name, Country_ID AS Parent_ID FROM first_level_divisions ORDER BY Division_ID");
+
+        private final String sql;
+
+        Table(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * An immutable ordered list of (ID, Name) rows with an O(1) map from ID to position.
+     * Positions match the items of a ComboBox filled from labels().
+     */
+    public static final class Lookup {
+        /** A Lookup with no rows, used before the first load completes. */
+        public static final Lookup EMPTY = new Lookup(List.of(), List.of(), List.of());
+
+        private final List<Integer> ids;
+        private final List<String> names;
+        private final List<Integer> parents;
+        private final Map<Integer, Integer> indexById = new HashMap<>();
+
+        private Lookup(List<Integer> ids, List<String> names, List<Integer> parents) {
+            this.ids = Collections.unmodifiableList(ids);
+            this.names = Collections.unmodifiableList(names);
+            this.parents = Collections.unmodifiableList(parents);
+            for (int i = 0; i < ids.size(); i++) {
+                indexById.put(ids.get(i), i);
+            }
+        }
+
+        /**
+         * Returns the position of an ID.
+         * @param id the row ID.
+         * @return the position, or -1 if the ID is not present.
+         */
+        public int indexOf(int id) {
+            return indexById.getOrDefault(id, -1);
+        }
+
+        /**
+         * Returns the ID at a position.
+         * @param index the position, e.g. a ComboBox selected index.
+         * @return the row ID, or -1 if the position is not present, e.g. nothing is selected.
+         */
+        public int idAt(int index) {
+            return index < 0 || index >= ids.size() ? -1 : ids.get(index);
+        }
+
+        /**
+         * Returns the Name at a position.
+         * @param index the position.
+         * @return the row Name.
+         */
+        public String nameAt(int index) {
+            return names.get(index);
+        }
+
+        /**
+         * Returns the parent ID of a row, the Country_ID for divisions and 0 for every other table.
+         * @param id the row ID.
+         * @return the parent ID, or -1 if the ID is not present.
+         */
+        public int parentOf(int id) {
+            int index = indexOf(id);
+            return index < 0 ? -1 : parents.get(index);
+        }
+
+        /**
+         * Returns the rows whose parent ID matches, in the same order.
+         * @param parentID the parent ID, e.g. a Country_ID.
+         * @return a Lookup of the matching rows.
+         */
+        public Lookup children(int parentID) {
+            List<Integer> childIds = new ArrayList<>();
+            List<String> childNames = new ArrayList<>();
+            List<Integer> childParents = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (parents.get(i) == parentID) {
+                    childIds.add(ids.get(i));
+                    childNames.add(names.get(i));
+                    childParents.add(parentID);
+                }
+            }
+            return new Lookup(childIds, childNames, childParents);
+        }
+
+        /**
+         * Returns the ComboBox labels of the rows, formatted "ID - Name".
+         * @return labels in row order
+         */
+        public List<String> labels() {
+            List<String> labels = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                labels.add(ids.get(i) + " - " + names.get(i));
+            }
+            return labels;
+        }
+
+        /**
+         * Returns the number of rows.
+         * @return size
+         */
+        public int size() {
+            return ids.size();
+        }
+    }
+
+    private static final class Entry {
+        private final Lookup lookup;
+        private final long loadedAt = System.nanoTime();
+
+        private Entry(Lookup lookup) {
+            this.lookup = lookup;
+        }
+
+        private boolean isFresh() {
+            return System.nanoTime() - loadedAt < TTL;
+        }
+    }
+
+    private static final Map<Table, Entry> entries = new ConcurrentHashMap<>();
+
+    private ReferenceData() {}
+
+    /**
+     * Returns a table from the cache, reading it first if it is missing or expired. Runs on a background connection.
+     * @param connection the connection to query on when the table must be read.
+     * @param table the lookup table.
+     * @return the cached Lookup
+     * @throws SQLException when the table could not be read.
+     */
+    public static Lookup get(Connection connection, Table table) throws SQLException {
+        Entry entry = entries.get(table);
+        if (entry != null && entry.isFresh()) {
+            return entry.lookup;
+        }
+        List<Integer> ids = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Integer> parents = new ArrayList<>();
+        QueryExecutor.forEach(connection, table.sql, rs -> {
+            ids.add(rs.getInt("ID"));
+            names.add(rs.getString("Name"));
+            parents.add(rs.getInt("Parent_ID"));
+        });
+        Lookup lookup = new Lookup(ids, names, parents);
+        entries.put(table, new Entry(lookup));
+        return lookup;
+    }
+
+    /**
+     * Drops a table from the cache after a write to it, so the next get reads it again.
+     * @param table the lookup table.
+     */
+    public static void invalidate(Table table) {
+        entries.remove(table);
+    }
+
+    /**
+     * Drops every table from the cache. Called at log-in so a new session starts from the database.
+     */
+    public static void invalidateAll() {
+        entries.clear();
+    }
+}
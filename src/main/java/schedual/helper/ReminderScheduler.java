@@ -0,0 +1,259 @@
+package schedual.helper;
+
+import javafx.application.Platform;
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Occurrence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Upcoming Appointment Reminder Scheduler - notifies the user of every appointment about to begin, for the whole session.
+ * <p> The appointments starting within HORIZON are held in a priority queue ordered by start time. A single background
+ * thread sleeps until the head of the queue is due, lead time before it starts, then hands every due appointment to the
+ * listener on the FX thread; it does not poll the database to find out when something is due.
+ * <p> The queue is refreshed every REFRESH_INTERVAL, and on refresh() after this session's own writes, by a ChangeFeed
+ * over appointments.Last_Update, so only edited rows are read. The horizon is extended by querying just the time range
+ * it moved forward by.
+ * <p> Occurrences of recurring series are queued alongside the appointments. A series has no Last_Update feed of its own,
+ * so each refresh expands the occurrences of the whole horizon again with one series query, which picks up edited,
+ * cancelled and deleted series; an occurrence whose start has not moved keeps its place in the queue.
+ * <p> Appointments are scoped to the users row named like the MySQL log-in, when there is one; otherwise every
+ * appointment is watched, as the log-in check always has.
+ * <p> All state is confined to the scheduler thread; the public methods only hand work to it.
+ * @author Ben Porter
+ */
+public class ReminderScheduler {
+    private static final long HORIZON = TimeUnit.HOURS.toMillis(12);
+    private static final long REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    private static final String APPOINTMENT_SQL = "SELECT *, Last_Update AS Change_Time FROM appointments";
+    private static final String WINDOW_SQL = "SELECT * FROM appointments WHERE Start >= ? AND Start < ?";
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "schedual-reminders");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Scheduler thread only. Entries replaced or removed in 'queued' stay in the queue and are skipped when they surface.
+    private static final PriorityQueue<Appointment> queue = new PriorityQueue<>(
+            Comparator.comparingLong(Appointment::getStart).thenComparingInt(Appointment::getAppointment_ID));
+    private static final Map<Integer, Appointment> queued = new HashMap<>();
+    private static final Map<Integer, Long> notified = new HashMap<>(); // Appointment ID to the Start it was notified for
+    private static ChangeFeed<Appointment> feed;
+    private static Consumer<List<Appointment>> listener;
+    private static long leadMillis;
+    private static long loadedUntil;
+    private static Integer userID;
+    private static ScheduledFuture<?> wake;
+    private static ScheduledFuture<?> refresher;
+
+    private ReminderScheduler() {}
+
+    /**
+     * Loads the upcoming appointments and starts notifying. Replaces any earlier session's reminders.
+     * <p> The listener is called on the FX thread with the appointments that just became due. It is called once after
+     * the first load even when nothing is due, so the log-in screen can say so.
+     * @param leadTime how long before an appointment starts it is reported.
+     * @param onDue receives the due appointments, in start order.
+     */
+    public static void start(Duration leadTime, Consumer<List<Appointment>> onDue) {
+        executor.execute(() -> {
+            clear();
+            leadMillis = leadTime.toMillis();
+            listener = onDue;
+            try (Connection connection = JDBC.borrowConnection()) {
+                load(connection);
+            } catch (SQLException e) {
+                System.out.println("Error: Reminder Scheduler: " + e.getMessage());
+                return;
+            }
+            fireDue(true);
+            refresher = executor.scheduleWithFixedDelay(ReminderScheduler::refreshNow,
+                    REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * Asks for an incremental refresh now, e.g. after this session inserted, moved or deleted an appointment.
+     */
+    public static void refresh() {
+        executor.execute(ReminderScheduler::refreshNow);
+    }
+
+    /**
+     * Stops notifying and forgets the session's appointments.
+     */
+    public static void stop() {
+        executor.execute(ReminderScheduler::clear);
+    }
+
+    /**
+     * Stops the scheduler thread. Used when the application exits.
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Resolves the user, sets the change feed's watermark and queues the appointments within the horizon.
+     */
+    private static void load(Connection connection) throws SQLException {
+        userID = QueryExecutor.queryFirst(connection, "SELECT User_ID FROM users WHERE User_Name = ?",
+                rs -> rs.getInt("User_ID"), JDBC.getUserName());
+        feed = new ChangeFeed<>("appointments", "Appointment_ID", APPOINTMENT_SQL, "Last_Update", RowMappers::appointment);
+        feed.poll(connection);
+        long now = System.currentTimeMillis();
+        loadedUntil = now;
+        extendHorizon(connection, now);
+        reloadOccurrences(connection, now);
+    }
+
+    /**
+     * Applies the appointments changed since the last refresh, extends the horizon and re-arms the wake-up.
+     */
+    private static void refreshNow() {
+        if (feed == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try (Connection connection = JDBC.borrowConnection()) {
+            ChangeFeed.Delta<Appointment> delta = feed.poll(connection);
+            for (int id : delta.getDeleted()) {
+                queued.remove(id);
+            }
+            for (Appointment changed : delta.getChanged()) {
+                queued.remove(changed.getAppointment_ID());
+                if (changed.getStart() >= now && changed.getStart() < loadedUntil) {
+                    enqueue(changed);
+                }
+            }
+            extendHorizon(connection, now);
+            reloadOccurrences(connection, now);
+        } catch (SQLException e) {
+            System.out.println("Error: Reminder Scheduler: " + e.getMessage());
+        }
+        notified.values().removeIf(start -> start < now);
+        fireDue(false);
+    }
+
+    /**
+     * Queues the appointments starting between the end of the loaded range and now + HORIZON.
+     */
+    private static void extendHorizon(Connection connection, long now) throws SQLException {
+        long until = now + HORIZON;
+        if (until <= loadedUntil) {
+            return;
+        }
+        QueryExecutor.forEach(connection, WINDOW_SQL, rs -> enqueue(RowMappers.appointment(rs)),
+                new Timestamp(loadedUntil), new Timestamp(until));
+        loadedUntil = until;
+    }
+
+    /**
+     * Queues the occurrences of recurring series starting between now and the end of the loaded range, in place of the
+     * ones queued before. An occurrence still starting when, and for whom, it was queued keeps its queue entry.
+     */
+    private static void reloadOccurrences(Connection connection, long now) throws SQLException {
+        Map<Integer, Appointment> previous = new HashMap<>();
+        for (Iterator<Appointment> it = queued.values().iterator(); it.hasNext(); ) {
+            Appointment appointment = it.next();
+            if (appointment instanceof Occurrence) {
+                previous.put(appointment.getAppointment_ID(), appointment);
+                it.remove();
+            }
+        }
+        if (now >= loadedUntil) {
+            return;
+        }
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, new Timestamp(now), new Timestamp(loadedUntil - 1))) {
+            for (Occurrence occurrence : series.occurrences(now, loadedUntil - 1)) {
+                Appointment kept = previous.get(occurrence.getAppointment_ID());
+                if (kept != null && kept.getStart() == occurrence.getStart() && kept.getUserID() == occurrence.getUserID()) {
+                    queued.put(kept.getAppointment_ID(), kept);
+                } else {
+                    enqueue(occurrence);
+                }
+            }
+        }
+    }
+
+    private static void enqueue(Appointment appointment) {
+        if (userID != null && appointment.getUserID() != userID) {
+            return;
+        }
+        Long notifiedStart = notified.get(appointment.getAppointment_ID());
+        if (notifiedStart != null && notifiedStart == appointment.getStart()) {
+            return; // already reported, and not moved since
+        }
+        queued.put(appointment.getAppointment_ID(), appointment);
+        queue.add(appointment);
+    }
+
+    /**
+     * Hands every appointment now within lead time of its start to the listener, then sleeps until the next one is due.
+     * @param always whether to call the listener even when nothing is due.
+     */
+    private static void fireDue(boolean always) {
+        long now = System.currentTimeMillis();
+        List<Appointment> due = new ArrayList<>();
+        while (!queue.isEmpty() && queue.peek().getStart() - leadMillis <= now) {
+            Appointment head = queue.poll();
+            if (queued.get(head.getAppointment_ID()) != head) {
+                continue; // replaced or removed since it was queued
+            }
+            queued.remove(head.getAppointment_ID());
+            if (head.getStart() >= now) {
+                notified.put(head.getAppointment_ID(), head.getStart());
+                due.add(head);
+            }
+        }
+        Consumer<List<Appointment>> onDue = listener;
+        if (onDue != null && (always || !due.isEmpty())) {
+            Platform.runLater(() -> onDue.accept(due));
+        }
+        if (wake != null) {
+            wake.cancel(false);
+            wake = null;
+        }
+        while (!queue.isEmpty() && queued.get(queue.peek().getAppointment_ID()) != queue.peek()) {
+            queue.poll();
+        }
+        if (!queue.isEmpty()) {
+            long delay = Math.max(0, queue.peek().getStart() - leadMillis - now);
+            wake = executor.schedule(() -> fireDue(false), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void clear() {
+        if (wake != null) {
+            wake.cancel(false);
+        }
+        if (refresher != null) {
+            refresher.cancel(false);
+        }
+        wake = null;
+        refresher = null;
+        feed = null;
+        listener = null;
+        userID = null;
+        queue.clear();
+        queued.clear();
+        notified.clear();
+    }
+}
@@ -0,0 +1,185 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Engagement;
+import schedual.model.MonthTypeCount;
+import schedual.model.Occurrence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * SQL of the Reports dashboard, shared by the ReportsController tables and the Exporter, so an exported report holds
+ * exactly the rows its table shows.
+ * <p> A recurring series is stored as one row, so the SQL cannot count its occurrences. The report methods below run the
+ * SQL and add the occurrences of the series, expanded with SeriesQueries for the range the report covers; they add
+ * nothing when the database has no series tables.
+ * @author Ben Porter
+ */
+public class ReportQueries {
+    /** Every appointment of one contact. Parameter: Contact_ID. */
+    public static final String CONTACT_SCHEDULE = "SELECT * FROM appointments WHERE Contact_ID = ? ORDER BY Start";
+
+    /** Appointment counts for each Year, Month and Type, over every year. */
+    public static final String MONTH_TYPE_TOTALS =
+            "SELECT YEAR(Start) AS Year, MONTH(Start) AS Month, Type, COUNT(*) AS Count FROM appointments " +
+            "GROUP BY YEAR(Start), MONTH(Start), Type ORDER BY Year, Month, Type";
+
+    /** Appointment counts for each Month and Type of one year. Parameters: start of the year, start of the next year. */
+    public static final String MONTH_TYPE_TOTALS_FOR_YEAR =
+            "SELECT YEAR(Start) AS Year, MONTH(Start) AS Month, Type, COUNT(*) AS Count FROM appointments " +
+            "WHERE Start >= ? AND Start < ? " +
+            "GROUP BY YEAR(Start), MONTH(Start), Type ORDER BY Year, Month, Type";
+
+    /** Every customer's last and next appointment. Parameters: the current time, twice. */
+    public static final String ENGAGEMENT = "SELECT customers.Customer_ID, Customer_Name, " +
+            "MAX(CASE WHEN Start < ? THEN Start END) AS Last_Appointment, " +
+            "MIN(CASE WHEN Start > ? THEN Start END) AS Next_Appointment " +
+            "FROM customers LEFT JOIN appointments ON appointments.Customer_ID = customers.Customer_ID " +
+            "GROUP BY customers.Customer_ID, Customer_Name ORDER BY customers.Customer_ID";
+
+    /** The distinct years that have appointments. */
+    public static final String YEARS = "SELECT DISTINCT YEAR(Start) AS Year FROM appointments ORDER BY Year";
+
+    private ReportQueries() {}
+
+    /**
+     * Reads the distinct years that have appointments or occurrences.
+     * @param connection the connection to query on.
+     * @return the years, ascending
+     * @throws SQLException when the appointments or series could not be read.
+     */
+    public static List<Integer> years(Connection connection) throws SQLException {
+        TreeSet<Integer> years = new TreeSet<>(QueryExecutor.query(connection, YEARS, rs -> rs.getInt("Year")));
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, null, null)) {
+            for (Occurrence occurrence : series.occurrences(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                years.add(occurrence.getStartDateTime().getYear());
+            }
+        }
+        return new ArrayList<>(years);
+    }
+
+    /**
+     * Counts appointments and occurrences for each combination of Year, Month and Type.
+     * <p> A year is filtered as a half-open range on Start so the Start column stays indexable.
+     * @param connection the connection to query on.
+     * @param year the calendar year to count, null counts every year.
+     * @return the MonthTypeCount rows, ordered by Year, Month and Type
+     * @throws SQLException when the appointments or series could not be read.
+     */
+    public static List<MonthTypeCount> monthTypeTotals(Connection connection, Integer year) throws SQLException {
+        Timestamp from = year == null ? null : Timestamp.valueOf(LocalDate.of(year, 1, 1).atStartOfDay());
+        Timestamp until = year == null ? null : Timestamp.valueOf(LocalDate.of(year + 1, 1, 1).atStartOfDay());
+        QueryExecutor.RowMapper<MonthTypeCount> mapper = rs -> new MonthTypeCount(
+                rs.getInt("Year"),
+                Month.of(rs.getInt("Month")),
+                rs.getString("Type"),
+                rs.getInt("Count"));
+        List<MonthTypeCount> counts = year == null
+                ? QueryExecutor.query(connection, MONTH_TYPE_TOTALS, mapper)
+                : QueryExecutor.query(connection, MONTH_TYPE_TOTALS_FOR_YEAR, mapper, from, until);
+
+        Map<String, MonthTypeCount> byKey = new HashMap<>();
+        for (MonthTypeCount count : counts) {
+            byKey.put(count.getYear() + "-" + count.getMonth() + "-" + count.getType(), count);
+        }
+        boolean added = false;
+        long start = from == null ? Long.MIN_VALUE : from.getTime();
+        long end = until == null ? Long.MAX_VALUE : until.getTime() - 1;
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, from, until == null ? null : new Timestamp(end))) {
+            for (Occurrence occurrence : series.occurrences(start, end)) {
+                LocalDateTime startTime = occurrence.getStartDateTime();
+                String key = startTime.getYear() + "-" + startTime.getMonth() + "-" + occurrence.getType();
+                MonthTypeCount count = byKey.get(key);
+                if (count == null) {
+                    count = new MonthTypeCount(startTime.getYear(), startTime.getMonth(), occurrence.getType(), 0);
+                    byKey.put(key, count);
+                    counts.add(count);
+                    added = true;
+                }
+                count.setCount(count.getCount() + 1);
+            }
+        }
+        if (added) {
+            counts.sort(Comparator.comparingInt(MonthTypeCount::getYear)
+                    .thenComparing(MonthTypeCount::getMonth)
+                    .thenComparing(MonthTypeCount::getType, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+        }
+        return counts;
+    }
+
+    /**
+     * Reads every customer's last and next appointment or occurrence, null where there is none.
+     * @param connection the connection to query on.
+     * @param now epoch milliseconds that separate the last appointment from the next.
+     * @return the Engagement rows, ordered by Customer ID
+     * @throws SQLException when the customers, appointments or series could not be read.
+     */
+    public static List<Engagement> engagement(Connection connection, long now) throws SQLException {
+        Timestamp nowTime = new Timestamp(now);
+        List<Engagement> engagements = QueryExecutor.query(connection, ENGAGEMENT, rs -> {
+            Timestamp last = rs.getTimestamp("Last_Appointment");
+            Timestamp next = rs.getTimestamp("Next_Appointment");
+            return new Engagement(
+                    rs.getInt("Customer_ID"),
+                    rs.getString("Customer_Name"),
+                    last == null ? null : last.getTime(),
+                    next == null ? null : next.getTime());
+        }, nowTime, nowTime);
+
+        Map<Integer, Engagement> byCustomer = new HashMap<>();
+        for (Engagement engagement : engagements) {
+            byCustomer.put(engagement.getCustomer_ID(), engagement);
+        }
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, null, null)) {
+            for (Occurrence occurrence : series.occurrences(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                Engagement engagement = byCustomer.get(occurrence.getCustomerID());
+                long start = occurrence.getStart();
+                if (engagement == null) {
+                    continue;
+                }
+                if (start < now && (engagement.getLast_Appointment() == null || start > engagement.getLast_Appointment())) {
+                    engagement.setLast_Appointment(start);
+                } else if (start > now && (engagement.getNext_Appointment() == null || start < engagement.getNext_Appointment())) {
+                    engagement.setNext_Appointment(start);
+                }
+            }
+        }
+        return engagements;
+    }
+
+    /**
+     * Reads every appointment and occurrence of a contact.
+     * @param connection the connection to query on.
+     * @param contactID int ID of the contact.
+     * @return the appointments and occurrences, in start order
+     * @throws SQLException when the appointments or series could not be read.
+     */
+    public static List<Appointment> contactSchedule(Connection connection, int contactID) throws SQLException {
+        List<Appointment> schedule = QueryExecutor.query(connection, CONTACT_SCHEDULE, RowMappers::appointment, contactID);
+        boolean added = false;
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, null, null)) {
+            for (Occurrence occurrence : series.occurrences(Long.MIN_VALUE, Long.MAX_VALUE)) {
+                if (occurrence.getContactID() == contactID) {
+                    schedule.add(occurrence);
+                    added = true;
+                }
+            }
+        }
+        if (added) {
+            schedule.sort(Comparator.comparingLong(Appointment::getStart));
+        }
+        return schedule;
+    }
+}
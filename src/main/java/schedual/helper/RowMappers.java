@@ -0,0 +1,34 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Shared RowMappers for the QueryExecutor, used wherever more than one Controller reads the same table.
+ * @author Ben Porter
+ */
+public class RowMappers {
+    private RowMappers() {}
+
+    /**
+     * Maps a row of the appointments table.
+     * @param rs the ResultSet positioned on an appointments row.
+     * @return the Appointment for the row.
+     * @throws SQLException when a column could not be read.
+     */
+    public static Appointment appointment(ResultSet rs) throws SQLException {
+        return new Appointment(
+                rs.getInt("Appointment_ID"),
+                rs.getString("Title"),
+                rs.getString("Description"),
+                rs.getString("Location"),
+                rs.getString("Type"),
+                rs.getTimestamp("Start").getTime(),
+                rs.getTimestamp("End").getTime(),
+                rs.getInt("Customer_ID"),
+                rs.getInt("User_ID"),
+                rs.getInt("Contact_ID"));
+    }
+}
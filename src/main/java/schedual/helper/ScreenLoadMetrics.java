@@ -0,0 +1,82 @@
+package schedual.helper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running load-time counters for a screen that fills several tables in parallel.
+ * <p> Each load records two times measured from when the screen started loading: when the first table rendered and
+ * when the last table rendered. Totals and maximums are kept so averages can be derived from the load count.
+ * @author Ben Porter
+ */
+public class ScreenLoadMetrics {
+    private final String screen;
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalFirstMillis = new LongAdder();
+    private final LongAdder totalAllMillis = new LongAdder();
+    private final AtomicLong maxFirstMillis = new AtomicLong();
+    private final AtomicLong maxAllMillis = new AtomicLong();
+
+    /**
+     * Creates the counters for one screen.
+     * @param screen the screen name used in toString.
+     */
+    public ScreenLoadMetrics(String screen) {
+        this.screen = screen;
+    }
+
+    /**
+     * Records a completed load.
+     * @param firstMillis milliseconds until the first table rendered.
+     * @param allMillis milliseconds until every table rendered.
+     */
+    public void record(long firstMillis, long allMillis) {
+        loadCount.increment();
+        totalFirstMillis.add(firstMillis);
+        totalAllMillis.add(allMillis);
+        maxFirstMillis.accumulateAndGet(firstMillis, Math::max);
+        maxAllMillis.accumulateAndGet(allMillis, Math::max);
+    }
+
+    /**
+     * Returns the number of completed loads.
+     * @return load count
+     */
+    public long getLoadCount() { return loadCount.sum(); }
+
+    /**
+     * Returns the average time until the first table rendered.
+     * @return average time-to-first-table in milliseconds, 0 before the first load
+     */
+    public double getAverageFirstMillis() {
+        long loads = loadCount.sum();
+        return loads == 0 ? 0 : (double) totalFirstMillis.sum() / loads;
+    }
+
+    /**
+     * Returns the average time until every table rendered.
+     * @return average time-to-all-tables in milliseconds, 0 before the first load
+     */
+    public double getAverageAllMillis() {
+        long loads = loadCount.sum();
+        return loads == 0 ? 0 : (double) totalAllMillis.sum() / loads;
+    }
+
+    /**
+     * Returns the longest time until the first table rendered.
+     * @return maximum time-to-first-table in milliseconds
+     */
+    public long getMaxFirstMillis() { return maxFirstMillis.get(); }
+
+    /**
+     * Returns the longest time until every table rendered.
+     * @return maximum time-to-all-tables in milliseconds
+     */
+    public long getMaxAllMillis() { return maxAllMillis.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("%s loads=%d avgFirstTable=%.1fms maxFirstTable=%dms avgAllTables=%.1fms maxAllTables=%dms",
+                screen, getLoadCount(), getAverageFirstMillis(), getMaxFirstMillis(), getAverageAllMillis(), getMaxAllMillis());
+    }
+}
@@ -0,0 +1,203 @@
+package schedual.helper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-Memory Full-Text Search over every Appointment and Customer, backed by two TextIndexes.
+ * <p> Appointments are searched by Title, Type, Customer Name, Location, Description and ID, in that order of weight.
+ * Customers are searched by Name, Phone, Address, Postal Code and ID.
+ * <p> Loaded from MySQL at log-in and kept current by the AppointmentService and CustomerService after every
+ * INSERT, UPDATE and DELETE they issue, the same way as the AppointmentIndex. Renaming a customer re-indexes that
+ * customer's appointments, and deleting a customer removes them.
+ * @author Ben Porter
+ */
+public class SearchIndex {
+    private static final int CUSTOMER_NAME_FIELD = 2;
+
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static TextIndex appointments = new TextIndex();
+    private static TextIndex customers = new TextIndex();
+    private static Map<Integer, Integer> appointmentCustomer = new HashMap<>();
+    private static Map<Integer, Set<Integer>> customerAppointments = new HashMap<>();
+    private static volatile boolean loaded;
+
+    private SearchIndex() {}
+
+    /**
+     * Rebuilds both indexes from the customers and appointments tables. Runs on a background connection.
+     * @param connection the connection to query on.
+     * @return the number of appointments and customers indexed.
+     * @throws SQLException when the tables could not be read.
+     */
+    public static int load(Connection connection) throws SQLException {
+        TextIndex loadedCustomers = new TextIndex();
+        TextIndex loadedAppointments = new TextIndex();
+        Map<Integer, Integer> owners = new HashMap<>();
+        Map<Integer, Set<Integer>> owned = new HashMap<>();
+        Map<Integer, String> names = new HashMap<>();
+        QueryExecutor.forEach(connection, "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone FROM customers", rs -> {
+            int id = rs.getInt("Customer_ID");
+            names.put(id, rs.getString("Customer_Name"));
+            loadedCustomers.put(id, rs.getString("Customer_Name"), rs.getString("Phone"), rs.getString("Address"),
+                    rs.getString("Postal_Code"), String.valueOf(id));
+        });
+        QueryExecutor.forEach(connection, "SELECT Appointment_ID, Title, Description, Location, Type, Customer_ID FROM appointments", rs -> {
+            int id = rs.getInt("Appointment_ID");
+            int customerID = rs.getInt("Customer_ID");
+            loadedAppointments.put(id, rs.getString("Title"), rs.getString("Type"), names.get(customerID),
+                    rs.getString("Location"), rs.getString("Description"), String.valueOf(id));
+            owners.put(id, customerID);
+            owned.computeIfAbsent(customerID, key -> new HashSet<>()).add(id);
+        });
+        lock.writeLock().lock();
+        try {
+            customers = loadedCustomers;
+            appointments = loadedAppointments;
+            appointmentCustomer = owners;
+            customerAppointments = owned;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return loadedAppointments.size() + loadedCustomers.size();
+    }
+
+    /**
+     * Returns true once load has completed.
+     * @return whether the indexes can be searched
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Adds or replaces an appointment after an INSERT or UPDATE.
+     * @param appointmentID int ID of the appointment.
+     * @param title String Title.
+     * @param description String Description.
+     * @param location String Location.
+     * @param type String Type.
+     * @param customerID int customer of the appointment, whose name is indexed with it.
+     */
+    public static void putAppointment(int appointmentID, String title, String description, String location, String type,
+                                      int customerID) {
+        lock.writeLock().lock();
+        try {
+            unlinkAppointment(appointmentID);
+            String[] customer = customers.fields(customerID);
+            appointments.put(appointmentID, title, type, customer == null ? null : customer[0], location, description,
+                    String.valueOf(appointmentID));
+            appointmentCustomer.put(appointmentID, customerID);
+            customerAppointments.computeIfAbsent(customerID, key -> new HashSet<>()).add(appointmentID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an appointment after a DELETE.
+     * @param appointmentID int ID of the appointment.
+     */
+    public static void removeAppointment(int appointmentID) {
+        lock.writeLock().lock();
+        try {
+            unlinkAppointment(appointmentID);
+            appointments.remove(appointmentID);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or replaces a customer after an INSERT or UPDATE, and re-indexes the customer's appointments under the new name.
+     * @param customerID int ID of the customer.
+     * @param name String Customer_Name.
+     * @param address String Address.
+     * @param postalCode String Postal_Code.
+     * @param phone String Phone.
+     */
+    public static void putCustomer(int customerID, String name, String address, String postalCode, String phone) {
+        lock.writeLock().lock();
+        try {
+            customers.put(customerID, name, phone, address, postalCode, String.valueOf(customerID));
+            for (int appointmentID : customerAppointments.getOrDefault(customerID, Set.of())) {
+                String[] fields = appointments.fields(appointmentID);
+                if (fields != null) {
+                    fields[CUSTOMER_NAME_FIELD] = name;
+                    appointments.put(appointmentID, fields);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a customer and every appointment of the customer after the customer is deleted.
+     * @param customerID int ID of the deleted customer.
+     */
+    public static void removeCustomer(int customerID) {
+        lock.writeLock().lock();
+        try {
+            customers.remove(customerID);
+            Set<Integer> owned = customerAppointments.remove(customerID);
+            if (owned != null) {
+                for (int appointmentID : owned) {
+                    appointmentCustomer.remove(appointmentID);
+                    appointments.remove(appointmentID);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches every appointment.
+     * @param query the search text; every word must match as a word prefix or, from three characters, a substring.
+     * @param limit the largest number of results.
+     * @return Appointment IDs, best match first
+     */
+    public static List<Integer> searchAppointments(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return appointments.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Searches every customer.
+     * @param query the search text; every word must match as a word prefix or, from three characters, a substring.
+     * @param limit the largest number of results.
+     * @return Customer IDs, best match first
+     */
+    public static List<Integer> searchCustomers(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return customers.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Drops an appointment from its customer's set. Caller holds the write lock. */
+    private static void unlinkAppointment(int appointmentID) {
+        Integer customerID = appointmentCustomer.remove(appointmentID);
+        if (customerID != null) {
+            Set<Integer> owned = customerAppointments.get(customerID);
+            if (owned != null) {
+                owned.remove(appointmentID);
+            }
+        }
+    }
+}
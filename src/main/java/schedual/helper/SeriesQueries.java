@@ -0,0 +1,360 @@
+package schedual.helper;
+
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Occurrence;
+import schedual.model.OccurrenceOverride;
+import schedual.model.Recurrence;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads and writes recurring appointments: the appointment_series table and the series_exceptions of its occurrences.
+ * <p> A read loads the series overlapping a range with one query and all of their exceptions with a second, then the
+ * caller expands the occurrences it needs in memory. See schedual/sql/client_schedule_schema.sql for the tables.
+ * <p> A database created before recurring appointments has no series tables; reads then find no series, so the
+ * appointments screens keep working, and writes fail with a message naming the schema script.
+ * @author Ben Porter
+ */
+public class SeriesQueries {
+    /** Longest possible occurrence: business hours keep an appointment within one day. */
+    private static final long MAX_DURATION = TimeUnit.DAYS.toMillis(1);
+    private static final Timestamp MIN_TIME = Timestamp.valueOf(LocalDateTime.of(1000, 1, 1, 0, 0));
+    private static final Timestamp MAX_TIME = Timestamp.valueOf(LocalDateTime.of(9999, 12, 31, 0, 0));
+    private static final String MISSING_TABLE = "42S02";
+
+    private static final String RANGE_SQL = "SELECT * FROM appointment_series WHERE (Start <= ? AND Last_Start >= ?) " +
+            "OR Series_ID IN (SELECT Series_ID FROM series_exceptions WHERE Start BETWEEN ? AND ?)";
+    private static final String PARTICIPANT_SQL = "SELECT * FROM appointment_series " +
+            "WHERE ((Customer_ID = ? OR Contact_ID = ? OR User_ID = ?) AND Start < ? AND Last_Start >= ?) " +
+            "OR Series_ID IN (SELECT Series_ID FROM series_exceptions " +
+            "WHERE (Customer_ID = ? OR Contact_ID = ? OR User_ID = ?) AND Start < ? AND End > ?)";
+    private static final String ID_SQL = "SELECT * FROM appointment_series WHERE Series_ID = ?";
+    private static final String INSERT_SQL = "INSERT INTO appointment_series (Title, Description, Location, Type, Start, End, " +
+            "Frequency, Repeat_Interval, Until_Date, Occurrences, Last_Start, Create_Date, Created_By, Last_Update, " +
+            "Last_Updated_By, Customer_ID, User_ID, Contact_ID) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?, " +
+            "CURRENT_TIMESTAMP, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM appointment_series WHERE Series_ID = ?";
+    private static final String DELETE_EXCEPTIONS_SQL = "DELETE FROM series_exceptions WHERE Series_ID = ?";
+    private static final String UPDATE_EXCEPTION_SQL = "UPDATE series_exceptions SET Cancelled = ?, Title = ?, Description = ?, " +
+            "Location = ?, Type = ?, Start = ?, End = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ?, " +
+            "Last_Update = CURRENT_TIMESTAMP, Last_Updated_By = ? WHERE Series_ID = ? AND Original_Start = ?";
+    private static final String INSERT_EXCEPTION_SQL = "INSERT INTO series_exceptions (Cancelled, Title, Description, Location, " +
+            "Type, Start, End, Customer_ID, User_ID, Contact_ID, Last_Update, Last_Updated_By, Series_ID, Original_Start) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?, ?, ?)";
+
+    private SeriesQueries() {}
+
+    /**
+     * Reads the series with an occurrence starting within [from, to], as scheduled or as edited, with their exceptions.
+     * @param connection the connection to query on.
+     * @param from Timestamp the range starts at, null for no lower bound.
+     * @param to Timestamp the range ends at, null for no upper bound.
+     * @return the series, empty when the database has no series tables
+     * @throws SQLException when the series could not be read.
+     */
+    public static List<AppointmentSeries> findInRange(Connection connection, Timestamp from, Timestamp to) throws SQLException {
+        Timestamp start = from == null ? MIN_TIME : from;
+        Timestamp end = to == null ? MAX_TIME : to;
+        return load(connection, RANGE_SQL, end, start, start, end);
+    }
+
+    /**
+     * Reads one series with its exceptions.
+     * @param connection the connection to query on.
+     * @param seriesID int ID of the series.
+     * @return the series, null if there is none
+     * @throws SQLException when the series could not be read.
+     */
+    public static AppointmentSeries findById(Connection connection, int seriesID) throws SQLException {
+        List<AppointmentSeries> series = load(connection, ID_SQL, seriesID);
+        return series.isEmpty() ? null : series.get(0);
+    }
+
+    /**
+     * Returns the occurrences of stored series overlapping any of the proposed ranges for the same customer, contact or
+     * user. The candidate series are read with one query over the span of all the ranges.
+     * @param connection the connection to query on.
+     * @param proposed the proposed appointments, e.g. the occurrences of a new series.
+     * @param customerID int customer of the proposed appointments.
+     * @param contactID int contact of the proposed appointments.
+     * @param userID int user of the proposed appointments.
+     * @param source the occurrence being edited, which cannot conflict with itself; null for new records.
+     * @return the conflicting occurrences, in start order
+     * @throws SQLException when the series could not be read.
+     */
+    public static List<Occurrence> findConflicts(Connection connection, List<? extends Appointment> proposed, int customerID,
+                                                 int contactID, int userID, Occurrence source) throws SQLException {
+        List<Occurrence> conflicts = new ArrayList<>();
+        if (proposed.isEmpty()) {
+            return conflicts;
+        }
+        IntervalTree ranges = new IntervalTree();
+        long spanStart = Long.MAX_VALUE;
+        long spanEnd = Long.MIN_VALUE;
+        for (int i = 0; i < proposed.size(); i++) {
+            Appointment appointment = proposed.get(i);
+            ranges.insert(i, appointment.getStart(), appointment.getEnd());
+            spanStart = Math.min(spanStart, appointment.getStart());
+            spanEnd = Math.max(spanEnd, appointment.getEnd());
+        }
+        Timestamp startTime = new Timestamp(spanStart);
+        Timestamp endTime = new Timestamp(spanEnd);
+        List<AppointmentSeries> candidates = load(connection, PARTICIPANT_SQL,
+                customerID, contactID, userID, endTime, new Timestamp(spanStart - MAX_DURATION),
+                customerID, contactID, userID, endTime, startTime);
+        for (AppointmentSeries series : candidates) {
+            for (Occurrence occurrence : series.occurrences(spanStart - MAX_DURATION, spanEnd)) {
+                boolean shared = occurrence.getCustomerID() == customerID || occurrence.getContactID() == contactID
+                        || occurrence.getUserID() == userID;
+                boolean self = source != null && occurrence.getAppointment_ID() == source.getAppointment_ID();
+                if (shared && !self && ranges.anyOverlap(occurrence.getStart(), occurrence.getEnd())) {
+                    conflicts.add(occurrence);
+                }
+            }
+        }
+        conflicts.sort((a, b) -> Long.compare(a.getStart(), b.getStart()));
+        return conflicts;
+    }
+
+    /**
+     * Returns, for each proposed appointment, the occurrences of stored series overlapping it for its own customer,
+     * contact or user, e.g. for a chunk of a bulk import. The series are read with one query over the span of all the
+     * ranges.
+     * @param connection the connection to query on.
+     * @param proposed the proposed appointments, each with its own participants.
+     * @return the conflicting occurrences in start order, one list per proposed appointment in the same order.
+     * @throws SQLException when the series could not be read.
+     */
+    public static List<List<Occurrence>> findConflictsOfEach(Connection connection, List<? extends Appointment> proposed)
+            throws SQLException {
+        List<List<Occurrence>> conflicts = new ArrayList<>(proposed.size());
+        if (proposed.isEmpty()) {
+            return conflicts;
+        }
+        long spanStart = Long.MAX_VALUE;
+        long spanEnd = Long.MIN_VALUE;
+        for (Appointment appointment : proposed) {
+            spanStart = Math.min(spanStart, appointment.getStart());
+            spanEnd = Math.max(spanEnd, appointment.getEnd());
+        }
+        Map<Integer, Occurrence> byId = new HashMap<>();
+        Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+        Map<Integer, IntervalTree> byContact = new HashMap<>();
+        Map<Integer, IntervalTree> byUser = new HashMap<>();
+        for (AppointmentSeries series : findInRange(connection, new Timestamp(spanStart - MAX_DURATION), new Timestamp(spanEnd))) {
+            for (Occurrence occurrence : series.occurrences(spanStart - MAX_DURATION, spanEnd)) {
+                int id = occurrence.getAppointment_ID();
+                byId.put(id, occurrence);
+                byCustomer.computeIfAbsent(occurrence.getCustomerID(), key -> new IntervalTree())
+                        .insert(id, occurrence.getStart(), occurrence.getEnd());
+                byContact.computeIfAbsent(occurrence.getContactID(), key -> new IntervalTree())
+                        .insert(id, occurrence.getStart(), occurrence.getEnd());
+                byUser.computeIfAbsent(occurrence.getUserID(), key -> new IntervalTree())
+                        .insert(id, occurrence.getStart(), occurrence.getEnd());
+            }
+        }
+        for (Appointment appointment : proposed) {
+            TreeSet<Integer> overlapping = new TreeSet<>();
+            for (IntervalTree tree : new IntervalTree[]{byCustomer.get(appointment.getCustomerID()),
+                    byContact.get(appointment.getContactID()), byUser.get(appointment.getUserID())}) {
+                if (tree != null) {
+                    tree.overlapping(appointment.getStart(), appointment.getEnd(), overlapping::add);
+                }
+            }
+            List<Occurrence> found = new ArrayList<>(overlapping.size());
+            for (int id : overlapping) {
+                found.add(byId.get(id));
+            }
+            found.sort((a, b) -> Long.compare(a.getStart(), b.getStart()));
+            conflicts.add(found);
+        }
+        return conflicts;
+    }
+
+    /**
+     * Throws if any proposed range overlaps an occurrence of a stored series for the same customer, contact or user.
+     * @param connection the connection to query on.
+     * @param proposed the proposed appointments.
+     * @param customerID int customer of the proposed appointments.
+     * @param contactID int contact of the proposed appointments.
+     * @param userID int user of the proposed appointments.
+     * @param source the occurrence being edited, null for new records.
+     * @throws SQLException when the series could not be read.
+     * @throws RuntimeException listing the conflicting Series IDs.
+     */
+    public static void requireNoConflicts(Connection connection, List<? extends Appointment> proposed, int customerID,
+                                          int contactID, int userID, Occurrence source) throws SQLException {
+        List<Occurrence> conflicts = findConflicts(connection, proposed, customerID, contactID, userID, source);
+        if (!conflicts.isEmpty()) {
+            TreeSet<Integer> seriesIDs = new TreeSet<>();
+            for (Occurrence occurrence : conflicts) {
+                seriesIDs.add(occurrence.getSeries_ID());
+            }
+            throw new RuntimeException("Overlap: The Customer, Contact or User is already booked during this time." +
+                    "\nConflicting Recurring Series ID(s): " + seriesIDs + "\nFirst Conflict: " +
+                    conflicts.get(0).getStartDateTime());
+        }
+    }
+
+    /**
+     * Inserts a new series. Its Series_ID is ignored.
+     * @param connection the connection to write on.
+     * @param series the series to create.
+     * @return the generated Series ID
+     * @throws SQLException when the series could not be written, or the database has no series tables.
+     */
+    public static int insert(Connection connection, AppointmentSeries series) throws SQLException {
+        Appointment first = series.getFirst();
+        Recurrence rule = series.getRule();
+        try {
+            return QueryExecutor.insert(connection, INSERT_SQL,
+                    first.getTitle(),
+                    first.getDescription(),
+                    first.getLocation(),
+                    first.getType(),
+                    new Timestamp(first.getStart()),
+                    new Timestamp(first.getEnd()),
+                    rule.getFrequency().name(),
+                    rule.getInterval(),
+                    rule.getUntil() == null ? null : Date.valueOf(rule.getUntil()),
+                    rule.getCount() > 0 ? rule.getCount() : null,
+                    new Timestamp(series.getLastStart()),
+                    JDBC.getUserName(),
+                    JDBC.getUserName(),
+                    first.getCustomerID(),
+                    first.getUserID(),
+                    first.getContactID());
+        } catch (SQLException e) {
+            throw missingTables(e);
+        }
+    }
+
+    /**
+     * Stores an edited or cancelled occurrence, replacing any earlier exception for it.
+     * @param connection the connection to write on.
+     * @param override the exception to store.
+     * @throws SQLException when the exception could not be written, or the database has no series tables.
+     */
+    public static void putOverride(Connection connection, OccurrenceOverride override) throws SQLException {
+        Appointment values = override.getReplacement();
+        Object[] params = {
+                override.isCancelled(),
+                values == null ? null : values.getTitle(),
+                values == null ? null : values.getDescription(),
+                values == null ? null : values.getLocation(),
+                values == null ? null : values.getType(),
+                values == null ? null : new Timestamp(values.getStart()),
+                values == null ? null : new Timestamp(values.getEnd()),
+                values == null ? null : values.getCustomerID(),
+                values == null ? null : values.getUserID(),
+                values == null ? null : values.getContactID(),
+                JDBC.getUserName(),
+                override.getSeries_ID(),
+                new Timestamp(override.getOriginal_Start())};
+        try {
+            if (QueryExecutor.update(connection, UPDATE_EXCEPTION_SQL, params) == 0) {
+                QueryExecutor.update(connection, INSERT_EXCEPTION_SQL, params);
+            }
+        } catch (SQLException e) {
+            throw missingTables(e);
+        }
+    }
+
+    /**
+     * Deletes a series and its exceptions.
+     * @param connection the connection to write on.
+     * @param seriesID int ID of the series.
+     * @return the number of series deleted
+     * @throws SQLException when the series could not be deleted, or the database has no series tables.
+     */
+    public static int delete(Connection connection, int seriesID) throws SQLException {
+        try {
+            QueryExecutor.update(connection, DELETE_EXCEPTIONS_SQL, seriesID);
+            return QueryExecutor.update(connection, DELETE_SQL, seriesID);
+        } catch (SQLException e) {
+            throw missingTables(e);
+        }
+    }
+
+    /**
+     * Runs a query on appointment_series, then reads the exceptions of every series it returned with one more query.
+     */
+    private static List<AppointmentSeries> load(Connection connection, String sql, Object... params) throws SQLException {
+        List<AppointmentSeries> series;
+        try {
+            series = QueryExecutor.query(connection, sql, SeriesQueries::series, params);
+        } catch (SQLException e) {
+            if (MISSING_TABLE.equals(e.getSQLState())) {
+                return new ArrayList<>();
+            }
+            throw e;
+        }
+        if (series.isEmpty()) {
+            return series;
+        }
+        Map<Integer, AppointmentSeries> byId = new HashMap<>();
+        for (AppointmentSeries each : series) {
+            byId.put(each.getSeries_ID(), each);
+        }
+        String exceptionSql = "SELECT * FROM series_exceptions WHERE Series_ID IN (" +
+                String.join(", ", Collections.nCopies(byId.size(), "?")) + ")";
+        QueryExecutor.forEach(connection, exceptionSql, rs -> {
+            OccurrenceOverride override = override(rs);
+            byId.get(override.getSeries_ID()).putOverride(override);
+        }, byId.keySet().toArray());
+        return series;
+    }
+
+    /** Replaces a missing-table failure with one naming the schema script that creates the series tables. */
+    private static SQLException missingTables(SQLException e) {
+        if (!MISSING_TABLE.equals(e.getSQLState())) {
+            return e;
+        }
+        return new SQLException("Recurring appointments need the appointment_series and series_exceptions tables " +
+                "from schedual/sql/client_schedule_schema.sql", e.getSQLState(), e);
+    }
+
+    private static AppointmentSeries series(ResultSet rs) throws SQLException {
+        Date until = rs.getDate("Until_Date");
+        Recurrence rule = new Recurrence(
+                Recurrence.Frequency.valueOf(rs.getString("Frequency")),
+                rs.getInt("Repeat_Interval"),
+                until == null ? null : until.toLocalDate(),
+                rs.getInt("Occurrences"));
+        return new AppointmentSeries(rs.getInt("Series_ID"), values(rs), rule);
+    }
+
+    private static OccurrenceOverride override(ResultSet rs) throws SQLException {
+        boolean cancelled = rs.getBoolean("Cancelled");
+        return new OccurrenceOverride(rs.getInt("Series_ID"), rs.getTimestamp("Original_Start").getTime(), cancelled,
+                cancelled ? null : values(rs));
+    }
+
+    /** Maps the appointment columns that appointment_series and series_exceptions share. */
+    private static Appointment values(ResultSet rs) throws SQLException {
+        return new Appointment(
+                0,
+                rs.getString("Title"),
+                rs.getString("Description"),
+                rs.getString("Location"),
+                rs.getString("Type"),
+                rs.getTimestamp("Start").getTime(),
+                rs.getTimestamp("End").getTime(),
+                rs.getInt("Customer_ID"),
+                rs.getInt("User_ID"),
+                rs.getInt("Contact_ID"));
+    }
+}
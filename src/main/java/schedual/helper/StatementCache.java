@@ -0,0 +1,171 @@
+package schedual.helper;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of PreparedStatements for one physical connection, keyed by SQL text.
+ * <p> Statements are handed out as proxies: close() clears the parameters and keeps the statement open for reuse,
+ * the physical statement is only closed when it is evicted or the cache is closed. getConnection() on a proxy returns
+ * the pooled connection it was prepared through, never the physical one.
+ * <p> A cached statement is handed to one borrower at a time. Preparing the same SQL again before it is closed, e.g. in
+ * a query nested inside another's row loop, returns a fresh statement that is closed for real when the borrower closes it.
+ * <p> Not thread-safe: like its connection, a cache is used by one borrower of the ConnectionPool at a time.
+ * @author Ben Porter
+ */
+public class StatementCache {
+    private final Connection physical;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    /**
+     * Creates an empty cache for the given connection.
+     * @param physical the unpooled connection the statements are prepared on.
+     * @param maxSize the number of distinct SQL strings kept open.
+     */
+    public StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > maxSize) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached statement for the SQL text, preparing it on first use, or a fresh statement while the cached
+     * one is still in use.
+     * @param sql the SQL text.
+     * @param owner the pooled connection the statement is prepared through, returned by its getConnection().
+     * @return a PreparedStatement whose close() returns it to the cache.
+     * @throws SQLException if the statement could not be prepared.
+     */
+    public PreparedStatement prepare(String sql, Connection owner) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.inUse) {
+            return handle(physical.prepareStatement(sql), null, owner);
+        }
+        if (cached == null || cached.physical.isClosed()) {
+            cached = new CachedStatement(physical.prepareStatement(sql));
+            statements.put(sql, cached);
+        }
+        cached.inUse = true;
+        return handle(cached.physical, cached, owner);
+    }
+
+    /**
+     * Returns the number of statements currently held open.
+     * @return cache size
+     */
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes every cached statement.
+     */
+    public void close() {
+        for (CachedStatement cached : statements.values()) {
+            cached.closePhysical();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Wraps a statement in a proxy whose close() releases it exactly once.
+     * @param statement the physical statement.
+     * @param cached its cache entry, null for a statement prepared outside the cache.
+     * @param owner the pooled connection to report from getConnection().
+     * @return the PreparedStatement handed to the borrower.
+     */
+    private PreparedStatement handle(PreparedStatement statement, CachedStatement cached, Connection owner) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean released;
+
+            @Override
+            public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!released) {
+                            released = true;
+                            release(statement, cached);
+                        }
+                        return null;
+                    case "isClosed":
+                        return released || statement.isClosed();
+                    case "getConnection":
+                        return owner;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                }
+                if (released) {
+                    throw new SQLException("Statement has already been closed");
+                }
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    /**
+     * Returns a statement to the cache, or closes it if it was never cached or has been evicted meanwhile.
+     */
+    private void release(PreparedStatement statement, CachedStatement cached) throws SQLException {
+        if (cached == null) {
+            statement.close();
+            return;
+        }
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.closePhysical();
+        } else if (!statement.isClosed()) {
+            statement.clearParameters();
+        }
+    }
+
+    /**
+     * A prepared statement and whether it is handed out.
+     */
+    private static class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        /** Closes the statement, or once it is released if it is still in use. */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package schedual.helper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram Inverted Index over the text fields of a set of documents, each identified by an int ID.
+ * <p> Every word of every field is split into overlapping three-character grams. Each gram maps to the IDs of the documents
+ * containing it. Words are also indexed with two start-of-word markers in front, so one and two character queries are
+ * answered as word prefixes. Longer queries are answered as substrings: the smallest posting set among the query's
+ * grams is walked, and each ID in it is kept only if every other posting set holds it too.
+ * <p> Matches are ranked by field and kind. Fields listed first weigh more, and a whole-word match beats a word-prefix
+ * match, which beats a substring match. Every word of the query must match. Fields are split into words once, by put,
+ * and only the best limit matches are kept while scoring, in a bounded heap, so a query never sorts every match.
+ * <p> Not thread-safe; SearchIndex guards access with a read-write lock.
+ * @author Ben Porter
+ */
+public class TextIndex {
+    private static final char WORD_START = '\u0001';
+    private static final int WHOLE_WORD = 3;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    /** The lower-cased fields of a document and the words of each field. */
+    private static final class Document {
+        private final String[] fields;
+        private final String[][] words;
+
+        private Document(String[] fields) {
+            this.fields = fields;
+            this.words = new String[fields.length][];
+            for (int i = 0; i < fields.length; i++) {
+                words[i] = words(fields[i]).toArray(new String[0]);
+            }
+        }
+    }
+
+    /**
+     * The best matches seen so far, as a min-heap of (score, ID) keys whose root is the worst one kept. A key orders by
+     * score, then by descending ID, so a larger key is the better match.
+     */
+    private static final class TopMatches {
+        private final long[] heap;
+        private int size;
+
+        private TopMatches(int limit) {
+            heap = new long[limit];
+        }
+
+        private void offer(int id, int score) {
+            long key = ((long) score << 32) | (~id & 0xFFFFFFFFL);
+            if (size < heap.length) {
+                heap[size] = key;
+                int child = size++;
+                while (child > 0 && heap[(child - 1) / 2] > heap[child]) {
+                    swap(child, (child - 1) / 2);
+                    child = (child - 1) / 2;
+                }
+            } else if (size > 0 && key > heap[0]) {
+                heap[0] = key;
+                int parent = 0;
+                while (true) {
+                    int smallest = parent;
+                    for (int child = 2 * parent + 1; child <= 2 * parent + 2 && child < size; child++) {
+                        if (heap[child] < heap[smallest]) {
+                            smallest = child;
+                        }
+                    }
+                    if (smallest == parent) {
+                        break;
+                    }
+                    swap(parent, smallest);
+                    parent = smallest;
+                }
+            }
+        }
+
+        /** Returns the IDs kept, best match first. */
+        private List<Integer> ranked() {
+            long[] keys = Arrays.copyOf(heap, size);
+            Arrays.sort(keys);
+            List<Integer> ids = new ArrayList<>(size);
+            for (int i = keys.length - 1; i >= 0; i--) {
+                ids.add(~(int) keys[i]);
+            }
+            return ids;
+        }
+
+        private void swap(int a, int b) {
+            long key = heap[a];
+            heap[a] = heap[b];
+            heap[b] = key;
+        }
+    }
+
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    /**
+     * Adds or replaces a document.
+     * @param id the document ID.
+     * @param fields the text fields, most important first; null fields are indexed as empty.
+     */
+    public void put(int id, String... fields) {
+        remove(id);
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i]);
+        }
+        Document document = new Document(normalized);
+        documents.put(id, document);
+        for (String gram : grams(document)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+        }
+    }
+
+    /**
+     * Removes a document.
+     * @param id the document ID.
+     * @return true if the document was indexed.
+     */
+    public boolean remove(int id) {
+        Document old = documents.remove(id);
+        if (old == null) {
+            return false;
+        }
+        for (String gram : grams(old)) {
+            Set<Integer> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the lower-cased fields of a document.
+     * @param id the document ID.
+     * @return a copy of the fields, or null if the document is not indexed.
+     */
+    public String[] fields(int id) {
+        Document document = documents.get(id);
+        return document == null ? null : document.fields.clone();
+    }
+
+    /**
+     * Returns the number of indexed documents.
+     * @return size
+     */
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * Returns the IDs of the documents matching every word of the query, best match first.
+     * @param query the search text.
+     * @param limit the largest number of IDs to return.
+     * @return matching IDs ranked by score, then by ascending ID
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> terms = words(normalize(query));
+        if (terms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (String term : terms) {
+            Set<String> grams = term.length() < 3
+                    ? Set.of(padded(term).substring(term.length() - 1))
+                    : wordGrams(term, false);
+            for (String gram : grams) {
+                Set<Integer> ids = postings.get(gram);
+                if (ids == null) {
+                    return new ArrayList<>();
+                }
+                sets.add(ids);
+            }
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+        Set<Integer> smallest = sets.get(0);
+        List<Set<Integer>> others = sets.subList(1, sets.size());
+        TopMatches top = new TopMatches(limit);
+        candidates:
+        for (Integer id : smallest) {
+            for (Set<Integer> ids : others) {
+                if (!ids.contains(id)) {
+                    continue candidates;
+                }
+            }
+            Document document = documents.get(id);
+            int total = 0;
+            for (String term : terms) {
+                int score = score(document, term);
+                if (score == 0) {
+                    continue candidates;
+                }
+                total += score;
+            }
+            top.offer(id, total);
+        }
+        return top.ranked();
+    }
+
+    /**
+     * Scores one term against a document, 0 if the term does not match any field.
+     */
+    private static int score(Document document, String term) {
+        int best = 0;
+        int count = document.fields.length;
+        for (int i = 0; i < count; i++) {
+            int weight = count - i;
+            int kind = 0;
+            for (String word : document.words[i]) {
+                if (word.equals(term)) {
+                    kind = WHOLE_WORD;
+                    break;
+                } else if (word.startsWith(term)) {
+                    kind = WORD_PREFIX;
+                }
+            }
+            if (kind == 0 && term.length() >= 3 && document.fields[i].contains(term)) {
+                kind = SUBSTRING;
+            }
+            best = Math.max(best, kind * weight);
+        }
+        return best;
+    }
+
+    private static Set<String> grams(Document document) {
+        Set<String> grams = new HashSet<>();
+        for (String[] words : document.words) {
+            for (String word : words) {
+                grams.addAll(wordGrams(word, true));
+            }
+        }
+        return grams;
+    }
+
+    private static Set<String> wordGrams(String word, boolean withStart) {
+        String text = withStart ? padded(word) : word;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private static String padded(String word) {
+        return "" + WORD_START + WORD_START + word;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,76 @@
+package schedual.helper;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+
+/**
+ * Input Validation Rules shared by the Controllers' inputValidation methods and the BulkImporter.
+ * <p> Each rule throws a RuntimeException carrying the message shown to the user. Rules hold no state, so rows can be
+ * validated in parallel.
+ * @author Ben Porter
+ */
+public class Validation {
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("America/New_York");
+    private static final LocalTime OPENING = LocalTime.of(8, 0);
+    private static final LocalTime CLOSING = LocalTime.of(22, 0);
+
+    private Validation() {}
+
+    /**
+     * Throws if any value is null or empty.
+     * @param values the field values to check.
+     */
+    public static void requireNonEmpty(String... values) {
+        for (String value : values) {
+            if (value == null || value.isEmpty()) {
+                throw new RuntimeException("Fields May Not Be Empty");
+            }
+        }
+    }
+
+    /**
+     * Throws unless the appointment starts before it ends and both times fall within business hours,
+     * 8AM to 10PM EST on the start date, in the local time zone.
+     * @param start LocalDateTime the appointment starts at, local time.
+     * @param end LocalDateTime the appointment ends at, local time.
+     */
+    public static void requireBusinessHours(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime[] hours = businessHours(start.toLocalDate());
+        ZonedDateTime businessHoursStart = hours[0].atZone(ZoneId.systemDefault());
+        ZonedDateTime businessHoursEnd = hours[1].atZone(ZoneId.systemDefault());
+        ZonedDateTime inputStartTime = start.atZone(ZoneId.systemDefault());
+        ZonedDateTime inputEndTime = end.atZone(ZoneId.systemDefault());
+        DateTimeFormatter medium = DateTimeFormatter.ofLocalizedTime(FormatStyle.MEDIUM);
+        if (inputStartTime.isAfter(inputEndTime)) {
+            throw new RuntimeException("Start Time Must Be Before End Time");
+        } else if (inputStartTime.isBefore(businessHoursStart)) {
+            throw new RuntimeException("Start Time May Not Be Before: \n" + businessHoursStart.format(medium));
+        } else if (inputStartTime.isAfter(businessHoursEnd)) {
+            throw new RuntimeException("Start Time May Not Be After: \n" + businessHoursEnd.format(medium));
+        } else if (inputEndTime.isBefore(businessHoursStart)) {
+            throw new RuntimeException("End Time May Not Be Before: \n" + businessHoursStart.format(medium));
+        } else if (inputEndTime.isAfter(businessHoursEnd)) {
+            throw new RuntimeException("End Time May Not Be After: \n" + businessHoursEnd.format(medium));
+        } else if (inputStartTime.isEqual(inputEndTime)) {
+            throw new RuntimeException("Meetings must be at least 15 minutes long");
+        }
+    }
+
+    /**
+     * Returns the business hours of a day, 8AM to 10PM EST, converted to the local time zone.
+     * @param day LocalDate the business day, as the user's local date.
+     * @return {opening, closing} as local LocalDateTimes
+     */
+    public static LocalDateTime[] businessHours(LocalDate day) {
+        return new LocalDateTime[]{
+                ZonedDateTime.of(LocalDateTime.of(day, OPENING), BUSINESS_ZONE)
+                        .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(), // 8AM EST - Converted to Local TZ
+                ZonedDateTime.of(LocalDateTime.of(day, CLOSING), BUSINESS_ZONE)
+                        .withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime()}; // 10PM EST - Converted to Local TZ
+    }
+}
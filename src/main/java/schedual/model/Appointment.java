@@ -1,7 +1,13 @@
 package schedual.model;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
 /**
  * Appointment Class which holds input parameters for a standard record in MySQL appointments table.
+ * <p> Start and End are held as epoch milliseconds, so comparisons, sorting and overlap checks work on primitives.
+ * Formatting for display is left to the TableView cell factory.
  * @author Ben Porter
  */
 
@@ -11,8 +17,8 @@ public class Appointment {
     private String Description;
     private String Location;
     private String Type;
-    private String Start;
-    private String End;
+    private long Start;
+    private long End;
     private int Customer_ID;
     private int User_ID;
     private int Contact_ID;
@@ -23,13 +29,13 @@ public class Appointment {
      * @param Description String describing the appointment in more detail
      * @param Location String that shows the location where the appointment is set
      * @param Type String category for the appointment
-     * @param Start LocalDateTime object providing the start time and date of the meeting
-     * @param End LocalDateTime object providing the end time and date of the meeting
+     * @param Start epoch milliseconds providing the start time and date of the meeting
+     * @param End epoch milliseconds providing the end time and date of the meeting
      * @param Customer_ID integer customer id
      * @param User_ID integer user id
      * @param Contact_ID integer contact id
      * */
-    public Appointment(int Appointment_ID, String Title, String Description, String Location, String Type, String Start, String End, int Customer_ID, int User_ID, int Contact_ID) {
+    public Appointment(int Appointment_ID, String Title, String Description, String Location, String Type, long Start, long End, int Customer_ID, int User_ID, int Contact_ID) {
         this.Appointment_ID = Appointment_ID;
         this.Title = Title;
         this.Description = Description;
@@ -101,16 +107,42 @@ public class Appointment {
     public String getType() { return Type; }
 
     /**
-     * Returns a String of a Formatted DateTime for when the Appointment begins.
+     * Returns the epoch milliseconds when the Appointment begins.
      * @return the start time
      */
-    public String getStart() { return Start; }
+    public long getStart() { return Start; }
 
     /**
-     * Returns a String of a Formatted DateTime for when the Appointment ends.
+     * Returns the epoch milliseconds when the Appointment ends.
      * @return the end time
      */
-    public String getEnd() { return End; }
+    public long getEnd() { return End; }
+
+    /**
+     * Returns the local date and time when the Appointment begins.
+     * @return the start time in the system time zone
+     */
+    public LocalDateTime getStartDateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Start), ZoneId.systemDefault());
+    }
+
+    /**
+     * Returns the local date and time when the Appointment ends.
+     * @return the end time in the system time zone
+     */
+    public LocalDateTime getEndDateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(End), ZoneId.systemDefault());
+    }
+
+    /**
+     * Returns true if the Appointment overlaps the half-open range [start, end).
+     * @param start epoch milliseconds the range starts at.
+     * @param end epoch milliseconds the range ends at.
+     * @return whether the ranges overlap
+     */
+    public boolean overlaps(long start, long end) {
+        return Start < end && End > start;
+    }
 
     /**
      * Returns the customer id.
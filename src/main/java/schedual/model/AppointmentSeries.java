@@ -0,0 +1,231 @@
+package schedual.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AppointmentSeries Class which holds a record of the MySQL appointment_series table: a recurring appointment, stored
+ * once as its first occurrence and a Recurrence rule, with the occurrences that were edited or cancelled as overrides.
+ * <p> Occurrences are expanded on demand for one range, or one page window of it, at a time, starting at the first
+ * occurrence in the window rather than at the start of the series, and every occurrence has the first occurrence's
+ * duration. They can be counted without being expanded.
+ * @author Ben Porter
+ */
+public class AppointmentSeries {
+    private int Series_ID;
+    private Appointment First;
+    private Recurrence Rule;
+    private final Map<Long, OccurrenceOverride> Overrides = new HashMap<>();
+
+    /** Default Constructor for AppointmentSeries
+     * @param Series_ID Unique integer value associated to the series
+     * @param First the first occurrence, whose values every occurrence repeats; its Appointment_ID is ignored
+     * @param Rule the recurrence rule
+     * */
+    public AppointmentSeries(int Series_ID, Appointment First, Recurrence Rule) {
+        this.Series_ID = Series_ID;
+        this.First = First;
+        this.Rule = Rule;
+    }
+
+    /**
+     * Returns the series id.
+     * @return id integer value.
+     */
+    public int getSeries_ID() { return Series_ID; }
+
+    /**
+     * Sets the id variable to integer provided.
+     * @param Series_ID integer value.
+     */
+    public void setSeries_ID(int Series_ID) { this.Series_ID = Series_ID; }
+
+    /**
+     * Returns the first occurrence, as scheduled.
+     * @return the first occurrence's values
+     */
+    public Appointment getFirst() { return First; }
+
+    /**
+     * Returns the recurrence rule.
+     * @return the rule
+     */
+    public Recurrence getRule() { return Rule; }
+
+    /**
+     * Returns the edited and cancelled occurrences.
+     * @return the overrides, in no particular order
+     */
+    public Collection<OccurrenceOverride> getOverrides() { return Overrides.values(); }
+
+    /**
+     * Adds or replaces the override of an occurrence.
+     * @param override the edited or cancelled occurrence.
+     */
+    public void putOverride(OccurrenceOverride override) {
+        Overrides.put(override.getOriginal_Start(), override);
+    }
+
+    /**
+     * Returns the number of occurrences the rule produces, cancelled ones included.
+     * @return the occurrence count
+     */
+    public int size() {
+        return Rule.size(First.getStartDateTime());
+    }
+
+    /**
+     * Returns the epoch milliseconds the last occurrence starts at, as scheduled.
+     * @return the start of the last occurrence
+     */
+    public long getLastStart() {
+        return toMillis(Rule.startOf(First.getStartDateTime(), Math.max(0, size() - 1)));
+    }
+
+    /**
+     * Returns an occurrence as the rule schedules it, ignoring any override.
+     * @param originalStart epoch milliseconds the occurrence starts at according to the rule.
+     * @return the occurrence, null if the rule has none starting then
+     */
+    public Occurrence scheduled(long originalStart) {
+        LocalDateTime first = First.getStartDateTime();
+        int index = Rule.indexOf(first, toLocal(originalStart));
+        return index < 0 ? null : new Occurrence(Series_ID, index, originalStart, scheduledValues(originalStart));
+    }
+
+    /**
+     * Expands the occurrences starting within [from, to], both inclusive, with their overrides applied. Cancelled
+     * occurrences are left out, and an edited occurrence is placed by its new start.
+     * @param from epoch milliseconds the range starts at, Long.MIN_VALUE for no lower bound.
+     * @param to epoch milliseconds the range ends at, Long.MAX_VALUE for no upper bound.
+     * @return the occurrences in start order
+     */
+    public List<Occurrence> occurrences(long from, long to) {
+        List<Occurrence> occurrences = new ArrayList<>();
+        LocalDateTime first = First.getStartDateTime();
+        int index = indexFrom(from);
+        for (; Rule.hasOccurrence(first, index); index++) {
+            long start = toMillis(Rule.startOf(first, index));
+            if (start > to) {
+                break;
+            }
+            OccurrenceOverride override = Overrides.get(start);
+            if (override == null) {
+                occurrences.add(new Occurrence(Series_ID, index, start, scheduledValues(start)));
+            } else if (!override.isCancelled() && within(override.getReplacement().getStart(), from, to)) {
+                occurrences.add(new Occurrence(Series_ID, index, start, override.getReplacement()));
+            }
+        }
+        for (OccurrenceOverride override : Overrides.values()) { // edited into the range from outside it
+            long original = override.getOriginal_Start();
+            if (!override.isCancelled() && !within(original, from, to) && within(override.getReplacement().getStart(), from, to)) {
+                int moved = Rule.indexOf(first, toLocal(original));
+                if (moved >= 0) {
+                    occurrences.add(new Occurrence(Series_ID, moved, original, override.getReplacement()));
+                }
+            }
+        }
+        occurrences.sort(Comparator.comparingLong(Appointment::getStart));
+        return occurrences;
+    }
+
+    /**
+     * Expands at most limit occurrences starting within [from, to], both inclusive, with their overrides applied: the
+     * first ones of the range when ascending, the last ones otherwise. The walk starts at an occurrence number found with
+     * Recurrence.indexFrom, so occurrences outside the window are never created. Edited occurrences in the range are
+     * always included, since an edit may move an occurrence anywhere.
+     * @param from epoch milliseconds the range starts at, Long.MIN_VALUE for no lower bound.
+     * @param to epoch milliseconds the range ends at, Long.MAX_VALUE for no upper bound.
+     * @param ascending true to take the occurrences from the start of the range, false from its end.
+     * @param limit the number of unedited occurrences to take.
+     * @return the occurrences in start order, descending when not ascending
+     */
+    public List<Occurrence> occurrences(long from, long to, boolean ascending, int limit) {
+        List<Occurrence> window = new ArrayList<>();
+        LocalDateTime first = First.getStartDateTime();
+        int end = Math.min(size(), Recurrence.MAX_OCCURRENCES);
+        int index = ascending ? indexFrom(from) : (to == Long.MAX_VALUE ? end : Math.min(end, indexFrom(to + 1))) - 1;
+        for (int taken = 0; taken < limit && index >= 0 && index < end; index += ascending ? 1 : -1) {
+            long start = toMillis(Rule.startOf(first, index));
+            if (ascending ? start > to : start < from) {
+                break;
+            }
+            if (!Overrides.containsKey(start)) {
+                window.add(new Occurrence(Series_ID, index, start, scheduledValues(start)));
+                taken++;
+            }
+        }
+        for (OccurrenceOverride override : Overrides.values()) {
+            if (!override.isCancelled() && within(override.getReplacement().getStart(), from, to)) {
+                int edited = Rule.indexOf(first, toLocal(override.getOriginal_Start()));
+                if (edited >= 0) {
+                    window.add(new Occurrence(Series_ID, edited, override.getOriginal_Start(), override.getReplacement()));
+                }
+            }
+        }
+        Comparator<Appointment> order = Comparator.comparingLong(Appointment::getStart);
+        window.sort(ascending ? order : order.reversed());
+        return window;
+    }
+
+    /**
+     * Counts the occurrences starting within [from, to], both inclusive, with their overrides applied, without expanding
+     * them.
+     * @param from epoch milliseconds the range starts at, Long.MIN_VALUE for no lower bound.
+     * @param to epoch milliseconds the range ends at, Long.MAX_VALUE for no upper bound.
+     * @return the number of occurrences occurrences(from, to) returns
+     */
+    public int count(long from, long to) {
+        LocalDateTime first = First.getStartDateTime();
+        int end = Math.min(size(), Recurrence.MAX_OCCURRENCES);
+        int low = Math.min(end, indexFrom(from));
+        int high = to == Long.MAX_VALUE ? end : Math.min(end, indexFrom(to + 1));
+        int count = Math.max(0, high - low);
+        for (OccurrenceOverride override : Overrides.values()) {
+            if (Rule.indexOf(first, toLocal(override.getOriginal_Start())) < 0) {
+                continue;
+            }
+            boolean scheduledIn = within(override.getOriginal_Start(), from, to);
+            boolean editedIn = !override.isCancelled() && within(override.getReplacement().getStart(), from, to);
+            if (scheduledIn && !editedIn) {
+                count--;
+            } else if (!scheduledIn && editedIn) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Returns the number of the first occurrence starting at or after a time. */
+    private int indexFrom(long time) {
+        return time <= First.getStart() ? 0 : Rule.indexFrom(First.getStartDateTime(), toLocal(time));
+    }
+
+    /** Returns the first occurrence's values moved to another start, keeping its duration. */
+    private Appointment scheduledValues(long start) {
+        LocalDateTime localStart = toLocal(start);
+        Duration length = Duration.between(First.getStartDateTime(), First.getEndDateTime());
+        return new Appointment(0, First.getTitle(), First.getDescription(), First.getLocation(), First.getType(),
+                start, toMillis(localStart.plus(length)), First.getCustomerID(), First.getUserID(), First.getContactID());
+    }
+
+    private static boolean within(long time, long from, long to) {
+        return time >= from && time <= to;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
@@ -8,17 +8,17 @@ package schedual.model;
 public class Engagement {
     private int Customer_ID;
     private String Customer_Name;
-    private String Last_Appointment;
-    private String Next_Appointment;
+    private Long Last_Appointment;
+    private Long Next_Appointment;
 
     /** Default Constructor for Engagement
      * @param Customer_ID The unique ID for the corresponding customer from the customers table.
      * @param Customer_Name String value indicating the name of the customer.
-     * @param Last_Appointment String containing the Formatted DateTime of the Customer's Last Appointment.
-     * @param Next_Appointment String containing the Formatted DateTime of the Customer's Next Appointment.
+     * @param Last_Appointment epoch milliseconds of the Customer's Last Appointment, null if there is none.
+     * @param Next_Appointment epoch milliseconds of the Customer's Next Appointment, null if there is none.
      * */
 
-    public Engagement(int Customer_ID, String Customer_Name, String Last_Appointment, String Next_Appointment) {
+    public Engagement(int Customer_ID, String Customer_Name, Long Last_Appointment, Long Next_Appointment) {
         this.Customer_ID = Customer_ID;
         this.Customer_Name = Customer_Name;
         this.Last_Appointment = Last_Appointment;
@@ -59,33 +59,33 @@ public class Engagement {
 
     /**
      * Returns the Last Appointment for this Customer's Engagement.
-     * @return id integer value.
+     * @return epoch milliseconds, null if there is none.
      */
-    public String getLast_Appointment() {
+    public Long getLast_Appointment() {
         return Last_Appointment;
     }
 
     /**
      * Sets the Last_Appointment for this Customer's Engagement.
-     * @param Last_Appointment  id integer value.
+     * @param Last_Appointment  epoch milliseconds, null if there is none.
      */
-    public void setLast_Appointment(String Last_Appointment) {
+    public void setLast_Appointment(Long Last_Appointment) {
         this.Last_Appointment = Last_Appointment;
     }
 
     /**
      * Returns the Next Appointment for this Customer's Engagement.
-     * @return id integer value.
+     * @return epoch milliseconds, null if there is none.
      */
-    public String getNext_Appointment() {
+    public Long getNext_Appointment() {
         return Next_Appointment;
     }
 
     /**
      * Sets the Next Appointment for this Customer's Engagement.
-     * @param Next_Appointment id integer value.
+     * @param Next_Appointment epoch milliseconds, null if there is none.
      */
-    public void setNext_Appointment(String Next_Appointment) {
+    public void setNext_Appointment(Long Next_Appointment) {
         this.Next_Appointment = Next_Appointment;
     }
 }
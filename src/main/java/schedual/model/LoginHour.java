@@ -0,0 +1,91 @@
+package schedual.model;
+
+/**
+ * LoginHour Class Object provides the log-in attempts and failures of one user within one hour, for the Login Activity report.
+ * @author Ben Porter
+ */
+
+public class LoginHour {
+
+    private String User;
+    private long Hour;
+    private int Attempts;
+    private int Failures;
+
+    /** Default Constructor for LoginHour
+     * @param User String user name that was tried.
+     * @param Hour long epoch milliseconds the hour starts at.
+     * @param Attempts int number of log-in attempts in the hour.
+     * @param Failures int number of failed attempts in the hour.
+     * */
+    public LoginHour(String User, long Hour, int Attempts, int Failures) {
+        this.User = User;
+        this.Hour = Hour;
+        this.Attempts = Attempts;
+        this.Failures = Failures;
+    }
+
+    /**
+     * Returns the user name of this hour.
+     * @return String User
+     */
+    public String getUser() {
+        return User;
+    }
+
+    /**
+     * Sets the user name of this hour.
+     * @param User String user name.
+     */
+    public void setUser(String User) {
+        this.User = User;
+    }
+
+    /**
+     * Returns the start of the hour.
+     * @return long epoch milliseconds
+     */
+    public long getHour() {
+        return Hour;
+    }
+
+    /**
+     * Sets the start of the hour.
+     * @param Hour long epoch milliseconds.
+     */
+    public void setHour(long Hour) {
+        this.Hour = Hour;
+    }
+
+    /**
+     * Returns the number of log-in attempts in the hour.
+     * @return int Attempts
+     */
+    public int getAttempts() {
+        return Attempts;
+    }
+
+    /**
+     * Sets the number of log-in attempts in the hour.
+     * @param Attempts int count.
+     */
+    public void setAttempts(int Attempts) {
+        this.Attempts = Attempts;
+    }
+
+    /**
+     * Returns the number of failed attempts in the hour.
+     * @return int Failures
+     */
+    public int getFailures() {
+        return Failures;
+    }
+
+    /**
+     * Sets the number of failed attempts in the hour.
+     * @param Failures int count.
+     */
+    public void setFailures(int Failures) {
+        this.Failures = Failures;
+    }
+}
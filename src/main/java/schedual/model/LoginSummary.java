@@ -0,0 +1,111 @@
+package schedual.model;
+
+/**
+ * LoginSummary Class Object provides the first and last successful log-in of one user, with attempt and failure totals,
+ * for the Login Activity report.
+ * @author Ben Porter
+ */
+
+public class LoginSummary {
+
+    private String User;
+    private Long First_Login;
+    private Long Last_Login;
+    private int Attempts;
+    private int Failures;
+
+    /** Default Constructor for LoginSummary
+     * @param User String user name that was tried.
+     * @param First_Login epoch milliseconds of the first successful log-in, null if there is none.
+     * @param Last_Login epoch milliseconds of the last successful log-in, null if there is none.
+     * @param Attempts int number of log-in attempts.
+     * @param Failures int number of failed attempts.
+     * */
+    public LoginSummary(String User, Long First_Login, Long Last_Login, int Attempts, int Failures) {
+        this.User = User;
+        this.First_Login = First_Login;
+        this.Last_Login = Last_Login;
+        this.Attempts = Attempts;
+        this.Failures = Failures;
+    }
+
+    /**
+     * Returns the user name of this summary.
+     * @return String User
+     */
+    public String getUser() {
+        return User;
+    }
+
+    /**
+     * Sets the user name of this summary.
+     * @param User String user name.
+     */
+    public void setUser(String User) {
+        this.User = User;
+    }
+
+    /**
+     * Returns the first successful log-in.
+     * @return epoch milliseconds, null if there is none.
+     */
+    public Long getFirst_Login() {
+        return First_Login;
+    }
+
+    /**
+     * Sets the first successful log-in.
+     * @param First_Login epoch milliseconds, null if there is none.
+     */
+    public void setFirst_Login(Long First_Login) {
+        this.First_Login = First_Login;
+    }
+
+    /**
+     * Returns the last successful log-in.
+     * @return epoch milliseconds, null if there is none.
+     */
+    public Long getLast_Login() {
+        return Last_Login;
+    }
+
+    /**
+     * Sets the last successful log-in.
+     * @param Last_Login epoch milliseconds, null if there is none.
+     */
+    public void setLast_Login(Long Last_Login) {
+        this.Last_Login = Last_Login;
+    }
+
+    /**
+     * Returns the number of log-in attempts.
+     * @return int Attempts
+     */
+    public int getAttempts() {
+        return Attempts;
+    }
+
+    /**
+     * Sets the number of log-in attempts.
+     * @param Attempts int count.
+     */
+    public void setAttempts(int Attempts) {
+        this.Attempts = Attempts;
+    }
+
+    /**
+     * Returns the number of failed attempts.
+     * @return int Failures
+     */
+    public int getFailures() {
+        return Failures;
+    }
+
+    /**
+     * Sets the number of failed attempts.
+     * @param Failures int count.
+     */
+    public void setFailures(int Failures) {
+        this.Failures = Failures;
+    }
+}
@@ -3,28 +3,47 @@ package schedual.model;
 import java.time.Month;
 
 /**
- * MonthTypeCount Class Object provides a count of appointments for a given combination of Month and Type.
+ * MonthTypeCount Class Object provides a count of appointments for a given combination of Year, Month and Type.
  * @author Ben Porter
  */
 
 
 public class MonthTypeCount {
 
+    private int Year;
     private Month Month;
     private String Type;
     private int Count;
 
     /** Default Constructor for MonthTypeCount
+     * @param Year int calendar year.
      * @param Month Enum Month.
      * @param Type String Type value for the Object.
      * @param Count int count of appointments for the given Month and Type.
      * */
-    public MonthTypeCount(Month Month, String Type, int Count) {
+    public MonthTypeCount(int Year, Month Month, String Type, int Count) {
+        this.Year = Year;
         this.Month = Month;
         this.Type = Type;
         this.Count = Count;
     }
 
+    /**
+     * Returns the calendar year of this combination.
+     * @return int Year
+     */
+    public int getYear() {
+        return Year;
+    }
+
+    /**
+     * Sets the calendar year of this combination.
+     * @param Year int Year
+     */
+    public void setYear(int Year) {
+        this.Year = Year;
+    }
+
     /**
      * Returns the Java.time Enum of the given month.
      * @return String Month
@@ -0,0 +1,62 @@
+package schedual.model;
+
+/**
+ * Occurrence Class - one expanded occurrence of an AppointmentSeries, shown alongside the stored appointments.
+ * <p> Occurrences are never stored, so their Appointment_ID is synthetic: negative, so it can never match an appointments
+ * row, and unique per series and occurrence number, so it still breaks ties in the AppointmentPager's sort order.
+ * @author Ben Porter
+ */
+public class Occurrence extends Appointment {
+    private int Series_ID;
+    private int Index;
+    private long Original_Start;
+
+    /** Default Constructor for Occurrence
+     * @param Series_ID integer id of the series
+     * @param Index the occurrence number, 0 for the first
+     * @param Original_Start epoch milliseconds the occurrence starts at according to the series' recurrence rule
+     * @param values the occurrence's values, from the series or from its OccurrenceOverride
+     * */
+    public Occurrence(int Series_ID, int Index, long Original_Start, Appointment values) {
+        super(idOf(Series_ID, Index), values.getTitle(), values.getDescription(), values.getLocation(), values.getType(),
+                values.getStart(), values.getEnd(), values.getCustomerID(), values.getUserID(), values.getContactID());
+        this.Series_ID = Series_ID;
+        this.Index = Index;
+        this.Original_Start = Original_Start;
+    }
+
+    /**
+     * Returns the synthetic Appointment_ID of an occurrence.
+     * @param seriesID integer id of the series.
+     * @param index the occurrence number.
+     * @return a negative id, unique across every series
+     */
+    public static int idOf(int seriesID, int index) {
+        return -(seriesID * Recurrence.MAX_OCCURRENCES + index + 1);
+    }
+
+    /**
+     * Returns the series id.
+     * @return id integer value.
+     */
+    public int getSeries_ID() { return Series_ID; }
+
+    /**
+     * Returns the occurrence number within the series.
+     * @return index, 0 for the first occurrence
+     */
+    public int getIndex() { return Index; }
+
+    /**
+     * Returns the epoch milliseconds the occurrence starts at according to the recurrence rule, before any edit.
+     * @return the original start time, the key of the occurrence's OccurrenceOverride
+     */
+    public long getOriginal_Start() { return Original_Start; }
+
+    /**
+     * Returns the label an occurrence is shown with instead of its synthetic Appointment_ID: its Series ID and
+     * occurrence number, e.g. S4-12.
+     * @return the occurrence label
+     */
+    public String getLabel() { return "S" + Series_ID + "-" + (Index + 1); }
+}
@@ -0,0 +1,50 @@
+package schedual.model;
+
+/**
+ * OccurrenceOverride Class which holds a record of the MySQL series_exceptions table: one occurrence of an
+ * AppointmentSeries that was cancelled or edited, stored instead of a materialized appointments row.
+ * @author Ben Porter
+ */
+public class OccurrenceOverride {
+    private int Series_ID;
+    private long Original_Start;
+    private boolean Cancelled;
+    private Appointment Replacement;
+
+    /** Default Constructor for OccurrenceOverride
+     * @param Series_ID integer id of the series
+     * @param Original_Start epoch milliseconds the occurrence started at before it was changed
+     * @param Cancelled true if the occurrence was cancelled
+     * @param Replacement the values of the edited occurrence, null when it was cancelled
+     * */
+    public OccurrenceOverride(int Series_ID, long Original_Start, boolean Cancelled, Appointment Replacement) {
+        this.Series_ID = Series_ID;
+        this.Original_Start = Original_Start;
+        this.Cancelled = Cancelled;
+        this.Replacement = Replacement;
+    }
+
+    /**
+     * Returns the series id.
+     * @return id integer value.
+     */
+    public int getSeries_ID() { return Series_ID; }
+
+    /**
+     * Returns the epoch milliseconds the occurrence started at before it was changed.
+     * @return the original start time
+     */
+    public long getOriginal_Start() { return Original_Start; }
+
+    /**
+     * Returns true if the occurrence was cancelled.
+     * @return whether the occurrence is cancelled
+     */
+    public boolean isCancelled() { return Cancelled; }
+
+    /**
+     * Returns the values of the edited occurrence.
+     * @return the replacement, null when the occurrence was cancelled
+     */
+    public Appointment getReplacement() { return Replacement; }
+}
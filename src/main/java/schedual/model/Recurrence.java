@@ -0,0 +1,155 @@
+package schedual.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Recurrence Rule of an AppointmentSeries: repeats every Interval days, weeks or months, until a last date or for a
+ * number of occurrences.
+ * <p> Occurrence n starts n * Interval units after the first occurrence, counted from the first rather than from the one
+ * before, so a monthly series on the 31st falls on the last day of shorter months and returns to the 31st after them.
+ * Starts are wall-clock local times, so a series keeps its hour across daylight saving changes.
+ * @author Ben Porter
+ */
+public class Recurrence {
+    /** The most occurrences one series may have, which also bounds the synthetic Occurrence IDs. */
+    public static final int MAX_OCCURRENCES = 1000;
+
+    /** The unit a series repeats by. */
+    public enum Frequency {
+        DAILY(ChronoUnit.DAYS),
+        WEEKLY(ChronoUnit.WEEKS),
+        MONTHLY(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        Frequency(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private Frequency Frequency;
+    private int Interval;
+    private LocalDate Until;
+    private int Count;
+
+    /** Default Constructor for Recurrence
+     * @param Frequency the unit the series repeats by
+     * @param Interval number of units between occurrences, at least 1
+     * @param Until LocalDate of the last possible occurrence, null when Count is given
+     * @param Count number of occurrences, 0 when Until is given
+     * */
+    public Recurrence(Frequency Frequency, int Interval, LocalDate Until, int Count) {
+        this.Frequency = Frequency;
+        this.Interval = Interval;
+        this.Until = Until;
+        this.Count = Count;
+    }
+
+    /**
+     * Returns the unit the series repeats by.
+     * @return the frequency
+     */
+    public Frequency getFrequency() { return Frequency; }
+
+    /**
+     * Returns the number of units between occurrences.
+     * @return the interval
+     */
+    public int getInterval() { return Interval; }
+
+    /**
+     * Returns the date of the last possible occurrence.
+     * @return the end date, null when the series ends after Count occurrences
+     */
+    public LocalDate getUntil() { return Until; }
+
+    /**
+     * Returns the number of occurrences.
+     * @return the count, 0 when the series ends on the Until date
+     */
+    public int getCount() { return Count; }
+
+    /**
+     * Returns the start of an occurrence, whether or not the series still has it.
+     * @param first LocalDateTime the first occurrence starts at.
+     * @param index the occurrence number, 0 for the first.
+     * @return the start of the occurrence
+     */
+    public LocalDateTime startOf(LocalDateTime first, int index) {
+        return first.plus((long) index * Interval, Frequency.unit);
+    }
+
+    /**
+     * Returns true if the series has the occurrence: it is within Count, or starts on or before Until.
+     * @param first LocalDateTime the first occurrence starts at.
+     * @param index the occurrence number, 0 for the first.
+     * @return whether the occurrence exists
+     */
+    public boolean hasOccurrence(LocalDateTime first, int index) {
+        if (index < 0 || index >= MAX_OCCURRENCES) {
+            return false;
+        }
+        if (Count > 0) {
+            return index < Count;
+        }
+        return Until != null && !startOf(first, index).toLocalDate().isAfter(Until);
+    }
+
+    /**
+     * Returns the number of the first occurrence that could start at or after a time, without stepping through the
+     * occurrences before it. The occurrence may not exist; check with hasOccurrence.
+     * @param first LocalDateTime the first occurrence starts at.
+     * @param time LocalDateTime to seek to.
+     * @return the occurrence number
+     */
+    public int indexFrom(LocalDateTime first, LocalDateTime time) {
+        if (!time.isAfter(first)) {
+            return 0;
+        }
+        long index = Frequency.unit.between(first, time) / Interval;
+        if (index >= MAX_OCCURRENCES) {
+            return MAX_OCCURRENCES;
+        }
+        while (index > 0 && !startOf(first, (int) index - 1).isBefore(time)) {
+            index--;
+        }
+        while (startOf(first, (int) index).isBefore(time) && index < MAX_OCCURRENCES) {
+            index++;
+        }
+        return (int) index;
+    }
+
+    /**
+     * Returns the number of the occurrence that starts at a time.
+     * @param first LocalDateTime the first occurrence starts at.
+     * @param start LocalDateTime an occurrence starts at.
+     * @return the occurrence number, -1 if the series has no occurrence starting then
+     */
+    public int indexOf(LocalDateTime first, LocalDateTime start) {
+        int index = indexFrom(first, start);
+        return hasOccurrence(first, index) && startOf(first, index).equals(start) ? index : -1;
+    }
+
+    /**
+     * Returns the number of occurrences in the series.
+     * @param first LocalDateTime the first occurrence starts at.
+     * @return the occurrence count, up to MAX_OCCURRENCES + 1 for a rule that runs past the limit
+     */
+    public int size(LocalDateTime first) {
+        if (Count > 0) {
+            return Count;
+        }
+        if (Until == null || Until.isBefore(first.toLocalDate())) {
+            return 0;
+        }
+        int index = indexFrom(first, Until.plusDays(1).atStartOfDay());
+        return index >= MAX_OCCURRENCES && hasOccurrenceAfterLimit(first) ? MAX_OCCURRENCES + 1 : index;
+    }
+
+    /** Returns true if the Until date allows an occurrence past MAX_OCCURRENCES. */
+    private boolean hasOccurrenceAfterLimit(LocalDateTime first) {
+        return !startOf(first, MAX_OCCURRENCES).toLocalDate().isAfter(Until);
+    }
+}
@@ -0,0 +1,686 @@
+package schedual.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import schedual.helper.Exporter;
+import schedual.helper.JDBC;
+import schedual.helper.LatencyHistogram;
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Occurrence;
+import schedual.model.Recurrence;
+import schedual.model.Customer;
+import schedual.model.LoginHour;
+import schedual.model.LoginSummary;
+import schedual.service.AppointmentService;
+import schedual.service.CustomerService;
+import schedual.service.ReportService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loopback HTTP/JSON API over the scheduling services, for callers that run without the JavaFX UI.
+ * <p> Endpoints, all answering JSON:
+ * <p> GET /api/appointments?from=yyyy-MM-dd&amp;to=yyyy-MM-dd, GET /api/appointments/search?q=TEXT&amp;limit=N,
+ * POST /api/appointments, PUT and DELETE /api/appointments/ID
+ * <p> GET /api/series/occurrences?from=yyyy-MM-dd&amp;to=yyyy-MM-dd, POST /api/series, DELETE /api/series/ID,
+ * PUT and DELETE /api/series/ID/occurrences/ORIGINAL_START - recurring series, whose occurrences are not part of
+ * GET /api/appointments. A series is posted as its first occurrence plus Frequency (DAILY, WEEKLY or MONTHLY), an
+ * optional Interval, and either Until (yyyy-MM-dd) or Count; PUT and DELETE of one occurrence store an exception.
+ * <p> GET /api/customers, POST /api/customers, PUT and DELETE /api/customers/ID
+ * <p> GET /api/availability/busy?at=yyyy-MM-ddTHH:mm, /api/availability/free-slots?contact=ID&amp;date=yyyy-MM-dd -
+ * the contacts and customers busy at a time, and a contact's free ranges within the business hours of a day, answered
+ * from the AppointmentIndex.
+ * <p> GET /api/reports/month-type-totals?year=yyyy, /api/reports/engagement, /api/reports/contact-schedule?contact=ID,
+ * /api/reports/login-activity?from=yyyy-MM-dd&amp;to=yyyy-MM-dd
+ * <p> GET /api/metrics - a latency histogram per endpoint.
+ * <p> Request and response objects use the column names of the tables, e.g. Appointment_ID and Customer_Name, with
+ * date-times as ISO local date-times such as 2023-05-01T09:00, the form the Exporter writes and the BulkImporter reads.
+ * <p> Writes go through the same services as the Controllers, so they are validated and conflict-checked the same way,
+ * and every request borrows its connection from the application's JDBC pool under the server's one log-in. Range and
+ * report results are streamed from the ResultSet into a chunked response by the Exporter, so no result list is built.
+ * <p> Each request runs on its own virtual thread when the runtime has them (Java 21+), otherwise on a bounded pool.
+ * The server binds to the loopback address only.
+ * @author Ben Porter
+ */
+public class ApiServer {
+    private static final int SEARCH_LIMIT = 200;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    /** A failure answered with a specific HTTP status rather than 400 or 500. */
+    private static final class HttpError extends RuntimeException {
+        private final int status;
+
+        private HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    /** Answers one request and returns the endpoint name its latency is recorded under. */
+    @FunctionalInterface
+    private interface Route {
+        String handle(HttpExchange exchange, String[] path) throws Exception;
+    }
+
+    /** Writes a JSON value to a response. */
+    @FunctionalInterface
+    private interface JsonWriter<T> {
+        void write(Writer out, T value) throws IOException;
+    }
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    private final AppointmentService appointmentService = new AppointmentService();
+    private final CustomerService customerService = new CustomerService();
+    private final ReportService reportService = new ReportService();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentSkipListMap<>();
+
+    /**
+     * Creates a server on a loopback port. Call start to begin answering.
+     * @param port the TCP port, 0 for any free port.
+     * @throws IOException when the port could not be bound.
+     */
+    public ApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        requestExecutor = requestExecutor();
+        server.setExecutor(requestExecutor);
+        server.createContext("/api/appointments", exchange -> serve(exchange, this::appointments));
+        server.createContext("/api/series", exchange -> serve(exchange, this::series));
+        server.createContext("/api/customers", exchange -> serve(exchange, this::customers));
+        server.createContext("/api/availability", exchange -> serve(exchange, this::availability));
+        server.createContext("/api/reports", exchange -> serve(exchange, this::reports));
+        server.createContext("/api/metrics", exchange -> serve(exchange, this::metrics));
+    }
+
+    /**
+     * Starts answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for those in progress, then stops the request threads.
+     */
+    public void stop() {
+        server.stop(1);
+        requestExecutor.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server is bound to.
+     * @return the TCP port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the latency histogram of every endpoint that has answered a request.
+     * @return histograms keyed by endpoint, e.g. "GET /api/appointments"
+     */
+    public Map<String, LatencyHistogram> getLatencies() {
+        return latencies;
+    }
+
+    // ROUTES
+
+    private String appointments(HttpExchange exchange, String[] path) throws Exception {
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = query(exchange);
+        if (path.length == 0 && method.equals("GET")) {
+            LocalDate from = date(query.get("from"));
+            LocalDate to = date(query.get("to"));
+            stream(exchange, (connection, out) -> Exporter.exportAppointments(connection, from, to, Exporter.Format.JSON, out));
+            return "GET /api/appointments";
+        }
+        if (path.length == 1 && path[0].equals("search") && method.equals("GET")) {
+            String text = required(query, "q");
+            int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : SEARCH_LIMIT;
+            writeArray(exchange, 200, await(appointmentService.search(text, limit)), ApiServer::appointment);
+            return "GET /api/appointments/search";
+        }
+        if (path.length == 0 && method.equals("POST")) {
+            int id = await(appointmentService.add(appointment(body(exchange), 0)));
+            writeObject(exchange, 201, "Appointment_ID", id);
+            return "POST /api/appointments";
+        }
+        if (path.length == 1 && method.equals("PUT")) {
+            int id = id(path[0]);
+            requireFound(await(appointmentService.update(appointment(body(exchange), id))), "Appointment", id);
+            writeObject(exchange, 200, "Appointment_ID", id);
+            return "PUT /api/appointments/{id}";
+        }
+        if (path.length == 1 && method.equals("DELETE")) {
+            int id = id(path[0]);
+            requireFound(await(appointmentService.delete(id)), "Appointment", id);
+            writeObject(exchange, 200, "Appointment_ID", id);
+            return "DELETE /api/appointments/{id}";
+        }
+        throw notFound(exchange);
+    }
+
+    private String series(HttpExchange exchange, String[] path) throws Exception {
+        String method = exchange.getRequestMethod();
+        if (path.length == 1 && path[0].equals("occurrences") && method.equals("GET")) {
+            Map<String, String> query = query(exchange);
+            List<Occurrence> occurrences = await(appointmentService.occurrences(date(query.get("from")), date(query.get("to"))));
+            writeArray(exchange, 200, occurrences, ApiServer::occurrence);
+            return "GET /api/series/occurrences";
+        }
+        if (path.length == 0 && method.equals("POST")) {
+            Map<String, String> body = body(exchange);
+            int id = await(appointmentService.addSeries(new AppointmentSeries(0, appointment(body, 0), recurrence(body))));
+            writeObject(exchange, 201, "Series_ID", id);
+            return "POST /api/series";
+        }
+        if (path.length == 1 && method.equals("DELETE")) {
+            int id = id(path[0]);
+            requireFound(await(appointmentService.deleteSeries(id)), "Series", id);
+            writeObject(exchange, 200, "Series_ID", id);
+            return "DELETE /api/series/{id}";
+        }
+        if (path.length == 3 && path[1].equals("occurrences") && (method.equals("PUT") || method.equals("DELETE"))) {
+            int id = id(path[0]);
+            long originalStart;
+            try {
+                originalStart = millis(path[2]);
+            } catch (RuntimeException e) {
+                throw new HttpError(404, "Not Found: " + path[2]);
+            }
+            int rows = method.equals("PUT")
+                    ? await(appointmentService.updateOccurrence(id, originalStart, appointment(body(exchange), 0)))
+                    : await(appointmentService.cancelOccurrence(id, originalStart));
+            if (rows == 0) {
+                throw new HttpError(404, "Occurrence Not Found: " + id + " " + path[2]);
+            }
+            writeObject(exchange, 200, "Series_ID", id);
+            return method + " /api/series/{id}/occurrences/{start}";
+        }
+        throw notFound(exchange);
+    }
+
+    private String customers(HttpExchange exchange, String[] path) throws Exception {
+        String method = exchange.getRequestMethod();
+        if (path.length == 0 && method.equals("GET")) {
+            writeArray(exchange, 200, await(customerService.findAll()), ApiServer::customer);
+            return "GET /api/customers";
+        }
+        if (path.length == 0 && method.equals("POST")) {
+            int id = await(customerService.add(customer(body(exchange), 0)));
+            writeObject(exchange, 201, "Customer_ID", id);
+            return "POST /api/customers";
+        }
+        if (path.length == 1 && method.equals("PUT")) {
+            int id = id(path[0]);
+            requireFound(await(customerService.update(customer(body(exchange), id))), "Customer", id);
+            writeObject(exchange, 200, "Customer_ID", id);
+            return "PUT /api/customers/{id}";
+        }
+        if (path.length == 1 && method.equals("DELETE")) {
+            int id = id(path[0]);
+            requireFound(await(customerService.delete(id)), "Customer", id);
+            writeObject(exchange, 200, "Customer_ID", id);
+            return "DELETE /api/customers/{id}";
+        }
+        throw notFound(exchange);
+    }
+
+    private String availability(HttpExchange exchange, String[] path) throws Exception {
+        if (path.length != 1 || !exchange.getRequestMethod().equals("GET")) {
+            throw notFound(exchange);
+        }
+        Map<String, String> query = query(exchange);
+        switch (path[0]) {
+            case "busy":
+                List<List<Integer>> busy = await(appointmentService.busyAt(LocalDateTime.parse(required(query, "at"))));
+                try (Writer out = begin(exchange, 200)) {
+                    out.write("{\"Contact_IDs\":" + busy.get(0) + ",\"Customer_IDs\":" + busy.get(1) + "}\n");
+                }
+                break;
+            case "free-slots":
+                int contactID = Integer.parseInt(required(query, "contact"));
+                List<LocalDateTime[]> slots = await(appointmentService.freeSlots(contactID, date(required(query, "date"))));
+                writeArray(exchange, 200, slots, ApiServer::slot);
+                break;
+            default:
+                throw notFound(exchange);
+        }
+        return "GET /api/availability/" + path[0];
+    }
+
+    private String reports(HttpExchange exchange, String[] path) throws Exception {
+        if (path.length != 1 || !exchange.getRequestMethod().equals("GET")) {
+            throw notFound(exchange);
+        }
+        Map<String, String> query = query(exchange);
+        switch (path[0]) {
+            case "month-type-totals":
+                Integer year = query.containsKey("year") ? Integer.valueOf(query.get("year")) : null;
+                stream(exchange, (connection, out) -> Exporter.exportMonthTypeTotals(connection, year, Exporter.Format.JSON, out));
+                break;
+            case "engagement":
+                stream(exchange, (connection, out) -> Exporter.exportEngagement(connection, Exporter.Format.JSON, out));
+                break;
+            case "contact-schedule":
+                int contactID = Integer.parseInt(required(query, "contact"));
+                stream(exchange, (connection, out) -> Exporter.exportContactSchedule(connection, contactID, Exporter.Format.JSON, out));
+                break;
+            case "login-activity":
+                LocalDate from = date(required(query, "from"));
+                LocalDate to = date(required(query, "to"));
+                ReportService.LoginActivity activity = await(reportService.loginActivity(
+                        from.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                        to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli()));
+                try (Writer out = begin(exchange, 200)) {
+                    out.write("{\"Hours\":");
+                    array(out, activity.getHours(), ApiServer::loginHour);
+                    out.write(",\"Summaries\":");
+                    array(out, activity.getSummaries(), ApiServer::loginSummary);
+                    out.write("}\n");
+                }
+                break;
+            default:
+                throw notFound(exchange);
+        }
+        return "GET /api/reports/" + path[0];
+    }
+
+    private String metrics(HttpExchange exchange, String[] path) throws Exception {
+        if (path.length != 0 || !exchange.getRequestMethod().equals("GET")) {
+            throw notFound(exchange);
+        }
+        try (Writer out = begin(exchange, 200)) {
+            out.write('{');
+            boolean first = true;
+            for (Map.Entry<String, LatencyHistogram> entry : latencies.entrySet()) {
+                out.write(first ? "\n" : ",\n");
+                first = false;
+                LatencyHistogram histogram = entry.getValue();
+                Json.string(out, entry.getKey());
+                out.write(String.format(":{\"count\":%d,\"mean_us\":%.1f,\"p50_us\":%d,\"p95_us\":%d,\"p99_us\":%d,\"max_us\":%d,\"buckets\":{",
+                        histogram.getCount(), histogram.getMeanMicros(), histogram.getPercentileMicros(50),
+                        histogram.getPercentileMicros(95), histogram.getPercentileMicros(99), histogram.getMaxMicros()));
+                long[] counts = histogram.getBucketCounts();
+                boolean firstBucket = true;
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) {
+                        continue;
+                    }
+                    long bound = LatencyHistogram.getBucketUpperMicros(i);
+                    out.write((firstBucket ? "\"" : ",\"") + (bound == Long.MAX_VALUE ? "+Inf" : "lt_" + bound + "_us") + "\":" + counts[i]);
+                    firstBucket = false;
+                }
+                out.write("}}");
+            }
+            out.write("\n}\n");
+        }
+        return "GET /api/metrics";
+    }
+
+    // REQUEST HANDLING
+
+    /**
+     * Runs a route, answers its failures with an error object and records the request's latency under its endpoint.
+     */
+    private void serve(HttpExchange exchange, Route route) {
+        long started = System.nanoTime();
+        String endpoint = exchange.getRequestMethod() + " " + exchange.getHttpContext().getPath();
+        try {
+            String path = exchange.getRequestURI().getPath().substring(exchange.getHttpContext().getPath().length());
+            String[] segments = path.isEmpty() || path.equals("/") ? new String[0] : path.substring(1).split("/");
+            endpoint = route.handle(exchange, segments);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException || e instanceof CompletionException ? e.getCause() : e;
+            if (exchange.getResponseCode() == -1) { // nothing sent yet
+                try (Writer out = begin(exchange, status(cause))) {
+                    out.write("{\"error\":");
+                    Json.string(out, String.valueOf(cause.getMessage()));
+                    out.write("}\n");
+                } catch (IOException ignored) {
+                    // the client went away
+                }
+            } else {
+                System.out.println("Error: API " + endpoint + ": " + cause.getMessage());
+            }
+        } finally {
+            exchange.close();
+            latencies.computeIfAbsent(endpoint, key -> new LatencyHistogram()).record(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Maps a failure to its HTTP status: 404 from routing, 409 for a scheduling overlap, 400 for invalid input
+     * and 500 for database or I/O failures.
+     */
+    private static int status(Throwable failure) {
+        if (failure instanceof HttpError) {
+            return ((HttpError) failure).status;
+        }
+        if (failure instanceof SQLException || failure instanceof IOException) {
+            return 500;
+        }
+        if (failure instanceof RuntimeException) {
+            String message = failure.getMessage();
+            return message != null && message.startsWith("Overlap") ? 409 : 400;
+        }
+        return 500;
+    }
+
+    /**
+     * Streams a query's rows into a chunked response on a connection borrowed from the JDBC pool. The status is only
+     * sent with the first row, so a query that fails is still answered with an error object.
+     */
+    private static void stream(HttpExchange exchange, StreamExport export) throws SQLException, IOException {
+        try (Connection connection = JDBC.borrowConnection();
+             Writer out = begin(exchange, 200)) {
+            export.run(connection, out);
+        }
+    }
+
+    /** An Exporter call bound to everything but its connection and destination. */
+    @FunctionalInterface
+    private interface StreamExport {
+        long run(Connection connection, Writer out) throws SQLException, IOException;
+    }
+
+    /**
+     * Returns a writer for a chunked JSON response whose headers are sent on the first write.
+     */
+    private static Writer begin(HttpExchange exchange, int status) {
+        return new ResponseWriter(exchange, status);
+    }
+
+    /** A buffered UTF-8 writer over a response body that sends the status and headers when first written to. */
+    private static final class ResponseWriter extends Writer {
+        private final HttpExchange exchange;
+        private final int status;
+        private Writer out;
+
+        private ResponseWriter(HttpExchange exchange, int status) {
+            this.exchange = exchange;
+            this.status = status;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            open().write(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String text) throws IOException {
+            open().write(text);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            open().write(c);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            open().flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+            }
+        }
+
+        private Writer open() throws IOException {
+            if (out == null) {
+                exchange.getResponseHeaders().set("Content-Type", JSON);
+                exchange.sendResponseHeaders(status, 0); // chunked
+                out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8));
+            }
+            return out;
+        }
+    }
+
+    private static void writeObject(HttpExchange exchange, int status, String key, int value) throws IOException {
+        try (Writer out = begin(exchange, status)) {
+            out.write("{\"" + key + "\":" + value + "}\n");
+        }
+    }
+
+    private static <T> void writeArray(HttpExchange exchange, int status, List<T> values, JsonWriter<T> writer) throws IOException {
+        try (Writer out = begin(exchange, status)) {
+            array(out, values, writer);
+            out.write('\n');
+        }
+    }
+
+    private static <T> void array(Writer out, List<T> values, JsonWriter<T> writer) throws IOException {
+        out.write('[');
+        for (int i = 0; i < values.size(); i++) {
+            out.write(i == 0 ? "\n" : ",\n");
+            writer.write(out, values.get(i));
+        }
+        out.write("\n]");
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static Map<String, String> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return Json.parseObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int split = pair.indexOf('=');
+            String name = split < 0 ? pair : pair.substring(0, split);
+            String value = split < 0 ? "" : pair.substring(split + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    private static String required(Map<String, String> values, String name) {
+        String value = values.get(name);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate date(String value) {
+        return value == null || value.isEmpty() ? null : LocalDate.parse(value);
+    }
+
+    private static int id(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Not Found: " + segment);
+        }
+    }
+
+    private static void requireFound(int rows, String record, int id) {
+        if (rows == 0) {
+            throw new HttpError(404, record + " Not Found: " + id);
+        }
+    }
+
+    private static HttpError notFound(HttpExchange exchange) {
+        return new HttpError(404, "Not Found: " + exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath());
+    }
+
+    // REQUEST OBJECTS
+
+    private static Appointment appointment(Map<String, String> body, int id) {
+        return new Appointment(
+                id,
+                body.get("Title"),
+                body.get("Description"),
+                body.get("Location"),
+                body.get("Type"),
+                millis(required(body, "Start")),
+                millis(required(body, "End")),
+                Integer.parseInt(required(body, "Customer_ID")),
+                Integer.parseInt(required(body, "User_ID")),
+                Integer.parseInt(required(body, "Contact_ID")));
+    }
+
+    private static Recurrence recurrence(Map<String, String> body) {
+        Recurrence.Frequency frequency;
+        try {
+            frequency = Recurrence.Frequency.valueOf(required(body, "Frequency").toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Frequency Must Be DAILY, WEEKLY or MONTHLY");
+        }
+        return new Recurrence(
+                frequency,
+                body.get("Interval") == null ? 1 : Integer.parseInt(body.get("Interval")),
+                date(body.get("Until")),
+                body.get("Count") == null ? 0 : Integer.parseInt(body.get("Count")));
+    }
+
+    private static Customer customer(Map<String, String> body, int id) {
+        return new Customer(
+                id,
+                body.get("Customer_Name"),
+                body.get("Address"),
+                body.get("Postal_Code"),
+                body.get("Phone"),
+                Integer.parseInt(required(body, "Division_ID")),
+                null,
+                0,
+                null);
+    }
+
+    /** Converts an ISO local date-time to epoch milliseconds with Timestamp.valueOf, as the Controllers do. */
+    private static long millis(String dateTime) {
+        return Timestamp.valueOf(LocalDateTime.parse(dateTime)).getTime();
+    }
+
+    // RESPONSE OBJECTS
+
+    private static void appointment(Writer out, Appointment appointment) throws IOException {
+        out.write("{\"Appointment_ID\":" + appointment.getAppointment_ID() + ",\"Title\":");
+        Json.string(out, appointment.getTitle());
+        out.write(",\"Description\":");
+        Json.string(out, appointment.getDescription());
+        out.write(",\"Location\":");
+        Json.string(out, appointment.getLocation());
+        out.write(",\"Type\":");
+        Json.string(out, appointment.getType());
+        out.write(",\"Start\":");
+        Json.string(out, appointment.getStartDateTime().toString());
+        out.write(",\"End\":");
+        Json.string(out, appointment.getEndDateTime().toString());
+        out.write(",\"Customer_ID\":" + appointment.getCustomerID() + ",\"User_ID\":" + appointment.getUserID()
+                + ",\"Contact_ID\":" + appointment.getContactID() + "}");
+    }
+
+    private static void occurrence(Writer out, Occurrence occurrence) throws IOException {
+        out.write("{\"Series_ID\":" + occurrence.getSeries_ID() + ",\"Original_Start\":");
+        Json.string(out, dateTime(occurrence.getOriginal_Start()));
+        out.write(",\"Occurrence\":");
+        appointment(out, occurrence);
+        out.write('}');
+    }
+
+    private static void slot(Writer out, LocalDateTime[] slot) throws IOException {
+        out.write("{\"Start\":");
+        Json.string(out, slot[0].toString());
+        out.write(",\"End\":");
+        Json.string(out, slot[1].toString());
+        out.write('}');
+    }
+
+    private static void customer(Writer out, Customer customer) throws IOException {
+        out.write("{\"Customer_ID\":" + customer.getCustomer_ID() + ",\"Customer_Name\":");
+        Json.string(out, customer.getCustomer_Name());
+        out.write(",\"Address\":");
+        Json.string(out, customer.getAddress());
+        out.write(",\"Postal_Code\":");
+        Json.string(out, customer.getPostal_Code());
+        out.write(",\"Phone\":");
+        Json.string(out, customer.getPhone());
+        out.write(",\"Division_ID\":" + customer.getDivision_ID() + ",\"Division\":");
+        Json.string(out, customer.getDivision_Name());
+        out.write(",\"Country_ID\":" + customer.getCountry_ID() + ",\"Country\":");
+        Json.string(out, customer.getCountry_Name());
+        out.write('}');
+    }
+
+    private static void loginHour(Writer out, LoginHour hour) throws IOException {
+        out.write("{\"User\":");
+        Json.string(out, hour.getUser());
+        out.write(",\"Hour\":");
+        Json.string(out, dateTime(hour.getHour()));
+        out.write(",\"Attempts\":" + hour.getAttempts() + ",\"Failures\":" + hour.getFailures() + "}");
+    }
+
+    private static void loginSummary(Writer out, LoginSummary summary) throws IOException {
+        out.write("{\"User\":");
+        Json.string(out, summary.getUser());
+        out.write(",\"First_Login\":");
+        Json.string(out, dateTime(summary.getFirst_Login()));
+        out.write(",\"Last_Login\":");
+        Json.string(out, dateTime(summary.getLast_Login()));
+        out.write(",\"Attempts\":" + summary.getAttempts() + ",\"Failures\":" + summary.getFailures() + "}");
+    }
+
+    private static String dateTime(Long epochMillis) {
+        return epochMillis == null ? null : new Timestamp(epochMillis).toLocalDateTime().toString();
+    }
+
+    /**
+     * Returns a virtual-thread-per-request executor when the runtime provides one, otherwise a bounded pool of daemon
+     * threads. Looked up reflectively because the application is built for Java 17.
+     */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            AtomicInteger threadCount = new AtomicInteger();
+            return Executors.newFixedThreadPool(JDBC.getPoolSize() * 4, runnable -> {
+                Thread thread = new Thread(runnable, "schedual-http-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
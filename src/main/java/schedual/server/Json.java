@@ -0,0 +1,159 @@
+package schedual.server;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Minimal JSON support for the ApiServer: string quoting for responses, and a parser for the flat request objects
+ * the API accepts.
+ * <p> Request objects hold only strings, numbers, booleans and nulls. Values are returned as their text, and keys are
+ * matched without regard to case, like the MySQL column names they mirror.
+ * @author Ben Porter
+ */
+class Json {
+    private final String text;
+    private int position;
+
+    private Json(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Writes a value as a JSON string literal.
+     * @param out the destination.
+     * @param value the text to quote; null writes null.
+     * @throws IOException when the text could not be written.
+     */
+    static void string(Writer out, String value) throws IOException {
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.write("\\\""); break;
+                case '\\': out.write("\\\\"); break;
+                case '\n': out.write("\\n"); break;
+                case '\r': out.write("\\r"); break;
+                case '\t': out.write("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        out.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.write(c);
+                    }
+            }
+        }
+        out.write('"');
+    }
+
+    /**
+     * Parses a flat JSON object.
+     * @param text the request body.
+     * @return each member's value as text, null for JSON null, keyed without regard to case.
+     * @throws IllegalArgumentException when the text is not a flat JSON object.
+     */
+    static Map<String, String> parseObject(String text) {
+        Json parser = new Json(text);
+        Map<String, String> members = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        parser.expect('{');
+        if (parser.peek() == '}') {
+            parser.position++;
+        } else {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                members.put(key, parser.value());
+            } while (parser.next(',', '}') == ',');
+        }
+        if (parser.peek() != 0) {
+            throw new IllegalArgumentException("Invalid JSON: unexpected text after the object");
+        }
+        return members;
+    }
+
+    private String value() {
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{' || c == '[') {
+            throw new IllegalArgumentException("Invalid JSON: only strings, numbers, booleans and null are accepted");
+        }
+        int start = position;
+        while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+            position++;
+        }
+        String literal = text.substring(start, position);
+        if (literal.equals("null")) {
+            return null;
+        }
+        if (literal.isEmpty()) {
+            throw new IllegalArgumentException("Invalid JSON: missing value at position " + position);
+        }
+        return literal;
+    }
+
+    private String string() {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (position >= text.length()) {
+                break;
+            }
+            char escaped = text.charAt(position++);
+            switch (escaped) {
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'u':
+                    if (position + 4 > text.length()) {
+                        throw new IllegalArgumentException("Invalid JSON: truncated escape");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                    position += 4;
+                    break;
+                default: value.append(escaped);
+            }
+        }
+        throw new IllegalArgumentException("Invalid JSON: unterminated string");
+    }
+
+    private void expect(char expected) {
+        if (peek() != expected) {
+            throw new IllegalArgumentException("Invalid JSON: expected '" + expected + "' at position " + position);
+        }
+        position++;
+    }
+
+    private char next(char first, char second) {
+        char c = peek();
+        if (c != first && c != second) {
+            throw new IllegalArgumentException("Invalid JSON: expected '" + first + "' or '" + second + "' at position " + position);
+        }
+        position++;
+        return c;
+    }
+
+    /** Skips whitespace and returns the next character without consuming it, or 0 at the end of the text. */
+    private char peek() {
+        while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+            position++;
+        }
+        return position < text.length() ? text.charAt(position) : 0;
+    }
+}
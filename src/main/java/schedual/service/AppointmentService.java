@@ -0,0 +1,458 @@
+package schedual.service;
+
+import schedual.helper.AppointmentIndex;
+import schedual.helper.AppointmentPager;
+import schedual.helper.ConflictChecker;
+import schedual.helper.DeletionJournal;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.RowMappers;
+import schedual.helper.SearchIndex;
+import schedual.helper.SeriesQueries;
+import schedual.helper.Validation;
+import schedual.model.Appointment;
+import schedual.model.AppointmentSeries;
+import schedual.model.Occurrence;
+import schedual.model.OccurrenceOverride;
+import schedual.model.Recurrence;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Appointment Service - validates, conflict-checks and writes appointments, and reads them a page or a search at a time.
+ * <p> Every write is validated with the Validation rules, then conflict-checked by the ConflictChecker on the connection
+ * that writes it. The in-memory AppointmentIndex is not consulted, since it only catches up with other sessions' writes
+ * on its next refresh. The AppointmentIndex and SearchIndex are updated once the write succeeds.
+ * <p> Availability - a contact's free slots in a day and who is busy at a time - is answered from the AppointmentIndex,
+ * refreshed from its ChangeFeed first, plus the series occurrences in the range.
+ * <p> Recurring appointments are written once as an AppointmentSeries. Creating one checks every occurrence with one
+ * ConflictChecker query and one SeriesQueries query over the whole series; editing or cancelling a single occurrence
+ * stores an exception instead of an appointments row. Occurrences are not held in the AppointmentIndex or SearchIndex.
+ * @author Ben Porter
+ */
+public class AppointmentService extends Service {
+    private static final String INSERT_SQL = "INSERT INTO Appointments (title, description, location, type, start, end, " +
+            "create_date, created_by, last_update,last_updated_by, customer_ID, user_ID, contact_ID)\n" +
+            "VALUES (?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?, ?, ?);";
+    private static final String UPDATE_SQL = "UPDATE Appointments " +
+            "SET title = ?, description = ?, location = ?, type = ?, start = ?, end = ?, last_update = CURRENT_TIMESTAMP," +
+            " last_updated_by = ?, customer_id = ?, user_id = ?, contact_id = ? " +
+            "WHERE Appointment_ID = ?";
+    private static final String DELETE_SQL = "DELETE FROM Appointments WHERE Appointment_ID = ?";
+
+    /**
+     * Creates an AppointmentService running on the DataAccessService executor.
+     */
+    public AppointmentService() {
+        super();
+    }
+
+    /**
+     * Creates an AppointmentService running on the given executor.
+     * @param executor runs the service's operations.
+     */
+    public AppointmentService(Executor executor) {
+        super(executor);
+    }
+
+    /**
+     * Throws unless the appointment's text fields are filled in and it falls within business hours.
+     * @param appointment the appointment to check.
+     * @throws RuntimeException carrying the message shown to the user.
+     */
+    public static void validate(Appointment appointment) {
+        Validation.requireNonEmpty(appointment.getTitle(), appointment.getDescription(), appointment.getLocation(),
+                appointment.getType());
+        Validation.requireBusinessHours(appointment.getStartDateTime(), appointment.getEndDateTime());
+    }
+
+    /**
+     * Throws unless the series' first occurrence is valid, its rule ends on a date or after a number of occurrences, and
+     * every occurrence falls within business hours.
+     * @param series the series to check.
+     * @throws RuntimeException carrying the message shown to the user.
+     */
+    public static void validate(AppointmentSeries series) {
+        validate(series.getFirst());
+        Recurrence rule = series.getRule();
+        if (rule.getFrequency() == null || rule.getInterval() < 1) {
+            throw new RuntimeException("Choose How Often The Appointment Repeats");
+        }
+        if ((rule.getUntil() == null) == (rule.getCount() <= 0)) {
+            throw new RuntimeException("Enter Either An End Date Or A Number Of Occurrences");
+        }
+        int size = series.size();
+        if (size < 1) {
+            throw new RuntimeException("The End Date May Not Be Before The First Occurrence");
+        }
+        if (size > Recurrence.MAX_OCCURRENCES) {
+            throw new RuntimeException("A Recurring Appointment May Not Have More Than " + Recurrence.MAX_OCCURRENCES + " Occurrences");
+        }
+        for (Occurrence occurrence : series.occurrences(Long.MIN_VALUE, Long.MAX_VALUE)) {
+            Validation.requireBusinessHours(occurrence.getStartDateTime(), occurrence.getEndDateTime());
+        }
+    }
+
+    /**
+     * Inserts a new appointment. Its Appointment_ID is ignored.
+     * @param appointment the appointment to create.
+     * @return a future for the generated Appointment ID.
+     */
+    public CompletableFuture<Integer> add(Appointment appointment) {
+        return supply(connection -> {
+            LocalDateTime start = appointment.getStartDateTime();
+            LocalDateTime end = appointment.getEndDateTime();
+            validate(appointment);
+            ConflictChecker.requireNoConflicts(connection, start, end, appointment.getCustomerID(),
+                    appointment.getContactID(), appointment.getUserID(), -1);
+            SeriesQueries.requireNoConflicts(connection, List.of(appointment), appointment.getCustomerID(),
+                    appointment.getContactID(), appointment.getUserID(), null);
+            int id = QueryExecutor.insert(connection, INSERT_SQL,
+                    appointment.getTitle(),
+                    appointment.getDescription(),
+                    appointment.getLocation(),
+                    appointment.getType(),
+                    Timestamp.valueOf(start), // Start
+                    Timestamp.valueOf(end), // End
+                    JDBC.getUserName(),
+                    JDBC.getUserName(),
+                    appointment.getCustomerID(),
+                    appointment.getUserID(),
+                    appointment.getContactID());
+            index(id, appointment);
+            return id;
+        });
+    }
+
+    /**
+     * Overwrites the appointment with the same Appointment_ID.
+     * @param appointment the new values of the appointment.
+     * @return a future for the number of rows updated.
+     */
+    public CompletableFuture<Integer> update(Appointment appointment) {
+        return supply(connection -> {
+            int id = appointment.getAppointment_ID();
+            LocalDateTime start = appointment.getStartDateTime();
+            LocalDateTime end = appointment.getEndDateTime();
+            validate(appointment);
+            ConflictChecker.requireNoConflicts(connection, start, end, appointment.getCustomerID(),
+                    appointment.getContactID(), appointment.getUserID(), id);
+            SeriesQueries.requireNoConflicts(connection, List.of(appointment), appointment.getCustomerID(),
+                    appointment.getContactID(), appointment.getUserID(), null);
+            int rows = QueryExecutor.update(connection, UPDATE_SQL,
+                    appointment.getTitle(),
+                    appointment.getDescription(),
+                    appointment.getLocation(),
+                    appointment.getType(),
+                    Timestamp.valueOf(start),
+                    Timestamp.valueOf(end),
+                    JDBC.getUserName(),
+                    appointment.getCustomerID(),
+                    appointment.getUserID(),
+                    appointment.getContactID(),
+                    id);
+            if (rows > 0) {
+                index(id, appointment);
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Deletes an appointment and records it in the DeletionJournal, in one transaction.
+     * @param appointmentID int ID of the appointment.
+     * @return a future for the number of rows deleted.
+     */
+    public CompletableFuture<Integer> delete(int appointmentID) {
+        return supplyInTransaction(connection -> {
+            int rows = QueryExecutor.update(connection, DELETE_SQL, appointmentID);
+            if (rows > 0) {
+                DeletionJournal.record(connection, "appointments", appointmentID);
+            }
+            AppointmentIndex.remove(appointmentID);
+            SearchIndex.removeAppointment(appointmentID);
+            return rows;
+        });
+    }
+
+    /**
+     * Inserts a new recurring series. Its Series_ID is ignored. Every occurrence is conflict-checked against the stored
+     * appointments and series with one query each, spanning the whole series.
+     * @param series the series to create.
+     * @return a future for the generated Series ID.
+     */
+    public CompletableFuture<Integer> addSeries(AppointmentSeries series) {
+        return supply(connection -> {
+            validate(series);
+            Appointment first = series.getFirst();
+            List<Occurrence> occurrences = series.occurrences(Long.MIN_VALUE, Long.MAX_VALUE);
+            List<Integer> conflicts = ConflictChecker.findConflicts(connection, occurrences, first.getCustomerID(),
+                    first.getContactID(), first.getUserID());
+            if (!conflicts.isEmpty()) {
+                throw new RuntimeException("Overlap: The Customer, Contact or User is already booked during an occurrence." +
+                        "\nConflicting Appointment ID(s): " + conflicts);
+            }
+            SeriesQueries.requireNoConflicts(connection, occurrences, first.getCustomerID(), first.getContactID(),
+                    first.getUserID(), null);
+            return SeriesQueries.insert(connection, series);
+        });
+    }
+
+    /**
+     * Stores an edit of one occurrence of a series as an exception, leaving the other occurrences as they are.
+     * @param seriesID int ID of the series.
+     * @param originalStart epoch milliseconds the occurrence starts at according to the series' rule.
+     * @param appointment the new values of the occurrence; its Appointment_ID is ignored.
+     * @return a future for the number of occurrences updated, 0 if the series has no such occurrence.
+     */
+    public CompletableFuture<Integer> updateOccurrence(int seriesID, long originalStart, Appointment appointment) {
+        return supply(connection -> {
+            validate(appointment);
+            AppointmentSeries series = SeriesQueries.findById(connection, seriesID);
+            Occurrence occurrence = series == null ? null : series.scheduled(originalStart);
+            if (occurrence == null) {
+                return 0;
+            }
+            ConflictChecker.requireNoConflicts(connection, appointment.getStartDateTime(), appointment.getEndDateTime(),
+                    appointment.getCustomerID(), appointment.getContactID(), appointment.getUserID(), -1);
+            SeriesQueries.requireNoConflicts(connection, List.of(appointment), appointment.getCustomerID(),
+                    appointment.getContactID(), appointment.getUserID(), occurrence);
+            SeriesQueries.putOverride(connection, new OccurrenceOverride(seriesID, originalStart, false, appointment));
+            return 1;
+        });
+    }
+
+    /**
+     * Cancels one occurrence of a series by storing an exception, leaving the other occurrences as they are.
+     * @param seriesID int ID of the series.
+     * @param originalStart epoch milliseconds the occurrence starts at according to the series' rule.
+     * @return a future for the number of occurrences cancelled, 0 if the series has no such occurrence.
+     */
+    public CompletableFuture<Integer> cancelOccurrence(int seriesID, long originalStart) {
+        return supply(connection -> {
+            AppointmentSeries series = SeriesQueries.findById(connection, seriesID);
+            if (series == null || series.scheduled(originalStart) == null) {
+                return 0;
+            }
+            SeriesQueries.putOverride(connection, new OccurrenceOverride(seriesID, originalStart, true, null));
+            return 1;
+        });
+    }
+
+    /**
+     * Deletes a series, every occurrence and every exception of it.
+     * @param seriesID int ID of the series.
+     * @return a future for the number of series deleted.
+     */
+    public CompletableFuture<Integer> deleteSeries(int seriesID) {
+        return supply(connection -> SeriesQueries.delete(connection, seriesID));
+    }
+
+    /**
+     * Expands the occurrences of every series starting between two dates, with their exceptions applied.
+     * @param from LocalDate the range starts at, null for no lower bound.
+     * @param to LocalDate the range ends at, null for no upper bound.
+     * @return a future for the occurrences, in start order.
+     */
+    public CompletableFuture<List<Occurrence>> occurrences(LocalDate from, LocalDate to) {
+        return supply(connection -> {
+            Timestamp start = from == null ? null : Timestamp.valueOf(from.atStartOfDay());
+            Timestamp end = to == null ? null : Timestamp.valueOf(to.atStartOfDay());
+            List<Occurrence> occurrences = new ArrayList<>();
+            for (AppointmentSeries series : SeriesQueries.findInRange(connection, start, end)) {
+                occurrences.addAll(series.occurrences(start == null ? Long.MIN_VALUE : start.getTime(),
+                        end == null ? Long.MAX_VALUE : end.getTime()));
+            }
+            occurrences.sort(Comparator.comparingLong(Appointment::getStart).thenComparingInt(Appointment::getAppointment_ID));
+            return occurrences;
+        });
+    }
+
+    /**
+     * Returns the free ranges of a contact's schedule within the business hours of a day, from the AppointmentIndex
+     * after refreshing it, less the contact's series occurrences that day.
+     * @param contactID int ID of the contact.
+     * @param day LocalDate the business day.
+     * @return a future for the gaps as {start, end} pairs of LocalDateTime, in time order.
+     */
+    public CompletableFuture<List<LocalDateTime[]>> freeSlots(int contactID, LocalDate day) {
+        return supply(connection -> {
+            LocalDateTime[] hours = Validation.businessHours(day);
+            AppointmentIndex.refresh(connection);
+            List<LocalDateTime[]> slots = AppointmentIndex.freeSlotsForContact(contactID, hours[0], hours[1]);
+            for (Occurrence occurrence : occurrencesOverlapping(connection, hours[0], hours[1])) {
+                if (occurrence.getContactID() == contactID) {
+                    slots = without(slots, occurrence.getStartDateTime(), occurrence.getEndDateTime());
+                }
+            }
+            return slots;
+        });
+    }
+
+    /**
+     * Returns the contacts and customers with an appointment or series occurrence in progress at a time, from the
+     * AppointmentIndex after refreshing it.
+     * @param instant LocalDateTime to check.
+     * @return a future for {Contact IDs, Customer IDs}, each in ascending order.
+     */
+    public CompletableFuture<List<List<Integer>>> busyAt(LocalDateTime instant) {
+        return supply(connection -> {
+            AppointmentIndex.refresh(connection);
+            TreeSet<Integer> contacts = new TreeSet<>(AppointmentIndex.busyContactsAt(instant));
+            TreeSet<Integer> customers = new TreeSet<>(AppointmentIndex.busyCustomersAt(instant));
+            for (Occurrence occurrence : occurrencesOverlapping(connection, instant, instant.plusNanos(1_000_000))) {
+                contacts.add(occurrence.getContactID());
+                customers.add(occurrence.getCustomerID());
+            }
+            return List.of(new ArrayList<>(contacts), new ArrayList<>(customers));
+        });
+    }
+
+    /**
+     * Counts the appointments and series occurrences in the pager's range.
+     * @param pager the range and sort order.
+     * @return a future for the count.
+     */
+    public CompletableFuture<Integer> count(AppointmentPager pager) {
+        return supply(pager::count);
+    }
+
+    /**
+     * Reads the first page of the pager's range.
+     * @param pager the range and sort order.
+     * @return a future for the page, in sort order.
+     */
+    public CompletableFuture<List<Appointment>> firstPage(AppointmentPager pager) {
+        return supply(pager::firstPage);
+    }
+
+    /**
+     * Reads the page after an appointment already shown.
+     * @param pager the range and sort order.
+     * @param last the last appointment of the current page.
+     * @return a future for the page, in sort order.
+     */
+    public CompletableFuture<List<Appointment>> pageAfter(AppointmentPager pager, Appointment last) {
+        return supply(connection -> pager.pageAfter(connection, last));
+    }
+
+    /**
+     * Reads the page before an appointment already shown.
+     * @param pager the range and sort order.
+     * @param first the first appointment of the current page.
+     * @return a future for the page, in sort order.
+     */
+    public CompletableFuture<List<Appointment>> pageBefore(AppointmentPager pager, Appointment first) {
+        return supply(connection -> pager.pageBefore(connection, first));
+    }
+
+    /**
+     * Re-reads the rows shown from a loaded row on, that row included.
+     * @param pager the range and sort order.
+     * @param first the first loaded row, null to start at the first page.
+     * @param size the number of rows to read.
+     * @return a future for the rows, in sort order.
+     */
+    public CompletableFuture<List<Appointment>> window(AppointmentPager pager, Appointment first, int size) {
+        return supply(connection -> pager.window(connection, first, size));
+    }
+
+    /**
+     * Searches every appointment through the SearchIndex, which must be loaded.
+     * @param text the search text.
+     * @param limit the most results to return.
+     * @return a future for the matching appointments, best match first.
+     */
+    public CompletableFuture<List<Appointment>> search(String text, int limit) {
+        return supply(connection -> findByIds(connection, SearchIndex.searchAppointments(text, limit)));
+    }
+
+    /**
+     * Reads the appointments with the given IDs, keeping the order of the IDs.
+     * @param connection the connection to query on.
+     * @param ids Appointment IDs in display order.
+     * @return the appointments that still exist, in the order of ids.
+     * @throws SQLException when the appointments could not be read.
+     */
+    private static List<Appointment> findByIds(Connection connection, List<Integer> ids) throws SQLException {
+        List<Appointment> ranked = new ArrayList<>();
+        if (ids.isEmpty()) {
+            return ranked;
+        }
+        String sql = "SELECT * FROM appointments WHERE Appointment_ID IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        Map<Integer, Appointment> byId = new HashMap<>();
+        QueryExecutor.forEach(connection, sql, rs -> {
+            Appointment appointment = RowMappers.appointment(rs);
+            byId.put(appointment.getAppointment_ID(), appointment);
+        }, ids.toArray());
+        for (int id : ids) {
+            Appointment appointment = byId.get(id);
+            if (appointment != null) {
+                ranked.add(appointment);
+            }
+        }
+        return ranked;
+    }
+
+    /**
+     * Reads the series occurrences overlapping [from, to). Appointments stay within one business day, so only the
+     * occurrences starting up to a day before from are read.
+     */
+    private static List<Occurrence> occurrencesOverlapping(Connection connection, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        Timestamp start = Timestamp.valueOf(from.minusDays(1));
+        Timestamp end = Timestamp.valueOf(to);
+        List<Occurrence> overlapping = new ArrayList<>();
+        for (AppointmentSeries series : SeriesQueries.findInRange(connection, start, end)) {
+            for (Occurrence occurrence : series.occurrences(start.getTime(), end.getTime())) {
+                if (occurrence.getStartDateTime().isBefore(to) && occurrence.getEndDateTime().isAfter(from)) {
+                    overlapping.add(occurrence);
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Returns the slots with [from, to) cut out of them.
+     */
+    private static List<LocalDateTime[]> without(List<LocalDateTime[]> slots, LocalDateTime from, LocalDateTime to) {
+        List<LocalDateTime[]> remaining = new ArrayList<>();
+        for (LocalDateTime[] slot : slots) {
+            if (!from.isBefore(slot[1]) || !to.isAfter(slot[0])) {
+                remaining.add(slot);
+                continue;
+            }
+            if (slot[0].isBefore(from)) {
+                remaining.add(new LocalDateTime[]{slot[0], from});
+            }
+            if (to.isBefore(slot[1])) {
+                remaining.add(new LocalDateTime[]{to, slot[1]});
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Puts a written appointment into the AppointmentIndex and SearchIndex.
+     */
+    private static void index(int id, Appointment appointment) {
+        AppointmentIndex.put(id, appointment.getStartDateTime(), appointment.getEndDateTime(),
+                appointment.getCustomerID(), appointment.getContactID());
+        SearchIndex.putAppointment(id, appointment.getTitle(), appointment.getDescription(),
+                appointment.getLocation(), appointment.getType(), appointment.getCustomerID());
+    }
+}
@@ -0,0 +1,164 @@
+package schedual.service;
+
+import schedual.helper.AppointmentIndex;
+import schedual.helper.ChangeFeed;
+import schedual.helper.DeletionJournal;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.ReferenceData;
+import schedual.helper.SearchIndex;
+import schedual.helper.Validation;
+import schedual.model.Customer;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Customer Service - validates and writes customers, and reads them with their division and country.
+ * <p> The SearchIndex, the AppointmentIndex and the ReferenceData cache of customers are kept current after every write.
+ * Deleting a customer also deletes its appointments, through the foreign key.
+ * @author Ben Porter
+ */
+public class CustomerService extends Service {
+    private static final String CUSTOMER_SQL = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, " +
+            "customers.Division_ID, Division, countries.Country_ID, Country, customers.Last_Update AS Change_Time FROM customers " +
+            "JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID " +
+            "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID";
+    private static final String INSERT_SQL = "INSERT INTO Customers (customer_name, address, postal_code, phone," +
+            " create_date, created_by, last_update, last_updated_by, division_id)\n" +
+            "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, ?, ?);";
+    private static final String UPDATE_SQL = "UPDATE Customers SET customer_name = ?, address = ?, postal_code = ?, phone = ?, last_update = CURRENT_TIMESTAMP," +
+            " last_updated_by = ?, division_id = ? WHERE Customer_Id = ?";
+    private static final String DELETE_SQL = "DELETE FROM Customers WHERE Customer_Id = ?";
+
+    /**
+     * Creates a CustomerService running on the DataAccessService executor.
+     */
+    public CustomerService() {
+        super();
+    }
+
+    /**
+     * Creates a CustomerService running on the given executor.
+     * @param executor runs the service's operations.
+     */
+    public CustomerService(Executor executor) {
+        super(executor);
+    }
+
+    /**
+     * Throws unless the customer's text fields are filled in.
+     * @param customer the customer to check.
+     * @throws RuntimeException carrying the message shown to the user.
+     */
+    public static void validate(Customer customer) {
+        Validation.requireNonEmpty(customer.getCustomer_Name(), customer.getAddress(), customer.getPostal_Code(),
+                customer.getPhone());
+    }
+
+    /**
+     * Returns a new ChangeFeed over the customers table, yielding rows in the same shape as findAll.
+     * @return a change feed with no watermark.
+     */
+    public ChangeFeed<Customer> changeFeed() {
+        return new ChangeFeed<>("customers", "Customer_ID", CUSTOMER_SQL, "customers.Last_Update", CustomerService::customer);
+    }
+
+    /**
+     * Reads every customer with its division and country.
+     * @return a future for the customers.
+     */
+    public CompletableFuture<List<Customer>> findAll() {
+        return supply(connection -> QueryExecutor.query(connection, CUSTOMER_SQL, CustomerService::customer));
+    }
+
+    /**
+     * Inserts a new customer. Its Customer_ID is ignored.
+     * @param customer the customer to create.
+     * @return a future for the generated Customer ID.
+     */
+    public CompletableFuture<Integer> add(Customer customer) {
+        return supply(connection -> {
+            validate(customer);
+            int id = QueryExecutor.insert(connection, INSERT_SQL,
+                    customer.getCustomer_Name(),
+                    customer.getAddress(),
+                    customer.getPostal_Code(),
+                    customer.getPhone(),
+                    JDBC.getUserName(),
+                    JDBC.getUserName(),
+                    customer.getDivision_ID());
+            SearchIndex.putCustomer(id, customer.getCustomer_Name(), customer.getAddress(),
+                    customer.getPostal_Code(), customer.getPhone());
+            ReferenceData.invalidate(ReferenceData.Table.CUSTOMERS);
+            return id;
+        });
+    }
+
+    /**
+     * Overwrites the customer with the same Customer_ID.
+     * @param customer the new values of the customer.
+     * @return a future for the number of rows updated.
+     */
+    public CompletableFuture<Integer> update(Customer customer) {
+        return supply(connection -> {
+            validate(customer);
+            int rows = QueryExecutor.update(connection, UPDATE_SQL,
+                    customer.getCustomer_Name(),
+                    customer.getAddress(),
+                    customer.getPostal_Code(),
+                    customer.getPhone(),
+                    JDBC.getUserName(),
+                    customer.getDivision_ID(),
+                    customer.getCustomer_ID());
+            if (rows > 0) {
+                SearchIndex.putCustomer(customer.getCustomer_ID(), customer.getCustomer_Name(), customer.getAddress(),
+                        customer.getPostal_Code(), customer.getPhone());
+            }
+            ReferenceData.invalidate(ReferenceData.Table.CUSTOMERS);
+            return rows;
+        });
+    }
+
+    /**
+     * Deletes a customer and, through the foreign key, its appointments, and records them all in the DeletionJournal, in
+     * one transaction.
+     * @param customerID int ID of the customer.
+     * @return a future for the number of rows deleted.
+     */
+    public CompletableFuture<Integer> delete(int customerID) {
+        return supplyInTransaction(connection -> {
+            DeletionJournal.recordAppointmentsOf(connection, customerID);
+            int rows = QueryExecutor.update(connection, DELETE_SQL, customerID);
+            if (rows > 0) {
+                DeletionJournal.record(connection, "customers", customerID);
+            }
+            AppointmentIndex.removeCustomer(customerID);
+            SearchIndex.removeCustomer(customerID);
+            ReferenceData.invalidate(ReferenceData.Table.CUSTOMERS);
+            return rows;
+        });
+    }
+
+    /**
+     * Maps a row of CUSTOMER_SQL.
+     * @param rs the ResultSet positioned on a customers row.
+     * @return the Customer for the row.
+     * @throws SQLException when a column could not be read.
+     */
+    private static Customer customer(ResultSet rs) throws SQLException {
+        return new Customer(
+                rs.getInt("Customer_ID"),
+                rs.getString("Customer_Name"),
+                rs.getString("Address"),
+                rs.getString("Postal_Code"),
+                rs.getString("Phone"),
+                rs.getInt("Division_ID"),
+                rs.getString("Division"),
+                rs.getInt("Country_ID"),
+                rs.getString("Country"));
+    }
+}
@@ -0,0 +1,175 @@
+package schedual.service;
+
+import schedual.helper.LoginStore;
+import schedual.helper.ReportQueries;
+import schedual.model.Appointment;
+import schedual.model.Engagement;
+import schedual.model.LoginHour;
+import schedual.model.LoginSummary;
+import schedual.model.MonthTypeCount;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Report Service - answers the Reports Dashboard: Appointment Totals, Customer Engagement, Contact Schedule and Login
+ * Activity.
+ * <p> Counting is pushed down to MySQL with GROUP BY, and the occurrences of recurring series are added by ReportQueries;
+ * Login Activity is answered from the local LoginStore and reads nothing from MySQL.
+ * @author Ben Porter
+ */
+public class ReportService extends Service {
+
+    /**
+     * The Customer Engagement report: every customer's last and next appointment, and how many have no follow-up.
+     */
+    public static final class EngagementReport {
+        private final List<Engagement> engagements;
+        private final int customersWithNoFollowUp;
+
+        private EngagementReport(List<Engagement> engagements, int customersWithNoFollowUp) {
+            this.engagements = engagements;
+            this.customersWithNoFollowUp = customersWithNoFollowUp;
+        }
+
+        /**
+         * Returns the Engagement rows ordered by Customer ID.
+         * @return engagements
+         */
+        public List<Engagement> getEngagements() {
+            return engagements;
+        }
+
+        /**
+         * Returns the number of customers without a follow-up appointment.
+         * @return customers with no next appointment
+         */
+        public int getCustomersWithNoFollowUp() {
+            return customersWithNoFollowUp;
+        }
+    }
+
+    /**
+     * The Login Activity report for a time range, with the size of the ingest that preceded it.
+     */
+    public static final class LoginActivity {
+        private final int ingested;
+        private final long stored;
+        private final List<LoginHour> hours;
+        private final List<LoginSummary> summaries;
+
+        private LoginActivity(int ingested, long stored, List<LoginHour> hours, List<LoginSummary> summaries) {
+            this.ingested = ingested;
+            this.stored = stored;
+            this.hours = hours;
+            this.summaries = summaries;
+        }
+
+        /**
+         * Returns the number of attempts appended to the LoginStore by this request.
+         * @return newly ingested attempts
+         */
+        public int getIngested() {
+            return ingested;
+        }
+
+        /**
+         * Returns the number of attempts held in the LoginStore.
+         * @return stored attempts
+         */
+        public long getStored() {
+            return stored;
+        }
+
+        /**
+         * Returns attempts and failures by user and hour.
+         * @return LoginHour rows
+         */
+        public List<LoginHour> getHours() {
+            return hours;
+        }
+
+        /**
+         * Returns each user's first and last log-in, attempts and failures.
+         * @return LoginSummary rows
+         */
+        public List<LoginSummary> getSummaries() {
+            return summaries;
+        }
+    }
+
+    /**
+     * Creates a ReportService running on the DataAccessService executor.
+     */
+    public ReportService() {
+        super();
+    }
+
+    /**
+     * Creates a ReportService running on the given executor.
+     * @param executor runs the service's operations.
+     */
+    public ReportService(Executor executor) {
+        super(executor);
+    }
+
+    /**
+     * Reads the distinct years that have appointments or occurrences of recurring series.
+     * @return a future for the years, ascending.
+     */
+    public CompletableFuture<List<Integer>> years() {
+        return supply(ReportQueries::years);
+    }
+
+    /**
+     * Counts appointments and occurrences of recurring series for each combination of Year, Month and Type.
+     * @param year the calendar year to count, null counts every year.
+     * @return a future for the MonthTypeCount rows, ordered by Year, Month and Type.
+     */
+    public CompletableFuture<List<MonthTypeCount>> monthTypeCounts(Integer year) {
+        return supply(connection -> ReportQueries.monthTypeTotals(connection, year));
+    }
+
+    /**
+     * Reads every Customer's last and next appointment or occurrence, null where a value is not found, and counts the
+     * customers without a follow-up appointment.
+     * @return a future for the Customer Engagement report.
+     */
+    public CompletableFuture<EngagementReport> engagement() {
+        return supply(connection -> {
+            List<Engagement> engagements = ReportQueries.engagement(connection, System.currentTimeMillis());
+            int noFollowUp = 0;
+            for (Engagement engagement : engagements) {
+                if (engagement.getNext_Appointment() == null) {
+                    noFollowUp++;
+                }
+            }
+            return new EngagementReport(engagements, noFollowUp);
+        });
+    }
+
+    /**
+     * Reads every appointment and occurrence of a contact.
+     * @param contactID int ID of the contact.
+     * @return a future for the contact's appointments, in start order.
+     */
+    public CompletableFuture<List<Appointment>> contactSchedule(int contactID) {
+        return supply(connection -> ReportQueries.contactSchedule(connection, contactID));
+    }
+
+    /**
+     * Ingests the attempts logged since the last ingest into the LoginStore, then answers both Login Activity tables
+     * from the store's time index.
+     * @param from epoch milliseconds the range starts at, inclusive.
+     * @param to epoch milliseconds the range ends at, exclusive.
+     * @return a future for the Login Activity report.
+     */
+    public CompletableFuture<LoginActivity> loginActivity(long from, long to) {
+        return supplyLocal(() -> {
+            LoginStore store = LoginStore.shared();
+            int ingested = store.ingest();
+            return new LoginActivity(ingested, store.size(), store.failuresByUserHour(from, to), store.summaryByUser(from, to));
+        });
+    }
+}
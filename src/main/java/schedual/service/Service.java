@@ -0,0 +1,119 @@
+package schedual.service;
+
+import schedual.helper.DataAccessService;
+import schedual.helper.JDBC;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Base of the Scheduling Services - runs each operation on an executor with its own connection borrowed from the JDBC
+ * pool and returns a CompletableFuture for its result.
+ * <p> Services take and return plain model objects and never touch JavaFX, so the same operations back the Controllers,
+ * the benchmarks and any headless caller. Controllers hand the futures to DataAccessService.publish to receive the
+ * outcome on the FX thread.
+ * <p> By default every service runs on the DataAccessService executor, so services and screen queries together never
+ * wait on more connections than the JDBC pool holds; a caller may supply its own Executor.
+ * @author Ben Porter
+ */
+public abstract class Service {
+
+    /**
+     * A unit of database work run on a service thread.
+     * @param <T> the result of the work.
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        /**
+         * Runs the work on a pooled connection. The connection is returned to the pool afterwards; do not close it.
+         * @param connection the borrowed connection.
+         * @return the result of the work.
+         * @throws SQLException when the work could not be completed.
+         */
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final Executor executor;
+
+    /**
+     * Creates a service running on the DataAccessService executor.
+     */
+    Service() {
+        this(DataAccessService.executor());
+    }
+
+    /**
+     * Creates a service running on the given executor.
+     * @param executor runs the service's operations.
+     */
+    Service(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Stops the executor the services share with DataAccessService. Used when the application exits.
+     */
+    public static void shutdown() {
+        DataAccessService.shutdown();
+    }
+
+    /**
+     * Runs database work on the executor with a borrowed connection.
+     * @param work the database work.
+     * @param <T> the result type.
+     * @return a future completed with the result, or exceptionally with the failure.
+     */
+    <T> CompletableFuture<T> supply(Work<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection connection = JDBC.borrowConnection()) {
+                return work.run(connection);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Runs database work on the executor in one transaction on a borrowed connection, rolled back if the work fails.
+     * @param work the database work.
+     * @param <T> the result type.
+     * @return a future completed with the result, or exceptionally with the failure.
+     */
+    <T> CompletableFuture<T> supplyInTransaction(Work<T> work) {
+        return supply(connection -> {
+            connection.setAutoCommit(false);
+            try {
+                T result = work.run(connection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+    }
+
+    /**
+     * Runs work that needs no database connection, such as reading local files, on the executor.
+     * @param work the background work.
+     * @param <T> the result type.
+     * @return a future completed with the result, or exceptionally with the failure.
+     */
+    <T> CompletableFuture<T> supplyLocal(Callable<T> work) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return work.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+}
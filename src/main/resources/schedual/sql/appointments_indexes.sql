@@ -0,0 +1,20 @@
+-- Composite indexes backing schedual.helper.ConflictChecker.
+-- Each branch of the conflict query seeks on one participant column and range-scans Start.
+CREATE INDEX idx_appointments_customer_start ON appointments (Customer_ID, Start, End);
+CREATE INDEX idx_appointments_contact_start ON appointments (Contact_ID, Start, End);
+CREATE INDEX idx_appointments_user_start ON appointments (User_ID, Start, End);
+
+-- Keyset index backing schedual.helper.AppointmentPager: pages seek on (Start, Appointment_ID) in either direction.
+CREATE INDEX idx_appointments_start_id ON appointments (Start, Appointment_ID);
+
+-- Range indexes backing schedual.helper.SeriesQueries: series whose span overlaps the range, and occurrences moved into it.
+CREATE INDEX idx_series_start_last ON appointment_series (Start, Last_Start);
+CREATE INDEX idx_series_exceptions_start ON series_exceptions (Start);
+
+-- Last_Update indexes backing schedual.helper.ChangeFeed: each poll range-scans the rows updated since its watermark.
+CREATE INDEX idx_appointments_last_update ON appointments (Last_Update);
+CREATE INDEX idx_customers_last_update ON customers (Last_Update);
+CREATE INDEX idx_series_last_update ON appointment_series (Last_Update);
+
+-- Range index backing schedual.helper.ChangeFeed: each poll reads its table's tombstones written since its watermark.
+CREATE INDEX idx_deleted_rows_table_time ON deleted_rows (Table_Name, Deleted_At);
@@ -0,0 +1,130 @@
+-- The client_schedule schema, runnable on MySQL 8 and on H2 in MySQL mode.
+-- Used by the load harness and the service tests to create an embedded database; appointments_indexes.sql is applied after it.
+-- An existing client_schedule database needs only the recurring series and deleted_rows tables at the end.
+CREATE TABLE IF NOT EXISTS countries (
+    Country_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Country VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS first_level_divisions (
+    Division_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Division VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Country_ID INT NOT NULL,
+    CONSTRAINT fk_divisions_country FOREIGN KEY (Country_ID) REFERENCES countries (Country_ID)
+);
+
+CREATE TABLE IF NOT EXISTS customers (
+    Customer_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Customer_Name VARCHAR(50),
+    Address VARCHAR(100),
+    Postal_Code VARCHAR(50),
+    Phone VARCHAR(50),
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Division_ID INT NOT NULL,
+    CONSTRAINT fk_customers_division FOREIGN KEY (Division_ID) REFERENCES first_level_divisions (Division_ID)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    User_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    User_Name VARCHAR(50) UNIQUE,
+    Password TEXT,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS contacts (
+    Contact_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Contact_Name VARCHAR(50),
+    Email VARCHAR(50)
+);
+
+CREATE TABLE IF NOT EXISTS appointments (
+    Appointment_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    CONSTRAINT fk_appointments_customer FOREIGN KEY (Customer_ID) REFERENCES customers (Customer_ID),
+    CONSTRAINT fk_appointments_user FOREIGN KEY (User_ID) REFERENCES users (User_ID),
+    CONSTRAINT fk_appointments_contact FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID)
+);
+
+-- Recurring appointments: one row per series, holding its first occurrence and its recurrence rule. Occurrences are
+-- expanded in memory for the date range being read, never stored. Last_Start is the start of the final occurrence,
+-- so a range read skips series that ended before the range.
+CREATE TABLE IF NOT EXISTS appointment_series (
+    Series_ID INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME NOT NULL,
+    End DATETIME NOT NULL,
+    Frequency VARCHAR(10) NOT NULL,
+    Repeat_Interval INT NOT NULL DEFAULT 1,
+    Until_Date DATE,
+    Occurrences INT,
+    Last_Start DATETIME NOT NULL,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    CONSTRAINT fk_series_customer FOREIGN KEY (Customer_ID) REFERENCES customers (Customer_ID) ON DELETE CASCADE,
+    CONSTRAINT fk_series_user FOREIGN KEY (User_ID) REFERENCES users (User_ID),
+    CONSTRAINT fk_series_contact FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID)
+);
+
+-- Edited and cancelled occurrences of a series, keyed by the start the occurrence had before it was changed.
+-- Cancelled rows leave the other columns null; edited rows hold every value of the occurrence.
+CREATE TABLE IF NOT EXISTS series_exceptions (
+    Series_ID INT NOT NULL,
+    Original_Start DATETIME NOT NULL,
+    Cancelled BOOLEAN NOT NULL DEFAULT FALSE,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Customer_ID INT,
+    User_ID INT,
+    Contact_ID INT,
+    Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    PRIMARY KEY (Series_ID, Original_Start),
+    CONSTRAINT fk_exceptions_series FOREIGN KEY (Series_ID) REFERENCES appointment_series (Series_ID) ON DELETE CASCADE
+);
+
+-- Tombstones of deleted appointments and customers, read by schedual.helper.ChangeFeed so other sessions drop deleted
+-- rows without checking every ID they hold. Written by schedual.helper.DeletionJournal, pruned after a week.
+CREATE TABLE IF NOT EXISTS deleted_rows (
+    Table_Name VARCHAR(50) NOT NULL,
+    Row_ID INT NOT NULL,
+    Deleted_At TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (Table_Name, Row_ID)
+);
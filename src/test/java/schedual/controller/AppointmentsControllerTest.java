@@ -0,0 +1,154 @@
+package schedual.controller;
+
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ChangeListener;
+import javafx.collections.transformation.FilteredList;
+import javafx.util.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import schedual.helper.AppointmentPager;
+import schedual.helper.DataAccessService;
+import schedual.model.Appointment;
+import schedual.service.AppointmentService;
+
+import java.lang.reflect.Field;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks the AppointmentsController filter pipeline: it is built once, loadTable only replaces the rows, and the
+ * current search keeps filtering the rows of each newly loaded range.
+ * <p> Runs without a database or a started FX toolkit. Pages come from FixedAppointments, outcomes are published on the
+ * completing thread, and the controller is created without a search delay, so every step finishes before it returns.
+ * @author Ben Porter
+ */
+class AppointmentsControllerTest {
+
+    /** A Search Bar text property that counts the change listeners registered on it. */
+    private static final class CountingProperty extends SimpleStringProperty {
+        private int listeners;
+
+        @Override
+        public void addListener(ChangeListener<? super String> listener) {
+            listeners++;
+            super.addListener(listener);
+        }
+
+        @Override
+        public void removeListener(ChangeListener<? super String> listener) {
+            listeners--;
+            super.removeListener(listener);
+        }
+    }
+
+    /** Serves the pages and counts of a fixed list of appointments, kept in start order, without a database. */
+    private static final class FixedAppointments extends AppointmentService {
+        private final List<Appointment> appointments;
+
+        private FixedAppointments(List<Appointment> appointments) {
+            super(Runnable::run);
+            this.appointments = appointments;
+        }
+
+        @Override
+        public CompletableFuture<List<Appointment>> firstPage(AppointmentPager pager) {
+            List<Appointment> page = new ArrayList<>();
+            for (Appointment appointment : appointments) {
+                if (pager.inRange(appointment) && page.size() < pager.getPageSize()) {
+                    page.add(appointment);
+                }
+            }
+            return CompletableFuture.completedFuture(page);
+        }
+
+        @Override
+        public CompletableFuture<Integer> count(AppointmentPager pager) {
+            return CompletableFuture.completedFuture((int) appointments.stream().filter(pager::inRange).count());
+        }
+    }
+
+    private static final List<Appointment> APPOINTMENTS = List.of(
+            appointment(1, "Budget Review", LocalDateTime.of(2023, 1, 3, 9, 0)),
+            appointment(2, "Roadmap", LocalDateTime.of(2023, 1, 4, 9, 0)),
+            appointment(3, "Budget Sign-Off", LocalDateTime.of(2023, 1, 20, 9, 0)),
+            appointment(4, "Audit", LocalDateTime.of(2023, 1, 21, 9, 0)),
+            appointment(5, "budget planning", LocalDateTime.of(2023, 2, 6, 9, 0)));
+
+    private AppointmentsController controller;
+    private CountingProperty searchText;
+
+    @BeforeEach
+    void createController() {
+        DataAccessService.publishOn(Runnable::run);
+        controller = new AppointmentsController(new FixedAppointments(APPOINTMENTS), Duration.ZERO);
+        searchText = new CountingProperty();
+        controller.bindSearch(searchText);
+    }
+
+    @AfterEach
+    void restorePublishing() {
+        DataAccessService.publishOn(Platform::runLater);
+    }
+
+    @Test
+    void loadTableKeepsTheFilterPipeline() throws ReflectiveOperationException {
+        FilteredList<Appointment> filtered = filteredAppointments(controller);
+        Object rows = filtered.getSource();
+
+        controller.loadTable(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 31));
+        controller.loadTable(LocalDate.of(2023, 1, 2), LocalDate.of(2023, 1, 8));
+        controller.loadTable(LocalDate.of(1999, 1, 1), LocalDate.of(2051, 1, 1)); // All
+
+        assertSame(filtered, filteredAppointments(controller));
+        assertSame(rows, filteredAppointments(controller).getSource());
+        assertEquals(1, searchText.listeners);
+    }
+
+    @Test
+    void searchFiltersEachLoadedRange() throws ReflectiveOperationException {
+        controller.loadTable(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 1, 31));
+        assertEquals(List.of(1, 2, 3, 4), ids(filteredAppointments(controller)));
+
+        searchText.set("budget");
+        assertEquals(List.of(1, 3), ids(filteredAppointments(controller)));
+
+        controller.loadTable(LocalDate.of(2023, 1, 15), LocalDate.of(2023, 2, 28));
+        assertEquals(List.of(3, 5), ids(filteredAppointments(controller)));
+        assertEquals(List.of(3, 4, 5), ids(filteredAppointments(controller).getSource()));
+
+        searchText.set("");
+        assertEquals(List.of(3, 4, 5), ids(filteredAppointments(controller)));
+    }
+
+    private static Appointment appointment(int id, String title, LocalDateTime start) {
+        long startMillis = Timestamp.valueOf(start).getTime();
+        return new Appointment(id, title, "Description", "Location", "Type", startMillis,
+                startMillis + TimeUnit.HOURS.toMillis(1), 1, 1, 1);
+    }
+
+    private static List<Integer> ids(List<? extends Appointment> appointments) {
+        List<Integer> ids = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            ids.add(appointment.getAppointment_ID());
+        }
+        return ids;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static FilteredList<Appointment> filteredAppointments(AppointmentsController controller)
+            throws ReflectiveOperationException {
+        Field field = AppointmentsController.class.getDeclaredField("filteredAppointments");
+        field.setAccessible(true);
+        return (FilteredList<Appointment>) field.get(controller);
+    }
+}
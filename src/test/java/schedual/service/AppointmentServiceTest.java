@@ -0,0 +1,180 @@
+package schedual.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import schedual.helper.AppointmentPager;
+import schedual.helper.ConflictChecker;
+import schedual.helper.JDBC;
+import schedual.helper.QueryExecutor;
+import schedual.helper.RowMappers;
+import schedual.helper.Validation;
+import schedual.model.Appointment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the AppointmentService against an embedded H2 database in MySQL mode, created from
+ * client_schedule_schema.sql: a write, a conflict check, a page of the Appointments view and the re-read of a
+ * text-ordered window after a row changed.
+ * <p> The service runs on the calling thread, so every future has completed when it is returned. Each test uses its own
+ * day, so the tests do not see each other's appointments.
+ * @author Ben Porter
+ */
+class AppointmentServiceTest {
+    private static final String URL = "jdbc:h2:mem:appointment_service_test;MODE=MySQL;DATABASE_TO_LOWER=TRUE;" +
+            "CASE_INSENSITIVE_IDENTIFIERS=TRUE;NON_KEYWORDS=END,YEAR,MONTH,VALUE,KEY,USER;DB_CLOSE_DELAY=-1";
+    private static final String SCHEMA = "/schedual/sql/client_schedule_schema.sql";
+
+    private final AppointmentService service = new AppointmentService(Runnable::run);
+
+    @BeforeAll
+    static void createDatabase() throws SQLException, IOException {
+        JDBC.configure(URL, JDBC.Dialect.of(URL));
+        JDBC.open("sa", "");
+        try (Connection connection = JDBC.borrowConnection()) {
+            for (String statement : statements(SCHEMA)) {
+                QueryExecutor.update(connection, statement);
+            }
+            QueryExecutor.update(connection, "INSERT INTO countries (Country) VALUES ('U.S')");
+            QueryExecutor.update(connection, "INSERT INTO first_level_divisions (Division, Country_ID) VALUES ('Arizona', 1)");
+            QueryExecutor.update(connection, "INSERT INTO users (User_Name, Password) VALUES ('test', 'test'), ('admin', 'admin')");
+            QueryExecutor.update(connection, "INSERT INTO contacts (Contact_Name, Email) VALUES ('Anika Costa', 'acoasta@company.com'), " +
+                    "('Daniel Garcia', 'dgarcia@company.com')");
+            QueryExecutor.update(connection, "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Division_ID) " +
+                    "VALUES ('Daddy Warbucks', '1919 Boardwalk', '01291', '869-908-1875', 1), " +
+                    "('Lady McAnderson', '2 Wonder Way', 'AF19B', '11-445-910-2135', 1)");
+        }
+    }
+
+    @AfterAll
+    static void closeDatabase() {
+        JDBC.closeConnection();
+    }
+
+    @Test
+    void addWritesTheAppointment() throws SQLException {
+        LocalDateTime start = opening(LocalDate.of(2030, 3, 4)).plusHours(1);
+        int id = service.add(appointment("Kick-Off", start, 1, 1, 1)).join();
+
+        Appointment stored;
+        try (Connection connection = JDBC.borrowConnection()) {
+            stored = QueryExecutor.queryFirst(connection, "SELECT * FROM appointments WHERE Appointment_ID = ?",
+                    RowMappers::appointment, id);
+        }
+        assertEquals("Kick-Off", stored.getTitle());
+        assertEquals(start, stored.getStartDateTime());
+        assertEquals(1, stored.getCustomerID());
+    }
+
+    @Test
+    void addRejectsAConflict() throws SQLException {
+        LocalDateTime start = opening(LocalDate.of(2030, 3, 5)).plusHours(2);
+        int id = service.add(appointment("Review", start, 1, 1, 1)).join();
+
+        try (Connection connection = JDBC.borrowConnection()) {
+            assertEquals(List.of(id), ConflictChecker.findConflicts(connection, start.plusMinutes(15), start.plusMinutes(45),
+                    2, 1, 2, -1)); // same contact
+            assertEquals(List.of(), ConflictChecker.findConflicts(connection, start.plusMinutes(30), start.plusMinutes(60),
+                    1, 1, 1, -1)); // starts as the other ends
+        }
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> service.add(appointment("Overlap", start.plusMinutes(15), 2, 2, 1)).join()); // same customer
+        assertInstanceOf(RuntimeException.class, rejected.getCause());
+        assertEquals(1, countOn(start.toLocalDate()));
+    }
+
+    @Test
+    void firstPageReadsTheRange() {
+        LocalDate day = LocalDate.of(2030, 3, 6);
+        LocalDateTime start = opening(day).plusHours(1);
+        int later = service.add(appointment("Later", start.plusHours(2), 1, 1, 1)).join();
+        int earlier = service.add(appointment("Earlier", start, 2, 2, 2)).join();
+
+        AppointmentPager pager = new AppointmentPager(day, day.plusDays(1), "start", true, 50);
+        assertEquals(List.of(earlier, later), ids(service.firstPage(pager).join()));
+        assertEquals(2, service.count(pager).join());
+    }
+
+    @Test
+    void windowRereadsFromTheFirstLoadedRow() {
+        LocalDate day = LocalDate.of(2030, 3, 7);
+        LocalDateTime start = opening(day).plusHours(1);
+        int alpha = service.add(appointment("Alpha", start, 1, 1, 1)).join();
+        int bravo = service.add(appointment("Bravo", start, 2, 2, 2)).join();
+        int charlie = service.add(appointment("Charlie", start.plusHours(2), 1, 1, 1)).join();
+
+        AppointmentPager pager = new AppointmentPager(day, day.plusDays(1), "title", true, 2);
+        List<Appointment> loaded = service.window(pager, null, 3).join();
+        assertEquals(List.of(alpha, bravo, charlie), ids(loaded));
+
+        Appointment renamed = appointment("delta", start, 1, 1, 1);
+        renamed.setAppointment_ID(alpha);
+        service.update(renamed).join();
+        assertEquals(List.of(bravo, charlie, alpha), ids(service.window(pager, loaded.get(0), 3).join()));
+        assertEquals(List.of(bravo, charlie), ids(service.window(pager, loaded.get(1), 2).join()));
+    }
+
+    private static List<Integer> ids(List<Appointment> appointments) {
+        List<Integer> ids = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            ids.add(appointment.getAppointment_ID());
+        }
+        return ids;
+    }
+
+    private static LocalDateTime opening(LocalDate day) {
+        return Validation.businessHours(day)[0];
+    }
+
+    private static Appointment appointment(String title, LocalDateTime start, int customerID, int userID, int contactID) {
+        return new Appointment(0, title, "Description", "Phoenix, Arizona", "Planning Session",
+                Timestamp.valueOf(start).getTime(), Timestamp.valueOf(start.plusMinutes(30)).getTime(),
+                customerID, userID, contactID);
+    }
+
+    private int countOn(LocalDate day) {
+        return service.count(new AppointmentPager(day, day.plusDays(1), "start", true, 50)).join();
+    }
+
+    /**
+     * Returns the statements of a schema script, without comments.
+     */
+    private static List<String> statements(String script) throws IOException {
+        String text;
+        try (InputStream in = AppointmentServiceTest.class.getResourceAsStream(script)) {
+            if (in == null) {
+                throw new IOException("Schema Script Not Found: " + script);
+            }
+            text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        for (String line : text.split("\\R")) {
+            if (line.trim().startsWith("--")) {
+                continue;
+            }
+            statement.append(line).append('\n');
+            if (line.trim().endsWith(";")) {
+                String sql = statement.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                statement.setLength(0);
+            }
+        }
+        return statements;
+    }
+}